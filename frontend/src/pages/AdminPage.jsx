@@ -13,6 +13,8 @@ import AdminAddProductForm from '../components/AdminAddProductForm';
 const AdminPage = () => {
   const [products, setProducts] = useState([]);
   const [orders, setOrders] = useState([]);
+  const [ordersCursor, setOrdersCursor] = useState(null);
+  const [loadingOrders, setLoadingOrders] = useState(false);
   const [loading, setLoading] = useState(true);
   const [activeTab, setActiveTab] = useState('products');
   const [showProductForm, setShowProductForm] = useState(false);
@@ -29,6 +31,13 @@ const AdminPage = () => {
     fetchData(productPage);
   }, [productPage]);
 
+  // Objednávky se načtou při otevření záložky, vždy od první stránky
+  useEffect(() => {
+    if (activeTab === 'orders') {
+      fetchOrders();
+    }
+  }, [activeTab]);
+
   const fetchData = async (page = 0) => {
     setLoading(true);
     try {
@@ -39,25 +48,36 @@ const AdminPage = () => {
       } else {
         setProducts([]);
       }
-
-      // Fetch orders only if the tab is active or initially
-      if (activeTab === 'orders') {
-        const ordersData = await getAllOrders();
-        if (ordersData?.content) {
-          setOrders(ordersData.content);
-        } else {
-          setOrders([]);
-        }
-      }
     } catch (error) {
       console.error('Chyba při načítání dat:', error);
       setProducts([]);
-      setOrders([]);
     } finally {
       setLoading(false);
     }
   };
 
+  /**
+   * Načte stránku objednávek. Bez kurzoru načte první stránku, s kurzorem
+   * (nextCursor z API) připojí další stránku k již načteným.
+   */
+  const fetchOrders = async (after) => {
+    setLoadingOrders(true);
+    try {
+      const ordersData = await getAllOrders(after);
+      const items = ordersData?.items ?? [];
+      setOrders((prev) => (after ? [...prev, ...items] : items));
+      setOrdersCursor(ordersData?.nextCursor ?? null);
+    } catch (error) {
+      console.error('Chyba při načítání objednávek:', error);
+      if (!after) {
+        setOrders([]);
+        setOrdersCursor(null);
+      }
+    } finally {
+      setLoadingOrders(false);
+    }
+  };
+
   const handleProductSubmit = async (e) => {
     e.preventDefault();
     try {
@@ -248,12 +268,15 @@ const AdminPage = () => {
         {activeTab === 'orders' && (
           <div>
             <h2 className="text-2xl font-semibold mb-4">Všechny objednávky</h2>
-            {orders.length > 0 ? (
+            {loadingOrders && orders.length === 0 ? (
+              <LoadingSpinner />
+            ) : orders.length > 0 ? (
               <div className="overflow-x-auto">
                 <table className="w-full card">
                   <thead>
                     <tr className="border-b">
                       <th className="text-left py-2">ID</th>
+                      <th className="text-left py-2">Uživatel</th>
                       <th className="text-left py-2">Produkt</th>
                       <th className="text-left py-2">Množství</th>
                       <th className="text-left py-2">Cena</th>
@@ -262,16 +285,19 @@ const AdminPage = () => {
                   </thead>
                   <tbody>
                     {orders.map((order) => {
-                      const price = typeof order.Price === 'string'
-                        ? Number.parseFloat(order.Price)
-                        : order.Price || order.totalPrice || 0;
-                      const totalPrice = price * (order.quantity || 1);
+                      const items = order.items ?? [];
+                      const totalPrice = Number.parseFloat(order.totalPrice ?? 0);
 
                       return (
                         <tr key={order.id} className="border-b">
                           <td className="py-2">#{order.id}</td>
-                          <td className="py-2">{order.productName}</td>
-                          <td className="py-2">{order.quantity}</td>
+                          <td className="py-2">{order.username}</td>
+                          <td className="py-2">
+                            {items.map((item) => item.productName).join(', ')}
+                          </td>
+                          <td className="py-2">
+                            {items.reduce((sum, item) => sum + item.quantity, 0)}
+                          </td>
                           <td className="py-2">{totalPrice.toFixed(2)} Kč</td>
                           <td className="py-2">
                             {formatDate(order.createdAt)}
@@ -281,6 +307,17 @@ const AdminPage = () => {
                     })}
                   </tbody>
                 </table>
+                {ordersCursor !== null && (
+                  <div className="flex justify-center mt-6">
+                    <button
+                      onClick={() => fetchOrders(ordersCursor)}
+                      disabled={loadingOrders}
+                      className="btn-secondary"
+                    >
+                      {loadingOrders ? 'Načítání…' : 'Načíst další'}
+                    </button>
+                  </div>
+                )}
               </div>
             ) : (
               <p className="text-gray-500 text-center py-8">
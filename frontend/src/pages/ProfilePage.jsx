@@ -7,13 +7,16 @@ import LoadingSpinner from '../components/LoadingSpinner';
 const ProfilePage = () => {
   const { user } = useAuth();
   const [orders, setOrders] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     const fetchOrders = async () => {
       try {
         const data = await getUserOrders();
-        setOrders(data);
+        setOrders(data?.items ?? []);
+        setNextCursor(data?.nextCursor ?? null);
       } catch (error) {
         console.error('Chyba při načítání objednávek:', error);
       } finally {
@@ -24,6 +27,20 @@ const ProfilePage = () => {
     fetchOrders();
   }, []);
 
+  // Další stránka navazuje na poslední načtenou objednávku (kurzor z API)
+  const loadMoreOrders = async () => {
+    setLoadingMore(true);
+    try {
+      const data = await getUserOrders(nextCursor);
+      setOrders((prev) => [...prev, ...(data?.items ?? [])]);
+      setNextCursor(data?.nextCursor ?? null);
+    } catch (error) {
+      console.error('Chyba při načítání objednávek:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const formatDate = (dateString) => {
     if (!dateString) return 'N/A';
     const date = new Date(dateString);
@@ -78,16 +95,18 @@ const ProfilePage = () => {
                 </thead>
                 <tbody>
                   {orders.map((order) => {
-                    const price = typeof order.Price === 'string' 
-                      ? Number.parseFloat(order.Price)
-                      : order.Price || order.totalPrice || 0;
-                    const totalPrice = price * (order.quantity || 1);
+                    const items = order.items ?? [];
+                    const totalPrice = Number.parseFloat(order.totalPrice ?? 0);
 
                     return (
                       <tr key={order.id} className="border-b">
                         <td className="py-2">#{order.id}</td>
-                        <td className="py-2">{order.productName}</td>
-                        <td className="py-2">{order.quantity}</td>
+                        <td className="py-2">
+                          {items.map((item) => item.productName).join(', ')}
+                        </td>
+                        <td className="py-2">
+                          {items.reduce((sum, item) => sum + item.quantity, 0)}
+                        </td>
                         <td className="py-2">{totalPrice.toFixed(2)} Kč</td>
                         <td className="py-2">
                           {formatDate(order.createdAt)}
@@ -97,6 +116,17 @@ const ProfilePage = () => {
                   })}
                 </tbody>
               </table>
+              {nextCursor !== null && (
+                <div className="flex justify-center mt-6">
+                  <button
+                    onClick={loadMoreOrders}
+                    disabled={loadingMore}
+                    className="btn-secondary"
+                  >
+                    {loadingMore ? 'Načítání…' : 'Načíst další'}
+                  </button>
+                </div>
+              )}
             </div>
           ) : (
             <p className="text-gray-500 text-center py-8">
@@ -11,10 +11,30 @@ const api = axios.create({
   xsrfHeaderName: 'X-XSRF-TOKEN', // Hlavička, do které se má CSRF vložit (default Spring Security)
 });
 
+// Sdílený příslib obnovy - souběžné 401 odpovědi čekají na jediný refresh
+let refreshPromise = null;
+
 // Interceptor pro zpracování chyb
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
+  async (error) => {
+    const original = error.config;
+    const isRefreshCall = original?.url?.includes('/auth/refresh');
+
+    if (error.response?.status === 401 && original && !original._retry && !isRefreshCall) {
+      // Access token vypršel - zkusí ho obnovit pomocí refresh tokenu (bez zadání hesla)
+      original._retry = true;
+      try {
+        refreshPromise = refreshPromise || api.post('/auth/refresh').finally(() => {
+          refreshPromise = null;
+        });
+        await refreshPromise;
+        return api(original);
+      } catch {
+        // Refresh selhal - pokračuje odhlášením níže
+      }
+    }
+
     if (error.response?.status === 401) {
       // Token je neplatný nebo vypršel - cookie bude smazána backendem
       localStorage.removeItem('user');
@@ -9,18 +9,22 @@ export const createOrder = async (orderData) => {
 };
 
 /**
- * Získání objednávek přihlášeného uživatele
+ * Získání stránky objednávek přihlášeného uživatele (od nejnovějších)
+ * @param {number} [after] - nextCursor z předchozí stránky, bez něj první stránka
+ * @returns {Promise<{items: Array, nextCursor: number|null}>}
  */
-export const getUserOrders = async () => {
-  const response = await api.get('/orders');
+export const getUserOrders = async (after) => {
+  const response = await api.get('/orders', { params: { after } });
   return response.data;
 };
 
 /**
- * Získání všech objednávek (pouze ADMIN)
+ * Získání stránky všech objednávek (pouze ADMIN, od nejnovějších)
+ * @param {number} [after] - nextCursor z předchozí stránky, bez něj první stránka
+ * @returns {Promise<{items: Array, nextCursor: number|null}>}
  */
-export const getAllOrders = async () => {
-  const response = await api.get('/orders/all');
+export const getAllOrders = async (after) => {
+  const response = await api.get('/orders/all', { params: { after } });
   return response.data;
 };
 
@@ -1,19 +1,18 @@
 package krematos.component;
 
-import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import krematos.event.UserRegisteredEvent;
 import krematos.service.email.EmailService;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
 @Component
-@NoArgsConstructor
+@RequiredArgsConstructor
 public class UserEventListener {
-    private EmailService emailService;
-    @Async // Běží v jiném vlákně
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT) // Až když je user bezpečně v DB
+    private final EmailService emailService;
+    // Ještě v transakci registrace - e-mail se do outboxu zapíše právě tehdy, když se uloží uživatel
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
     public void handleUserRegistered(UserRegisteredEvent event) {
         emailService.sendWelcomeEmail(
                 event.user().getEmail(),
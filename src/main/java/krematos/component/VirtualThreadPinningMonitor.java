@@ -0,0 +1,126 @@
+package krematos.component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Diagnostika "přišpendlení" virtuálních vláken - virtuální vlákno, které blokuje uvnitř
+ * {@code synchronized} (typicky JDBC driver, Hibernate, JavaMail), drží po celou dobu i nosné
+ * platformní vlákno a ostatní virtuální vlákna nemají kde běžet.
+ * <p>
+ * Odebírá JFR událost {@code jdk.VirtualThreadPinned} (delší než {@code pinned-threshold}), měří ji
+ * časovačem {@code virtual.threads.pinned} a pro každé nové místo (první rámec mimo JDK) jednou
+ * zaloguje zkrácený stack trace. Aktivní jen v režimu {@code spring.threads.virtual.enabled=true};
+ * pro jednorázový rozbor lze JVM spustit i s {@code -Djdk.tracePinnedThreads=short}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_SITES = 100; // Ochrana paměti při patologickém množství míst
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final Timer pinned;
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${app.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+        this.pinned = Timer.builder("virtual.threads.pinned")
+                .description("Doba, po kterou virtuální vlákno blokovalo přišpendlené k nosnému vláknu")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Sledování přišpendlených virtuálních vláken spuštěno (práh {})", threshold);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Počet přišpendlení podle místa v kódu od startu aplikace.
+     */
+    public Map<String, Long> pinnedSites() {
+        return sites.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String site = pinningSite(frames);
+
+        LongAdder count = sites.get(site);
+        if (count == null) {
+            if (sites.size() >= MAX_SITES) {
+                return;
+            }
+            LongAdder created = new LongAdder();
+            count = sites.putIfAbsent(site, created);
+            if (count == null) {
+                count = created;
+                log.warn("Virtuální vlákno blokovalo {} ms přišpendlené v {}:\n\t{}",
+                        event.getDuration().toMillis(), site, describe(frames));
+            }
+        }
+        count.increment();
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * První rámec mimo JDK - kód (aplikace nebo knihovny), který drží monitor.
+     */
+    static String pinningSite(List<RecordedFrame> frames) {
+        return frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(VirtualThreadPinningMonitor::frameName)
+                .filter(name -> !name.startsWith("java.") && !name.startsWith("jdk.") && !name.startsWith("sun."))
+                .findFirst()
+                .orElse("unknown");
+    }
+
+    private static String describe(List<RecordedFrame> frames) {
+        return frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> frameName(frame) + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n\t"));
+    }
+
+    private static String frameName(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+}
@@ -1,26 +1,133 @@
 package krematos.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Oddělené omezené pooly pro jednotlivé typy práce - zahlcení jednoho (např. hromadné e-maily)
+ * neodmítá úlohy ostatních. Každý pool má vlastní politiku odmítnutí a metriky
+ * (viz {@link InstrumentedExecutors}).
+ * <ul>
+ *   <li>{@code taskExecutor} - výchozí pro {@code @Async} bez kvalifikátoru</li>
+ *   <li>{@code emailExecutor} - odesílání e-mailů; při plné frontě odešle vlákno volajícího</li>
+ *   <li>{@code analyticsExecutor} - přestavby analytických struktur; při plné frontě se úloha zahodí</li>
+ *   <li>{@code imageExecutor} - práce se soubory obrázků; při plné frontě ji provede vlákno volajícího</li>
+ *   <li>{@code exportExecutor} - streamované odpovědi Spring MVC (exporty); při plné frontě 503</li>
+ *   <li>{@code importExecutor} - hromadné importy produktů; při plné frontě 503</li>
+ *   <li>{@code taskScheduler} - {@code @Scheduled} údržba (úklid tokenů, relay outboxu, snímky...)</li>
+ * </ul>
+ * <p>
+ * Režim virtuálních vláken ({@code spring.threads.virtual.enabled=true}, výchozí vypnuto) přepne Tomcat
+ * na virtuální vlákno na požadavek (zařídí Spring Boot) a pooly s blokujícím I/O ({@code taskExecutor},
+ * {@code emailExecutor}, {@code imageExecutor}, {@code exportExecutor}, {@code importExecutor}) na virtuální pracovní vlákna. Velikosti poolů pak už
+ * nešetří vlákna OS, jen omezují souběh vůči SMTP a disku; skutečnou hranicí pro požadavky se stává
+ * pool JDBC spojení. {@code analyticsExecutor} (výpočetní přestavby) a {@code taskScheduler} zůstávají
+ * na platformních vláknech. Zablokování nosného vlákna v {@code synchronized} hlídá
+ * {@link krematos.component.VirtualThreadPinningMonitor}.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean virtualThreads;
+
+    public AsyncConfig(ObjectProvider<MeterRegistry> meterRegistry,
+                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.virtualThreads = virtualThreads;
+    }
+
     /**
      * Nastavení vlastního Executoru pro asynchronní úlohy.
      * @return
      */
     @Bean
     public Executor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(4);
-        executor.setMaxPoolSize(8);
-        executor.setQueueCapacity(25);
-        executor.setThreadNamePrefix("AsyncExecutor-");
-        executor.initialize();
+        ThreadPoolTaskExecutor executor = InstrumentedExecutors.threadPool(meterRegistry, "taskExecutor", "AsyncExecutor-",
+                4, 8, 25, new ThreadPoolExecutor.AbortPolicy());
+        executor.setVirtualThreads(virtualThreads);
+        return executor;
+    }
+
+    /**
+     * E-maily čekají na SMTP - málo vláken, dlouhá fronta. Při ukončení se fronta dopracuje.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor emailExecutor(
+            @Value("${app.async.email.threads:2}") int threads,
+            @Value("${app.async.email.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = InstrumentedExecutors.threadPool(meterRegistry, "emailExecutor", "Email-",
+                threads, threads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setVirtualThreads(virtualThreads);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor analyticsExecutor(
+            @Value("${app.async.analytics.threads:1}") int threads,
+            @Value("${app.async.analytics.queue-capacity:16}") int queueCapacity) {
+        return InstrumentedExecutors.threadPool(meterRegistry, "analyticsExecutor", "Analytics-",
+                threads, threads, queueCapacity, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor imageExecutor(
+            @Value("${app.async.image.threads:2}") int threads,
+            @Value("${app.async.image.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = InstrumentedExecutors.threadPool(meterRegistry, "imageExecutor", "Image-",
+                threads, threads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setVirtualThreads(virtualThreads);
         return executor;
     }
+
+    /**
+     * Zápis streamovaných odpovědí (viz {@link WebConfig}). Každý export drží databázové spojení
+     * po celou dobu přenosu, proto jen několik současně; další požadavky dostanou 503.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor exportExecutor(
+            @Value("${app.async.export.threads:2}") int threads,
+            @Value("${app.async.export.queue-capacity:4}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = InstrumentedExecutors.threadPool(meterRegistry, "exportExecutor", "Export-",
+                threads, threads, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+        executor.setVirtualThreads(virtualThreads);
+        return executor;
+    }
+
+    /**
+     * Hromadné importy produktů (viz {@link krematos.service.product.ProductImportService}). Import zapisuje
+     * velké dávky, proto jeden po druhém; čekající importy leží na disku, ve frontě jen jejich úlohy.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importExecutor(
+            @Value("${app.async.import.threads:1}") int threads,
+            @Value("${app.async.import.queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = InstrumentedExecutors.threadPool(meterRegistry, "importExecutor", "Import-",
+                threads, threads, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+        executor.setVirtualThreads(virtualThreads);
+        return executor;
+    }
+
+    /**
+     * Plánované úlohy - výchozí Spring scheduler má jediné vlákno, takže noční přestavba
+     * by blokovala např. relay outboxu.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${app.async.scheduler.threads:2}") int threads) {
+        return InstrumentedExecutors.scheduler(meterRegistry, "taskScheduler", "Maintenance-",
+                threads, new ThreadPoolExecutor.AbortPolicy());
+    }
 }
@@ -3,7 +3,10 @@ package krematos.config;
 import jakarta.servlet.http.HttpServletRequest;
 import krematos.dto.ApiError;
 import krematos.exception.ErrorCode;
+import krematos.exception.ServiceBusyException;
 import krematos.exception.email.EmailAlreadyExistsException;
+import krematos.exception.order.IdempotencyKeyInProgressException;
+import krematos.exception.order.IdempotencyKeyMismatchException;
 import krematos.exception.product.FileStorageException;
 import krematos.exception.product.InvalidFileException;
 import krematos.exception.product.ProductImageFileIsTooBig;
@@ -13,7 +16,9 @@ import krematos.exception.token.TokenExpiredException;
 import krematos.exception.user.UserAlreadyExistException;
 import krematos.exception.user.UserNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
@@ -486,6 +491,82 @@ public class GlobalExceptionHandler {
                 .body(apiError);
     }
 
+    // 422 - Klíč Idempotency-Key použitý s jiným tělem požadavku
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<ApiError> handleIdempotencyKeyMismatch(
+            IdempotencyKeyMismatchException ex,
+            HttpServletRequest request) {
+
+        log.warn("Idempotency key reused with a different request on {}", request.getRequestURI());
+
+        ErrorCode errorCode = ErrorCode.IDEMPOTENCY_KEY_MISMATCH;
+
+        ApiError apiError = new ApiError(
+                errorCode.getStatus().value(),
+                errorCode.name(),
+                errorCode.getDefaultMessage(),
+                request.getRequestURI(),
+                Instant.now());
+
+        return ResponseEntity
+                .status(errorCode.getStatus())
+                .body(apiError);
+    }
+
+    // 409 - Požadavek se stejným klíčem Idempotency-Key se ještě zpracovává
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<ApiError> handleIdempotencyKeyInProgress(
+            IdempotencyKeyInProgressException ex,
+            HttpServletRequest request) {
+
+        log.warn("Idempotency key still in progress on {}: {}", request.getRequestURI(), ex.getMessage());
+
+        ErrorCode errorCode = ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS;
+
+        ApiError apiError = new ApiError(
+                errorCode.getStatus().value(),
+                errorCode.name(),
+                errorCode.getDefaultMessage(),
+                request.getRequestURI(),
+                Instant.now());
+
+        return ResponseEntity
+                .status(errorCode.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(apiError);
+    }
+
+    // 503 - Přetížení (plná fronta omezeného executoru)
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiError> handleServiceBusy(
+            ServiceBusyException ex,
+            HttpServletRequest request) {
+
+        log.warn("Service busy on {}: {}", request.getRequestURI(), ex.getMessage());
+
+        ErrorCode errorCode = ErrorCode.SERVICE_BUSY;
+
+        ApiError apiError = new ApiError(
+                errorCode.getStatus().value(),
+                errorCode.name(),
+                errorCode.getDefaultMessage(),
+                request.getRequestURI(),
+                Instant.now());
+
+        return ResponseEntity
+                .status(errorCode.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(apiError);
+    }
+
+    // 503 - Plný exportExecutor (streamovaná odpověď se nemohla spustit)
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ApiError> handleTaskRejected(
+            TaskRejectedException ex,
+            HttpServletRequest request) {
+        return handleServiceBusy(new ServiceBusyException("Probíhá příliš mnoho exportů", 30, ex), request);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleGlobalException(
             Exception ex,
@@ -0,0 +1,62 @@
+package krematos.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Převod ID z {@code IDENTITY} na sekvence bez změny existujících ID.
+ * <p>
+ * Schéma spravuje Hibernate ({@code ddl-auto=update}), který nové sekvence založí od 1. Před prvním
+ * požadavkem je proto na PostgreSQL posune za nejvyšší existující ID tabulky - jen pokud jsou za ním,
+ * takže opakovaný start nic nemění. Existující sloupce zůstávají (ID zadané aplikací přijmou).
+ * Jiné databáze (H2 v testech) mají schéma vždy nové.
+ */
+@Slf4j
+@Component
+public class IdSequenceMigration {
+
+    /**
+     * Sekvence a tabulka, jejíž ID přiděluje (viz {@code @SequenceGenerator} entit).
+     */
+    private record IdSequence(String sequence, String table) {
+    }
+
+    private static final List<IdSequence> SEQUENCES = List.of(
+            new IdSequence("orders_seq", "orders"),
+            new IdSequence("order_items_seq", "order_items"),
+            new IdSequence("products_seq", "products"),
+            new IdSequence("analytics_outbox_seq", "analytics_outbox"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * {@code EntityManagerFactory} jen kvůli pořadí - sekvence musí být založené, než je posuneme.
+     */
+    public IdSequenceMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        for (IdSequence id : SEQUENCES) {
+            // Názvy jsou konstanty výše, ne vstup
+            List<Long> moved = jdbcTemplate.queryForList("SELECT setval('" + id.sequence() + "', max_id) "
+                    + "FROM (SELECT MAX(id) AS max_id FROM " + id.table() + ") ids "
+                    + "WHERE max_id > (SELECT last_value FROM " + id.sequence() + ")", Long.class);
+            if (!moved.isEmpty()) {
+                log.info("Sekvence {} posunuta na nejvyšší ID tabulky {} ({})", id.sequence(), id.table(), moved.get(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package krematos.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Továrna na pojmenované omezené pooly s metrikami (tag {@code name} = jméno poolu):
+ * <ul>
+ *   <li>{@code executor.queued}, {@code executor.active}, {@code executor.pool.size} - stav poolu</li>
+ *   <li>{@code executor.queue.wait} - doba čekání úlohy ve frontě</li>
+ *   <li>{@code executor.task.duration} - doba běhu úlohy</li>
+ *   <li>{@code executor.rejected} - počet odmítnutých úloh (před uplatněním politiky odmítnutí)</li>
+ * </ul>
+ * Pool se neinicializuje zde - udělá to Spring ({@code afterPropertiesSet}); gaugy proto
+ * čtou stav přes Spring obal, ne přes konkrétní {@code ThreadPoolExecutor}.
+ */
+final class InstrumentedExecutors {
+
+    private InstrumentedExecutors() {
+    }
+
+    static ThreadPoolTaskExecutor threadPool(MeterRegistry meterRegistry, String name, String threadNamePrefix,
+                                             int corePoolSize, int maxPoolSize, int queueCapacity,
+                                             RejectedExecutionHandler rejectionPolicy) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setTaskDecorator(timing(meterRegistry, name));
+        executor.setRejectedExecutionHandler(counting(meterRegistry, name, rejectionPolicy));
+        gauge(meterRegistry, "executor.queued", name, executor, ThreadPoolTaskExecutor::getQueueSize);
+        gauge(meterRegistry, "executor.active", name, executor, ThreadPoolTaskExecutor::getActiveCount);
+        gauge(meterRegistry, "executor.pool.size", name, executor, ThreadPoolTaskExecutor::getPoolSize);
+        return executor;
+    }
+
+    static ThreadPoolTaskScheduler scheduler(MeterRegistry meterRegistry, String name, String threadNamePrefix,
+                                             int poolSize, RejectedExecutionHandler rejectionPolicy) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setTaskDecorator(timing(meterRegistry, name));
+        scheduler.setRejectedExecutionHandler(counting(meterRegistry, name, rejectionPolicy));
+        gauge(meterRegistry, "executor.queued", name, scheduler,
+                s -> s.getScheduledThreadPoolExecutor().getQueue().size()); // Naplánované (čekající) úlohy
+        gauge(meterRegistry, "executor.active", name, scheduler, ThreadPoolTaskScheduler::getActiveCount);
+        gauge(meterRegistry, "executor.pool.size", name, scheduler, ThreadPoolTaskScheduler::getPoolSize);
+        return scheduler;
+    }
+
+    // --- Helper Methods ---
+
+    private static <T> void gauge(MeterRegistry meterRegistry, String metric, String name, T executor,
+                                  ToDoubleFunction<T> value) {
+        Gauge.builder(metric, executor, value)
+                .tag("name", name)
+                .strongReference(true) // Bean žije po celou dobu běhu aplikace
+                .register(meterRegistry);
+    }
+
+    private static TaskDecorator timing(MeterRegistry meterRegistry, String name) {
+        Timer queueWait = Timer.builder("executor.queue.wait")
+                .description("Doba čekání úlohy ve frontě poolu")
+                .tag("name", name)
+                .register(meterRegistry);
+        Timer duration = Timer.builder("executor.task.duration")
+                .description("Doba běhu úlohy v poolu")
+                .tag("name", name)
+                .register(meterRegistry);
+        return task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    duration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            };
+        };
+    }
+
+    private static RejectedExecutionHandler counting(MeterRegistry meterRegistry, String name,
+                                                     RejectedExecutionHandler rejectionPolicy) {
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("Počet úloh odmítnutých plným poolem")
+                .tag("name", name)
+                .register(meterRegistry);
+        return (task, executor) -> {
+            rejected.increment();
+            rejectionPolicy.rejectedExecution(task, executor);
+        };
+    }
+}
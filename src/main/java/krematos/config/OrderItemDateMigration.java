@@ -0,0 +1,75 @@
+package krematos.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Doplnění {@code order_items.order_date} (kopie data objednávky, klíč partice) do existujících dat.
+ * <p>
+ * Hibernate ({@code ddl-auto=update}) by povinný sloupec do neprázdné tabulky nepřidal. Na PostgreSQL
+ * se proto ještě před jeho spuštěním sloupec přidá, doplní z {@code orders} a nastaví {@code NOT NULL},
+ * vše v jedné transakci. Opakovaný start nic nemění. Jiné databáze (H2 v testech) mají schéma vždy nové.
+ */
+@Slf4j
+@Component
+public class OrderItemDateMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderItemDateMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * EntityManagerFactory (a s ní Hibernate) vzniká až po migraci.
+     */
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependency() {
+            super(OrderItemDateMigration.class);
+        }
+    }
+
+    @PostConstruct
+    public void migrate() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()) || !hasOrderItems(connection)) {
+                return null; // Nová databáze - tabulky založí Hibernate rovnou se sloupcem
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE order_items ADD COLUMN IF NOT EXISTS order_date timestamp(6) with time zone");
+                int backfilled = statement.executeUpdate("UPDATE order_items oi SET order_date = o.order_date "
+                        + "FROM orders o WHERE o.id = oi.order_id AND oi.order_date IS NULL");
+                statement.execute("ALTER TABLE order_items ALTER COLUMN order_date SET NOT NULL");
+                connection.commit();
+                if (backfilled > 0) {
+                    log.info("Doplněno datum objednávky {} položkám objednávek", backfilled);
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private static boolean hasOrderItems(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT to_regclass('order_items') IS NOT NULL")) {
+            return result.next() && result.getBoolean(1);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package krematos.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import krematos.security.OffloadingPasswordEncoder;
+import krematos.security.PasswordHashCalibrator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Konfigurace hashování hesel.
+ * <p>
+ * - Cena algoritmu je pevně nastavená ({@code bcrypt.strength}, {@code argon2.iterations}) - musí být stejná
+ *   na všech uzlech. Kalibrace na cílovou latenci ({@code app.security.password.calibrate}) cenu jen doporučí
+ *   do logu; kdyby ji každý uzel při startu nastavil sám, hesla by se přehashovávala podle toho,
+ *   na který uzel přihlášení zrovna dorazí.
+ * - Hash se při přihlášení přehashuje, jen pokud má nižší cenu, než je nastavená,
+ *   nebo při změně algoritmu - nikdy ne zpět na nižší.
+ * - {@link DelegatingPasswordEncoder} umí ověřit BCrypt i Argon2 hashe; hashe bez prefixu
+ *   (staré záznamy) se ověřují BCryptem a po úspěšném přihlášení se transparentně přehashují
+ *   (viz {@code UserDetailsServiceImpl#updatePassword}).
+ * - Samotné hashování běží na vyhrazeném omezeném executoru, ne na vláknech Tomcatu.
+ */
+@Slf4j
+@Configuration
+public class PasswordHashingConfig {
+
+    private static final String BCRYPT = "bcrypt";
+    private static final String ARGON2 = "argon2";
+
+    // Argon2id parametry dle OWASP (19 MiB paměti, 1 vlákno); kalibrují se iterace
+    private static final int ARGON2_SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+    private static final int ARGON2_PARALLELISM = 1;
+    private static final int ARGON2_MEMORY_KIB = 19 * 1024;
+
+    @Value("${app.security.password.encoder:bcrypt}")
+    private String encoderId;
+
+    @Value("${app.security.password.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${app.security.password.argon2.iterations:2}")
+    private int argon2Iterations;
+
+    @Value("${app.security.password.calibrate:false}")
+    private boolean calibrate;
+
+    @Value("${app.security.password.target-hash-ms:100}")
+    private long targetHashMillis;
+
+    @Value("${app.security.password.bcrypt.max-strength:14}")
+    private int bcryptMaxStrength;
+
+    @Value("${app.security.password.argon2.max-iterations:10}")
+    private int argon2MaxIterations;
+
+    /**
+     * Vyhrazený pool pro hashování hesel.
+     * Počet vláken = počet CPU (hashování je čistě CPU práce), fronta je omezená
+     * a při jejím zaplnění se úloha odmítne (AbortPolicy).
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${app.security.password.executor.threads:0}") int threads,
+            @Value("${app.security.password.executor.queue-capacity:64}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return InstrumentedExecutors.threadPool(meterRegistry, "passwordHashingExecutor", "PasswordHash-",
+                poolSize, poolSize, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            @Qualifier("passwordHashingExecutor") ThreadPoolTaskExecutor passwordHashingExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.password.executor.timeout-ms:5000}") long timeoutMillis) {
+        return new OffloadingPasswordEncoder(
+                delegatingPasswordEncoder(),
+                passwordHashingExecutor,
+                Duration.ofMillis(timeoutMillis),
+                meterRegistry);
+    }
+
+    PasswordEncoder delegatingPasswordEncoder() {
+        if (!BCRYPT.equals(encoderId) && !ARGON2.equals(encoderId)) {
+            throw new IllegalArgumentException("Nepodporovaný algoritmus hesel: " + encoderId);
+        }
+        if (calibrate) {
+            recommendCost();
+        }
+
+        // BCrypt i Argon2 encoder přehashují jen hash s nižší cenou, než je nastavená
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(ARGON2, argon2(argon2Iterations));
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encoderId, encoders);
+        // Stávající hashe v DB nemají prefix {bcrypt} - ověří se BCryptem a při přihlášení přehashují
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
+    }
+
+    /**
+     * Změří cenu odpovídající cílové latenci na tomto stroji a jen ji zaloguje - nastavenou cenu nemění.
+     */
+    private void recommendCost() {
+        Duration target = Duration.ofMillis(targetHashMillis);
+        int configured = BCRYPT.equals(encoderId) ? bcryptStrength : argon2Iterations;
+        int recommended = BCRYPT.equals(encoderId)
+                ? PasswordHashCalibrator.calibrate(BCRYPT, BCryptPasswordEncoder::new,
+                        bcryptStrength, bcryptMaxStrength, target, 3)
+                : PasswordHashCalibrator.calibrate(ARGON2, PasswordHashingConfig::argon2,
+                        argon2Iterations, argon2MaxIterations, target, 3);
+        if (recommended > configured) {
+            log.warn("Kalibrace {} doporučuje cenu {} místo nastavené {} - změňte ji v konfiguraci všech uzlů najednou",
+                    encoderId, recommended, configured);
+        }
+    }
+
+    private static PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH,
+                ARGON2_PARALLELISM, ARGON2_MEMORY_KIB, iterations);
+    }
+}
@@ -0,0 +1,104 @@
+package krematos.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Částečné indexy katalogu produktů na PostgreSQL.
+ * <p>
+ * Katalog čte jen aktivní produkty, měkce smazané v tabulce zůstávají až do archivace. Indexy
+ * {@code WHERE active} proto obsahují jen aktivní katalog a s historií nerostou; archivace hledá
+ * v opačném částečném indexu. JPA částečné indexy popsat neumí a Hibernate ({@code ddl-auto=update})
+ * je nezaloží, vznikají proto tady - {@code CONCURRENTLY}, aby start další instance neblokoval zápisy.
+ * Přerušené {@code CREATE INDEX CONCURRENTLY} nechá index neplatný ({@code pg_index.indisvalid});
+ * {@code IF NOT EXISTS} by ho přeskočilo, takže se neplatný index zahodí a založí znovu. Souběžné
+ * starty serializuje advisory zámek - jinak by jedna instance zahodila index, který druhá právě staví.
+ * Jiné databáze (H2 v testech) je nemají.
+ * <p>
+ * Produktům neaktivním z doby před sloupcem {@code deactivated_at} se doplní datum poslední změny.
+ */
+@Slf4j
+@Component
+public class ProductIndexMigration {
+
+    private static final long LOCK_KEY = 4_224_049L; // pg_advisory_lock - zakládání indexů produktů
+
+    private static final Map<String, String> INDEXES = Map.of(
+            "idx_products_active_id", "ON products (id) WHERE active",
+            "idx_products_active_name", "ON products (name) WHERE active",
+            "idx_products_archivable", "ON products (deactivated_at) WHERE NOT active");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * {@code EntityManagerFactory} jen kvůli pořadí - tabulka a sloupce musí být založené.
+     */
+    public ProductIndexMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void migrate() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        int backfilled = jdbcTemplate.update(
+                "UPDATE products SET deactivated_at = updated_at WHERE NOT active AND deactivated_at IS NULL");
+        if (backfilled > 0) {
+            log.info("Doplněno datum deaktivace {} neaktivním produktům", backfilled);
+        }
+        // Jedno spojení mimo transakci - CONCURRENTLY v ní nejde, zámek drží session
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+                try {
+                    for (Map.Entry<String, String> index : INDEXES.entrySet()) {
+                        createIndex(connection, statement, index.getKey(), index.getValue());
+                    }
+                } finally {
+                    statement.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void createIndex(Connection connection, Statement statement, String name, String definition)
+            throws SQLException {
+        Boolean valid = isValid(connection, name);
+        if (Boolean.TRUE.equals(valid)) {
+            return;
+        }
+        if (valid != null) {
+            log.warn("Index {} je neplatný (přerušené CREATE INDEX CONCURRENTLY), zakládá se znovu", name);
+            statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+        }
+        statement.execute("CREATE INDEX CONCURRENTLY " + name + " " + definition);
+    }
+
+    /**
+     * @return {@code null}, pokud index neexistuje
+     */
+    private static Boolean isValid(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT i.indisvalid FROM pg_index i WHERE i.indexrelid = to_regclass(?)")) {
+            statement.setString(1, name);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? result.getBoolean(1) : null;
+            }
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package krematos.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.time.Duration;
+
 @Configuration
 public class WebConfig  implements WebMvcConfigurer {
     @Value("${app.upload.dir}")
@@ -13,9 +19,29 @@ public class WebConfig  implements WebMvcConfigurer {
     @Value("${app.upload.url}")
     private String uploadUrl;
 
+    @Value("${app.async.timeout:30s}")
+    private Duration asyncTimeout;
+
+    private final ObjectProvider<AsyncTaskExecutor> exportExecutor; // Ve @WebMvcTest executory nejsou
+
+    public WebConfig(@Qualifier("exportExecutor") ObjectProvider<AsyncTaskExecutor> exportExecutor) {
+        this.exportExecutor = exportExecutor;
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler(uploadUrl + "**")
                 .addResourceLocations("file:" + uploadDir + "/");
     }
+
+    /**
+     * Streamované odpovědi ({@code StreamingResponseBody}) se zapisují na omezeném {@code exportExecutor}
+     * místo výchozího executoru bez limitu vláken. Výchozí timeout je krátký; export si delší
+     * ({@code app.export.timeout}) nastavuje jen pro svůj požadavek v {@code OrderController}.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        exportExecutor.ifAvailable(configurer::setTaskExecutor);
+        configurer.setDefaultTimeout(asyncTimeout.toMillis());
+    }
 }
@@ -3,15 +3,25 @@ package krematos.controller;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import krematos.dto.EventRequest;
 import krematos.dto.TrendingProductDTO;
+import krematos.dto.analytics.ProductStatsResponse;
+import krematos.dto.analytics.UniqueVisitorsResponse;
 import krematos.service.AnalyticsService;
+import krematos.service.analytics.TrendingWindow;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @AllArgsConstructor
 @RestController
@@ -21,15 +31,68 @@ public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
 
+    /**
+     * Událost se pouze zařadí do fronty a zapíše se asynchronně v dávce - proto 202 Accepted.
+     */
     @PostMapping("/view")
     public ResponseEntity<EventRequest> logView(@RequestBody EventRequest request) {
          analyticsService.logProductView(request.userId(), request.productId());
-         return ResponseEntity.ok().build();
+         return ResponseEntity.accepted().build();
     }
 
+    /**
+     * Nákupy z objednávek se zapisují automaticky (outbox v OrderServiceImpl) - endpoint zůstává
+     * jen pro nákupy mimo e-shop; volání po vytvoření objednávky by nákup započítalo dvakrát.
+     */
     @PostMapping("/purchase")
     public ResponseEntity<EventRequest> logPurchase(@RequestBody EventRequest request) {
          analyticsService.logProductPurchase(request.userId(), request.productId(), request.price(), request.quantity());
-         return ResponseEntity.ok().build();
+         return ResponseEntity.accepted().build();
      }
+
+    /**
+     * Nejzobrazovanější produkty za poslední hodinu, den nebo týden (počítáno průběžně v paměti).
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingProductDTO>> getTrending(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(analyticsService.getTrendingProducts(TrendingWindow.fromCode(window), limit));
+    }
+
+    /**
+     * Zobrazení, nákupy, kusy a tržby produktu po dnech (UTC) - čte se z předpočítaných souhrnů.
+     */
+    @GetMapping("/products/{id}/stats")
+    public ResponseEntity<ProductStatsResponse> getProductStats(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(analyticsService.getProductStats(id, from, to));
+    }
+
+    /**
+     * Odhad počtu unikátních přihlášených návštěvníků produktu za období (HyperLogLog).
+     * Relativní směrodatná chyba je ~1,6 % (vrací se v poli {@code relativeStandardError});
+     * 95 % odhadů leží do ±3,3 % skutečné hodnoty, malé počty (stovky) jsou téměř přesné.
+     */
+    @GetMapping("/products/{id}/visitors")
+    public ResponseEntity<UniqueVisitorsResponse> getUniqueVisitors(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(analyticsService.getUniqueVisitors(id, from, to));
+    }
+
+    /**
+     * Přepočet denních souhrnů uzavřených dnů z uložených událostí.
+     * POST /api/analytics/** je veřejné kvůli logování událostí - proto explicitní kontrola role.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/products/stats/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildProductStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(Map.of("rebuilt", analyticsService.rebuildProductStats(from, to)));
+    }
 }
@@ -14,7 +14,9 @@ import krematos.dto.MessageResponse;
 import krematos.dto.user.UserInfoResponse;
 import krematos.model.BlacklistedToken;
 import krematos.model.User;
+import krematos.exception.token.InvalidTokenException;
 import krematos.service.JwtService;
+import krematos.service.RefreshTokenService;
 import krematos.service.impl.UserDetailsImpl;
 import krematos.service.user.UserService;
 import lombok.RequiredArgsConstructor;
@@ -57,6 +59,12 @@ public class AuthController {
         private final AuthenticationManager authenticationManager;
         private final UserService userService;
         private final JwtService jwtService;
+        private final RefreshTokenService refreshTokenService;
+
+        private static final String ACCESS_TOKEN_COOKIE = "accessToken";
+        private static final String REFRESH_TOKEN_COOKIE = "refreshToken";
+        private static final String REFRESH_TOKEN_PATH = "/api/auth"; // Refresh cookie se posílá jen na auth endpointy
+
         @Value("${app.frontend.url}")
         private String frontendUrl;
 
@@ -114,17 +122,14 @@ public class AuthController {
                         .collect(Collectors.toSet());
 
                 // Vytvoření Cookie pro uložení JWT tokenu
-                ResponseCookie cookie = ResponseCookie.from("accessToken", jwt)
-                                .httpOnly(true) // Frontend JS ho neuvidí (bezpečnost)
-                                .secure(false) // Na localhostu FALSE, na https://mojeapp.com TRUE
-                                .path("/") // Platí pro celou doménu
-                                .maxAge(86400) // 1 den
-                                .sameSite("Lax") // Pro localhost Lax, pro prod Strict
-                                .build();
+                ResponseCookie cookie = accessTokenCookie(jwt);
+                // Nová rodina refresh tokenů - další obnovy už nepotřebují ověření hesla
+                ResponseCookie refreshCookie = refreshTokenCookie(refreshTokenService.issue(userDetails.getUsername()));
 
                 // Odeslání odpovědi
                 return ResponseEntity.ok()
                                 .header(HttpHeaders.SET_COOKIE, cookie.toString()) // Nastavení cookie v hlavičce odpovědi
+                                .header(HttpHeaders.SET_COOKIE, refreshCookie.toString())
                                 .body(new UserInfoResponse(
                                 userDetails.getId(),
                                 userDetails.getUsername(),
@@ -133,6 +138,40 @@ public class AuthController {
                                 ));
         }
 
+        /**
+         * 🔄 Obnovení access tokenu pomocí refresh tokenu (rotace)
+         *
+         * @param refreshToken Refresh token z HttpOnly cookie
+         * @return Nový access token a nový refresh token v cookies
+         */
+        @Operation(summary = "Obnovení access tokenu", description = "Vymění refresh token z HttpOnly cookie 'refreshToken' za nový access token. " +
+                        "Refresh token je jednorázový - při každém použití se vydá nový. Opakované použití starého tokenu zneplatní celé přihlášení.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Tokeny byly obnoveny", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = "{\"message\":\"Token obnoven\"}"))),
+                        @ApiResponse(responseCode = "401", description = "Refresh token chybí, vypršel, byl zneplatněn nebo již použit", content = @Content)
+        })
+        @PostMapping("/refresh")
+        public ResponseEntity<MessageResponse> refreshToken(
+                        @Parameter(description = "Refresh token - čte se z HttpOnly cookie 'refreshToken'", required = false)
+                        @CookieValue(name = REFRESH_TOKEN_COOKIE, required = false) String refreshToken) {
+                log.info("POST /api/auth/refresh - Pokus o obnovení tokenu");
+                try {
+                        RefreshTokenService.RotatedToken rotated = refreshTokenService.rotate(refreshToken);
+                        String jwt = jwtService.generateAccessToken(rotated.username());
+
+                        return ResponseEntity.ok()
+                                        .header(HttpHeaders.SET_COOKIE, accessTokenCookie(jwt).toString())
+                                        .header(HttpHeaders.SET_COOKIE, refreshTokenCookie(rotated.refreshToken()).toString())
+                                        .body(new MessageResponse("Token obnoven"));
+                } catch (InvalidTokenException e) {
+                        log.warn("Obnovení tokenu selhalo: {}", e.getMessage());
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                        .header(HttpHeaders.SET_COOKIE, expiredCookie(ACCESS_TOKEN_COOKIE, "/").toString())
+                                        .header(HttpHeaders.SET_COOKIE, expiredCookie(REFRESH_TOKEN_COOKIE, REFRESH_TOKEN_PATH).toString())
+                                        .body(new MessageResponse("Přihlášení vypršelo, přihlaste se prosím znovu"));
+                }
+        }
+
         /**
          * ✅ Ověření JWT tokenu (např. pro FE)
          *
@@ -191,6 +230,7 @@ public class AuthController {
         })
         @PostMapping("/logout")
         public ResponseEntity<MessageResponse> logout(@CookieValue(name = "accessToken", required = false) String token,
+                        @CookieValue(name = REFRESH_TOKEN_COOKIE, required = false) String refreshToken,
                         @Parameter(hidden = true) // Skryje HttpServletRequest ve Swagger UI
                         HttpServletRequest request) {
                 log.info("POST /api/auth/logout - Uživatelský odhlášení");
@@ -198,18 +238,50 @@ public class AuthController {
                 if (token != null) {
                         jwtService.isTokenBlacklisted(token);
                 }
+                // 2. Zneplatní rodinu refresh tokenů, aby se nedala obnovit session
+                if (refreshToken != null) {
+                        refreshTokenService.revoke(refreshToken);
+                }
 
-                // 2. Vytvoří "mazací" cookie
-                ResponseCookie cookie = ResponseCookie.from("accessToken", "")
-                        .path("/")
-                        .maxAge(0) // Okamžitá smrt
-                        .httpOnly(true)
-                        .build();
+                // 3. Vytvoří "mazací" cookies
+                ResponseCookie cookie = expiredCookie(ACCESS_TOKEN_COOKIE, "/");
+                ResponseCookie refreshCookie = expiredCookie(REFRESH_TOKEN_COOKIE, REFRESH_TOKEN_PATH);
 
-                // 3. Vrátí odpověď
+                // 4. Vrátí odpověď
                 return ResponseEntity.ok()
                         .header(HttpHeaders.SET_COOKIE, cookie.toString())
+                        .header(HttpHeaders.SET_COOKIE, refreshCookie.toString())
                         .body(new MessageResponse("Úspěšné odhlášení"));
         }
 
+        // --- Helper Methods ---
+
+        private ResponseCookie accessTokenCookie(String jwt) {
+                return ResponseCookie.from(ACCESS_TOKEN_COOKIE, jwt)
+                                .httpOnly(true) // Frontend JS ho neuvidí (bezpečnost)
+                                .secure(false) // Na localhostu FALSE, na https://mojeapp.com TRUE
+                                .path("/") // Platí pro celou doménu
+                                .maxAge(86400) // 1 den
+                                .sameSite("Lax") // Pro localhost Lax, pro prod Strict
+                                .build();
+        }
+
+        private ResponseCookie refreshTokenCookie(String refreshToken) {
+                return ResponseCookie.from(REFRESH_TOKEN_COOKIE, refreshToken)
+                                .httpOnly(true)
+                                .secure(false) // Na localhostu FALSE, na https://mojeapp.com TRUE
+                                .path(REFRESH_TOKEN_PATH)
+                                .maxAge(jwtService.getRefreshTokenExpirationMillis() / 1000)
+                                .sameSite("Lax")
+                                .build();
+        }
+
+        private static ResponseCookie expiredCookie(String name, String path) {
+                return ResponseCookie.from(name, "")
+                        .path(path)
+                        .maxAge(0) // Okamžitá smrt
+                        .httpOnly(true)
+                        .build();
+        }
+
 }
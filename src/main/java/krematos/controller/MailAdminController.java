@@ -0,0 +1,44 @@
+package krematos.controller;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import krematos.model.enums.MailStatus;
+import krematos.repository.MailOutboxRepository;
+import krematos.service.email.MailOutboxDispatcher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/mail")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "E-maily", description = "API pro správu fronty odchozích e-mailů (stav, nedoručitelné zprávy)")
+public class MailAdminController {
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final MailOutboxDispatcher mailOutboxDispatcher;
+
+    /**
+     * Počet e-mailů čekajících na odeslání a nedoručitelných (po vyčerpání pokusů).
+     */
+    @GetMapping("/outbox")
+    public ResponseEntity<Map<String, Long>> getOutboxStatus() {
+        return ResponseEntity.ok(Map.of(
+                "pending", mailOutboxRepository.countByStatus(MailStatus.PENDING),
+                "dead", mailOutboxRepository.countByStatus(MailStatus.DEAD)));
+    }
+
+    /**
+     * Vrátí nedoručitelné e-maily zpět do fronty (např. po opravě nastavení SMTP).
+     */
+    @PostMapping("/dead-letters/requeue")
+    public ResponseEntity<Map<String, Integer>> requeueDeadLetters() {
+        return ResponseEntity.ok(Map.of("requeued", mailOutboxDispatcher.requeueDeadLetters()));
+    }
+}
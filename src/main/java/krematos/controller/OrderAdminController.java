@@ -0,0 +1,30 @@
+package krematos.controller;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import krematos.service.order.OrderViewProjector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/orders")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Správa objednávek", description = "API pro údržbu pohledu objednávek (historie a detail)")
+public class OrderAdminController {
+
+    private final OrderViewProjector orderViewProjector;
+
+    /**
+     * Doplní pohled objednávkám, které ho nemají (např. po importu objednávek mimo aplikaci).
+     */
+    @PostMapping("/read-model/backfill")
+    public ResponseEntity<Map<String, Integer>> backfillReadModel() {
+        return ResponseEntity.ok(Map.of("projected", orderViewProjector.backfill()));
+    }
+}
@@ -8,24 +8,36 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import krematos.model.Order;
 import krematos.model.User;
+import krematos.service.order.OrderExportFormat;
+import krematos.service.order.OrderExportService;
+import krematos.service.order.OrderIdempotencyService;
 import krematos.service.order.OrderService;
 import krematos.service.user.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import krematos.dto.order.CreateOrderRequest;
-import krematos.mapper.OrderMapper;
+import krematos.dto.order.OrderPageResponse;
 import krematos.dto.order.OrderResponse;
+import krematos.dto.order.OrderSearchCriteria;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 
 /**
  * Controller pro správu objednávek.
@@ -39,9 +51,15 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class OrderController {
 
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final OrderIdempotencyService orderIdempotencyService;
     private final UserService userService;
-    private final OrderMapper orderMapper;
+
+    @Value("${app.export.timeout:30m}")
+    private Duration exportTimeout; // Musí pokrýt export celé tabulky objednávek
 
     /**
      * 🛒 Vytvoření nové objednávky
@@ -54,17 +72,22 @@ public class OrderController {
     @Operation(summary = "Vytvoření nové objednávky", description = "Vytvoří novou objednávku pro přihlášeného uživatele. "
             +
             "Vyžaduje autentizaci (JWT token). " +
-            "Objednávka obsahuje položky z košíku, dodací informace a způsob platby.")
+            "Objednávka obsahuje položky z košíku, dodací informace a způsob platby. " +
+            "S hlavičkou Idempotency-Key vrátí opakovaný požadavek (např. po timeoutu) původní objednávku " +
+            "s hlavičkou Idempotent-Replayed: true a novou nevytvoří.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Objednávka byla úspěšně vytvořena", content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderResponse.class))),
             @ApiResponse(responseCode = "400", description = "Neplatná data v požadavku (chybí položky, neplatná adresa)", content = @Content),
             @ApiResponse(responseCode = "401", description = "Uživatel není přihlášen", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Produkt z objednávky nebyl nalezen", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Produkt z objednávky nebyl nalezen", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Požadavek se stejným Idempotency-Key se stále zpracovává", content = @Content),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key už byl použit s jiným požadavkem", content = @Content)
     })
     @PostMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     public ResponseEntity<OrderResponse> createOrder(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Detaily nové objednávky", required = true, content = @Content(schema = @Schema(implementation = CreateOrderRequest.class))) @Valid @RequestBody CreateOrderRequest request,
+            @Parameter(description = "Klíč pro bezpečné opakování požadavku (např. UUID), nejvýše 255 znaků") @RequestHeader(name = OrderIdempotencyService.HEADER, required = false) String idempotencyKey,
             @Parameter(hidden = true) @AuthenticationPrincipal UserDetails userDetails) {
         log.info("PŘIJATÝ JSON REQUEST: {}", request);
         log.info("Vytváření nové objednávky pro uživatele: {}", userDetails.getUsername());
@@ -72,55 +95,114 @@ public class OrderController {
         User currentUser = userService.findUserByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new IllegalStateException("Uživatel nenalezen: " + userDetails.getUsername()));
 
-        // Vytvoření objednávky pomocí service
-        Order createdOrder = orderService.createOrder(request, currentUser);
-        // Mapping na DTO a vrácení odpovědi
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderMapper.toDto(createdOrder));
+        // Vytvoření objednávky (nebo uložená odpověď opakovaného požadavku se stejným klíčem)
+        OrderIdempotencyService.Result result = orderIdempotencyService.createOrder(idempotencyKey, request, currentUser);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+        if (result.replayed()) {
+            response.header(IDEMPOTENT_REPLAYED_HEADER, "true");
+        }
+        return response.body(result.order());
     }
 
     /**
-     * 📋 Získání všech objednávek (pouze ADMIN)
+     * 📋 Výpis objednávek po stránkách (pouze ADMIN)
      *
-     * @return Seznam všech objednávek v systému
+     * @param after ID poslední objednávky z předchozí stránky ({@code nextCursor})
+     * @param size  velikost stránky (nejvýše 100)
+     * @return Stránka objednávek od nejnovějších a kurzor na další stránku
      */
-    @Operation(summary = "Získání všech objednávek", description = "Vrátí seznam všech objednávek v systému. " +
+    @Operation(summary = "Výpis objednávek", description = "Vrátí stránku objednávek od nejnovějších, volitelně filtrovanou " +
+            "podle období, uživatele a rozsahu celkové ceny. Další stránku získáte předáním nextCursor v parametru after. " +
             "Tento endpoint je dostupný pouze pro administrátory.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Seznam objednávek byl úspěšně vrácen", content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderResponse.class))),
+            @ApiResponse(responseCode = "200", description = "Stránka objednávek byla úspěšně vrácena", content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderPageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Neplatné filtry nebo velikost stránky", content = @Content),
             @ApiResponse(responseCode = "401", description = "Uživatel není přihlášen", content = @Content),
             @ApiResponse(responseCode = "403", description = "Uživatel nemá oprávnění (pouze ADMIN)", content = @Content)
     })
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<OrderResponse>> getAllOrders() {
-        log.info("Admin požadoval seznam všech objednávek.");
-        List<OrderResponse> orders = orderService.findAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<OrderPageResponse> getAllOrders(
+            @Parameter(description = "Objednávky vytvořené od (ISO 8601, včetně)", example = "2026-01-01T00:00:00Z") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Objednávky vytvořené do (ISO 8601, bez)", example = "2026-02-01T00:00:00Z") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "ID uživatele") @RequestParam(required = false) Long userId,
+            @Parameter(description = "Minimální celková cena") @RequestParam(required = false) BigDecimal minTotal,
+            @Parameter(description = "Maximální celková cena") @RequestParam(required = false) BigDecimal maxTotal,
+            @Parameter(description = "Kurzor z předchozí stránky") @RequestParam(required = false) Long after,
+            @Parameter(description = "Velikost stránky (nejvýše 100)") @RequestParam(defaultValue = "50") int size) {
+        log.info("Admin požadoval stránku objednávek po ID {}.", after);
+        OrderSearchCriteria criteria = new OrderSearchCriteria(from, to, userId, minTotal, maxTotal);
+        return ResponseEntity.ok(orderService.findOrders(criteria, after, size));
+    }
+
+    /**
+     * 📤 Export objednávek pro reporting (pouze ADMIN)
+     *
+     * @param format {@code ndjson} (objednávka na řádek) nebo {@code csv} (položka na řádek)
+     * @return Proud objednávek od nejnovějších; zapisuje se průběžně, bez načtení do paměti
+     */
+    @Operation(summary = "Export objednávek", description = "Streamuje objednávky odpovídající filtrům jako NDJSON " +
+            "(jedna objednávka s položkami na řádek) nebo CSV (jedna položka na řádek). " +
+            "Tento endpoint je dostupný pouze pro administrátory.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export se zapisuje do odpovědi", content = {
+                    @Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "400", description = "Neplatné filtry nebo formát", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Uživatel není přihlášen", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Uživatel nemá oprávnění (pouze ADMIN)", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Probíhá příliš mnoho exportů", content = @Content)
+    })
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "Formát exportu (ndjson, csv)") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Objednávky vytvořené od (ISO 8601, včetně)", example = "2026-01-01T00:00:00Z") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Objednávky vytvořené do (ISO 8601, bez)", example = "2026-02-01T00:00:00Z") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "ID uživatele") @RequestParam(required = false) Long userId,
+            @Parameter(description = "Minimální celková cena") @RequestParam(required = false) BigDecimal minTotal,
+            @Parameter(description = "Maximální celková cena") @RequestParam(required = false) BigDecimal maxTotal,
+            HttpServletRequest request) {
+        OrderExportFormat exportFormat = OrderExportFormat.fromCode(format);
+        OrderSearchCriteria criteria = new OrderSearchCriteria(from, to, userId, minTotal, maxTotal);
+        log.info("Admin spustil export objednávek ve formátu {}.", exportFormat.getCode());
+
+        StreamingResponseBody body = out -> orderExportService.export(criteria, exportFormat, out);
+        // Dlouhý timeout jen pro tento požadavek - StreamingResponseBody převezme timeout async požadavku
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("orders." + exportFormat.getCode())
+                        .build()
+                        .toString())
+                .body(body);
     }
 
     /**
      * 👤 Získání objednávek přihlášeného uživatele
      *
      * @param userDetails Autentizovaný uživatel
-     * @return Seznam objednávek aktuálního uživatele
+     * @param after       ID poslední objednávky z předchozí stránky ({@code nextCursor})
+     * @param size        velikost stránky (nejvýše 100)
+     * @return Stránka objednávek aktuálního uživatele od nejnovějších
      */
-    @Operation(summary = "Získání objednávek uživatele", description = "Vrátí seznam všech objednávek přihlášeného uživatele. "
+    @Operation(summary = "Získání objednávek uživatele", description = "Vrátí stránku objednávek přihlášeného uživatele "
             +
+            "od nejnovějších. Další stránku získáte předáním nextCursor v parametru after. " +
             "Vyžaduje autentizaci (JWT token).")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Seznam objednávek uživatele byl úspěšně vrácen", content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderResponse.class))),
-            @ApiResponse(responseCode = "401", description = "Uživatel není přihlášen", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Uživatel nebyl nalezen", content = @Content)
+            @ApiResponse(responseCode = "200", description = "Stránka objednávek uživatele byla úspěšně vrácena", content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderPageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Neplatná velikost stránky", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Uživatel není přihlášen", content = @Content)
     })
     @GetMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<List<OrderResponse>> getUserOrders(
-            @Parameter(hidden = true) @Valid @AuthenticationPrincipal UserDetails userDetails) {
-        User currentUser = userService.findUserByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new IllegalStateException("Uživatel nebyl nalezen po autentizaci."));
-
-        List<OrderResponse> orders = orderService.findOrdersByUser(currentUser.getUsername());
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<OrderPageResponse> getUserOrders(
+            @Parameter(hidden = true) @Valid @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "Kurzor z předchozí stránky") @RequestParam(required = false) Long after,
+            @Parameter(description = "Velikost stránky (nejvýše 100)") @RequestParam(defaultValue = "" + OrderService.HISTORY_PAGE_SIZE) int size) {
+        // Uživatelské jméno stačí z tokenu - dotaz na uživatele by byl navíc při každém načtení historie
+        return ResponseEntity.ok(orderService.findOrdersByUser(userDetails.getUsername(), after, size));
     }
 
     /**
@@ -10,21 +10,34 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.validation.Valid;
+import krematos.dto.product.ProductBulkUpdateRequest;
+import krematos.dto.product.ProductBulkUpdateResponse;
+import krematos.dto.product.ProductImportStatus;
 import krematos.dto.product.ProductResponse;
 import krematos.mapper.ProductMapper;
 import krematos.model.Product;
 import krematos.service.ProductService;
+import krematos.service.product.ProductBulkUpdateService;
+import krematos.service.product.ProductImportFormat;
+import krematos.service.product.ProductImportService;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
 
 /**
  * Controller pro správu produktů.
@@ -39,6 +52,8 @@ public class ProductController {
 
     private final ProductService productService;
     private final ProductMapper productMapper;
+    private final ProductImportService productImportService;
+    private final ProductBulkUpdateService productBulkUpdateService;
 
     /**
      * 🔍 Získání produktu podle ID
@@ -63,6 +78,29 @@ public class ProductController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * 🛒 Produkty často kupované společně s daným produktem
+     *
+     * @param id    ID produktu
+     * @param limit Maximální počet doporučení
+     * @return Seznam doporučených produktů (od nejčastěji kupovaného)
+     */
+    @Operation(summary = "Zákazníci také koupili", description = "Vrátí produkty nejčastěji kupované ve stejné objednávce "
+            +
+            "jako daný produkt. Tento endpoint je veřejný a nevyužívá autentizace.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Seznam doporučených produktů (může být prázdný)")
+    })
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<ProductResponse>> getRelatedProducts(
+            @Parameter(description = "ID produktu", required = true, example = "1") @PathVariable Long id,
+            @Parameter(description = "Maximální počet doporučení", example = "10") @RequestParam(defaultValue = "10") int limit) {
+        log.info("GET /api/products/{}/related - Doporučené produkty", id);
+        return ResponseEntity.ok(productService.findRelatedProducts(id, Math.min(limit, 50)).stream()
+                .map(productMapper::toDto)
+                .toList());
+    }
+
     /**
      * ➕ Vytvoření nového produktu (pouze ADMIN)
      *
@@ -95,6 +133,93 @@ public class ProductController {
         return new ResponseEntity<>(productMapper.toDto(savedProduct), HttpStatus.CREATED);
     }
 
+    /**
+     * 📦 Hromadný import produktů (pouze ADMIN)
+     *
+     * @param contentType Formát těla ({@code application/x-ndjson} nebo {@code text/csv})
+     * @param body        Produkty, párované podle názvu
+     * @return Stav přijaté úlohy importu
+     * @throws IOException Pokud nelze tělo požadavku uložit
+     */
+    @Operation(summary = "Hromadný import produktů", description = "Přijme produkty jako NDJSON (objekt na řádek) nebo CSV " +
+            "(hlavička name,description,price,category[,currency,active]) a importuje je asynchronně po dávkách. " +
+            "Existující produkt se stejným názvem se aktualizuje, jinak vznikne nový. " +
+            "Vrátí ID úlohy; průběh a chyby jednotlivých řádků jsou na adrese z hlavičky Location. " +
+            "Tento endpoint je dostupný pouze pro administrátory.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Import byl přijat ke zpracování", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductImportStatus.class))),
+            @ApiResponse(responseCode = "400", description = "Import je příliš velký", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Uživatel není přihlášen", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Uživatel nemá oprávnění (pouze ADMIN)", content = @Content),
+            @ApiResponse(responseCode = "415", description = "Nepodporovaný formát", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Probíhá příliš mnoho importů", content = @Content)
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping(path = "/bulk", consumes = {ProductImportFormat.NDJSON_VALUE, ProductImportFormat.CSV_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportStatus> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        ProductImportFormat format = ProductImportFormat.fromContentType(contentType);
+        log.info("POST /api/products/bulk - Hromadný import produktů ve formátu {}", format.getCode());
+        ProductImportStatus status = productImportService.submit(body, format);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/products/bulk/" + status.jobId()))
+                .body(status);
+    }
+
+    /**
+     * 📊 Stav hromadného importu produktů (pouze ADMIN)
+     *
+     * @param jobId ID úlohy importu
+     * @return Průběh a chyby importu
+     */
+    @Operation(summary = "Stav importu produktů", description = "Vrátí stav úlohy hromadného importu: počty přečtených, " +
+            "importovaných a odmítnutých řádků a chyby jednotlivých řádků. " +
+            "Tento endpoint je dostupný pouze pro administrátory.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stav úlohy", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductImportStatus.class))),
+            @ApiResponse(responseCode = "401", description = "Uživatel není přihlášen", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Uživatel nemá oprávnění (pouze ADMIN)", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Úloha neexistuje nebo už vypršela", content = @Content)
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping("/bulk/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportStatus> getImportStatus(
+            @Parameter(description = "ID úlohy importu", required = true) @PathVariable String jobId) {
+        return productImportService.status(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 🏷️ Hromadná změna ceny a aktivity produktů (pouze ADMIN)
+     *
+     * @param request     Výběr produktů a změna
+     * @param userDetails Přihlášený administrátor (pro audit)
+     * @return ID dávky, počet změněných produktů a jejich staré a nové hodnoty
+     */
+    @Operation(summary = "Hromadná změna produktů", description = "Změní cenu (pevně nebo násobitelem) nebo aktivitu " +
+            "všech produktů vybrané kategorie nebo se zadanými ID jedním příkazem. Každá změna se zaznamená do auditu. " +
+            "Tento endpoint je dostupný pouze pro administrátory.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Změna byla provedena", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductBulkUpdateResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Neplatný výběr nebo změna", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Uživatel není přihlášen", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Uživatel nemá oprávnění (pouze ADMIN)", content = @Content)
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PatchMapping(path = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductBulkUpdateResponse> bulkUpdateProducts(
+            @Valid @RequestBody ProductBulkUpdateRequest request,
+            @Parameter(hidden = true) @AuthenticationPrincipal UserDetails userDetails) {
+        log.info("PATCH /api/products/bulk - Hromadná změna produktů, kategorie: {}, ID: {}",
+                request.category(), request.ids() == null ? null : request.ids().size());
+        return ResponseEntity.ok(productBulkUpdateService.update(request, userDetails.getUsername()));
+    }
+
     /**
      * ♻️ Aktualizace existujícího produktu (pouze ADMIN)
      *
@@ -131,7 +256,8 @@ public class ProductController {
      * @param id ID produktu ke smazání
      * @return 204 No Content při úspěchu, 404 pokud produkt neexistuje
      */
-    @Operation(summary = "Smazání produktu", description = "Smaže produkt podle ID včetně všech jeho obrázků. " +
+    @Operation(summary = "Smazání produktu", description = "Odstraní produkt z katalogu (měkké smazání). Objednávky " +
+            "na něj dál odkazují; produkt i jeho obrázky po čase přesune do archivu plánovaná úloha. " +
             "Tento endpoint je dostupný pouze pro administrátory.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Produkt byl úspěšně smazán", content = @Content),
@@ -156,7 +282,7 @@ public class ProductController {
      * @param pageable Parametry paginace (stránka, velikost, řazení)
      * @return Stránka produktů
      */
-    @Operation(summary = "Získání seznamu produktů", description = "Vrátí stránkovaný seznam všech produktů. " +
+    @Operation(summary = "Získání seznamu produktů", description = "Vrátí stránkovaný seznam aktivních produktů. " +
             "Podporuje paginaci a řazení. " +
             "Tento endpoint je veřejný a nevyužívá autentizace.")
     @ApiResponses(value = {
@@ -0,0 +1,21 @@
+package krematos.dto.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Statistiky produktu za období - součty a rozpad po dnech (UTC).
+ */
+public record ProductStatsResponse(
+        Long productId,
+        LocalDate from,
+        LocalDate to,
+        long views,
+        long purchases,
+        long units,
+        double revenue,
+        List<DailyStats> days) {
+
+    public record DailyStats(LocalDate day, long views, long purchases, long units, double revenue) {
+    }
+}
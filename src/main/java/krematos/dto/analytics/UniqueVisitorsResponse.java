@@ -0,0 +1,17 @@
+package krematos.dto.analytics;
+
+import java.time.LocalDate;
+
+/**
+ * Odhad unikátních návštěvníků produktu za období (dny v UTC, včetně krajních).
+ *
+ * @param uniqueVisitors        odhad počtu různých přihlášených uživatelů
+ * @param relativeStandardError relativní směrodatná chyba odhadu (1σ), např. 0.0163
+ */
+public record UniqueVisitorsResponse(
+        Long productId,
+        LocalDate from,
+        LocalDate to,
+        long uniqueVisitors,
+        double relativeStandardError) {
+}
@@ -0,0 +1,20 @@
+package krematos.dto.order;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Jedna položka objednávky spolu s údaji objednávky - plochý řádek pro export.
+ */
+public record OrderExportRow(
+        Long orderId,
+        Instant orderDate,
+        Long userId,
+        String username,
+        BigDecimal orderTotal,
+        Long productId,
+        String productName,
+        int quantity,
+        BigDecimal price,
+        BigDecimal itemTotal) {
+}
@@ -0,0 +1,10 @@
+package krematos.dto.order;
+
+import java.time.Instant;
+
+/**
+ * ID objednávky s klíčem partice ({@code order_date}) - podle rozsahu dat stránky se pak objednávky
+ * načítají jen z dotčených partic.
+ */
+public record OrderKey(Long id, Instant orderDate) {
+}
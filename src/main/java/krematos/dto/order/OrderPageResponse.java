@@ -0,0 +1,14 @@
+package krematos.dto.order;
+
+import java.util.List;
+
+/**
+ * Jedna stránka objednávek (od nejnovějších).
+ *
+ * @param items      objednávky na stránce
+ * @param nextCursor hodnota parametru {@code after} pro další stránku, {@code null} na poslední stránce
+ */
+public record OrderPageResponse(
+        List<OrderResponse> items,
+        Long nextCursor) {
+}
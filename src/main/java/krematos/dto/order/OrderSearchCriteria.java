@@ -0,0 +1,52 @@
+package krematos.dto.order;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Filtry pro administrátorský výpis a export objednávek. Hodnota {@code null} znamená "nefiltrovat".
+ *
+ * @param from     objednávky vytvořené od (včetně)
+ * @param to       objednávky vytvořené do (bez)
+ * @param userId   jen objednávky daného uživatele
+ * @param minTotal minimální celková cena (včetně)
+ * @param maxTotal maximální celková cena (včetně)
+ */
+public record OrderSearchCriteria(
+        Instant from,
+        Instant to,
+        Long userId,
+        BigDecimal minTotal,
+        BigDecimal maxTotal) {
+
+    /**
+     * Meze období místo {@code null} - dotaz nad objednávkami má vždy rozsah nad {@code order_date},
+     * podle kterého PostgreSQL vynechá nedotčené měsíční partice.
+     */
+    public static final Instant MIN_ORDER_DATE = Instant.EPOCH;
+    public static final Instant MAX_ORDER_DATE = Instant.parse("9999-12-31T00:00:00Z");
+
+    /**
+     * @throws IllegalArgumentException pro prázdné období nebo obrácený rozsah ceny
+     */
+    public OrderSearchCriteria {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Začátek období musí být před jeho koncem");
+        }
+        if (minTotal != null && maxTotal != null && minTotal.compareTo(maxTotal) > 0) {
+            throw new IllegalArgumentException("Minimální cena nesmí být větší než maximální");
+        }
+    }
+
+    public Instant fromOrMin() {
+        return from != null ? from : MIN_ORDER_DATE;
+    }
+
+    public Instant toOrMax() {
+        return to != null ? to : MAX_ORDER_DATE;
+    }
+
+    public static OrderSearchCriteria none() {
+        return new OrderSearchCriteria(null, null, null, null, null);
+    }
+}
@@ -0,0 +1,39 @@
+package krematos.dto.product;
+
+import jakarta.validation.constraints.*;
+import krematos.model.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Hromadná změna produktů. Výběr ({@code category}, {@code ids}) je povinný - obojí zadané
+ * znamená průnik. Změna je aspoň jedna z {@code priceMultiplier}, {@code price}, {@code active};
+ * {@code priceMultiplier} a {@code price} se vylučují.
+ *
+ * @param priceMultiplier násobitel ceny (např. 0.9 = sleva 10 %), výsledek se zaokrouhlí na haléře
+ * @param reason          důvod změny pro audit
+ */
+public record ProductBulkUpdateRequest(
+
+        @Size(max = 255, message = "Kategorie nesmí překročit 255 znaků")
+        String category,
+
+        @Size(max = 1000, message = "Najednou lze měnit nejvýše 1000 produktů podle ID")
+        List<@NotNull Long> ids,
+
+        @DecimalMin(value = "0.01", message = "Násobitel ceny musí být aspoň 0.01")
+        @DecimalMax(value = "10", message = "Násobitel ceny může být nejvýše 10")
+        @Digits(integer = 2, fraction = 4, message = "Násobitel ceny může mít nejvýše 4 desetinná místa")
+        BigDecimal priceMultiplier,
+
+        @DecimalMin(value = Product.PRICE_EXCLUSIVE_MIN, inclusive = false,
+                message = "Cena musí být větší než " + Product.PRICE_EXCLUSIVE_MIN)
+        @Digits(integer = 8, fraction = 2, message = "Neplatný formát ceny")
+        BigDecimal price,
+
+        Boolean active,
+
+        @Size(max = 255, message = "Důvod nesmí překročit 255 znaků")
+        String reason) {
+}
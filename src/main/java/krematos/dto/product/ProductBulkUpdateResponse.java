@@ -0,0 +1,18 @@
+package krematos.dto.product;
+
+import java.util.List;
+
+/**
+ * Výsledek hromadné změny produktů.
+ *
+ * @param batchId          ID změny v auditu ({@code product_changes.batch_id})
+ * @param affected         počet skutečně změněných produktů (produkty, kterým by se nic nezměnilo, se nepočítají)
+ * @param changes          auditní záznamy podle ID produktu, nejvýše {@code app.products.bulk-update.max-returned-changes}
+ * @param changesTruncated {@code true}, pokud se všechny záznamy do {@code changes} nevešly
+ */
+public record ProductBulkUpdateResponse(
+        String batchId,
+        int affected,
+        List<ProductChangeResponse> changes,
+        boolean changesTruncated) {
+}
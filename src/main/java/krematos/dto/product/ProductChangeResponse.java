@@ -0,0 +1,14 @@
+package krematos.dto.product;
+
+import java.math.BigDecimal;
+
+/**
+ * Změna jednoho produktu v hromadné změně (auditní záznam).
+ */
+public record ProductChangeResponse(
+        Long productId,
+        BigDecimal oldPrice,
+        BigDecimal newPrice,
+        boolean oldActive,
+        boolean newActive) {
+}
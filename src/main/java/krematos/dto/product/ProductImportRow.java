@@ -0,0 +1,38 @@
+package krematos.dto.product;
+
+import jakarta.validation.constraints.*;
+import krematos.model.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Jeden produkt hromadného importu (řádek NDJSON nebo CSV). Produkt se páruje podle názvu -
+ * existující se aktualizuje, jinak vznikne nový.
+ *
+ * @param active {@code null} = aktivní
+ */
+public record ProductImportRow(
+
+        @NotBlank(message = "Název produktu je povinný")
+        @Size(max = 100, message = "Název nesmí překročit 100 znaků")
+        String name,
+
+        @NotBlank(message = "Popis produktu je povinný")
+        @Size(max = 1000, message = "Popis nesmí překročit 1000 znaků")
+        String description,
+
+        @NotNull(message = "Cena je povinná")
+        @DecimalMin(value = Product.PRICE_EXCLUSIVE_MIN, inclusive = false,
+                message = "Cena musí být větší než " + Product.PRICE_EXCLUSIVE_MIN)
+        @Digits(integer = 8, fraction = 2, message = "Neplatný formát ceny") // Sloupec price je NUMERIC(10, 2)
+        BigDecimal price,
+
+        @NotBlank(message = "Kategorie produktu je povinná")
+        @Size(max = 255, message = "Kategorie nesmí překročit 255 znaků")
+        String category,
+
+        @Size(max = 255, message = "Měna nesmí překročit 255 znaků")
+        String currency,
+
+        Boolean active) {
+}
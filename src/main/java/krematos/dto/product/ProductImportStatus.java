@@ -0,0 +1,38 @@
+package krematos.dto.product;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Stav úlohy hromadného importu produktů.
+ *
+ * @param processed       přečtené řádky
+ * @param imported        zapsané (potvrzené) řádky
+ * @param failed          odmítnuté řádky
+ * @param errors          chyby jednotlivých řádků (nejvýše {@code app.products.import.max-errors})
+ * @param errorsTruncated {@code true}, pokud se všechny chyby do {@code errors} nevešly
+ * @param failure         důvod přerušení celé úlohy (stav {@code FAILED})
+ */
+public record ProductImportStatus(
+        String jobId,
+        State state,
+        String format,
+        long processed,
+        long imported,
+        long failed,
+        List<RowError> errors,
+        boolean errorsTruncated,
+        Instant submittedAt,
+        Instant finishedAt,
+        String failure) {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * @param line číslo řádku vstupu (u CSV včetně hlavičky, od 1)
+     */
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,9 @@
+package krematos.event;
+
+import java.util.List;
+
+/**
+ * Objednávka byla vytvořena - nese jen ID produktů, aby posluchač nepotřeboval JPA session.
+ */
+public record OrderCreatedEvent(Long orderId, List<Long> productIds) {
+}
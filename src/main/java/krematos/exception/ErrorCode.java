@@ -77,7 +77,23 @@ public enum ErrorCode {
 
     FILE_TOO_LARGE(
             HttpStatus.PAYLOAD_TOO_LARGE,
-            "Soubor je příliš velký.");
+            "Soubor je příliš velký."),
+
+    SERVICE_BUSY(
+            HttpStatus.SERVICE_UNAVAILABLE,
+            "Služba je momentálně přetížená. Zkuste to prosím za chvíli."),
+
+    TOO_MANY_REQUESTS(
+            HttpStatus.TOO_MANY_REQUESTS,
+            "Příliš mnoho pokusů. Zkuste to prosím později."),
+
+    IDEMPOTENCY_KEY_MISMATCH(
+            HttpStatus.UNPROCESSABLE_ENTITY,
+            "Klíč Idempotency-Key už byl použit s jiným požadavkem."),
+
+    IDEMPOTENCY_KEY_IN_PROGRESS(
+            HttpStatus.CONFLICT,
+            "Požadavek se stejným klíčem Idempotency-Key se stále zpracovává.");
 
     private final HttpStatus status;
     private final String defaultMessage;
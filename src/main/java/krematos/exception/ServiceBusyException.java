@@ -0,0 +1,23 @@
+package krematos.exception;
+
+/**
+ * Server je dočasně přetížen (plná fronta omezeného executoru).
+ * Klient může požadavek zopakovat po {@link #getRetryAfterSeconds()} sekundách.
+ */
+public class ServiceBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public ServiceBusyException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,11 @@
+package krematos.exception.order;
+
+/**
+ * Požadavek se stejným klíčem {@code Idempotency-Key} se stále zpracovává (typicky na jiné instanci)
+ * a nedokončil se během čekání. Klient může požadavek zopakovat.
+ */
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package krematos.exception.order;
+
+/**
+ * Klíč {@code Idempotency-Key} už byl použit s jiným tělem požadavku.
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
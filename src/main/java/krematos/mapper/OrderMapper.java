@@ -5,6 +5,7 @@ import krematos.model.OrderItem;
 import krematos.dto.order.OrderItemResponse;
 import krematos.dto.order.OrderResponse;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 
 import java.util.List;
@@ -13,6 +14,9 @@ import java.util.List;
 public interface OrderMapper {
     // --- Order → OrderDto ---
 
+    @Mapping(target = "username", source = "user.username")
+    @Mapping(target = "items", source = "orderItems")
+    @Mapping(target = "createdAt", source = "orderDate")
     OrderResponse toDto(Order order);
 
     List<OrderResponse> toDtoList(List<Order> orders);
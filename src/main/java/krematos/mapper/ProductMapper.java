@@ -1,6 +1,8 @@
 package krematos.mapper;
 
+import krematos.dto.product.ProductChangeResponse;
 import krematos.model.Product;
+import krematos.model.ProductChange;
 import krematos.dto.product.ProductResponse;
 import org.mapstruct.*;
 
@@ -15,6 +17,7 @@ public interface ProductMapper {
     @Mapping(target = "images", ignore = true)
     @Mapping(target = "currency", ignore = true)
     @Mapping(target = "active", ignore = true)
+    @Mapping(target = "deactivatedAt", ignore = true)
     Product toEntity(ProductResponse dto);
 
     // 3. Update existujícího produktu
@@ -22,6 +25,10 @@ public interface ProductMapper {
     @Mapping(target = "images", ignore = true) // Obrázky řeší v Service
     @Mapping(target = "createdAt", ignore = true) // Datum vytvoření se nemění
     @Mapping(target = "updatedAt", ignore = true) // To řeší @UpdateTimestamp v entitě
+    @Mapping(target = "deactivatedAt", ignore = true) // Nastavuje jen soft delete v Service
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     void updateProductFromDto(ProductResponse dto, @MappingTarget Product product);
+
+    // 4. Auditní záznam hromadné změny -> DTO
+    ProductChangeResponse toChangeDto(ProductChange change);
 }
@@ -0,0 +1,44 @@
+package krematos.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Nákupní událost čekající na odeslání do úložiště analytiky (transakční outbox).
+ * Zapisuje se ve stejné transakci jako objednávka, takže vznikne právě tehdy, když se objednávka uloží.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "analytics_outbox")
+public class AnalyticsOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analytics_outbox_seq")
+    @SequenceGenerator(name = "analytics_outbox_seq", sequenceName = "analytics_outbox_seq", allocationSize = 50)
+    private Long id; // Pořadí odeslání a zároveň základ ID události v MongoDB
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    @Column(name = "price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal price; // Jednotková cena v době nákupu
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+}
@@ -0,0 +1,59 @@
+package krematos.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dlouho neaktivní produkt přesunutý z {@code products} do archivu. ID zůstává původní (objednávky
+ * na něj odkazují), název už unikátní není - archivace ho uvolní pro nový produkt. Obrázky se přesouvají
+ * do {@code app.upload.archive-dir}, mimo veřejně servírovaný adresář. Řádky vznikají přímo v SQL,
+ * viz {@link krematos.repository.ProductBulkRepository#archive}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "archived_products", indexes = {
+        @Index(name = "idx_archived_products_name", columnList = "name")
+})
+public class ArchivedProduct {
+
+    @Id
+    private Long id;
+
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "description", nullable = false, length = 1000)
+    private String description;
+
+    @Column(name = "price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal price;
+
+    @Column(name = "category", nullable = false)
+    private String category;
+
+    private String currency;
+
+    @ElementCollection
+    @CollectionTable(name = "archived_product_images", joinColumns = @JoinColumn(name = "product_id"))
+    @Column(name = "images_filename", length = 500)
+    @Builder.Default
+    private List<String> images = new ArrayList<>();
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "deactivated_at")
+    private Instant deactivatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+}
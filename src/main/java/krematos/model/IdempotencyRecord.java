@@ -0,0 +1,75 @@
+package krematos.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Zpracování požadavku s klíčem {@code Idempotency-Key}. Řádek vznikne před provedením požadavku
+ * (INSERT = zámek klíče napříč instancemi) a po úspěchu se do něj uloží odpověď pro opakování.
+ * Zámek platí do {@code claimed_until} - nedokončený záznam instance, která spadla, pak převezme další pokus.
+ * Ukládá se jen SHA-256 hash klíče (s uživatelem) a otisk těla požadavku.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(name = "key_hash", length = 64)
+    private String keyHash; // SHA-256 (hex) uživatele a klíče
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash; // SHA-256 (hex) těla požadavku
+
+    @Column(name = "response_json", columnDefinition = "TEXT")
+    private String responseJson; // null = požadavek se zpracovává
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "claimed_until")
+    private Instant claimedUntil; // Do kdy požadavek zpracovává instance, která si klíč zabrala
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newRecord = true; // save() musí vložit, ne sloučit - duplicitní klíč má skončit chybou
+
+    public IdempotencyRecord(String keyHash, String requestHash, Instant createdAt, Instant expiresAt,
+                             Instant claimedUntil) {
+        this.keyHash = keyHash;
+        this.requestHash = requestHash;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.claimedUntil = claimedUntil;
+    }
+
+    @Override
+    public String getId() {
+        return keyHash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newRecord = false;
+    }
+}
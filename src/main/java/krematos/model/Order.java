@@ -3,6 +3,7 @@ package krematos.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.PartitionKey;
 
 
 import java.math.BigDecimal;
@@ -17,11 +18,15 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_orders_order_date", columnList = "order_date")
+})
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50) // Blok 50 ID na jedno volání sekvence (viz JpaConfig)
     private Long id; // ID objednávky
     // Uživatel, který vytvořil objednávku
     @ManyToOne(fetch = FetchType.LAZY)
@@ -34,6 +39,7 @@ public class Order {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> orderItems = new ArrayList<>(); // Položky objednávky
 
+    @PartitionKey // Na PostgreSQL měsíční partice (viz OrderPartitionManager) - UPDATE/DELETE pak míří do jedné
     @Column(name = "order_date", nullable = false)
     private Instant orderDate; // Datum a čas vytvoření objednávky
 
@@ -47,6 +53,7 @@ public class Order {
         }
         orderItems.add(item);
         item.setOrder(this);
+        item.setOrderDate(orderDate);
         recalculateTotalPrice();
     }
 
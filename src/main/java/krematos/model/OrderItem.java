@@ -2,9 +2,11 @@ package krematos.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.PartitionKey;
 
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Getter
 @Setter
@@ -12,11 +14,14 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_order_id", columnList = "order_id")
+})
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "product_id", nullable = false)
@@ -35,10 +40,22 @@ public class OrderItem {
     private BigDecimal price; // cena za jednotku
 
     @ManyToOne
-    @JoinColumn(name = "order_id", nullable = false)
+    @JoinColumn(name = "order_id", nullable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT)) // Na PostgreSQL cizí klíč (order_id, order_date)
     private Order order; // Související objednávka
 
-
-
-
+    // Kopie data objednávky - klíč partice order_items. Existujícím řádkům ji doplní OrderItemDateMigration.
+    @PartitionKey
+    @Column(name = "order_date", nullable = false)
+    private Instant orderDate;
+
+    /**
+     * Datum se bere vždy z objednávky - položka nesmí skončit bez něj ani s jiným.
+     */
+    @PrePersist
+    void copyOrderDate() {
+        if (order != null) {
+            orderDate = order.getOrderDate();
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package krematos.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Denormalizovaný pohled na objednávku pro čtení (historie, detail) - jeden řádek na objednávku,
+ * položky předem serializované jako JSON. Zapisuje se ve stejné transakci jako {@link Order}
+ * (viz {@link krematos.service.order.OrderViewProjector}); zdrojem pravdy zůstává {@link Order}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "order_views", indexes = {
+        @Index(name = "idx_order_views_username_created", columnList = "username, created_at, order_id")
+})
+public class OrderView implements Persistable<Long> {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId; // Stejné ID jako objednávka
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Column(name = "total_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalPrice;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt; // Datum vytvoření objednávky
+
+    @Column(name = "items_json", nullable = false, columnDefinition = "TEXT")
+    private String itemsJson; // Položky jako JSON pole OrderItemResponse
+
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newView = true; // ID je přidělené, save() by bez toho před vložením četl (merge)
+
+    @Override
+    public Long getId() {
+        return orderId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newView;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newView = false;
+    }
+}
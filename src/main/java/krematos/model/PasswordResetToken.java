@@ -5,35 +5,41 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 
+/**
+ * Jediný aktivní token pro reset hesla uživatele. Ukládá se pouze SHA-256 hash tokenu
+ * (unikátní index - vyhledání v O(log n)); nová žádost o reset přepíše předchozí token.
+ */
 @Data
 @Entity
 @NoArgsConstructor
+@Table(name = "password_reset_tokens", indexes = {
+        @Index(name = "idx_password_reset_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_password_reset_user", columnList = "user_id", unique = true),
+        @Index(name = "idx_password_reset_expiry_date", columnList = "expiry_date")
+})
 public class PasswordResetToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private String token; // Hodnota tokenu pro reset hesla
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash; // SHA-256 (hex) tokenu pro reset hesla
 
     @OneToOne(targetEntity = User.class, fetch = FetchType.EAGER)
     @JoinColumn(nullable = false, name = "user_id")
     private User user; // Uživatel, ke kterému token patří
 
-    @Column(nullable = false)
+    @Column(name = "expiry_date", nullable = false)
     private Instant expiryDate; // Datum a čas vypršení platnosti tokenu
 
-    public PasswordResetToken(String token, User user) {
-        this.token = token;
+    public PasswordResetToken(String tokenHash, User user, Instant expiryDate) {
+        this.tokenHash = tokenHash;
         this.user = user;
-        this.expiryDate = Instant.now().plus(15, ChronoUnit.MINUTES);
+        this.expiryDate = expiryDate;
     }
 
-    public boolean isExpired() {
-        return Instant.now().isAfter(this.expiryDate);
+    public boolean isExpired(Instant now) {
+        return now.isAfter(this.expiryDate);
     }
-
-
 }
@@ -23,8 +23,25 @@ import java.util.List;
 })
 public class Product {
 
+    /**
+     * Krok sekvence {@code products_seq} - jedna hodnota sekvence pokrývá ID {@code (hodnota - 49)..hodnota}
+     * (pooled optimizer Hibernate). Stejně si ID bere i hromadný import produktů.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Cena musí být ostře větší - platí pro entitu i pro vstupy, které ji zakládají nebo mění.
+     */
+    public static final String PRICE_EXCLUSIVE_MIN = "0.01";
+
+    /**
+     * Nejnižší platná cena (o haléř nad {@link #PRICE_EXCLUSIVE_MIN}) - spodní mez cen počítaných v SQL.
+     */
+    public static final BigDecimal MIN_PRICE = new BigDecimal(PRICE_EXCLUSIVE_MIN).add(new BigDecimal("0.01"));
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @EqualsAndHashCode.Include
@@ -40,7 +57,7 @@ public class Product {
 
     @NotNull(message = "Cena produktu nesmí být prázdná")
     @Positive(message = "Cena produktu musí být kladné číslo")
-    @DecimalMin(value = "0.01", inclusive = false, message = "Cena produktu musí být kladné číslo")
+    @DecimalMin(value = PRICE_EXCLUSIVE_MIN, inclusive = false, message = "Cena produktu musí být kladné číslo")
     @Digits(integer = 10, fraction = 2, message = "Cena produktu musí mít maximálně 10 číslic před desetinnou čárkou a 2 číslice za ní")
     @Column(name = "price", nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
@@ -57,7 +74,11 @@ public class Product {
     @Size(max = 10, message = "Produkt může mít maximálně 5 obrázků")
     private List<String> images = new ArrayList<>();
 
-    private boolean active = true;
+    @Builder.Default
+    private boolean active = true; // false = měkce smazaný, mimo katalog
+
+    @Column(name = "deactivated_at")
+    private Instant deactivatedAt; // Od kdy je produkt neaktivní - po app.products.archive.after se archivuje
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
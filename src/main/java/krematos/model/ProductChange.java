@@ -0,0 +1,56 @@
+package krematos.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Auditní záznam hromadné změny produktu - jeden řádek na změněný produkt.
+ * Řádky vznikají přímo v SQL ({@code INSERT ... SELECT}, viz {@link krematos.repository.ProductBulkRepository}),
+ * proto ID přiděluje databáze.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "product_changes", indexes = {
+        @Index(name = "idx_product_changes_batch", columnList = "batch_id, product_id"),
+        @Index(name = "idx_product_changes_product", columnList = "product_id")
+})
+public class ProductChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "batch_id", nullable = false, length = 36)
+    private String batchId; // Společné pro všechny řádky jedné hromadné změny
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "old_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal oldPrice;
+
+    @Column(name = "new_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal newPrice;
+
+    @Column(name = "old_active", nullable = false)
+    private boolean oldActive;
+
+    @Column(name = "new_active", nullable = false)
+    private boolean newActive;
+
+    @Column(name = "changed_by", nullable = false, length = 100)
+    private String changedBy;
+
+    @Column(name = "reason")
+    private String reason;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+}
@@ -0,0 +1,50 @@
+package krematos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Rodina rotovaných refresh tokenů jednoho přihlášení.
+ * Ukládá se pouze SHA-256 hash ID rodiny a hash aktuálně platného tokenu (jti),
+ * takže jeden řádek pokrývá celou historii rotací.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "refresh_token_families", indexes = {
+        @Index(name = "idx_refresh_family_hash", columnList = "family_hash", unique = true),
+        @Index(name = "idx_refresh_family_expires_at", columnList = "expires_at")
+})
+public class RefreshTokenFamily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "family_hash", nullable = false, length = 64)
+    private String familyHash; // SHA-256 (hex) ID rodiny
+
+    @Column(name = "current_token_hash", nullable = false, length = 64)
+    private String currentTokenHash; // SHA-256 (hex) jti jediného platného tokenu
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "revoked", nullable = false)
+    private boolean revoked;
+
+    public RefreshTokenFamily(String familyHash, String currentTokenHash, String username, Instant expiresAt) {
+        this.familyHash = familyHash;
+        this.currentTokenHash = currentTokenHash;
+        this.username = username;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 import krematos.model.enums.Role;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.proxy.HibernateProxy;
@@ -47,12 +48,6 @@ public class User {
     @Size(max = 50)
     private String email;
 
-    @Column(name = "password_reset_token")
-    private String passwordResetToken;
-
-    @Column(name = "password_reset_token_expiry")
-    private Instant passwordResetTokenExpiry;
-
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -64,6 +59,7 @@ public class User {
     @Column(name = "roles")
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100) // Role všech uživatelů stránky objednávek jedním dotazem, ne dotaz na uživatele
     @Enumerated(EnumType.STRING)
     private Set<Role> roles = new HashSet<>();
 
@@ -0,0 +1,9 @@
+package krematos.model.enums;
+
+/**
+ * Stav e-mailu v outboxu. Odeslané e-maily se z outboxu mažou.
+ */
+public enum MailStatus {
+    PENDING, // Čeká na (další) pokus o odeslání
+    DEAD     // Vyčerpal pokusy - čeká na ruční zásah (znovuzařazení)
+}
@@ -0,0 +1,35 @@
+package krematos.model.nosql;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Předpočítané denní statistiky jednoho produktu (den v UTC).
+ * ID má tvar {@code productId:yyyy-MM-dd}, takže přírůstky lze zapisovat jako upsert bez čtení.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "product_daily_stats")
+@CompoundIndex(name = "product_day_idx", def = "{ 'productId': 1, 'day': 1 }")
+public class ProductDailyStats {
+
+    @Id
+    private String id;
+
+    private Long productId;
+    private String day; // ISO datum (yyyy-MM-dd) - řadí se lexikograficky
+
+    private long views;
+    private long purchases;
+    private long units;
+    private double revenue;
+
+    private String rebuild; // ID přepočtu, který souhrn naposledy zapsal (průběžné přírůstky ho nemění)
+
+    public static String idOf(Long productId, String day) {
+        return productId + ":" + day;
+    }
+}
@@ -0,0 +1,29 @@
+package krematos.model.nosql;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Serializovaný HyperLogLog unikátních návštěvníků produktu za jeden den (UTC).
+ * Repliky do dokumentu slučují své sketche s optimistickým zámkem ({@code version}).
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "product_visitor_sketches")
+@CompoundIndex(name = "product_day_idx", def = "{ 'productId': 1, 'day': 1 }")
+public class ProductVisitorSketch {
+
+    @Id
+    private String id; // productId:yyyy-MM-dd
+
+    private Long productId;
+    private String day;
+    private byte[] sketch;
+
+    @Version
+    private Long version;
+}
@@ -0,0 +1,38 @@
+package krematos.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import krematos.model.AnalyticsOutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AnalyticsOutboxRepository extends JpaRepository<AnalyticsOutboxEvent, Long> {
+    /**
+     * Zamkne nejstarší čekající události (v pořadí zápisu) - jedna dávka pro relay. Řádky zamčené
+     * jinou instancí se přeskočí ({@code FOR UPDATE SKIP LOCKED}); zámek drží transakce relay až do smazání.
+     *
+     * @param limit maximální velikost dávky
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2")) // LockOptions.SKIP_LOCKED
+    List<AnalyticsOutboxEvent> findAllByOrderByIdAsc(Limit limit);
+
+    /**
+     * Smaže odeslané události.
+     *
+     * @return počet skutečně smazaných řádků
+     */
+    @Modifying
+    @Query("DELETE FROM AnalyticsOutboxEvent e WHERE e.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
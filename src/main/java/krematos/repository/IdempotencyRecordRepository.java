@@ -0,0 +1,78 @@
+package krematos.repository;
+
+import krematos.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    /**
+     * Aktuální stav klíče přímo z DB - projekce se nebere z persistence contextu, takže opakované
+     * dotazování při čekání na jinou instanci vidí změny.
+     */
+    interface KeyState {
+        String getRequestHash();
+
+        String getResponseJson(); // null = požadavek se zpracovává
+
+        Instant getExpiresAt();
+
+        Instant getClaimedUntil(); // null = zámek bez platnosti (záznam z doby před zámky)
+    }
+
+    @Query("SELECT r.requestHash AS requestHash, r.responseJson AS responseJson, r.expiresAt AS expiresAt, "
+            + "r.claimedUntil AS claimedUntil FROM IdempotencyRecord r WHERE r.keyHash = :keyHash")
+    Optional<KeyState> findState(@Param("keyHash") String keyHash);
+
+    /**
+     * Převezme nedokončený klíč, jehož zámek vypršel (instance, která ho zabrala, spadla).
+     * Podmíněný UPDATE - ze souběžných pokusů uspěje jen jeden.
+     *
+     * @return 1, pokud klíč převzal tento pokus
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE IdempotencyRecord r SET r.claimedUntil = :claimedUntil WHERE r.keyHash = :keyHash "
+            + "AND r.responseJson IS NULL AND (r.claimedUntil IS NULL OR r.claimedUntil <= :now)")
+    int takeOver(@Param("keyHash") String keyHash, @Param("now") Instant now, @Param("claimedUntil") Instant claimedUntil);
+
+    /**
+     * Uloží odpověď dokončeného požadavku, pokud klíč pořád drží tento pokus ({@code claimedUntil}
+     * z jeho zabrání). Před vyčištěním persistence contextu vyprázdní čekající dávkové INSERTy
+     * objednávky ze stejné transakce, jinak by se zahodily.
+     *
+     * @return 0, pokud klíč mezitím převzal jiný pokus
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE IdempotencyRecord r SET r.responseJson = :responseJson "
+            + "WHERE r.keyHash = :keyHash AND r.claimedUntil = :claimedUntil AND r.responseJson IS NULL")
+    int complete(@Param("keyHash") String keyHash, @Param("claimedUntil") Instant claimedUntil,
+                 @Param("responseJson") String responseJson);
+
+    /**
+     * Uvolní klíč po neúspěšném požadavku, aby ho klient mohl zopakovat (dokončené a převzaté záznamy nechá).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM IdempotencyRecord r "
+            + "WHERE r.keyHash = :keyHash AND r.claimedUntil = :claimedUntil AND r.responseJson IS NULL")
+    int release(@Param("keyHash") String keyHash, @Param("claimedUntil") Instant claimedUntil);
+
+    /**
+     * Smaže záznam klíče, pokud vypršel (před jeho novým použitím).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.keyHash = :keyHash AND r.expiresAt <= :now")
+    int deleteIfExpired(@Param("keyHash") String keyHash, @Param("now") Instant now);
+
+    /**
+     * Hromadný úklid vypršelých záznamů.
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,43 @@
+package krematos.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import krematos.model.MailOutboxMessage;
+import krematos.model.enums.MailStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutboxMessage, Long> {
+    /**
+     * Zamkne e-maily, jejichž pokus o odeslání je na řadě (nejstarší první) - jedna dávka pro dispatcher.
+     * Řádky zamčené jinou instancí se přeskočí ({@code FOR UPDATE SKIP LOCKED}); volá se v transakci,
+     * která dávku zabere.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2")) // LockOptions.SKIP_LOCKED
+    List<MailOutboxMessage> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(MailStatus status, Instant now, Limit limit);
+
+    long countByStatus(MailStatus status);
+
+    /**
+     * Vrátí nedoručitelné e-maily zpět do fronty s vynulovanými pokusy.
+     *
+     * @return počet znovuzařazených e-mailů
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailOutboxMessage m SET m.status = krematos.model.enums.MailStatus.PENDING, m.attempts = 0, "
+            + "m.nextAttemptAt = :now WHERE m.status = krematos.model.enums.MailStatus.DEAD")
+    int requeueDead(@Param("now") Instant now);
+}
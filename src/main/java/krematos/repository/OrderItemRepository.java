@@ -1,12 +1,22 @@
 package krematos.repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+import krematos.dto.order.OrderExportRow;
 import krematos.model.OrderItem;
-import org.hibernate.sql.ast.tree.expression.JdbcParameter;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface OrderItemRepository  extends JdbcParameter {
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     /**
      * Najde položky objednávky podle ID objednávky.
      *
@@ -23,4 +33,58 @@ public interface OrderItemRepository  extends JdbcParameter {
      */
 
     List<OrderItem> findByProductIdAndProductId(Long productId, Long orderId);
+
+    /**
+     * Dvojice (objednávka, produkt) pro objednávky s ID v intervalu (afterOrderId, upToOrderId],
+     * seřazené podle objednávky - bez načítání celých entit.
+     */
+    @Query("SELECT oi.order.id AS orderId, oi.productId AS productId, oi.orderDate AS orderDate FROM OrderItem oi " +
+            "WHERE oi.order.id > :afterOrderId AND oi.order.id <= :upToOrderId ORDER BY oi.order.id")
+    List<OrderProductRow> findOrderProducts(@Param("afterOrderId") long afterOrderId,
+                                            @Param("upToOrderId") long upToOrderId);
+
+    /**
+     * Dvojice (objednávka, produkt) pro objednávky vytvořené od {@code since}, seřazené podle objednávky.
+     * Filtr na klíč partice - čte jen poslední partice.
+     */
+    @Query("SELECT oi.order.id AS orderId, oi.productId AS productId, oi.orderDate AS orderDate FROM OrderItem oi " +
+            "WHERE oi.orderDate >= :since ORDER BY oi.order.id")
+    List<OrderProductRow> findOrderProductsSince(@Param("since") Instant since);
+
+    /**
+     * Nejvyšší ID objednávky, která má položky.
+     */
+    @Query("SELECT MAX(oi.order.id) FROM OrderItem oi")
+    Long findMaxOrderId();
+
+    /**
+     * Položky objednávek pro export jako plochý proud řádků, seřazený podle objednávky (od nejnovější).
+     * Řádky se čtou kurzorem po {@code fetch_size} kusech; DTO nejsou spravované entity, takže
+     * persistence context během exportu neroste (na rozdíl od rozhraní jako projekce nejde o proxy). Proud je nutné zavřít a číst uvnitř transakce.
+     * Období je vždy zadané a omezuje objednávky i položky - PostgreSQL čte jen partice v období.
+     * Položka má vždy datum své objednávky ({@code NOT NULL}), filtr položek proto žádnou nevynechá.
+     * Ostatní parametry s hodnotou {@code null} se nefiltrují.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new krematos.dto.order.OrderExportRow(o.id, o.orderDate, u.id, u.username, o.totalPrice, "
+            + "oi.productId, oi.productName, oi.quantity, oi.price, oi.totalPrice) "
+            + "FROM OrderItem oi JOIN oi.order o JOIN o.user u "
+            + "WHERE o.orderDate >= :from AND o.orderDate < :to AND oi.orderDate >= :from AND oi.orderDate < :to "
+            + "AND (:userId IS NULL OR u.id = :userId) "
+            + "AND (:minTotal IS NULL OR o.totalPrice >= :minTotal) AND (:maxTotal IS NULL OR o.totalPrice <= :maxTotal) "
+            + "ORDER BY o.orderDate DESC, o.id DESC, oi.id")
+    Stream<OrderExportRow> streamForExport(@Param("from") Instant from,
+                                           @Param("to") Instant to,
+                                           @Param("userId") Long userId,
+                                           @Param("minTotal") BigDecimal minTotal,
+                                           @Param("maxTotal") BigDecimal maxTotal);
+
+    interface OrderProductRow {
+        Long getOrderId();
+        Long getProductId();
+        Instant getOrderDate();
+    }
 }
@@ -1,10 +1,18 @@
 package krematos.repository;
 
+import krematos.dto.order.OrderKey;
 import krematos.model.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -23,4 +31,54 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      */
     List<Order> findByOrderItems_ProductName(String productName);
 
+    /**
+     * ID a data jedné stránky objednávek od nejnovějších - keyset podle data, při shodě podle ID.
+     * ID z pooled sekvencí napříč instancemi s časem nerostou, pořadí proto určuje datum.
+     * Období je vždy zadané (viz {@link krematos.dto.order.OrderSearchCriteria#fromOrMin()}) - rozsah nad {@code order_date}
+     * bez {@code IS NULL OR} nechá PostgreSQL vynechat partice mimo období. Ostatní parametry
+     * s hodnotou {@code null} se nefiltrují.
+     *
+     * @param afterDate datum poslední objednávky předchozí stránky, {@code null} pro první stránku
+     * @param afterId   ID poslední objednávky předchozí stránky, {@code null} pro první stránku
+     */
+    @Query("SELECT new krematos.dto.order.OrderKey(o.id, o.orderDate) FROM Order o "
+            + "WHERE (:afterId IS NULL OR o.orderDate < :afterDate OR (o.orderDate = :afterDate AND o.id < :afterId)) "
+            + "AND o.orderDate >= :from AND o.orderDate < :to "
+            + "AND (:userId IS NULL OR o.user.id = :userId) "
+            + "AND (:minTotal IS NULL OR o.totalPrice >= :minTotal) AND (:maxTotal IS NULL OR o.totalPrice <= :maxTotal) "
+            + "ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderKey> findPageKeys(@Param("afterDate") Instant afterDate,
+                                @Param("afterId") Long afterId,
+                                @Param("from") Instant from,
+                                @Param("to") Instant to,
+                                @Param("userId") Long userId,
+                                @Param("minTotal") BigDecimal minTotal,
+                                @Param("maxTotal") BigDecimal maxTotal,
+                                Limit limit);
+
+    /**
+     * Načte objednávky stránky i s uživatelem a položkami jedním dotazem. Rozsah dat stránky
+     * ({@code from}..{@code to} včetně) omezí objednávky na partice, do kterých stránka spadá.
+     * Položky se filtrovat nesmí - načtená kolekce musí být úplná (i prázdná).
+     */
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.orderItems "
+            + "WHERE o.id IN :ids AND o.orderDate BETWEEN :from AND :to "
+            + "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findPageWithItems(@Param("ids") Collection<Long> ids,
+                                  @Param("from") Instant from,
+                                  @Param("to") Instant to);
+
+    /**
+     * Datum objednávky - kurzor stránky je ID, pořadí určuje datum.
+     */
+    @Query("SELECT o.orderDate FROM Order o WHERE o.id = :id")
+    Optional<Instant> findOrderDateById(@Param("id") Long id);
+
+    /**
+     * Načte objednávky i s uživatelem a položkami jedním dotazem (bez N+1 při mapování na DTO).
+     */
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.orderItems "
+            + "WHERE o.id IN :ids ORDER BY o.id DESC")
+    List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
 }
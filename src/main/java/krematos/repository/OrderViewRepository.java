@@ -0,0 +1,45 @@
+package krematos.repository;
+
+import krematos.model.OrderView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderViewRepository extends JpaRepository<OrderView, Long> {
+    /**
+     * Jedna stránka historie objednávek uživatele od nejnovějších - podle data vytvoření, při shodě podle ID
+     * (ID z pooled sekvencí s časem nerostou). Jediný dotaz nad indexem (username, created_at, order_id).
+     *
+     * @param afterCreatedAt datum poslední objednávky předchozí stránky, {@code null} pro první stránku
+     * @param afterId        ID poslední objednávky předchozí stránky, {@code null} pro první stránku
+     */
+    @Query("SELECT v FROM OrderView v WHERE v.username = :username "
+            + "AND (:afterId IS NULL OR v.createdAt < :afterCreatedAt "
+            + "OR (v.createdAt = :afterCreatedAt AND v.orderId < :afterId)) "
+            + "ORDER BY v.createdAt DESC, v.orderId DESC")
+    List<OrderView> findHistory(@Param("username") String username,
+                                @Param("afterCreatedAt") Instant afterCreatedAt,
+                                @Param("afterId") Long afterId,
+                                Limit limit);
+
+    @Query("SELECT v.createdAt FROM OrderView v WHERE v.orderId = :orderId")
+    Optional<Instant> findCreatedAtByOrderId(@Param("orderId") Long orderId);
+
+    boolean existsByOrderIdAndUsername(Long orderId, String username);
+
+    /**
+     * ID objednávek, které ještě nemají pohled (např. vytvořené před jeho zavedením), vzestupně.
+     *
+     * @param afterId poslední ID předchozí dávky (0 pro první) - každá dávka pokračuje, kde skončila předchozí
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.id > :afterId "
+            + "AND NOT EXISTS (SELECT 1 FROM OrderView v WHERE v.orderId = o.id) ORDER BY o.id")
+    List<Long> findOrderIdsWithoutView(@Param("afterId") long afterId, Limit limit);
+}
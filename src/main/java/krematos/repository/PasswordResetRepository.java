@@ -1,8 +1,10 @@
 package krematos.repository;
 
 import krematos.model.PasswordResetToken;
-import krematos.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
@@ -10,10 +12,27 @@ import java.util.Optional;
 
 @Repository
 public interface PasswordResetRepository extends JpaRepository<PasswordResetToken, Long> {
-    // 1. Metoda pro hledání tokenu
-    Optional<PasswordResetToken> findByToken(String token);
-    // 2. Metoda pro smazání všech tokenů daného uživatele
-    void deleteByUser(User user);
-    // 3. Metoda pro Cron Job (automatický úklid)
-    void deleteByExpiryDateBefore(Instant now);
+    /**
+     * Najde token podle SHA-256 hashe (unikátní index).
+     */
+    Optional<PasswordResetToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Nahradí aktivní token uživatele novým (první krok upsertu).
+     *
+     * @return počet změněných řádků (0 = uživatel zatím token nemá)
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE PasswordResetToken t SET t.tokenHash = :tokenHash, t.expiryDate = :expiryDate "
+            + "WHERE t.user.id = :userId")
+    int replaceToken(@Param("userId") Long userId,
+                     @Param("tokenHash") String tokenHash,
+                     @Param("expiryDate") Instant expiryDate);
+
+    /**
+     * Hromadný úklid vypršelých tokenů jedním příkazem (přes index na {@code expiry_date}).
+     */
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.expiryDate < :now")
+    int deleteExpired(@Param("now") Instant now);
 }
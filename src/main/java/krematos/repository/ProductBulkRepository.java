@@ -0,0 +1,231 @@
+package krematos.repository;
+
+import krematos.dto.product.ProductBulkUpdateRequest;
+import krematos.dto.product.ProductImportRow;
+import krematos.model.Product;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hromadný zápis produktů přes JDBC, bez persistence contextu - importy o statisících řádků,
+ * množinové změny ceny a aktivity a archivace dlouho neaktivních produktů.
+ * <p>
+ * Produkt se páruje podle unikátního názvu: na PostgreSQL {@code INSERT ... ON CONFLICT (name) DO UPDATE},
+ * jinde (H2 v testech) standardní {@code MERGE}. Aktualizace mění popis, cenu, kategorii, měnu a aktivitu;
+ * ID, obrázky a datum vytvoření zůstávají; se změnou aktivity se udržuje i {@code deactivated_at}.
+ * ID nových produktů se berou ze sekvence {@code products_seq}
+ * po blocích stejně jako u Hibernate, takže se s entitami nepřekrývají.
+ */
+@Repository
+public class ProductBulkRepository {
+
+    private static final String UPSERT_POSTGRES = "INSERT INTO products "
+            + "(id, name, description, price, category, currency, active, deactivated_at, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (name) DO UPDATE SET description = EXCLUDED.description, price = EXCLUDED.price, "
+            + "category = EXCLUDED.category, currency = EXCLUDED.currency, active = EXCLUDED.active, "
+            + "deactivated_at = CASE WHEN EXCLUDED.active THEN NULL "
+            + "ELSE COALESCE(products.deactivated_at, EXCLUDED.updated_at) END, "
+            + "updated_at = EXCLUDED.updated_at";
+
+    private static final String UPSERT_STANDARD = "MERGE INTO products p USING (VALUES ("
+            + "CAST(? AS BIGINT), CAST(? AS VARCHAR(100)), CAST(? AS VARCHAR(1000)), CAST(? AS NUMERIC(10, 2)), "
+            + "CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS BOOLEAN), "
+            + "CAST(? AS TIMESTAMP WITH TIME ZONE), CAST(? AS TIMESTAMP WITH TIME ZONE), "
+            + "CAST(? AS TIMESTAMP WITH TIME ZONE))) "
+            + "AS s (id, name, description, price, category, currency, active, deactivated_at, created_at, updated_at) "
+            + "ON p.name = s.name "
+            + "WHEN MATCHED THEN UPDATE SET description = s.description, price = s.price, category = s.category, "
+            + "currency = s.currency, active = s.active, "
+            + "deactivated_at = CASE WHEN s.active THEN NULL ELSE COALESCE(p.deactivated_at, s.updated_at) END, "
+            + "updated_at = s.updated_at "
+            + "WHEN NOT MATCHED THEN INSERT "
+            + "(id, name, description, price, category, currency, active, deactivated_at, created_at, updated_at) "
+            + "VALUES (s.id, s.name, s.description, s.price, s.category, s.currency, s.active, s.deactivated_at, "
+            + "s.created_at, s.updated_at)";
+
+    /**
+     * Zapíše změny z auditních řádků dávky - produkt dostane přesně hodnoty, které audit zaznamenal.
+     */
+    private static final String APPLY_CHANGES = "UPDATE products SET "
+            + "price = (SELECT c.new_price FROM product_changes c WHERE c.batch_id = ? AND c.product_id = products.id), "
+            + "active = (SELECT c.new_active FROM product_changes c WHERE c.batch_id = ? AND c.product_id = products.id), "
+            + "deactivated_at = CASE WHEN (SELECT c.new_active FROM product_changes c "
+            + "WHERE c.batch_id = ? AND c.product_id = products.id) THEN NULL "
+            + "WHEN active OR deactivated_at IS NULL THEN ? ELSE deactivated_at END, "
+            + "updated_at = ? "
+            + "WHERE id IN (SELECT c.product_id FROM product_changes c WHERE c.batch_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public ProductBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Vloží nebo aktualizuje produkty jednou JDBC dávkou. Názvy v dávce musí být různé
+     * ({@code ON CONFLICT} nesmí v jednom příkazu změnit tentýž řádek dvakrát).
+     * Volá se v transakci volajícího.
+     */
+    public void upsert(Collection<ProductImportRow> rows, Instant now) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Long> ids = allocateIds(rows.size());
+        OffsetDateTime timestamp = now.atOffset(ZoneOffset.UTC);
+        List<Object[]> batch = new ArrayList<>(rows.size());
+        int i = 0;
+        for (ProductImportRow row : rows) {
+            boolean active = row.active() == null || row.active();
+            batch.add(new Object[]{ids.get(i++), row.name(), row.description(), row.price(), row.category(),
+                    row.currency(), active, active ? null : timestamp, timestamp, timestamp});
+        }
+        jdbcTemplate.batchUpdate(isPostgres() ? UPSERT_POSTGRES : UPSERT_STANDARD, batch, new int[]{
+                Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN,
+                Types.TIMESTAMP_WITH_TIMEZONE, Types.TIMESTAMP_WITH_TIMEZONE, Types.TIMESTAMP_WITH_TIMEZONE});
+    }
+
+    /**
+     * Zaznamená do {@code product_changes} starou a novou cenu a aktivitu všech vybraných produktů,
+     * kterým se něco změní - jedním příkazem {@code INSERT ... SELECT}. Volá se v transakci volajícího,
+     * před {@link #applyChanges}.
+     *
+     * @return počet produktů, které se změní
+     */
+    public int recordChanges(String batchId, ProductBulkUpdateRequest request, String changedBy, Instant now) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("INSERT INTO product_changes ")
+                .append("(batch_id, product_id, old_price, new_price, old_active, new_active, changed_by, reason, changed_at) ")
+                .append("SELECT batch_id, product_id, old_price, new_price, old_active, new_active, changed_by, reason, changed_at ")
+                .append("FROM (SELECT CAST(? AS VARCHAR(36)) AS batch_id, id AS product_id, price AS old_price, ");
+        params.add(batchId);
+        if (request.priceMultiplier() != null) {
+            // Sleva cenu nesníží pod nejnižší cenu, kterou entita Product přijme
+            sql.append("GREATEST(CAST(ROUND(price * ?, 2) AS NUMERIC(10, 2)), CAST(? AS NUMERIC(10, 2)))");
+            params.add(request.priceMultiplier());
+            params.add(Product.MIN_PRICE);
+        } else if (request.price() != null) {
+            sql.append("CAST(? AS NUMERIC(10, 2))");
+            params.add(request.price());
+        } else {
+            sql.append("price");
+        }
+        sql.append(" AS new_price, active AS old_active, ");
+        if (request.active() != null) {
+            sql.append("CAST(? AS BOOLEAN)");
+            params.add(request.active());
+        } else {
+            sql.append("active");
+        }
+        sql.append(" AS new_active, CAST(? AS VARCHAR(100)) AS changed_by, CAST(? AS VARCHAR(255)) AS reason, ")
+                .append("CAST(? AS TIMESTAMP WITH TIME ZONE) AS changed_at FROM products WHERE 1 = 1");
+        params.add(changedBy);
+        params.add(request.reason());
+        params.add(now.atOffset(ZoneOffset.UTC));
+        if (request.category() != null) {
+            sql.append(" AND category = ?");
+            params.add(request.category());
+        }
+        if (request.ids() != null) {
+            sql.append(" AND id IN (").append(String.join(", ", Collections.nCopies(request.ids().size(), "?"))).append(')');
+            params.addAll(request.ids());
+        }
+        sql.append(") c WHERE c.new_price <> c.old_price OR c.new_active <> c.old_active");
+        return jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+
+    /**
+     * Zapíše do produktů změny zaznamenané {@link #recordChanges} jedním příkazem {@code UPDATE}.
+     *
+     * @return počet změněných produktů
+     */
+    public int applyChanges(String batchId, Instant now) {
+        OffsetDateTime timestamp = now.atOffset(ZoneOffset.UTC);
+        return jdbcTemplate.update(APPLY_CHANGES, batchId, batchId, batchId, timestamp, timestamp, batchId);
+    }
+
+    /**
+     * ID produktů neaktivních déle, než je {@code cutoff}, od nejstarších ID. Řádky zamkne
+     * ({@code FOR UPDATE SKIP LOCKED}) - jiná instance, která archivuje souběžně, je přeskočí
+     * a stejný produkt se nepokusí archivovat dvakrát. Volá se v transakci volajícího, před {@link #archive}.
+     */
+    public List<Long> findArchivable(Instant cutoff, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM products WHERE active = FALSE AND deactivated_at < ? "
+                + "ORDER BY id FETCH FIRST ? ROWS ONLY FOR UPDATE SKIP LOCKED",
+                Long.class, cutoff.atOffset(ZoneOffset.UTC), limit);
+    }
+
+    /**
+     * Přesune produkty a jejich seznam obrázků do {@code archived_products} a {@code archived_product_images}
+     * čtyřmi množinovými příkazy. Přesune jen produkty, které jsou pořád neaktivní. Volá se v transakci volajícího;
+     * soubory obrázků přesouvá volající až po commitu.
+     *
+     * @return názvy souborů obrázků archivovaných produktů
+     */
+    public List<String> archive(Collection<Long> ids, Instant now) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String in = " IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        Object[] idParams = ids.toArray();
+        List<Object> params = new ArrayList<>(ids.size() + 1);
+        params.add(now.atOffset(ZoneOffset.UTC));
+        params.addAll(ids);
+        jdbcTemplate.update("INSERT INTO archived_products "
+                + "(id, name, description, price, category, currency, created_at, deactivated_at, archived_at) "
+                + "SELECT id, name, description, price, category, currency, created_at, deactivated_at, ? "
+                + "FROM products WHERE active = FALSE AND id" + in, params.toArray());
+        String archived = " IN (SELECT a.id FROM archived_products a WHERE a.id" + in + ")";
+        List<String> images = jdbcTemplate.queryForList(
+                "SELECT images_filename FROM product_images WHERE product_id" + archived, String.class, idParams);
+        jdbcTemplate.update("INSERT INTO archived_product_images (product_id, images_filename) "
+                + "SELECT product_id, images_filename FROM product_images WHERE product_id" + archived, idParams);
+        jdbcTemplate.update("DELETE FROM product_images WHERE product_id" + archived, idParams);
+        jdbcTemplate.update("DELETE FROM products WHERE id" + archived, idParams);
+        return images;
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * Vyhradí {@code count} ID jedním dotazem na sekvenci. Hodnota {@code v} pokrývá ID
+     * {@code (v - 49)..v}; u řádků, které skončí aktualizací, ID propadne (jako u sekvence u {@code ON CONFLICT}).
+     */
+    List<Long> allocateIds(int count) {
+        int blocks = (count + Product.ID_ALLOCATION_SIZE - 1) / Product.ID_ALLOCATION_SIZE;
+        List<Long> values = jdbcTemplate.queryForList(isPostgres()
+                ? "SELECT nextval('products_seq') FROM generate_series(1, ?)"
+                : "SELECT NEXT VALUE FOR products_seq FROM SYSTEM_RANGE(1, ?)", Long.class, blocks);
+        List<Long> ids = new ArrayList<>(blocks * Product.ID_ALLOCATION_SIZE);
+        for (long value : values) {
+            for (long id = Math.max(1, value - Product.ID_ALLOCATION_SIZE + 1); id <= value && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        if (ids.size() < count) { // Hodnota 1 na začátku sekvence pokrývá jediné ID
+            ids.addAll(allocateIds(count - ids.size()));
+        }
+        return ids;
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            postgres = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,16 @@
+package krematos.repository;
+
+import krematos.model.ProductChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+    /**
+     * Auditní záznamy jedné hromadné změny seřazené podle produktu.
+     */
+    List<ProductChange> findByBatchIdOrderByProductIdAsc(String batchId, Limit limit);
+}
@@ -0,0 +1,21 @@
+package krematos.repository;
+
+import krematos.model.nosql.ProductDailyStats;
+import org.springframework.data.mongodb.repository.DeleteQuery;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductDailyStatsRepository extends MongoRepository<ProductDailyStats, String> {
+
+    // Rozsah dnů včetně obou krajních hodnot
+    @Query(value = "{ 'productId': ?0, 'day': { '$gte': ?1, '$lte': ?2 } }", sort = "{ 'day': 1 }")
+    List<ProductDailyStats> findByProductIdAndDayRange(Long productId, String fromDay, String toDay);
+
+    // Souhrny dnů, které přepočet s ID rebuild nezapsal (produkty, které už v událostech nejsou)
+    @DeleteQuery("{ 'day': { '$gte': ?0, '$lte': ?1 }, 'rebuild': { '$ne': ?2 } }")
+    long deleteStaleInDayRange(String fromDay, String toDay, String rebuild);
+}
@@ -2,6 +2,8 @@ package krematos.repository;
 
 
 import krematos.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -26,5 +28,21 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Product findByDescription(String description);
 
+    /**
+     * Najde aktivní produkt podle ID - měkce smazané produkty v katalogu nejsou.
+     *
+     * @param id ID produktu
+     * @return {@link Optional} obsahující produkt, pokud existuje a je aktivní
+     */
+    Optional<Product> findByIdAndActiveTrue(Long id);
+
+    /**
+     * Stránka aktivních produktů. Na PostgreSQL ji obslouží částečné indexy {@code WHERE active}.
+     *
+     * @param pageable stránka a řazení
+     * @return stránka aktivních produktů
+     */
+    Page<Product> findAllByActiveTrue(Pageable pageable);
+
 
 }
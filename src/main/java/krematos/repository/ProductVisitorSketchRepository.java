@@ -0,0 +1,16 @@
+package krematos.repository;
+
+import krematos.model.nosql.ProductVisitorSketch;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductVisitorSketchRepository extends MongoRepository<ProductVisitorSketch, String> {
+
+    // Rozsah dnů včetně obou krajních hodnot
+    @Query("{ 'productId': ?0, 'day': { '$gte': ?1, '$lte': ?2 } }")
+    List<ProductVisitorSketch> findByProductIdAndDayRange(Long productId, String fromDay, String toDay);
+}
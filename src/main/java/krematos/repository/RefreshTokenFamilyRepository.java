@@ -0,0 +1,50 @@
+package krematos.repository;
+
+import krematos.model.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, Long> {
+    /**
+     * Najde rodinu refresh tokenů podle hashe jejího ID (unikátní index).
+     *
+     * @param familyHash SHA-256 hash ID rodiny
+     * @return {@link Optional} obsahující rodinu, pokud existuje
+     */
+    Optional<RefreshTokenFamily> findByFamilyHash(String familyHash);
+
+    /**
+     * Atomická rotace (compare-and-set): nový hash se zapíše jen tehdy, pokud je
+     * předložený token stále aktuální a rodina není zneplatněná.
+     *
+     * @return počet změněných řádků (0 = token už byl použit nebo rodina zneplatněna)
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE RefreshTokenFamily f SET f.currentTokenHash = :newHash, f.expiresAt = :expiresAt " +
+            "WHERE f.familyHash = :familyHash AND f.currentTokenHash = :currentHash AND f.revoked = false")
+    int rotate(@Param("familyHash") String familyHash,
+               @Param("currentHash") String currentHash,
+               @Param("newHash") String newHash,
+               @Param("expiresAt") Instant expiresAt);
+
+    /**
+     * Zneplatní celou rodinu (odhlášení nebo detekce znovupoužití tokenu).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE RefreshTokenFamily f SET f.revoked = true WHERE f.familyHash = :familyHash")
+    int revoke(@Param("familyHash") String familyHash);
+
+    /**
+     * Hromadný úklid vypršelých rodin.
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshTokenFamily f WHERE f.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -27,14 +27,6 @@ public interface UserRepository extends JpaRepository <User, Long> {
           */
          Optional<User> findByEmail(String email);
      
-         /**
-          * Najde uživatele podle jeho resetovacího tokenu.
-          *
-          * @param token resetovací token
-          * @return {@link Optional} obsahující uživatele, pokud existuje
-          */
-         Optional<User> findByPasswordResetToken(String token);
-     
          /**
           * Zkontroluje, zda uživatel s daným uživatelským jménem existuje.
           *
@@ -1,11 +1,13 @@
 package krematos.repository;
 
 import krematos.dto.TrendingProductDTO;
+import krematos.model.nosql.ProductDailyStats;
 import krematos.model.nosql.UserEvent;
 import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
@@ -14,11 +16,32 @@ public interface UserRepositoryEvent extends MongoRepository<UserEvent, String>
 
     List<UserEvent> findByProductIdAndEventType(Long productId, String eventType);
 
+    /**
+     * Přesný výpočet přes celou kolekci - drahý, pro běžné dotazy slouží TrendingProductsTracker.
+     */
     @Aggregation(pipeline = {
-            "{ '$match': { 'eventType': 'product_view' } }",       // 1. Vyfiltruj jen zobrazení produktů
+            "{ '$match': { 'eventType': 'VIEW' } }",               // 1. Vyfiltruj jen zobrazení produktů
             "{ '$group': { '_id': '$productId', 'views': { '$sum': 1 } } }", // 2. Seskup podle productId a počítej (+1 za každý)
             "{ '$sort': { 'views': -1 } }",                        // 3. Seřaď sestupně (-1) podle počtu zobrazení
-            "{ '$limit': ?5 }"
+            "{ '$limit': ?0 }",
+            "{ '$project': { '_id': 0, 'productId': '$_id', 'views': 1 } }"
     })
     List<TrendingProductDTO> findTopTrendingProducts(int limit);
+
+    /**
+     * Přepočet denních statistik produktů z událostí v intervalu [from, to) - pro dohánění a kontrolu rollupů.
+     */
+    @Aggregation(pipeline = {
+            "{ '$match': { 'timestamp': { '$gte': ?0, '$lt': ?1 }, 'productId': { '$ne': null } } }",
+            "{ '$group': { "
+                    + "'_id': { 'productId': '$productId', 'day': { '$dateToString': { 'format': '%Y-%m-%d', 'date': '$timestamp' } } }, "
+                    + "'views': { '$sum': { '$cond': [ { '$eq': [ '$eventType', 'VIEW' ] }, 1, 0 ] } }, "
+                    + "'purchases': { '$sum': { '$cond': [ { '$eq': [ '$eventType', 'PURCHASE' ] }, 1, 0 ] } }, "
+                    + "'units': { '$sum': { '$cond': [ { '$eq': [ '$eventType', 'PURCHASE' ] }, { '$ifNull': [ '$quantity', 1 ] }, 0 ] } }, "
+                    + "'revenue': { '$sum': { '$cond': [ { '$eq': [ '$eventType', 'PURCHASE' ] }, "
+                    + "{ '$multiply': [ { '$ifNull': [ '$priceAtEvent', 0 ] }, { '$ifNull': [ '$quantity', 1 ] } ] }, 0 ] } } } }",
+            "{ '$project': { '_id': { '$concat': [ { '$toString': '$_id.productId' }, ':', '$_id.day' ] }, "
+                    + "'productId': '$_id.productId', 'day': '$_id.day', 'views': 1, 'purchases': 1, 'units': 1, 'revenue': 1 } }"
+    })
+    List<ProductDailyStats> aggregateDailyStats(Instant from, Instant to);
 }
@@ -0,0 +1,109 @@
+package krematos.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import krematos.exception.ServiceBusyException;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * PasswordEncoder, který drahé operace (encode, matches) spouští na vyhrazeném
+ * omezeném executoru místo na vlákně Tomcatu.
+ * <p>
+ * Počet souběžných hashování je tak omezen počtem vláken poolu a délka fronty je
+ * pevná. Při plné frontě (např. credential stuffing) se požadavek okamžitě odmítne
+ * výjimkou {@link ServiceBusyException} (503 + Retry-After), takže čekající
+ * požadavky nezablokují všechna vlákna serveru.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolTaskExecutor executor;
+    private final Duration timeout;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+    private final Counter timeoutCounter;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, ThreadPoolTaskExecutor executor,
+                                     Duration timeout, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.timeout = timeout;
+
+        this.encodeTimer = Timer.builder("password.hashing.duration").tag("operation", "encode")
+                .description("Doba výpočtu hashe hesla").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing.duration").tag("operation", "matches")
+                .description("Doba ověření hesla").register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("password.hashing.queue.wait")
+                .description("Doba čekání úlohy ve frontě hashovacího executoru").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Počet odmítnutých hashování kvůli plné frontě").register(meterRegistry);
+        this.timeoutCounter = Counter.builder("password.hashing.timeout")
+                .description("Počet hashování, která nestihla časový limit").register(meterRegistry);
+        Gauge.builder("password.hashing.queue.size", executor,
+                        e -> e.getThreadPoolExecutor().getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return offload(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return offload(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    // Pouze parsování prefixu/parametrů hashe - levné, běží přímo
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T offload(Callable<T> task, Timer timer) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (TaskRejectedException e) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("Fronta hashování hesel je plná", 1, e);
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutCounter.increment();
+            throw new ServiceBusyException("Hashování hesla nestihlo časový limit", 1, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceBusyException("Hashování hesla bylo přerušeno", 1, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Chyba při hashování hesla", e.getCause());
+        }
+    }
+}
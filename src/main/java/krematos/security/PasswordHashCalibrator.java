@@ -0,0 +1,66 @@
+package krematos.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Kalibrace ceny hashování hesel podle skutečného výkonu serveru.
+ * <p>
+ * Postupně zvyšuje parametr ceny (BCrypt strength, Argon2 iterace) a měří medián
+ * doby hashování. Vrátí nejvyšší cenu, jejíž doba ještě nepřekročí cílovou latenci.
+ * Nikdy nejde pod {@code minCost}, aby pomalý stroj nesnížil bezpečnost.
+ * Výsledek je jen doporučení pro konfiguraci - cena hashů musí být na všech uzlech stejná.
+ */
+@Slf4j
+public final class PasswordHashCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "Kalibrace-Hesla-2025!";
+
+    private PasswordHashCalibrator() {
+    }
+
+    /**
+     * @param name    název algoritmu (pouze pro log)
+     * @param factory vytvoří encoder pro danou cenu
+     * @param minCost minimální povolená cena
+     * @param maxCost maximální povolená cena
+     * @param target  cílová doba jednoho hashování
+     * @param samples počet měření na jednu cenu (použije se medián)
+     * @return zvolená cena
+     */
+    public static int calibrate(String name, IntFunction<PasswordEncoder> factory,
+                                int minCost, int maxCost, Duration target, int samples) {
+        long targetNanos = target.toNanos();
+        int chosen = minCost;
+        long chosenNanos = measure(factory.apply(minCost), samples);
+
+        while (chosen < maxCost && chosenNanos < targetNanos) {
+            long nextNanos = measure(factory.apply(chosen + 1), samples);
+            if (nextNanos > targetNanos) {
+                break;
+            }
+            chosen++;
+            chosenNanos = nextNanos;
+        }
+
+        log.info("Kalibrace {}: doporučená cena {} (~{} ms na hash, cíl {} ms)",
+                name, chosen, Duration.ofNanos(chosenNanos).toMillis(), target.toMillis());
+        return chosen;
+    }
+
+    private static long measure(PasswordEncoder encoder, int samples) {
+        encoder.encode(SAMPLE_PASSWORD); // zahřátí JIT
+        long[] durations = new long[Math.max(1, samples)];
+        for (int i = 0; i < durations.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            durations[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(durations);
+        return durations[durations.length / 2];
+    }
+}
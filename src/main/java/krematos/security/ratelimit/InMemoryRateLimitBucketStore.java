@@ -0,0 +1,77 @@
+package krematos.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory úložiště token bucketů.
+ * <p>
+ * - Mapa klíčů je omezená ({@code maximum-size}) a nepoužívané buckety expirují,
+ *   takže útok z mnoha IP adres nemůže vyčerpat paměť.
+ * - Každý bucket je jediný {@link AtomicLong} aktualizovaný přes CAS (algoritmus GCRA,
+ *   ekvivalentní token bucketu) - bez zámků, bez alokací na požadavek.
+ */
+@Component
+public class InMemoryRateLimitBucketStore implements RateLimitBucketStore {
+
+    private final Cache<String, Bucket> buckets;
+    private final Ticker ticker;
+
+    public InMemoryRateLimitBucketStore(
+            @Value("${app.rate-limit.store.maximum-size:100000}") long maximumSize,
+            @Value("${app.rate-limit.store.expire-after-access:1h}") Duration expireAfterAccess) {
+        this(maximumSize, expireAfterAccess, Ticker.systemTicker());
+    }
+
+    InMemoryRateLimitBucketStore(long maximumSize, Duration expireAfterAccess, Ticker ticker) {
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public Duration tryConsume(String key, BucketPolicy policy) {
+        long waitNanos = buckets.get(key, k -> new Bucket(ticker.read()))
+                .tryConsume(ticker.read(), policy.emissionIntervalNanos(), policy.capacity());
+        return waitNanos == 0 ? Duration.ZERO : Duration.ofNanos(waitNanos);
+    }
+
+    /**
+     * Bucket reprezentovaný "teoretickým časem příchodu" (TAT) dalšího požadavku.
+     * Plný bucket odpovídá TAT v minulosti, každý odebraný token posune TAT o jeden interval.
+     */
+    static final class Bucket {
+        private final AtomicLong theoreticalArrival;
+
+        Bucket(long now) {
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        /**
+         * @return 0 při úspěchu, jinak počet nanosekund do uvolnění dalšího tokenu
+         */
+        long tryConsume(long now, long emissionInterval, int capacity) {
+            long burstTolerance = emissionInterval * (capacity - 1);
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long start = Math.max(tat, now);
+                long waitNanos = start - now - burstTolerance;
+                if (waitNanos > 0) {
+                    return waitNanos;
+                }
+                if (theoreticalArrival.compareAndSet(tat, start + emissionInterval)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
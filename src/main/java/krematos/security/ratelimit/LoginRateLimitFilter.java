@@ -0,0 +1,297 @@
+package krematos.security.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import krematos.dto.ApiError;
+import krematos.exception.ErrorCode;
+import krematos.security.ratelimit.RateLimitBucketStore.BucketPolicy;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiting pro drahé autentizační endpointy.
+ * <p>
+ * Každé přihlášení stojí jedno ověření hesla (BCrypt/Argon2) a každý požadavek
+ * na reset hesla odeslání emailu. Filtr proto omezuje počet pokusů zvlášť podle
+ * IP adresy klienta a zvlášť podle uživatelského jména / emailu, a odmítnuté
+ * požadavky ukončí s 429 ještě před controllerem.
+ * <p>
+ * Bucket uživatelského jména u přihlášení je navíc vázaný na IP adresu - kdyby byl společný,
+ * mohl by kdokoli oběti zablokovat přihlášení posíláním chybných pokusů na její jméno.
+ * Tvrdým stropem zůstává limit na IP. U resetu hesla bucket emailu na IP vázaný není,
+ * chrání schránku oběti před zahlcením z mnoha adres.
+ * <p>
+ * Za reverzní proxy (nginx) je adresa spojení vždy adresa proxy - všichni klienti by sdíleli
+ * jeden bucket. Od proxy z {@code app.rate-limit.trusted-proxies} (IP nebo CIDR) se proto
+ * adresa klienta bere z hlavičky {@code X-Real-IP}; od ostatních se hlavička ignoruje,
+ * aby si ji klient nemohl podvrhnout.
+ * <p>
+ * Metriky {@code auth.ratelimit.rejected} a {@code auth.ratelimit.saved.hashing}
+ * ukazují, kolik požadavků a kolik času hashování filtr ušetřil.
+ */
+@Slf4j
+@Component
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String HASHING_TIMER = "password.hashing.duration";
+    private static final int MAX_BODY_BYTES = 8 * 1024; // Přihlašovací JSON je malý, větší tělo nečteme
+    private static final String REAL_IP_HEADER = "X-Real-IP";
+
+    private final RateLimitBucketStore bucketStore;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final List<LimitedEndpoint> endpoints;
+    private final boolean enabled;
+    private final List<IpAddressMatcher> trustedProxies;
+    private final Counter savedHashingTime;
+
+    public LoginRateLimitFilter(
+            RateLimitBucketStore bucketStore,
+            ObjectMapper objectMapper,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.trusted-proxies:}") List<String> trustedProxies,
+            @Value("${app.rate-limit.login.ip.capacity:20}") int loginIpCapacity,
+            @Value("${app.rate-limit.login.ip.refill-period:1m}") Duration loginIpPeriod,
+            @Value("${app.rate-limit.login.username.capacity:5}") int loginUsernameCapacity,
+            @Value("${app.rate-limit.login.username.refill-period:1m}") Duration loginUsernamePeriod,
+            @Value("${app.rate-limit.forgot-password.ip.capacity:5}") int forgotIpCapacity,
+            @Value("${app.rate-limit.forgot-password.ip.refill-period:15m}") Duration forgotIpPeriod,
+            @Value("${app.rate-limit.forgot-password.email.capacity:3}") int forgotEmailCapacity,
+            @Value("${app.rate-limit.forgot-password.email.refill-period:15m}") Duration forgotEmailPeriod) {
+        this.bucketStore = bucketStore;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.enabled = enabled;
+        this.trustedProxies = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        this.endpoints = List.of(
+                new LimitedEndpoint("login", "/api/auth/login", "username", true, true,
+                        new BucketPolicy(loginIpCapacity, loginIpPeriod),
+                        new BucketPolicy(loginUsernameCapacity, loginUsernamePeriod)),
+                new LimitedEndpoint("forgot-password", "/api/auth/forgot-password", "email", false, false,
+                        new BucketPolicy(forgotIpCapacity, forgotIpPeriod),
+                        new BucketPolicy(forgotEmailCapacity, forgotEmailPeriod)));
+        this.savedHashingTime = Counter.builder("auth.ratelimit.saved.hashing")
+                .description("Odhad času hashování hesel ušetřeného odmítnutými pokusy o přihlášení")
+                .baseUnit("seconds")
+                .register(this.meterRegistry);
+    }
+
+    /**
+     * Omezovaný endpoint - cesta, název pole s identitou v JSON těle a limity.
+     * {@code identityPerIp} - bucket identity se počítá zvlášť pro každou IP adresu.
+     */
+    private record LimitedEndpoint(String name, String path, String identityField, boolean verifiesPassword,
+                                   boolean identityPerIp, BucketPolicy ipPolicy, BucketPolicy identityPolicy) {
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || findEndpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        LimitedEndpoint endpoint = findEndpoint(request);
+
+        // 1. Limit podle IP - levná kontrola bez čtení těla
+        String clientIp = clientIp(request);
+        Duration wait = bucketStore.tryConsume(endpoint.name() + ":ip:" + clientIp, endpoint.ipPolicy());
+        if (!wait.isZero()) {
+            reject(response, request, endpoint, "ip", wait);
+            return;
+        }
+
+        // 2. Limit podle uživatele - brzdí zkoušení hesel jednoho účtu (u přihlášení z jedné IP)
+        CachedBodyRequest cachedRequest = CachedBodyRequest.wrap(request);
+        String identity = cachedRequest.isComplete()
+                ? extractIdentity(cachedRequest.body, endpoint.identityField())
+                : null;
+        if (identity != null) {
+            String identityKey = endpoint.identityPerIp() ? clientIp + ":" + identity : identity;
+            wait = bucketStore.tryConsume(endpoint.name() + ":user:" + identityKey, endpoint.identityPolicy());
+            if (!wait.isZero()) {
+                reject(response, request, endpoint, "user", wait);
+                return;
+            }
+        }
+
+        filterChain.doFilter(cachedRequest, response);
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * Adresa klienta - z {@code X-Real-IP}, pokud požadavek přišel od důvěryhodné proxy, jinak adresa spojení.
+     */
+    private String clientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        String realIp = request.getHeader(REAL_IP_HEADER);
+        if (realIp == null || realIp.isBlank()
+                || trustedProxies.stream().noneMatch(proxy -> proxy.matches(remoteAddr))) {
+            return remoteAddr;
+        }
+        return realIp.trim();
+    }
+
+    private LimitedEndpoint findEndpoint(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (LimitedEndpoint endpoint : endpoints) {
+            if (endpoint.path().equals(path)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    private String extractIdentity(byte[] body, String field) {
+        try {
+            JsonNode value = objectMapper.readTree(body).get(field);
+            if (value == null || !value.isTextual() || value.asText().isBlank()) {
+                return null;
+            }
+            return value.asText().trim().toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            return null; // Nevalidní JSON odmítne až controller s 400
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpServletRequest request, LimitedEndpoint endpoint,
+                        String limit, Duration wait) throws IOException {
+        long retryAfterSeconds = Math.max(1, (wait.toMillis() + 999) / 1000);
+        log.warn("Rate limit ({}) překročen pro {} z IP {} - další pokus za {} s",
+                limit, endpoint.path(), clientIp(request), retryAfterSeconds);
+
+        meterRegistry.counter("auth.ratelimit.rejected", "endpoint", endpoint.name(), "limit", limit).increment();
+        if (endpoint.verifiesPassword()) {
+            Timer hashing = meterRegistry.find(HASHING_TIMER).tag("operation", "matches").timer();
+            if (hashing != null && hashing.count() > 0) {
+                savedHashingTime.increment(hashing.mean(TimeUnit.SECONDS));
+            }
+        }
+
+        ErrorCode errorCode = ErrorCode.TOO_MANY_REQUESTS;
+        ApiError apiError = new ApiError(
+                errorCode.getStatus().value(),
+                errorCode.name(),
+                errorCode.getDefaultMessage(),
+                request.getRequestURI(),
+                Instant.now());
+
+        response.setStatus(errorCode.getStatus().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), apiError);
+    }
+
+    /**
+     * Request s načteným začátkem těla, aby ho mohl přečíst filtr i controller.
+     * Tělo delší než {@link #MAX_BODY_BYTES} se nečte celé - zbytek se controlleru
+     * předá přímo z původního streamu.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+        private final InputStream remainder;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body, InputStream remainder) {
+            super(request);
+            this.body = body;
+            this.remainder = remainder;
+        }
+
+        static CachedBodyRequest wrap(HttpServletRequest request) throws IOException {
+            InputStream original = request.getInputStream();
+            byte[] prefix = original.readNBytes(MAX_BODY_BYTES + 1);
+            return new CachedBodyRequest(request, prefix, prefix.length > MAX_BODY_BYTES ? original : null);
+        }
+
+        boolean isComplete() {
+            return remainder == null && body.length > 0;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            InputStream input = remainder == null
+                    ? new ByteArrayInputStream(body)
+                    : new SequenceInputStream(new ByteArrayInputStream(body), remainder);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    try {
+                        return input.available() == 0;
+                    } catch (IOException e) {
+                        return true;
+                    }
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() throws IOException {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
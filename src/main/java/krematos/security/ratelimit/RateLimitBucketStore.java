@@ -0,0 +1,43 @@
+package krematos.security.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Úložiště stavu token bucketů pro rate limiting.
+ * <p>
+ * Výchozí implementace drží stav v paměti jedné instance
+ * ({@link InMemoryRateLimitBucketStore}). Při běhu více instancí za load balancerem
+ * ji lze nahradit sdíleným úložištěm (např. Redis) bez změny filtru.
+ */
+public interface RateLimitBucketStore {
+
+    /**
+     * Pokusí se z bucketu daného klíče odebrat jeden token.
+     *
+     * @param key    klíč bucketu (např. {@code login:ip:10.0.0.1})
+     * @param policy kapacita a rychlost doplňování bucketu
+     * @return {@link Duration#ZERO}, pokud byl token odebrán, jinak doba, za kterou bude další token k dispozici
+     */
+    Duration tryConsume(String key, BucketPolicy policy);
+
+    /**
+     * Parametry token bucketu.
+     *
+     * @param capacity     maximální počet tokenů (povolený burst)
+     * @param refillPeriod doba, za kterou se bucket doplní z prázdného na plný
+     */
+    record BucketPolicy(int capacity, Duration refillPeriod) {
+        public BucketPolicy {
+            if (capacity < 1 || refillPeriod.isNegative() || refillPeriod.isZero()) {
+                throw new IllegalArgumentException("Neplatné parametry bucketu: " + capacity + "/" + refillPeriod);
+            }
+        }
+
+        /**
+         * Interval, po kterém přibude jeden token. Veřejný kvůli sdíleným úložištím z jiných balíčků.
+         */
+        public long emissionIntervalNanos() {
+            return Math.max(1, refillPeriod.toNanos() / capacity);
+        }
+    }
+}
@@ -1,29 +1,74 @@
 package krematos.service;
 
 import krematos.dto.TrendingProductDTO;
+import krematos.dto.analytics.ProductStatsResponse;
+import krematos.dto.analytics.UniqueVisitorsResponse;
+import krematos.model.nosql.ProductDailyStats;
 import krematos.model.nosql.UserEvent;
-import krematos.repository.UserRepositoryEvent;
-import lombok.AllArgsConstructor;
-import lombok.NoArgsConstructor;
+import krematos.repository.ProductDailyStatsRepository;
+import krematos.service.analytics.AnalyticsEventIngestor;
+import krematos.service.analytics.AnalyticsEventIngestor.OverflowPolicy;
+import krematos.service.analytics.ProductStatsRollup;
+import krematos.service.analytics.TrendingProductsTracker;
+import krematos.service.analytics.TrendingWindow;
+import krematos.service.analytics.UniqueVisitorTracker;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
-@AllArgsConstructor
+/**
+ * Logování analytických událostí.
+ * Události se nezapisují na request vlákně, ale předávají se {@link AnalyticsEventIngestor},
+ * který je ukládá do MongoDB po dávkách.
+ */
 @Service
 public class AnalyticsService {
 
-    private final UserRepositoryEvent userRepositoryEvent;
+    private final AnalyticsEventIngestor eventIngestor;
+    private final TrendingProductsTracker trendingProductsTracker;
+    private final ProductDailyStatsRepository productDailyStatsRepository;
+    private final ProductStatsRollup productStatsRollup;
+    private final UniqueVisitorTracker uniqueVisitorTracker;
+    private final Clock clock;
+    private final OverflowPolicy viewOverflowPolicy;
+    private final int maxStatsDays;
+
+    public AnalyticsService(
+            AnalyticsEventIngestor eventIngestor,
+            TrendingProductsTracker trendingProductsTracker,
+            ProductDailyStatsRepository productDailyStatsRepository,
+            ProductStatsRollup productStatsRollup,
+            UniqueVisitorTracker uniqueVisitorTracker,
+            Clock clock,
+            @Value("${app.analytics.ingest.view-overflow-policy:DROP}") OverflowPolicy viewOverflowPolicy,
+            @Value("${app.analytics.rollup.max-query-days:366}") int maxStatsDays) {
+        this.eventIngestor = eventIngestor;
+        this.trendingProductsTracker = trendingProductsTracker;
+        this.productDailyStatsRepository = productDailyStatsRepository;
+        this.productStatsRollup = productStatsRollup;
+        this.uniqueVisitorTracker = uniqueVisitorTracker;
+        this.clock = clock;
+        this.viewOverflowPolicy = viewOverflowPolicy;
+        this.maxStatsDays = maxStatsDays;
+    }
 
     public void logProductView(Long userId, Long productId) {
         UserEvent event = new UserEvent();
         event.setUserId(userId);
         event.setProductId(productId);
         event.setEventType("VIEW");
-        event.setTimestamp(Instant.now());
+        event.setTimestamp(clock.instant());
 
-        userRepositoryEvent.save(event);
+        // Zobrazení jsou nejčastější zápis - při přetížení je lze zahodit
+        eventIngestor.ingest(event, viewOverflowPolicy);
+        if (productId != null) {
+            trendingProductsTracker.recordView(productId);
+        }
     }
 
         public void logProductPurchase(Long userId, Long productId, Double price, Integer quantity) {
@@ -33,12 +78,76 @@ public class AnalyticsService {
             event.setPriceAtEvent(price);
             event.setQuantity(quantity);
             event.setEventType("PURCHASE");
-            event.setTimestamp(Instant.now());
+            event.setTimestamp(clock.instant());
+
+            // Nákupy se nezahazují - při plné frontě se zapíší synchronně
+            eventIngestor.ingest(event, OverflowPolicy.CALLER_RUNS);
+        }
+
+        /**
+         * Nejzobrazovanější produkty v časovém okně - čte se z paměti, ne z MongoDB.
+         */
+        public List<TrendingProductDTO> getTrendingProducts(TrendingWindow window, int limit) {
+            return trendingProductsTracker.getTopProducts(window, limit);
+        }
+
+        /**
+         * Statistiky produktu za období (včetně krajních dnů) z předpočítaných denních souhrnů.
+         * Bez zadání se vrací posledních 30 dní včetně dneška.
+         */
+        public ProductStatsResponse getProductStats(Long productId, LocalDate from, LocalDate to) {
+            LocalDate end = endOrToday(to);
+            LocalDate start = from != null ? from : end.minusDays(29);
+            validateRange(start, end);
+
+            List<ProductDailyStats> rows = productDailyStatsRepository
+                    .findByProductIdAndDayRange(productId, start.toString(), end.toString());
+            long views = 0, purchases = 0, units = 0;
+            double revenue = 0;
+            for (ProductDailyStats row : rows) {
+                views += row.getViews();
+                purchases += row.getPurchases();
+                units += row.getUnits();
+                revenue += row.getRevenue();
+            }
+            List<ProductStatsResponse.DailyStats> days = rows.stream()
+                    .map(row -> new ProductStatsResponse.DailyStats(LocalDate.parse(row.getDay()),
+                            row.getViews(), row.getPurchases(), row.getUnits(), row.getRevenue()))
+                    .toList();
+            return new ProductStatsResponse(productId, start, end, views, purchases, units, revenue, days);
+        }
+
+        /**
+         * Dohnání/oprava denních souhrnů z uložených událostí (např. po nasazení nad existujícími daty).
+         *
+         * @return počet zapsaných souhrnů
+         */
+        public int rebuildProductStats(LocalDate from, LocalDate to) {
+            return productStatsRollup.rebuild(from, to);
+        }
+
+        /**
+         * Odhad počtu unikátních přihlášených návštěvníků produktu (HyperLogLog).
+         * Bez zadání se vrací posledních 7 dní včetně dneška.
+         */
+        public UniqueVisitorsResponse getUniqueVisitors(Long productId, LocalDate from, LocalDate to) {
+            LocalDate end = endOrToday(to);
+            LocalDate start = from != null ? from : end.minusDays(6);
+            validateRange(start, end);
+            return new UniqueVisitorsResponse(productId, start, end,
+                    uniqueVisitorTracker.estimate(productId, start, end), uniqueVisitorTracker.relativeStandardError());
+        }
 
-            userRepositoryEvent.save(event);
+        private LocalDate endOrToday(LocalDate to) {
+            return to != null ? to : LocalDate.now(clock.withZone(ZoneOffset.UTC));
         }
 
-        public List<TrendingProductDTO> getTrendingProducts(int limit) {
-            return userRepositoryEvent.findTopTrendingProducts(limit);
+        private void validateRange(LocalDate start, LocalDate end) {
+            if (start.isAfter(end)) {
+                throw new IllegalArgumentException("Parametr 'from' musí být nejpozději 'to'");
+            }
+            if (ChronoUnit.DAYS.between(start, end) >= maxStatsDays) {
+                throw new IllegalArgumentException("Období může mít nejvýše " + maxStatsDays + " dní");
+            }
         }
 }
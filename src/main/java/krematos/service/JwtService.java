@@ -20,6 +20,11 @@ import java.time.Clock;
 
 @Service
 public class JwtService {
+    // Claimy refresh tokenu (rodina rotovaných tokenů + typ tokenu)
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+    public static final String FAMILY_ID_CLAIM = "fid";
+
     private final Key signingKey;
     private final long accessTokenExpirationMillis;
 
@@ -57,6 +62,30 @@ public class JwtService {
     public String generateRefreshToken(String username) {
         return generateToken(username, refreshTokenExpirationMillis);
     }
+
+    /**
+     * Vygeneruje rotovatelný refresh token patřící do rodiny {@code familyId}.
+     * Server si ukládá pouze hash {@code familyId} a hash {@code tokenId} (jti),
+     * samotný token se nikde neperzistuje.
+     */
+    public String generateRefreshToken(String username, String familyId, String tokenId) {
+        Date now = Date.from(Instant.now(clock));
+        Date expiryDate = new Date(now.getTime() + refreshTokenExpirationMillis);
+
+        return Jwts.builder()
+                .subject(username)
+                .id(tokenId)
+                .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
+                .claim(FAMILY_ID_CLAIM, familyId)
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .signWith((SecretKey) signingKey)
+                .compact();
+    }
+
+    public long getRefreshTokenExpirationMillis() {
+        return refreshTokenExpirationMillis;
+    }
     // Společná metoda pro generování tokenu
     private String generateToken(String username, long expirationMillis) {
         Date now = Date.from(Instant.now(clock));
@@ -72,12 +101,17 @@ public class JwtService {
 
     // -------- Parsování a validace --------
     public boolean validateToken(String token, String username){
-        final String tokenUsername = extractUsername(token);
-        return (tokenUsername.equals(username) && !isTokenExpired(token));
+        final Claims claims = extractAllClaim(token);
+        // Refresh token nesmí posloužit jako access token
+        return (claims.getSubject().equals(username) && !isTokenExpired(claims) && !isRefreshToken(claims));
+    }
+
+    private boolean isRefreshToken(Claims claims) {
+        return REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM, String.class));
     }
 
-    private boolean isTokenExpired(String token){
-        return extractClaim(token, Claims::getExpiration).before(new Date());
+    private boolean isTokenExpired(Claims claims){
+        return claims.getExpiration().before(new Date());
     }
 
     // -------- Extrakce údajů z tokenu --------
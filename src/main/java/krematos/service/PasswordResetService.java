@@ -13,18 +13,31 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
-import java.util.UUID;
 
+/**
+ * Reset hesla přes jednorázový token zaslaný e-mailem.
+ * <p>
+ * Uživatel má nejvýše jeden aktivní token (unikátní index na {@code user_id}); nová žádost
+ * ho přepíše (upsert: UPDATE, a pokud token ještě neexistuje, INSERT). V DB je jen SHA-256
+ * hash tokenu, token samotný zná pouze příjemce e-mailu. Vypršelé tokeny hromadně maže
+ * {@link TokenCleanupService}.
+ */
 @Slf4j
 @RequiredArgsConstructor
 @Service
 @Transactional
 public class PasswordResetService {
+    static final Duration TOKEN_VALIDITY = Duration.ofMinutes(15);
+
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final PasswordResetRepository tokenRepository;
     private final PasswordEncoder passwordEncoder;
+    private final Clock clock;
 
     /**  Uživatel požádá o reset hesla
      *
@@ -42,14 +55,11 @@ public class PasswordResetService {
 
         User user = userOptional.get();
 
-        // Vygeneruje náhodný token
-        String token = UUID.randomUUID().toString();
-
-        // Uloží do DB
-        PasswordResetToken myToken = new PasswordResetToken(token, user);
-        tokenRepository.save(myToken);
+        // Vygeneruje náhodný token, do DB uloží jen jeho hash
+        String token = SecureTokens.randomToken();
+        storeToken(user, SecureTokens.sha256(token), clock.instant().plus(TOKEN_VALIDITY));
 
-        // Pošle email (asynchronně, aby uživatel nečekal)
+        // Zařadí email do outboxu (odešle se asynchronně, aby uživatel nečekal)
         emailService.sendPasswordResetEmail(user.getEmail(), token);
     }
 
@@ -60,10 +70,10 @@ public class PasswordResetService {
      * @throws IllegalArgumentException pokud je token neplatný nebo vypršel.
      */
     public void resetPassword(String token, String newPassword) {
-        PasswordResetToken resetToken = tokenRepository.findByToken(token)
+        PasswordResetToken resetToken = tokenRepository.findByTokenHash(SecureTokens.sha256(token))
                 .orElseThrow(() -> new IllegalArgumentException("Neplatný token"));
 
-        if (resetToken.isExpired()) {
+        if (resetToken.isExpired(clock.instant())) {
             tokenRepository.delete(resetToken); // Úklid
             throw new IllegalArgumentException("Token vypršel");
         }
@@ -78,7 +88,13 @@ public class PasswordResetService {
         tokenRepository.delete(resetToken);
     }
 
-
-
-
+    /**
+     * Upsert jediného aktivního tokenu uživatele. Souběžný první INSERT pro stejného uživatele
+     * zastaví unikátní index na {@code user_id}.
+     */
+    private void storeToken(User user, String tokenHash, Instant expiryDate) {
+        if (tokenRepository.replaceToken(user.getId(), tokenHash, expiryDate) == 0) {
+            tokenRepository.save(new PasswordResetToken(tokenHash, user, expiryDate));
+        }
+    }
 }
@@ -9,6 +9,7 @@ import java.io.IOException;
 import krematos.dto.product.ProductResponse;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -23,4 +24,6 @@ public interface ProductService {
 
     Optional<Product> updateProduct(Long id, ProductResponse productDto);
 
+    List<Product> findRelatedProducts(Long id, int limit);
+
 }
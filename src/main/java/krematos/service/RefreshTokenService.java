@@ -0,0 +1,186 @@
+package krematos.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import krematos.exception.token.InvalidTokenException;
+import krematos.model.RefreshTokenFamily;
+import krematos.repository.RefreshTokenFamilyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Správa rotovaných refresh tokenů.
+ * <p>
+ * Každé přihlášení založí "rodinu" tokenů. Při každém refreshi se vydá nový token
+ * a předchozí přestane platit. Pokud někdo předloží již použitý token, je to
+ * známka krádeže - celá rodina se zneplatní a uživatel se musí znovu přihlásit.
+ * <p>
+ * V DB je jediný řádek na rodinu (hash ID rodiny + hash aktuálního jti), před DB
+ * je malá in-memory cache, takže běžný refresh stojí jen ověření HMAC podpisu,
+ * dva SHA-256 hashe a jeden podmíněný UPDATE. Drahé BCrypt ověření hesla
+ * se tak spouští pouze při skutečném přihlášení.
+ */
+@Slf4j
+@Service
+@Transactional(noRollbackFor = InvalidTokenException.class) // zneplatnění rodiny se musí zapsat i při chybě
+public class RefreshTokenService {
+
+    private final RefreshTokenFamilyRepository familyRepository;
+    private final JwtService jwtService;
+    private final Clock clock;
+    private final Cache<String, FamilyState> familyCache;
+
+    public RefreshTokenService(
+            RefreshTokenFamilyRepository familyRepository,
+            JwtService jwtService,
+            Clock clock,
+            @Value("${app.refresh-token.cache.maximum-size:10000}") long cacheMaximumSize,
+            @Value("${app.refresh-token.cache.expire-after-write:10m}") Duration cacheExpireAfterWrite) {
+        this.familyRepository = familyRepository;
+        this.jwtService = jwtService;
+        this.clock = clock;
+        this.familyCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheExpireAfterWrite)
+                .build();
+    }
+
+    /**
+     * Snímek rodiny držený v cache (bez Hibernate entity).
+     */
+    record FamilyState(String username, String currentTokenHash, Instant expiresAt, boolean revoked) {
+        static FamilyState of(RefreshTokenFamily family) {
+            return new FamilyState(family.getUsername(), family.getCurrentTokenHash(),
+                    family.getExpiresAt(), family.isRevoked());
+        }
+    }
+
+    /**
+     * Výsledek úspěšné rotace - nový refresh token a uživatel, kterému patří.
+     */
+    public record RotatedToken(String username, String refreshToken) {
+    }
+
+    /**
+     * Založí novou rodinu a vydá její první refresh token (volá se po přihlášení).
+     *
+     * @param username uživatel, pro kterého se token vydává
+     * @return podepsaný refresh token
+     */
+    public String issue(String username) {
+        String familyId = SecureTokens.randomToken();
+        String tokenId = SecureTokens.randomToken();
+        Instant expiresAt = Instant.now(clock).plusMillis(jwtService.getRefreshTokenExpirationMillis());
+
+        RefreshTokenFamily family = new RefreshTokenFamily(
+                SecureTokens.sha256(familyId), SecureTokens.sha256(tokenId), username, expiresAt);
+        familyRepository.save(family);
+        familyCache.put(family.getFamilyHash(), FamilyState.of(family));
+
+        return jwtService.generateRefreshToken(username, familyId, tokenId);
+    }
+
+    /**
+     * Vymění platný refresh token za nový. Předložený token tím přestává platit.
+     *
+     * @param refreshToken refresh token z cookie
+     * @return nový refresh token a jméno uživatele
+     * @throws InvalidTokenException pokud je token neplatný, vypršel, patří do zneplatněné
+     *                               rodiny nebo byl již jednou použit
+     */
+    public RotatedToken rotate(String refreshToken) {
+        Claims claims = parseRefreshToken(refreshToken);
+        String familyHash = SecureTokens.sha256(claims.get(JwtService.FAMILY_ID_CLAIM, String.class));
+        String tokenHash = SecureTokens.sha256(claims.getId());
+
+        FamilyState state = loadState(familyHash);
+        if (state.revoked() || state.expiresAt().isBefore(Instant.now(clock))) {
+            throw new InvalidTokenException("Refresh token byl zneplatněn nebo vypršel");
+        }
+        if (!state.currentTokenHash().equals(tokenHash)) {
+            // Cache může být zastaralá (rotace na jiné instanci) - rozhoduje DB
+            familyCache.invalidate(familyHash);
+            state = loadState(familyHash);
+            if (!state.currentTokenHash().equals(tokenHash)) {
+                revokeCompromised(familyHash, state.username());
+            }
+        }
+
+        String newTokenId = SecureTokens.randomToken();
+        String newTokenHash = SecureTokens.sha256(newTokenId);
+        Instant expiresAt = Instant.now(clock).plusMillis(jwtService.getRefreshTokenExpirationMillis());
+
+        if (familyRepository.rotate(familyHash, tokenHash, newTokenHash, expiresAt) == 0) {
+            // Souběžný refresh stejným tokenem - druhý pokus se považuje za znovupoužití
+            revokeCompromised(familyHash, state.username());
+        }
+        familyCache.put(familyHash, new FamilyState(state.username(), newTokenHash, expiresAt, false));
+
+        String familyId = claims.get(JwtService.FAMILY_ID_CLAIM, String.class);
+        return new RotatedToken(state.username(),
+                jwtService.generateRefreshToken(state.username(), familyId, newTokenId));
+    }
+
+    /**
+     * Zneplatní rodinu, do které token patří (odhlášení). Neplatné tokeny ignoruje.
+     *
+     * @param refreshToken refresh token z cookie
+     */
+    public void revoke(String refreshToken) {
+        try {
+            Claims claims = parseRefreshToken(refreshToken);
+            String familyHash = SecureTokens.sha256(claims.get(JwtService.FAMILY_ID_CLAIM, String.class));
+            familyRepository.revoke(familyHash);
+            familyCache.invalidate(familyHash);
+        } catch (InvalidTokenException e) {
+            log.debug("Odhlášení s neplatným refresh tokenem - není co zneplatnit");
+        }
+    }
+
+    // Spustí se každý den ve 3:00 ráno
+    @Scheduled(cron = "${app.refresh-token.cleanup-cron:0 0 3 * * *}")
+    public void removeExpiredFamilies() {
+        int removed = familyRepository.deleteExpired(Instant.now(clock));
+        log.info("Odstraněno {} vypršelých rodin refresh tokenů.", removed);
+    }
+
+    // --- Helper Methods ---
+
+    private Claims parseRefreshToken(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new InvalidTokenException("Chybí refresh token");
+        }
+        Claims claims = jwtService.extractClaim(refreshToken, c -> c);
+        if (!JwtService.REFRESH_TOKEN_TYPE.equals(claims.get(JwtService.TOKEN_TYPE_CLAIM, String.class))
+                || claims.getId() == null
+                || claims.get(JwtService.FAMILY_ID_CLAIM, String.class) == null) {
+            throw new InvalidTokenException("Token není refresh token");
+        }
+        return claims;
+    }
+
+    private FamilyState loadState(String familyHash) {
+        FamilyState state = familyCache.get(familyHash, hash -> familyRepository.findByFamilyHash(hash)
+                .map(FamilyState::of)
+                .orElse(null));
+        if (state == null) {
+            throw new InvalidTokenException("Neznámý refresh token");
+        }
+        return state;
+    }
+
+    private void revokeCompromised(String familyHash, String username) {
+        log.warn("Detekováno znovupoužití refresh tokenu uživatele {} - rodina tokenů zneplatněna", username);
+        familyRepository.revoke(familyHash);
+        familyCache.invalidate(familyHash);
+        throw new InvalidTokenException("Refresh token již byl použit");
+    }
+}
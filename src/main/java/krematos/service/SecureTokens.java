@@ -0,0 +1,41 @@
+package krematos.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Náhodné tokeny a jejich SHA-256 hashe. Do DB se ukládá vždy jen hash, takže únik
+ * tabulky neprozradí platné tokeny; vyhledání podle hashe jde přes unikátní index.
+ */
+public final class SecureTokens {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private SecureTokens() {
+    }
+
+    /**
+     * Náhodný token (256 bitů, Base64 URL bez paddingu).
+     */
+    static String randomToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * SHA-256 hash hodnoty (hex, 64 znaků).
+     */
+    public static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 není dostupný", e);
+        }
+    }
+}
@@ -3,16 +3,20 @@ package krematos.service;
 import lombok.extern.slf4j.Slf4j;
 import krematos.repository.PasswordResetRepository;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
+import java.time.Clock;
 
 @Slf4j
+@Component
 public class TokenCleanupService {
     private final PasswordResetRepository passwordResetRepository;
+    private final Clock clock;
 
-    public TokenCleanupService(PasswordResetRepository passwordResetRepository) {
+    public TokenCleanupService(PasswordResetRepository passwordResetRepository, Clock clock) {
         this.passwordResetRepository = passwordResetRepository;
+        this.clock = clock;
     }
 
     // Spustí se každý den ve 2:00 ráno
@@ -20,8 +24,7 @@ public class TokenCleanupService {
     @Scheduled(cron = "0 0 2 * * *")
     @Transactional // Důležité pro mazací operace
     public void removeExpiredTokens() {
-        Instant now = Instant.now();
-        passwordResetRepository.deleteByExpiryDateBefore(now);
-        log.info("Vypršené tokeny pro reset hesla byly úspěšně odstraněny.");
+        int deleted = passwordResetRepository.deleteExpired(clock.instant()); // Jeden hromadný DELETE
+        log.info("Odstraněno {} vypršelých tokenů pro reset hesla.", deleted);
     }
 }
@@ -0,0 +1,17 @@
+package krematos.service.analytics;
+
+import krematos.model.nosql.UserEvent;
+
+import java.util.List;
+
+/**
+ * Odběratel dávek událostí, které byly úspěšně zapsány do {@code user_events}
+ * (z {@link AnalyticsEventIngestor} i z {@link AnalyticsOutboxRelay}).
+ * <p>
+ * Volá se na vlákně zapisovače - implementace musí být rychlé a chyby ošetřit samy.
+ * Dávka se může po pádu aplikace doručit znovu (at-least-once).
+ */
+public interface AnalyticsBatchListener {
+
+    void onBatchStored(List<UserEvent> events);
+}
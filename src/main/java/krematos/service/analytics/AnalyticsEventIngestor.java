@@ -0,0 +1,299 @@
+package krematos.service.analytics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import krematos.model.nosql.UserEvent;
+import krematos.repository.UserRepositoryEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronní dávkový zápis analytických událostí do MongoDB.
+ * <p>
+ * - Request vlákno pouze vloží událost do omezené lock-free fronty ({@link MpscRingBuffer}).
+ * - Jediné vlákno "AnalyticsFlusher" frontu vybírá a zapisuje dávky přes {@code insert(Iterable)}
+ *   (MongoTemplate#insertAll) - dávka se odešle po dosažení {@code batch-size} nebo
+ *   po uplynutí {@code flush-interval} od první události v dávce.
+ * - Při plné frontě rozhoduje {@link OverflowPolicy}; zahozené události se počítají v metrikách.
+ * - Pokud zápis do MongoDB selže, dávka se uloží do lokálního {@link AnalyticsEventSpool}
+ *   a flusher ji po uplynutí {@code replay-interval} zkusí přehrát. Dokud je DB nedostupná,
+ *   nové dávky jdou rovnou do spoolu, takže request vlákna nikdy nečekají na MongoDB.
+ * - Událost dostane ID už při příjmu a spool ho uchová. Přehrání ze spoolu se proto zapisuje
+ *   jako upsert podle ID - dávka zapsaná jen zčásti (nebo přehraná znovu po pádu) v DB nezdvojí.
+ * - Každá zapsaná dávka (i přehraná ze spoolu) se předá odběratelům {@link AnalyticsBatchListener}
+ *   (denní souhrny, odhady unikátních návštěvníků).
+ */
+@Slf4j
+@Component
+public class AnalyticsEventIngestor {
+
+    /**
+     * Co udělat s událostí, když je fronta plná.
+     */
+    public enum OverflowPolicy {
+        /** Událost se zahodí (levné, vhodné pro zobrazení produktů). */
+        DROP,
+        /** Událost zapíše vlákno volajícího přímo do lokálního spoolu (nečeká na DB). */
+        CALLER_RUNS
+    }
+
+    private final UserRepositoryEvent userRepositoryEvent;
+    private final MongoTemplate mongoTemplate;
+    private final AnalyticsEventSpool spool;
+    private final List<AnalyticsBatchListener> batchListeners;
+    private final MpscRingBuffer<UserEvent> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long pollIntervalNanos;
+    private final long replayIntervalNanos;
+    private final int replayBatchesPerPass;
+    private final MeterRegistry meterRegistry;
+
+    private final Counter flushedEvents;
+    private final Counter failedEvents;
+    private final Counter spooledEvents;
+    private final Counter callerRunsEvents;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+
+    private volatile boolean running;
+    private Thread flusherThread;
+
+    // Stav úložiště - čte a zapisuje pouze vlákno flusheru
+    private boolean storeAvailable = true;
+    private long nextReplayAttemptAt;
+
+    public AnalyticsEventIngestor(
+            UserRepositoryEvent userRepositoryEvent,
+            MongoTemplate mongoTemplate,
+            AnalyticsEventSpool spool,
+            List<AnalyticsBatchListener> batchListeners,
+            MeterRegistry meterRegistry,
+            @Value("${app.analytics.ingest.queue-capacity:8192}") int queueCapacity,
+            @Value("${app.analytics.ingest.batch-size:500}") int batchSize,
+            @Value("${app.analytics.ingest.flush-interval:1s}") Duration flushInterval,
+            @Value("${app.analytics.ingest.poll-interval:10ms}") Duration pollInterval,
+            @Value("${app.analytics.spool.replay-interval:5s}") Duration replayInterval,
+            @Value("${app.analytics.spool.replay-batches-per-pass:10}") int replayBatchesPerPass) {
+        this.userRepositoryEvent = userRepositoryEvent;
+        this.mongoTemplate = mongoTemplate;
+        this.spool = spool;
+        this.batchListeners = batchListeners;
+        this.meterRegistry = meterRegistry;
+        this.buffer = new MpscRingBuffer<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.pollIntervalNanos = Math.min(pollInterval.toNanos(), flushIntervalNanos);
+        this.replayIntervalNanos = replayInterval.toNanos();
+        this.replayBatchesPerPass = replayBatchesPerPass;
+
+        Gauge.builder("analytics.ingest.queue.size", buffer, MpscRingBuffer::size)
+                .description("Počet událostí čekajících na zápis")
+                .register(meterRegistry);
+        this.flushedEvents = meterRegistry.counter("analytics.ingest.flushed");
+        this.failedEvents = meterRegistry.counter("analytics.ingest.failed");
+        this.spooledEvents = meterRegistry.counter("analytics.ingest.spooled");
+        this.callerRunsEvents = meterRegistry.counter("analytics.ingest.caller.runs");
+        this.flushTimer = meterRegistry.timer("analytics.ingest.flush.duration");
+        this.batchSizes = DistributionSummary.builder("analytics.ingest.batch.size")
+                .description("Počet událostí v jedné dávce zápisu")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        flusherThread = Thread.ofPlatform()
+                .name("AnalyticsFlusher")
+                .daemon(true)
+                .start(this::runFlushLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusherThread);
+        flusherThread.join(Duration.ofSeconds(10)); // Zbytek fronty se zapíše před ukončením aplikace
+    }
+
+    /**
+     * Předá událost k asynchronnímu zápisu. Volá se z request vláken.
+     *
+     * @param event          událost k uložení
+     * @param overflowPolicy chování při plné frontě
+     */
+    public void ingest(UserEvent event, OverflowPolicy overflowPolicy) {
+        if (event.getId() == null) {
+            event.setId(new ObjectId().toHexString()); // Stejný tvar jako ID přidělené MongoDB
+        }
+        if (buffer.offer(event)) {
+            meterRegistry.counter("analytics.ingest.accepted", "type", event.getEventType()).increment();
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.CALLER_RUNS && appendToSpool(event)) {
+            callerRunsEvents.increment();
+            return;
+        }
+        meterRegistry.counter("analytics.ingest.dropped", "type", event.getEventType()).increment();
+        log.debug("Fronta analytiky je plná - událost {} zahozena", event.getEventType());
+    }
+
+    // --- Helper Methods ---
+
+    private void runFlushLoop() {
+        List<UserEvent> batch = new ArrayList<>(batchSize);
+        long batchStartedAt = 0;
+        while (running) {
+            int drained = buffer.drainTo(batch, batchSize - batch.size());
+            if (!batch.isEmpty() && batchStartedAt == 0) {
+                batchStartedAt = System.nanoTime();
+            }
+            if (batch.size() >= batchSize
+                    || (!batch.isEmpty() && System.nanoTime() - batchStartedAt >= flushIntervalNanos)) {
+                flush(batch);
+                batchStartedAt = 0;
+            }
+            boolean replayed = replaySpool(); // Přehrávání se prokládá s běžným zápisem, aby nestárlo
+            if (drained == 0 && !replayed) {
+                LockSupport.parkNanos(pollIntervalNanos);
+            }
+        }
+        // Ukončení - zapíše se vše, co zůstalo ve frontě
+        do {
+            flush(batch);
+        } while (buffer.drainTo(batch, batchSize) > 0);
+    }
+
+    private void flush(List<UserEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            if (storeAvailable && store(batch, false)) {
+                flushedEvents.increment(batch.size());
+            } else {
+                spill(batch);
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizes.record(batch.size());
+            batch.clear();
+        }
+    }
+
+    /**
+     * Přehraje část spoolu do DB, pokud je co přehrávat a DB je (nebo může být) opět dostupná.
+     *
+     * @return {@code true}, pokud byla přehrána alespoň jedna dávka
+     */
+    private boolean replaySpool() {
+        if (!storeAvailable && System.nanoTime() < nextReplayAttemptAt) {
+            return false;
+        }
+        boolean replayed = false;
+        for (int i = 0; i < replayBatchesPerPass && spool.hasPending(); i++) {
+            List<UserEvent> batch = spool.readBatch(batchSize);
+            if (batch.isEmpty() || !store(batch, true)) {
+                break;
+            }
+            spool.acknowledge();
+            replayed = true;
+        }
+        if (replayed && !spool.hasPending()) {
+            log.info("Spool analytiky byl přehrán do MongoDB");
+        }
+        return replayed;
+    }
+
+    /**
+     * @param replay dávka ze spoolu - mohla už být zapsaná (celá nebo zčásti), zapíše se upsertem podle ID
+     */
+    private boolean store(List<UserEvent> batch, boolean replay) {
+        try {
+            if (replay) {
+                upsertById(batch);
+            } else {
+                userRepositoryEvent.insert(batch);
+            }
+        } catch (RuntimeException e) {
+            if (storeAvailable) {
+                log.error("Zápis dávky {} analytických událostí selhal, události se ukládají do spoolu: {}",
+                        batch.size(), e.getMessage());
+            }
+            storeAvailable = false;
+            nextReplayAttemptAt = System.nanoTime() + replayIntervalNanos;
+            return false;
+        }
+        if (!storeAvailable) {
+            log.info("MongoDB je opět dostupná - pokračuje přímý zápis analytiky");
+        }
+        storeAvailable = true;
+        notifyListeners(batch);
+        return true;
+    }
+
+    private void upsertById(List<UserEvent> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserEvent.class);
+        for (UserEvent event : batch) {
+            if (event.getId() == null) {
+                bulk.insert(event); // Záznam starší verze spoolu - ID nemá
+            } else {
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(event.getId())), event,
+                        FindAndReplaceOptions.options().upsert());
+            }
+        }
+        bulk.execute();
+    }
+
+    // Mimo try v store() - chyba odběratele nesmí poslat už zapsanou dávku do spoolu
+    private void notifyListeners(List<UserEvent> batch) {
+        for (AnalyticsBatchListener listener : batchListeners) {
+            try {
+                listener.onBatchStored(batch);
+            } catch (RuntimeException e) {
+                log.warn("Odběratel {} dávky analytiky selhal: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean appendToSpool(UserEvent event) {
+        try {
+            return spool.append(List.of(event));
+        } catch (RuntimeException e) {
+            log.error("Uložení analytické události do spoolu selhalo: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void spill(List<UserEvent> batch) {
+        try {
+            if (spool.append(batch)) {
+                spooledEvents.increment(batch.size());
+                return;
+            }
+            log.warn("Spool analytiky je plný - {} událostí zahozeno", batch.size());
+        } catch (RuntimeException e) {
+            log.error("Uložení {} analytických událostí do spoolu selhalo: {}", batch.size(), e.getMessage());
+        }
+        failedEvents.increment(batch.size());
+    }
+}
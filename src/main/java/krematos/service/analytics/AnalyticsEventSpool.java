@@ -0,0 +1,437 @@
+package krematos.service.analytics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import krematos.model.nosql.UserEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Lokální trvalá fronta (spool) analytických událostí pro případ, že MongoDB je pomalá nebo nedostupná.
+ * <p>
+ * - Události se zapisují do append-only segmentů na disku mapovaných do paměti ({@link MappedByteBuffer}).
+ * - Každý záznam má tvar {@code [délka][CRC32C][data]}; nulová délka značí konec segmentu
+ *   (nový soubor je vyplněný nulami). Poškozený nebo neúplný záznam (pád uprostřed zápisu)
+ *   se pozná podle CRC a zbytek segmentu se přeskočí.
+ * - Po zaplnění segmentu se založí nový; celková velikost je omezená {@code max-size},
+ *   po jejím dosažení se další události odmítnou.
+ * - Uzavřený segment se zkrátí na zapsaná data - malý únik nezabere v limitu celý segment.
+ * - Přehrávání ({@link #readBatch} + {@link #acknowledge}) čte nejstarší segment a po potvrzení
+ *   zápisu do DB ho smaže. Doručení je "at-least-once" - při pádu během přehrávání se
+ *   nepotvrzená část segmentu po restartu přehraje znovu. Záznam nese ID události,
+ *   opakované přehrání tak v DB přepíše tentýž dokument místo založení nového.
+ * - Každá instance aplikace zapisuje do vlastního podadresáře {@code directory}, zamčeného
+ *   přes {@link FileLock}. Po restartu převezme podadresář instance, která už neběží, a jeho
+ *   segmenty přehraje. Soubory vznikají přes {@link Files#createTempFile} (nepředvídatelná jména,
+ *   práva jen pro vlastníka), sdílený {@code java.io.tmpdir} je tak bezpečný.
+ */
+@Slf4j
+@Component
+public class AnalyticsEventSpool {
+
+    private static final String SEGMENT_PREFIX = "spool-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INSTANCE_PREFIX = "instance-";
+    private static final String LOCK_FILE = ".lock";
+    private static final int RECORD_HEADER_BYTES = 8; // délka + CRC
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxTotalBytes;
+
+    private final Deque<Path> sealedSegments = new ArrayDeque<>();
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(1024);
+    private final CRC32C crc = new CRC32C();
+
+    private long nextSegmentNumber;
+    private long sealedBytes;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeSegment;
+    private Path activePath;
+    private FileLock instanceLock; // Drží podadresář instance po celou dobu běhu
+
+    // Stav přehrávání nejstaršího segmentu
+    private ByteBuffer replaySegment;
+    private int replayOffset;
+    private int pendingOffset;
+
+    private final Counter appendedEvents;
+    private final Counter rejectedEvents;
+    private final Counter replayedEvents;
+    private final Counter corruptedSegments;
+
+    public AnalyticsEventSpool(
+            MeterRegistry meterRegistry,
+            @Value("${app.analytics.spool.directory:${java.io.tmpdir}/eshop-analytics-spool}") Path baseDirectory,
+            @Value("${app.analytics.spool.segment-size:16MB}") DataSize segmentSize,
+            @Value("${app.analytics.spool.max-size:512MB}") DataSize maxSize) throws IOException {
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.maxTotalBytes = maxSize.toBytes();
+        Files.createDirectories(baseDirectory);
+        this.directory = claimInstanceDirectory(baseDirectory);
+        adoptLegacySegments(baseDirectory);
+        recoverExistingSegments();
+
+        this.appendedEvents = meterRegistry.counter("analytics.spool.appended");
+        this.rejectedEvents = meterRegistry.counter("analytics.spool.rejected");
+        this.replayedEvents = meterRegistry.counter("analytics.spool.replayed");
+        this.corruptedSegments = meterRegistry.counter("analytics.spool.corrupted");
+        Gauge.builder("analytics.spool.bytes", this, AnalyticsEventSpool::sizeInBytes)
+                .description("Obsazené místo spoolu na disku")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Zapíše události do spoolu.
+     *
+     * @return {@code false}, pokud byl dosažen limit velikosti a události nebyly uloženy
+     */
+    public synchronized boolean append(List<UserEvent> events) {
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                if (!appendRecord(encode(events.get(i)))) {
+                    rejectedEvents.increment(events.size() - i);
+                    return false;
+                }
+                appendedEvents.increment();
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Zápis do spoolu analytiky selhal", e);
+        }
+    }
+
+    /**
+     * @return {@code true}, pokud spool obsahuje nepřehrané události
+     */
+    public synchronized boolean hasPending() {
+        return replaySegment != null || !sealedSegments.isEmpty()
+                || (activeSegment != null && activeSegment.position() > 0);
+    }
+
+    /**
+     * Načte další dávku k přehrání. Dokud se nezavolá {@link #acknowledge()},
+     * vrací opakovaně stejnou dávku.
+     *
+     * @param maxEvents maximální velikost dávky
+     * @return události k zápisu do DB (prázdný seznam, pokud není co přehrát)
+     */
+    public synchronized List<UserEvent> readBatch(int maxEvents) {
+        try {
+            List<UserEvent> batch = new ArrayList<>(maxEvents);
+            while (batch.isEmpty()) {
+                if (replaySegment == null && !openNextReplaySegment()) {
+                    return batch;
+                }
+                pendingOffset = replayOffset;
+                while (batch.size() < maxEvents) {
+                    ByteBuffer record = nextRecord(replaySegment, pendingOffset);
+                    if (record == null) {
+                        break;
+                    }
+                    batch.add(decode(record));
+                    pendingOffset += RECORD_HEADER_BYTES + record.remaining();
+                }
+                if (batch.isEmpty()) {
+                    finishReplaySegment(); // Segment je přehraný - smaže se a pokračuje se dalším
+                }
+            }
+            return batch;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Čtení ze spoolu analytiky selhalo", e);
+        }
+    }
+
+    /**
+     * Potvrdí, že dávka z posledního {@link #readBatch} byla zapsána do DB.
+     */
+    public synchronized void acknowledge() {
+        if (replaySegment == null) {
+            return;
+        }
+        replayedEvents.increment(countRecords(replayOffset, pendingOffset));
+        replayOffset = pendingOffset;
+    }
+
+    public synchronized long sizeInBytes() {
+        return sealedBytes + (activeSegment != null ? activeSegment.position() : 0);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        sealActiveSegment(); // Rozepsaný segment se zkrátí - po restartu se přehraje jako uzavřený
+        if (instanceLock != null) {
+            instanceLock.channel().close(); // Uvolní i zámek - adresář může převzít další instance
+            instanceLock = null;
+        }
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * Zamkne si podadresář instance. Nejdřív zkusí převzít podadresář instance, která už neběží,
+     * jinak založí nový. Dvě běžící instance tak nikdy nesdílí segmenty.
+     */
+    private Path claimInstanceDirectory(Path baseDirectory) throws IOException {
+        List<Path> candidates;
+        try (Stream<Path> files = Files.list(baseDirectory)) {
+            candidates = files
+                    .filter(Files::isDirectory)
+                    .filter(p -> p.getFileName().toString().startsWith(INSTANCE_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path candidate : candidates) {
+            if (tryLock(candidate)) {
+                return candidate;
+            }
+        }
+        Path created = Files.createTempDirectory(baseDirectory, INSTANCE_PREFIX);
+        if (!tryLock(created)) {
+            throw new IOException("Adresář spoolu " + created + " nelze zamknout");
+        }
+        return created;
+    }
+
+    private boolean tryLock(Path instanceDirectory) throws IOException {
+        FileChannel channel = FileChannel.open(instanceDirectory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                instanceLock = lock;
+                return true;
+            }
+        } catch (OverlappingFileLockException e) {
+            // Adresář drží jiný spool v téže JVM
+        }
+        channel.close();
+        return false;
+    }
+
+    /**
+     * Segmenty ze starší verze ležely přímo v {@code directory} - přesunou se do adresáře instance,
+     * aby se neztratily. Při souběžném startu je převezme ta instance, které se přesun podaří.
+     */
+    private void adoptLegacySegments(Path baseDirectory) throws IOException {
+        for (Path segment : listSegments(baseDirectory)) {
+            try {
+                Files.move(segment, directory.resolve(segment.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException e) {
+                // Převzala je jiná instance
+            }
+        }
+    }
+
+    private static List<Path> listSegments(Path segmentDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(segmentDirectory)) {
+            return files
+                    .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.comparingLong(AnalyticsEventSpool::segmentNumber)
+                            .thenComparing(Comparator.naturalOrder()))
+                    .toList();
+        }
+    }
+
+    private void recoverExistingSegments() throws IOException {
+        for (Path segment : listSegments(directory)) {
+            sealedSegments.addLast(segment);
+            sealedBytes += Files.size(segment);
+            nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(segment) + 1);
+        }
+        if (!sealedSegments.isEmpty()) {
+            log.info("Nalezeno {} segmentů spoolu analytiky ({} B) v {} k přehrání",
+                    sealedSegments.size(), sealedBytes, directory);
+        }
+    }
+
+    private boolean appendRecord(ByteBuffer payload) throws IOException {
+        int recordSize = RECORD_HEADER_BYTES + payload.remaining();
+        if (activeSegment == null || activeSegment.remaining() < recordSize) {
+            sealActiveSegment();
+            if (sealedBytes + segmentSize > maxTotalBytes) {
+                return false;
+            }
+            openActiveSegment();
+        }
+        crc.reset();
+        crc.update(payload.duplicate());
+        activeSegment.putInt(payload.remaining());
+        activeSegment.putInt((int) crc.getValue());
+        activeSegment.put(payload);
+        return true;
+    }
+
+    private void openActiveSegment() throws IOException {
+        // Číslo v prefixu určuje pořadí přehrávání, zbytek jména doplní createTempFile
+        activePath = Files.createTempFile(directory,
+                String.format("%s%020d-", SEGMENT_PREFIX, nextSegmentNumber++), SEGMENT_SUFFIX);
+        activeChannel = FileChannel.open(activePath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSegment = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    private void sealActiveSegment() throws IOException {
+        if (activeSegment == null) {
+            return;
+        }
+        int written = activeSegment.position();
+        activeSegment.force();
+        activeChannel.truncate(written);
+        activeChannel.close();
+        activeSegment = null;
+        if (written == 0) {
+            Files.deleteIfExists(activePath);
+            return;
+        }
+        sealedSegments.addLast(activePath);
+        sealedBytes += written;
+    }
+
+    private boolean openNextReplaySegment() throws IOException {
+        if (sealedSegments.isEmpty()) {
+            if (activeSegment == null || activeSegment.position() == 0) {
+                return false;
+            }
+            sealActiveSegment(); // Přehrává se i rozepsaný segment - další zápisy půjdou do nového
+        }
+        Path segment = sealedSegments.peekFirst();
+        replaySegment = ByteBuffer.wrap(Files.readAllBytes(segment));
+        replayOffset = 0;
+        pendingOffset = 0;
+        return true;
+    }
+
+    private void finishReplaySegment() throws IOException {
+        Path segment = sealedSegments.pollFirst();
+        if (replaySegment.capacity() - replayOffset >= RECORD_HEADER_BYTES && replaySegment.getInt(replayOffset) != 0) {
+            corruptedSegments.increment();
+            log.warn("Segment spoolu {} obsahuje poškozený záznam na pozici {} - zbytek segmentu přeskočen",
+                    segment, replayOffset);
+        }
+        sealedBytes -= replaySegment.capacity();
+        replaySegment = null;
+        Files.deleteIfExists(segment);
+    }
+
+    /**
+     * @return data záznamu na dané pozici, nebo {@code null} na konci segmentu či u poškozeného záznamu
+     */
+    private ByteBuffer nextRecord(ByteBuffer segment, int offset) {
+        if (segment.capacity() - offset < RECORD_HEADER_BYTES) {
+            return null;
+        }
+        int length = segment.getInt(offset);
+        if (length <= 0 || length > segment.capacity() - offset - RECORD_HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer payload = segment.slice(offset + RECORD_HEADER_BYTES, length);
+        crc.reset();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != segment.getInt(offset + 4)) {
+            return null;
+        }
+        return payload;
+    }
+
+    private int countRecords(int from, int to) {
+        int count = 0;
+        for (int offset = from; offset < to; count++) {
+            offset += RECORD_HEADER_BYTES + replaySegment.getInt(offset);
+        }
+        return count;
+    }
+
+    /**
+     * Číslo segmentu ze jména {@code spool-<číslo>-<náhodná část>.seg} (starší verze: {@code spool-<číslo>.seg}).
+     */
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        int end = name.indexOf('-', SEGMENT_PREFIX.length());
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                end >= 0 ? end : name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // --- Binární formát události ---
+
+    private static final int HAS_USER = 1;
+    private static final int HAS_PRODUCT = 1 << 1;
+    private static final int HAS_PRICE = 1 << 2;
+    private static final int HAS_QUANTITY = 1 << 3;
+    private static final int HAS_TIMESTAMP = 1 << 4;
+    private static final int HAS_ID = 1 << 5; // Záznamy starší verze ID nemají
+
+    private ByteBuffer encode(UserEvent event) {
+        byte[] type = event.getEventType() != null
+                ? event.getEventType().getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+        byte[] id = event.getId() != null ? event.getId().getBytes(StandardCharsets.UTF_8) : null;
+        int flags = (id != null ? HAS_ID : 0)
+                | (event.getUserId() != null ? HAS_USER : 0)
+                | (event.getProductId() != null ? HAS_PRODUCT : 0)
+                | (event.getPriceAtEvent() != null ? HAS_PRICE : 0)
+                | (event.getQuantity() != null ? HAS_QUANTITY : 0)
+                | (event.getTimestamp() != null ? HAS_TIMESTAMP : 0);
+
+        ByteBuffer buffer = recordBuffer.clear();
+        buffer.put((byte) flags);
+        buffer.putShort((short) type.length).put(type);
+        if (id != null) buffer.putShort((short) id.length).put(id);
+        if (event.getUserId() != null) buffer.putLong(event.getUserId());
+        if (event.getProductId() != null) buffer.putLong(event.getProductId());
+        if (event.getPriceAtEvent() != null) buffer.putDouble(event.getPriceAtEvent());
+        if (event.getQuantity() != null) buffer.putInt(event.getQuantity());
+        if (event.getTimestamp() != null) {
+            buffer.putLong(event.getTimestamp().getEpochSecond()).putInt(event.getTimestamp().getNano());
+        }
+        return buffer.flip();
+    }
+
+    private static UserEvent decode(ByteBuffer buffer) {
+        ByteBuffer in = buffer.duplicate();
+        int flags = in.get();
+        byte[] type = new byte[in.getShort()];
+        in.get(type);
+
+        UserEvent event = new UserEvent();
+        event.setEventType(type.length > 0 ? new String(type, StandardCharsets.UTF_8) : null);
+        if ((flags & HAS_ID) != 0) {
+            byte[] id = new byte[in.getShort()];
+            in.get(id);
+            event.setId(new String(id, StandardCharsets.UTF_8));
+        }
+        if ((flags & HAS_USER) != 0) event.setUserId(in.getLong());
+        if ((flags & HAS_PRODUCT) != 0) event.setProductId(in.getLong());
+        if ((flags & HAS_PRICE) != 0) event.setPriceAtEvent(in.getDouble());
+        if ((flags & HAS_QUANTITY) != 0) event.setQuantity(in.getInt());
+        if ((flags & HAS_TIMESTAMP) != 0) event.setTimestamp(Instant.ofEpochSecond(in.getLong(), in.getInt()));
+        return event;
+    }
+}
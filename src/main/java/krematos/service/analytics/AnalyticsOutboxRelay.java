@@ -0,0 +1,131 @@
+package krematos.service.analytics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import krematos.model.AnalyticsOutboxEvent;
+import krematos.model.nosql.UserEvent;
+import krematos.repository.AnalyticsOutboxRepository;
+import krematos.repository.UserRepositoryEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Přenáší nákupní události z tabulky {@code analytics_outbox} do MongoDB ({@code user_events}).
+ * <p>
+ * Každá dávka je jedna transakce: řádky se zamknou ({@code FOR UPDATE SKIP LOCKED} - souběžně běžící
+ * instance si vezmou jiné řádky), zapíšou do MongoDB a smažou. Při chybě MongoDB se transakce vrátí
+ * a žádná událost se neztratí. Pokud aplikace spadne mezi zápisem a commitem, dávka se odešle znovu -
+ * ID události v MongoDB je odvozené z ID řádku outboxu ({@code outbox-<id>}), opakovaný zápis proto
+ * jen přepíše stejný dokument.
+ * <p>
+ * {@link AnalyticsBatchListener} odběratelé dostanou dávku až po commitu a jen s řádky, které smazala
+ * tato instance - stejný nákup tedy nezapočítají dvakrát.
+ */
+@Slf4j
+@Component
+public class AnalyticsOutboxRelay {
+
+    static final String ID_PREFIX = "outbox-";
+
+    private final AnalyticsOutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepositoryEvent userRepositoryEvent;
+    private final List<AnalyticsBatchListener> batchListeners;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Counter publishedEvents;
+    private final Counter failedBatches;
+
+    public AnalyticsOutboxRelay(
+            AnalyticsOutboxRepository outboxRepository,
+            PlatformTransactionManager transactionManager,
+            UserRepositoryEvent userRepositoryEvent,
+            List<AnalyticsBatchListener> batchListeners,
+            MeterRegistry meterRegistry,
+            @Value("${app.analytics.outbox.batch-size:500}") int batchSize,
+            @Value("${app.analytics.outbox.max-batches-per-run:20}") int maxBatchesPerRun) {
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userRepositoryEvent = userRepositoryEvent;
+        this.batchListeners = batchListeners;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.publishedEvents = meterRegistry.counter("analytics.outbox.published");
+        this.failedBatches = meterRegistry.counter("analytics.outbox.failed");
+    }
+
+    /**
+     * Odešle čekající události po dávkách. Při chybě MongoDB se běh ukončí a zbytek počká na další.
+     *
+     * @return počet odeslaných událostí
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.outbox.relay-interval:1s}")
+    public int relay() {
+        int published = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<UserEvent> events;
+            try {
+                events = transactionTemplate.execute(status -> publishBatch());
+            } catch (RuntimeException e) {
+                failedBatches.increment();
+                log.warn("Odeslání nákupních událostí z outboxu selhalo, zkusí se znovu: {}", e.getMessage());
+                break;
+            }
+            if (events == null || events.isEmpty()) {
+                break;
+            }
+            for (AnalyticsBatchListener listener : batchListeners) {
+                try {
+                    listener.onBatchStored(events);
+                } catch (RuntimeException e) {
+                    log.warn("Odběratel {} dávky analytiky selhal: {}", listener.getClass().getSimpleName(), e.getMessage());
+                }
+            }
+            publishedEvents.increment(events.size());
+            published += events.size();
+            if (events.size() < batchSize) {
+                break;
+            }
+        }
+        return published;
+    }
+
+    /**
+     * Zamkne dávku, zapíše ji do MongoDB a smaže - volá se v transakci, zámky drží až do commitu.
+     *
+     * @return odeslané události, prázdný seznam, pokud není co odesílat
+     */
+    private List<UserEvent> publishBatch() {
+        List<AnalyticsOutboxEvent> pending = outboxRepository.findAllByOrderByIdAsc(Limit.of(batchSize));
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<UserEvent> events = pending.stream().map(AnalyticsOutboxRelay::toUserEvent).toList();
+        userRepositoryEvent.saveAll(events);
+        int deleted = outboxRepository.deleteByIds(pending.stream().map(AnalyticsOutboxEvent::getId).toList());
+        if (deleted != pending.size()) {
+            // Část dávky smazala jiná instance (databáze bez SKIP LOCKED) - rollback, odběratelé nic nedostanou
+            throw new IllegalStateException("Z dávky " + pending.size() + " událostí outboxu smazáno jen " + deleted);
+        }
+        return events;
+    }
+
+    static UserEvent toUserEvent(AnalyticsOutboxEvent outboxEvent) {
+        UserEvent event = new UserEvent();
+        event.setId(ID_PREFIX + outboxEvent.getId());
+        event.setEventType(outboxEvent.getEventType());
+        event.setUserId(outboxEvent.getUserId());
+        event.setProductId(outboxEvent.getProductId());
+        event.setPriceAtEvent(outboxEvent.getPrice().doubleValue());
+        event.setQuantity(outboxEvent.getQuantity());
+        event.setTimestamp(outboxEvent.getOccurredAt());
+        return event;
+    }
+}
@@ -0,0 +1,156 @@
+package krematos.service.analytics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog - odhad počtu různých hodnot v konstantní paměti.
+ * <p>
+ * Při přesnosti {@code p} má {@code 2^p} registrů (1 bajt každý) a relativní směrodatnou
+ * chybu {@code 1.04 / sqrt(2^p)}; pro výchozí {@code p = 12} je to 4 KB a ±1,63 %
+ * (95 % odhadů do ±3,3 %). Pro malé počty se použije lineární počítání (téměř přesné).
+ * <p>
+ * Dva sketche se stejnou přesností lze sloučit (maximum po registrech) - výsledek je
+ * sketch sjednocení, takže se dají spojovat dny i repliky. Serializace volí řídký formát,
+ * dokud je obsazeno málo registrů. Není thread-safe.
+ */
+final class HyperLogLog {
+
+    static final int DEFAULT_PRECISION = 12;
+
+    private static final byte FORMAT_DENSE = 0;
+    private static final byte FORMAT_SPARSE = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Přesnost HyperLogLog musí být 4-16, je " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Započítá hodnotu (hash se počítá uvnitř).
+     */
+    void add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - precision));
+        // Zarážka na pozici p-1 omezí rank na 64-p+1 i pro nulový zbytek hashe
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Sloučí jiný sketch do tohoto (sjednocení množin).
+     */
+    void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Nelze sloučit HyperLogLog s přesností " + other.precision + " a " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros); // Lineární počítání pro malé kardinality
+        }
+        return Math.round(estimate);
+    }
+
+    double relativeStandardError() {
+        return relativeStandardError(precision);
+    }
+
+    static double relativeStandardError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    // --- Serializace ---
+
+    /**
+     * Formát: [formát:1][přesnost:1] a pak buď všechny registry (hustý),
+     * nebo [počet:4] a dvojice [index:2][hodnota:1] obsazených registrů (řídký).
+     */
+    byte[] toBytes() {
+        int occupied = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                occupied++;
+            }
+        }
+        if (occupied * 3 + 4 >= registers.length) {
+            ByteBuffer buffer = ByteBuffer.allocate(2 + registers.length);
+            buffer.put(FORMAT_DENSE).put((byte) precision).put(registers);
+            return buffer.array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 4 + occupied * 3);
+        buffer.put(FORMAT_SPARSE).put((byte) precision).putInt(occupied);
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != 0) {
+                buffer.putShort((short) i).put(registers[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte format = buffer.get();
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        if (format == FORMAT_DENSE) {
+            buffer.get(sketch.registers);
+        } else if (format == FORMAT_SPARSE) {
+            int occupied = buffer.getInt();
+            for (int i = 0; i < occupied; i++) {
+                sketch.registers[Short.toUnsignedInt(buffer.getShort())] = buffer.get();
+            }
+        } else {
+            throw new IllegalArgumentException("Neznámý formát HyperLogLog: " + format);
+        }
+        return sketch;
+    }
+
+    // --- Helper Methods ---
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    // Finalizér MurmurHash3 (fmix64) - rovnoměrně rozprostře i po sobě jdoucí ID
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
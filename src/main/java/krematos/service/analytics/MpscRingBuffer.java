@@ -0,0 +1,94 @@
+package krematos.service.analytics;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Omezená lock-free fronta pro více producentů a jednoho konzumenta (MPSC).
+ * <p>
+ * Kruhový buffer se sekvenčním číslem u každého slotu (Vyukovův algoritmus):
+ * producent si slot zarezervuje jedním CAS na {@code tail}, zapíše prvek
+ * a publikuje ho posunutím sekvence slotu. Jediný konzument čte bez CAS.
+ * Při plné frontě {@link #offer} okamžitě vrátí {@code false} - o tom, co s
+ * prvkem, rozhoduje volající (backpressure).
+ *
+ * @param <E> typ prvků
+ */
+final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head; // Zapisuje jen konzument, volatile kvůli size() z jiných vláken
+
+    MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Kapacita fronty musí být alespoň 2");
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1; // Zaokrouhlení na mocninu 2
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Vloží prvek (volá libovolné vlákno).
+     *
+     * @return {@code false}, pokud je fronta plná
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.set(index, position + 1); // Publikace prvku konzumentovi
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false; // Slot ještě nebyl uvolněn konzumentem - fronta je plná
+            }
+            // difference > 0: jiný producent nás předběhl, zkusíme další pozici
+        }
+    }
+
+    /**
+     * Přesune až {@code limit} prvků do {@code target} (volá pouze konzument).
+     *
+     * @return počet přesunutých prvků
+     */
+    int drainTo(List<? super E> target, int limit) {
+        int drained = 0;
+        long position = head;
+        while (drained < limit) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break; // Slot je prázdný nebo producent ještě nedokončil zápis
+            }
+            target.add(slots.get(index));
+            slots.lazySet(index, null);
+            sequences.set(index, position + mask + 1); // Uvolnění slotu pro další kolo
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
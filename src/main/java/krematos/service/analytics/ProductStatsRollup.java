@@ -0,0 +1,187 @@
+package krematos.service.analytics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import krematos.model.nosql.ProductDailyStats;
+import krematos.model.nosql.UserEvent;
+import krematos.repository.ProductDailyStatsRepository;
+import krematos.repository.UserRepositoryEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Denní souhrny zobrazení a nákupů po produktech ({@code product_daily_stats}).
+ * <p>
+ * - Průběžně: po každé úspěšně zapsané dávce událostí se dávka sečte v paměti po (produkt, den)
+ *   a zapíše jedním bulk požadavkem {@code $inc} upsertů - počet zápisů odpovídá počtu
+ *   různých produktů v dávce, ne počtu událostí.
+ * - Dohánění/kontrola: {@link #rebuild(LocalDate, LocalDate)} přepočítá uzavřené dny přímo
+ *   z {@code user_events} a souhrny přepíše. Plánovaně se takto každou noc srovnají poslední
+ *   {@code reconcile-days} uzavřené dny. Události mají stabilní ID a spool je přehrává upsertem,
+ *   v {@code user_events} tedy nejsou zdvojené - přepočet opraví dvojí přičtení při opakovaném
+ *   přehrání spoolu i výpadky průběžné aktualizace.
+ * - Souhrn zapsaný přepočtem nese jeho ID ({@code rebuild}) a průběžné {@code $inc} upserty
+ *   se omezují na souhrny bez něj. Přírůstek, který dorazí po přepočtu dne (pozdní přehrání spoolu),
+ *   se tak nepřičte k hotovému součtu - odmítnutý upsert skončí chybou duplicitního klíče,
+ *   která se jen započítá, a událost zohlední až další přepočet.
+ * <p>
+ * Dny se počítají v UTC (stejně jako {@code $dateToString} v MongoDB).
+ */
+@Slf4j
+@Component
+public class ProductStatsRollup implements AnalyticsBatchListener {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepositoryEvent userRepositoryEvent;
+    private final ProductDailyStatsRepository productDailyStatsRepository;
+    private final Clock clock;
+    private final int reconcileDays;
+    private final Counter failedBatches;
+    private final Counter fencedUpdates;
+
+    public ProductStatsRollup(
+            MongoTemplate mongoTemplate,
+            UserRepositoryEvent userRepositoryEvent,
+            ProductDailyStatsRepository productDailyStatsRepository,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${app.analytics.rollup.reconcile-days:2}") int reconcileDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.userRepositoryEvent = userRepositoryEvent;
+        this.productDailyStatsRepository = productDailyStatsRepository;
+        this.clock = clock;
+        this.reconcileDays = reconcileDays;
+        this.failedBatches = meterRegistry.counter("analytics.rollup.failed");
+        this.fencedUpdates = meterRegistry.counter("analytics.rollup.fenced");
+    }
+
+    /**
+     * Přičte dávku zapsaných událostí k denním souhrnům.
+     * Chyba se jen zaloguje - noční přepočet souhrny srovná.
+     */
+    @Override
+    public void onBatchStored(List<UserEvent> events) {
+        Map<String, ProductDailyStats> deltas = aggregate(events);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductDailyStats.class);
+            for (ProductDailyStats delta : deltas.values()) {
+                Update update = new Update()
+                        .setOnInsert("productId", delta.getProductId())
+                        .setOnInsert("day", delta.getDay())
+                        .inc("views", delta.getViews())
+                        .inc("purchases", delta.getPurchases())
+                        .inc("units", delta.getUnits())
+                        .inc("revenue", delta.getRevenue());
+                // Souhrn zapsaný přepočtem se nenajde a upsert selže na duplicitním _id
+                bulk.upsert(Query.query(Criteria.where("_id").is(delta.getId()).and("rebuild").exists(false)), update);
+            }
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            long fenced = e.getErrors().stream().filter(error -> error.getCode() == DUPLICATE_KEY).count();
+            fencedUpdates.increment(fenced);
+            if (fenced < e.getErrors().size()) {
+                failedBatches.increment();
+                log.warn("Aktualizace denních statistik produktů selhala ({} souhrnů): {}", deltas.size(), e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            log.warn("Aktualizace denních statistik produktů selhala ({} souhrnů): {}", deltas.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Přepočítá souhrny dnů {@code from..to} (včetně) z uložených událostí a nahradí je.
+     * Lze použít jen na uzavřené dny - do dnešního dne ještě přibývají průběžné přírůstky.
+     * Přírůstky pozdních událostí přepsaných dnů se po zápisu přepočtu už nepřičítají (viz třída).
+     * <p>
+     * MongoDB bez replica setu transakce nemá, proto výměna bez mezery: nové souhrny (stejná ID)
+     * přepíšou staré na místě a teprve potom se smažou souhrny, které tento přepočet nezapsal.
+     * Čtení nikdy nevidí prázdný rozsah; selhání uprostřed nechá směs starých a nových souhrnů,
+     * kterou opakovaný přepočet srovná.
+     *
+     * @return počet zapsaných souhrnů
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Počáteční den " + from + " je po koncovém dni " + to);
+        }
+        if (!to.isBefore(LocalDate.now(clock.withZone(ZoneOffset.UTC)))) {
+            throw new IllegalArgumentException("Přepočítat lze jen uzavřené dny (do včerejška)");
+        }
+        List<ProductDailyStats> stats = userRepositoryEvent.aggregateDailyStats(
+                from.atStartOfDay(ZoneOffset.UTC).toInstant(),
+                to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+        String rebuild = UUID.randomUUID().toString();
+        stats.forEach(dayStats -> dayStats.setRebuild(rebuild));
+        productDailyStatsRepository.saveAll(stats);
+        productDailyStatsRepository.deleteStaleInDayRange(from.toString(), to.toString(), rebuild);
+        log.info("Denní statistiky produktů přepočítány pro {}..{}: {} souhrnů", from, to, stats.size());
+        return stats.size();
+    }
+
+    /**
+     * Noční kontrola - přepočítá posledních {@code reconcile-days} uzavřených dnů z událostí.
+     * Víc než jeden den, aby se započítaly i události přehrané ze spoolu až po přepočtu svého dne.
+     */
+    @Scheduled(cron = "${app.analytics.rollup.reconcile-cron:0 15 0 * * *}", zone = "UTC")
+    public void reconcileRecentDays() {
+        LocalDate yesterday = LocalDate.now(clock.withZone(ZoneOffset.UTC)).minusDays(1);
+        LocalDate from = yesterday.minusDays(Math.max(reconcileDays, 1) - 1L);
+        try {
+            rebuild(from, yesterday);
+        } catch (RuntimeException e) {
+            log.error("Noční přepočet denních statistik za {}..{} selhal: {}", from, yesterday, e.getMessage());
+        }
+    }
+
+    /**
+     * Sečte dávku událostí po (produkt, den). Události bez produktu se přeskakují.
+     */
+    static Map<String, ProductDailyStats> aggregate(List<UserEvent> events) {
+        Map<String, ProductDailyStats> deltas = new LinkedHashMap<>();
+        for (UserEvent event : events) {
+            if (event.getProductId() == null || event.getTimestamp() == null) {
+                continue;
+            }
+            String day = LocalDate.ofInstant(event.getTimestamp(), ZoneOffset.UTC).toString();
+            ProductDailyStats delta = deltas.computeIfAbsent(ProductDailyStats.idOf(event.getProductId(), day), id -> {
+                ProductDailyStats stats = new ProductDailyStats();
+                stats.setId(id);
+                stats.setProductId(event.getProductId());
+                stats.setDay(day);
+                return stats;
+            });
+            if ("VIEW".equals(event.getEventType())) {
+                delta.setViews(delta.getViews() + 1);
+            } else if ("PURCHASE".equals(event.getEventType())) {
+                int quantity = event.getQuantity() != null ? event.getQuantity() : 1;
+                double price = event.getPriceAtEvent() != null ? event.getPriceAtEvent() : 0;
+                delta.setPurchases(delta.getPurchases() + 1);
+                delta.setUnits(delta.getUnits() + quantity);
+                delta.setRevenue(delta.getRevenue() + price * quantity);
+            }
+        }
+        return deltas;
+    }
+}
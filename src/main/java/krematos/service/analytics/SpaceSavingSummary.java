@@ -0,0 +1,122 @@
+package krematos.service.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Odhad nejčastějších prvků proudu v omezené paměti (algoritmus Space-Saving, Metwally a kol.).
+ * <p>
+ * Drží nejvýše {@code capacity} čítačů. Když přijde nový prvek a místo není, nahradí
+ * prvek s nejmenším počtem a převezme jeho počet + 1 (ten se zapíše jako možná chyba).
+ * Každý prvek, který se v proudu vyskytl víc než {@code N / capacity}-krát, je zaručeně
+ * mezi sledovanými. Čítače se stejným počtem jsou seskupené, takže aktualizace je O(1).
+ * <p>
+ * Třída není vláknově bezpečná.
+ */
+final class SpaceSavingSummary {
+
+    /**
+     * Čítač jednoho prvku. {@code error} je horní mez nadhodnocení {@code count}.
+     */
+    record Counter(long item, long count, long error) {
+    }
+
+    private static final class Entry {
+        private long item;
+        private long count;
+        private long error;
+
+        private Entry(long item) {
+            this.item = item;
+        }
+    }
+
+    private final int capacity;
+    private final Map<Long, Entry> entries;
+    private final Map<Long, LinkedHashSet<Entry>> entriesByCount = new HashMap<>();
+    private long minCount;
+
+    SpaceSavingSummary(int capacity) {
+        this.capacity = capacity;
+        this.entries = HashMap.newHashMap(capacity);
+    }
+
+    void offer(long item) {
+        Entry entry = entries.get(item);
+        if (entry == null) {
+            if (entries.size() < capacity) {
+                entry = new Entry(item);
+            } else {
+                // Nahrazení prvku s nejmenším počtem (nejdéle nezměněného)
+                entry = entriesByCount.get(minCount).iterator().next();
+                entries.remove(entry.item);
+                entry.item = item;
+                entry.error = entry.count;
+            }
+            entries.put(item, entry);
+        }
+        long previousCount = entry.count;
+        if (previousCount > 0) {
+            detach(entry);
+        }
+        entry.count++;
+        attach(entry);
+
+        // Počty rostou vždy o 1, minimum se tedy posune nejvýše o 1
+        if (previousCount == 0) {
+            minCount = 1;
+        } else if (previousCount == minCount && !entriesByCount.containsKey(previousCount)) {
+            minCount = previousCount + 1;
+        }
+    }
+
+    List<Counter> counters() {
+        List<Counter> counters = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            counters.add(new Counter(entry.item, entry.count, entry.error));
+        }
+        return counters;
+    }
+
+    void restore(List<Counter> counters) {
+        clear();
+        for (Counter counter : counters) {
+            if (entries.size() >= capacity) {
+                break;
+            }
+            Entry entry = new Entry(counter.item());
+            entry.count = counter.count();
+            entry.error = counter.error();
+            entries.put(entry.item, entry);
+            attach(entry);
+            minCount = minCount == 0 ? entry.count : Math.min(minCount, entry.count);
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        entriesByCount.clear();
+        minCount = 0;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    // --- Helper Methods ---
+
+    private void detach(Entry entry) {
+        LinkedHashSet<Entry> group = entriesByCount.get(entry.count);
+        group.remove(entry);
+        if (group.isEmpty()) {
+            entriesByCount.remove(entry.count);
+        }
+    }
+
+    private void attach(Entry entry) {
+        entriesByCount.computeIfAbsent(entry.count, count -> new LinkedHashSet<>()).add(entry);
+    }
+}
@@ -0,0 +1,254 @@
+package krematos.service.analytics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import krematos.dto.TrendingProductDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Průběžný výpočet nejzobrazovanějších produktů za poslední hodinu, den a týden.
+ * <p>
+ * Místo agregace celé kolekce {@code user_events} při každém dotazu se každé zobrazení
+ * započítá do {@link SpaceSavingSummary} aktuálního úseku každého okna ({@link TrendingWindow}).
+ * Periodicky ({@code refresh-interval}) se úseky okna sloučí do seřazeného žebříčku,
+ * dotaz na top N pak jen zkopíruje prvních N položek z paměti.
+ * <p>
+ * Souhrny jsou rozdělené do {@value #STRIPES} pruhů podle ID produktu, každý pruh má vlastní zámek -
+ * souběžná zobrazení produktů z různých pruhů se neblokují. Produkt patří vždy do stejného pruhu,
+ * pruhy mají tedy disjunktní prvky a sloučení je prosté sečtení. Paměť je omezená kapacitou
+ * souhrnů i pro libovolná ID od klienta; nový produkt vytlačí ten s nejmenším počtem.
+ * <p>
+ * Stav se pravidelně a při ukončení ukládá do souboru a po startu se z něj obnoví.
+ */
+@Slf4j
+@Component
+public class TrendingProductsTracker {
+
+    static final int STRIPES = 16; // Mocnina dvou - pruh se vybírá maskou
+
+    private final Clock clock;
+    private final ObjectMapper objectMapper;
+    private final Path snapshotFile;
+    private final int rankingSize;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private volatile Map<TrendingWindow, List<TrendingProductDTO>> rankings; // Nahrazuje se celá při přepočtu
+
+    public TrendingProductsTracker(
+            Clock clock,
+            ObjectMapper objectMapper,
+            @Value("${app.analytics.trending.snapshot-file:${java.io.tmpdir}/eshop-trending-snapshot.json}") Path snapshotFile,
+            @Value("${app.analytics.trending.capacity:1000}") int capacity,
+            @Value("${app.analytics.trending.ranking-size:100}") int rankingSize) {
+        this.clock = clock;
+        this.objectMapper = objectMapper;
+        this.snapshotFile = snapshotFile;
+        this.rankingSize = rankingSize;
+        int stripeCapacity = Math.max(1, (capacity + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+        this.rankings = Map.of();
+    }
+
+    /**
+     * Snímek stavu pro uložení na disk.
+     */
+    record Snapshot(Instant takenAt, Map<TrendingWindow, List<BucketSnapshot>> windows) {
+    }
+
+    record BucketSnapshot(long bucketIndex, List<SpaceSavingSummary.Counter> counters) {
+    }
+
+    /**
+     * Okna jednoho pruhu produktů. Přístup chrání monitor pruhu.
+     */
+    private static final class Stripe {
+        private final Map<TrendingWindow, WindowState> windows = new EnumMap<>(TrendingWindow.class);
+
+        private Stripe(int capacity) {
+            for (TrendingWindow window : TrendingWindow.values()) {
+                windows.put(window, new WindowState(window, capacity));
+            }
+        }
+    }
+
+    /**
+     * Úseky jednoho okna uspořádané do kruhu podle indexu úseku.
+     */
+    private static final class WindowState {
+        private final TrendingWindow window;
+        private final SpaceSavingSummary[] summaries;
+        private final long[] bucketIndexes;
+
+        private WindowState(TrendingWindow window, int capacity) {
+            this.window = window;
+            this.summaries = new SpaceSavingSummary[window.getBuckets()];
+            this.bucketIndexes = new long[window.getBuckets()];
+            for (int i = 0; i < summaries.length; i++) {
+                summaries[i] = new SpaceSavingSummary(capacity);
+                bucketIndexes[i] = -1;
+            }
+        }
+
+        private SpaceSavingSummary bucketFor(long bucketIndex) {
+            int slot = (int) (bucketIndex % summaries.length);
+            if (bucketIndexes[slot] != bucketIndex) {
+                summaries[slot].clear(); // Úsek vypadl z okna - znovu se použije
+                bucketIndexes[slot] = bucketIndex;
+            }
+            return summaries[slot];
+        }
+
+        private boolean isInWindow(int slot, long currentBucketIndex) {
+            return bucketIndexes[slot] > currentBucketIndex - summaries.length
+                    && bucketIndexes[slot] <= currentBucketIndex;
+        }
+    }
+
+    /**
+     * Započítá jedno zobrazení produktu do všech oken.
+     */
+    public void recordView(long productId) {
+        long now = clock.millis();
+        Stripe stripe = stripeFor(productId);
+        synchronized (stripe) {
+            for (WindowState state : stripe.windows.values()) {
+                state.bucketFor(now / state.window.bucketMillis()).offer(productId);
+            }
+        }
+    }
+
+    /**
+     * Nejzobrazovanější produkty v daném okně podle posledního přepočtu.
+     *
+     * @param window časové okno
+     * @param limit  maximální počet produktů
+     */
+    public List<TrendingProductDTO> getTopProducts(TrendingWindow window, int limit) {
+        List<TrendingProductDTO> ranking = rankings.getOrDefault(window, List.of());
+        return List.copyOf(ranking.subList(0, Math.min(Math.max(limit, 0), ranking.size())));
+    }
+
+    /**
+     * Sloučí úseky každého okna do žebříčku. Počty jsou odhady Space-Saving (mohou být mírně nadhodnocené).
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.trending.refresh-interval:10s}")
+    public void refreshRankings() {
+        long now = clock.millis();
+        Map<TrendingWindow, List<TrendingProductDTO>> refreshed = new EnumMap<>(TrendingWindow.class);
+        for (TrendingWindow window : TrendingWindow.values()) {
+            Map<Long, Long> totals = new HashMap<>();
+            long currentBucket = now / window.bucketMillis();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    WindowState state = stripe.windows.get(window);
+                    for (int slot = 0; slot < state.summaries.length; slot++) {
+                        if (state.isInWindow(slot, currentBucket)) {
+                            for (SpaceSavingSummary.Counter counter : state.summaries[slot].counters()) {
+                                totals.merge(counter.item(), counter.count(), Long::sum);
+                            }
+                        }
+                    }
+                }
+            }
+            List<TrendingProductDTO> ranking = totals.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(rankingSize)
+                    .map(entry -> new TrendingProductDTO(entry.getKey(), entry.getValue()))
+                    .toList();
+            refreshed.put(window, ranking);
+        }
+        rankings = Collections.unmodifiableMap(refreshed);
+    }
+
+    private Stripe stripeFor(long productId) {
+        return stripes[Long.hashCode(productId * 0x9E3779B97F4A7C15L) & (STRIPES - 1)];
+    }
+
+    // --- Snapshoty ---
+
+    @PostConstruct
+    void restoreSnapshot() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try {
+            Snapshot snapshot = objectMapper.readValue(snapshotFile.toFile(), Snapshot.class);
+            snapshot.windows().forEach((window, buckets) -> {
+                for (BucketSnapshot bucket : buckets) {
+                    // Čítače úseku se rozdělí zpět do pruhů svých produktů
+                    Map<Stripe, List<SpaceSavingSummary.Counter>> byStripe = new HashMap<>();
+                    for (SpaceSavingSummary.Counter counter : bucket.counters()) {
+                        byStripe.computeIfAbsent(stripeFor(counter.item()), s -> new ArrayList<>()).add(counter);
+                    }
+                    byStripe.forEach((stripe, counters) -> {
+                        synchronized (stripe) {
+                            stripe.windows.get(window).bucketFor(bucket.bucketIndex()).restore(counters);
+                        }
+                    });
+                }
+            });
+            refreshRankings();
+            log.info("Trendy produktů obnoveny ze snímku z {}", snapshot.takenAt());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snímek trendů {} nelze načíst, začíná se od nuly: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${app.analytics.trending.snapshot-interval:5m}",
+            initialDelayString = "${app.analytics.trending.snapshot-interval:5m}")
+    public void saveSnapshot() {
+        Map<TrendingWindow, List<BucketSnapshot>> buckets = new EnumMap<>(TrendingWindow.class);
+        long now = clock.millis();
+        for (TrendingWindow window : TrendingWindow.values()) {
+            // Úseky se stejným indexem z různých pruhů se sloučí - prvky pruhů jsou disjunktní
+            Map<Long, List<SpaceSavingSummary.Counter>> byBucket = new TreeMap<>();
+            long currentBucket = now / window.bucketMillis();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    WindowState state = stripe.windows.get(window);
+                    for (int slot = 0; slot < state.summaries.length; slot++) {
+                        if (state.isInWindow(slot, currentBucket) && !state.summaries[slot].isEmpty()) {
+                            byBucket.computeIfAbsent(state.bucketIndexes[slot], i -> new ArrayList<>())
+                                    .addAll(state.summaries[slot].counters());
+                        }
+                    }
+                }
+            }
+            buckets.put(window, byBucket.entrySet().stream()
+                    .map(entry -> new BucketSnapshot(entry.getKey(), entry.getValue()))
+                    .toList());
+        }
+        try {
+            // Zápis do dočasného souboru a přejmenování - soubor nikdy nezůstane rozepsaný
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tempFile = Files.createTempFile(parent, "trending", ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), new Snapshot(Instant.ofEpochMilli(now), buckets));
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Uložení snímku trendů do {} selhalo: {}", snapshotFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package krematos.service.analytics;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Klouzavá časová okna pro trendy produktů.
+ * Každé okno je rozdělené na {@code buckets} stejně dlouhých úseků; nejstarší úsek
+ * se po uplynutí nahradí novým, okno se tedy posouvá s přesností jednoho úseku.
+ */
+public enum TrendingWindow {
+    LAST_HOUR("1h", Duration.ofHours(1), 12),     // úseky po 5 minutách
+    LAST_DAY("24h", Duration.ofDays(1), 24),      // úseky po 1 hodině
+    LAST_WEEK("7d", Duration.ofDays(7), 28);      // úseky po 6 hodinách
+
+    private final String code;
+    private final Duration length;
+    private final int buckets;
+
+    TrendingWindow(String code, Duration length, int buckets) {
+        this.code = code;
+        this.length = length;
+        this.buckets = buckets;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Duration getLength() {
+        return length;
+    }
+
+    int getBuckets() {
+        return buckets;
+    }
+
+    long bucketMillis() {
+        return length.toMillis() / buckets;
+    }
+
+    /**
+     * @param code kód okna z API ("1h", "24h", "7d")
+     * @throws IllegalArgumentException pro neznámý kód
+     */
+    public static TrendingWindow fromCode(String code) {
+        return Arrays.stream(values())
+                .filter(window -> window.code.equalsIgnoreCase(code))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Neznámé časové okno: " + code + " (povolené hodnoty: 1h, 24h, 7d)"));
+    }
+}
@@ -0,0 +1,152 @@
+package krematos.service.analytics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import krematos.model.nosql.ProductDailyStats;
+import krematos.model.nosql.ProductVisitorSketch;
+import krematos.model.nosql.UserEvent;
+import krematos.repository.ProductVisitorSketchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Odhad počtu unikátních návštěvníků produktu pomocí {@link HyperLogLog}.
+ * <p>
+ * Zobrazení přihlášených uživatelů se při zápisu dávky započítají do sketche (produkt, den)
+ * v paměti. Periodicky ({@code persist-interval}) se sketche sloučí do dokumentů
+ * {@code product_visitor_sketches} - sloučení je idempotentní (maximum po registrech),
+ * takže opakované doručení dávky ani více replik výsledek nezkreslí.
+ * Dotaz sloučí uložené sketche dnů v období a ještě neuložené sketche z paměti.
+ * <p>
+ * Anonymní zobrazení (bez {@code userId}) se nepočítají.
+ */
+@Slf4j
+@Component
+public class UniqueVisitorTracker implements AnalyticsBatchListener {
+
+    private static final int MAX_MERGE_ATTEMPTS = 3;
+
+    private final ProductVisitorSketchRepository sketchRepository;
+    private final Counter failedMerges;
+
+    // productId -> den -> sketch; po uložení se celá mapa nahradí prázdnou
+    private Map<Long, Map<String, HyperLogLog>> pending = new HashMap<>();
+
+    public UniqueVisitorTracker(ProductVisitorSketchRepository sketchRepository, MeterRegistry meterRegistry) {
+        this.sketchRepository = sketchRepository;
+        this.failedMerges = meterRegistry.counter("analytics.visitors.persist.failed");
+    }
+
+    @Override
+    public void onBatchStored(List<UserEvent> events) {
+        synchronized (this) {
+            for (UserEvent event : events) {
+                if (!"VIEW".equals(event.getEventType()) || event.getProductId() == null
+                        || event.getUserId() == null || event.getTimestamp() == null) {
+                    continue;
+                }
+                String day = LocalDate.ofInstant(event.getTimestamp(), ZoneOffset.UTC).toString();
+                pending.computeIfAbsent(event.getProductId(), id -> new HashMap<>())
+                        .computeIfAbsent(day, d -> new HyperLogLog())
+                        .add(event.getUserId());
+            }
+        }
+    }
+
+    /**
+     * Odhad počtu různých uživatelů, kteří produkt zobrazili ve dnech {@code from..to} (včetně).
+     */
+    public long estimate(Long productId, LocalDate from, LocalDate to) {
+        HyperLogLog union = new HyperLogLog();
+        for (ProductVisitorSketch stored : sketchRepository.findByProductIdAndDayRange(productId, from.toString(), to.toString())) {
+            union.merge(HyperLogLog.fromBytes(stored.getSketch()));
+        }
+        synchronized (this) {
+            pending.getOrDefault(productId, Map.of()).forEach((day, sketch) -> {
+                LocalDate date = LocalDate.parse(day);
+                if (!date.isBefore(from) && !date.isAfter(to)) {
+                    union.merge(sketch);
+                }
+            });
+        }
+        return union.estimate();
+    }
+
+    /**
+     * Relativní směrodatná chyba odhadu (1σ).
+     */
+    public double relativeStandardError() {
+        return HyperLogLog.relativeStandardError(HyperLogLog.DEFAULT_PRECISION);
+    }
+
+    /**
+     * Sloučí sketche z paměti do MongoDB. Co se nepodaří uložit, vrátí se do paměti na další pokus.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${app.analytics.visitors.persist-interval:1m}")
+    public void persist() {
+        Map<Long, Map<String, HyperLogLog>> toPersist;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            toPersist = pending;
+            pending = new HashMap<>();
+        }
+        toPersist.forEach((productId, days) -> days.forEach((day, sketch) -> {
+            try {
+                mergeIntoStore(productId, day, sketch);
+            } catch (RuntimeException e) {
+                failedMerges.increment();
+                log.warn("Uložení sketche návštěvníků produktu {} za {} selhalo: {}", productId, day, e.getMessage());
+                synchronized (this) {
+                    pending.computeIfAbsent(productId, id -> new HashMap<>())
+                            .merge(day, sketch, (current, restored) -> {
+                                current.merge(restored);
+                                return current;
+                            });
+                }
+            }
+        }));
+    }
+
+    // --- Helper Methods ---
+
+    private void mergeIntoStore(Long productId, String day, HyperLogLog sketch) {
+        String id = ProductDailyStats.idOf(productId, day);
+        for (int attempt = 1; ; attempt++) {
+            ProductVisitorSketch stored = sketchRepository.findById(id).orElseGet(() -> {
+                ProductVisitorSketch created = new ProductVisitorSketch();
+                created.setId(id);
+                created.setProductId(productId);
+                created.setDay(day);
+                return created;
+            });
+            HyperLogLog merged = new HyperLogLog();
+            merged.merge(sketch);
+            if (stored.getSketch() != null) {
+                merged.merge(HyperLogLog.fromBytes(stored.getSketch()));
+            }
+            stored.setSketch(merged.toBytes());
+            try {
+                sketchRepository.save(stored);
+                return;
+            } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+                // Jiná replika dokument mezitím změnila - načte se znovu a sloučí
+                if (attempt >= MAX_MERGE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -1,87 +1,101 @@
 package krematos.service.email;
 
+import krematos.model.MailOutboxMessage;
+import krematos.model.enums.MailStatus;
+import krematos.repository.MailOutboxRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
-import jakarta.mail.internet.MimeMessage;
-
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Připravuje e-maily a zařazuje je do outboxu ({@code mail_outbox}). Zápis se připojí k transakci
+ * volajícího, takže e-mail vznikne právě tehdy, když se potvrdí změna, která ho vyvolala.
+ * Samotné odeslání (dávkově, s opakováním) obstarává {@link MailOutboxDispatcher}.
+ * <p>
+ * Obsah se vykresluje Thymeleaf šablonami z {@code classpath:/templates/} přes engine Spring Bootu,
+ * který rozparsované šablony cachuje ({@code spring.thymeleaf.cache}, výchozí zapnuto). Po startu
+ * se šablony jednou vykreslí, takže chyba v šabloně se projeví hned a první e-mail nečeká na parsování.
+ */
 @Slf4j
 @Service
 public class EmailService {
-    private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
-
+    static final String WELCOME_TEMPLATE = "welcome-email";
+    static final String PASSWORD_RESET_TEMPLATE = "password-reset-email";
 
+    private final MailOutboxRepository mailOutboxRepository;
+    private final TemplateEngine templateEngine;
+    private final Clock clock;
+    private final String resetUrl;
+
+    public EmailService(MailOutboxRepository mailOutboxRepository, TemplateEngine templateEngine, Clock clock,
+                        @Value("${app.mail.reset-url:https://www.tvoje-domena.cz/reset-hesla}") String resetUrl) {
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.templateEngine = templateEngine;
+        this.clock = clock;
+        this.resetUrl = resetUrl;
+    }
 
-    public EmailService(JavaMailSender mailSender, TemplateEngine templateEngine) {
-        this.mailSender = mailSender;
-        this.templateEngine = new TemplateEngine();
+    /**
+     * Předem načte (rozparsuje a uloží do cache) šablony e-mailů.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpTemplates() {
+        for (String template : List.of(WELCOME_TEMPLATE, PASSWORD_RESET_TEMPLATE)) {
+            try {
+                templateEngine.process(template, new Context());
+            } catch (RuntimeException e) {
+                log.error("Šablonu e-mailu {} nelze zpracovat: {}", template, e.getMessage());
+            }
+        }
     }
 
     /**
-     * Odeslání e-mailu asynchronně (nebude blokovat hlavní vlákno)
+     * Zařadí uvítací e-mail k odeslání.
      */
-    @Async
     public void sendWelcomeEmail(String to, String username) {
-        log.info("Volána metoda pro odeslání uvítacího e-mailu");
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, "utf-8");
-
-            // Připraví HTML šablonu s proměnnou username
-            Context context = new Context();
-            context.setVariable("username", username);
-            String htmlContent = templateEngine.process("welcome-email", context);
-
-            helper.setTo(to);
-            helper.setSubject("Vítejte v SecondEL!");
-            helper.setText(htmlContent, true);
-            helper.setFrom("noreply@secondel.cz");
+        // Připraví HTML šablonu s proměnnou username
+        Context context = new Context();
+        context.setVariable("username", username);
+        String htmlContent = templateEngine.process(WELCOME_TEMPLATE, context);
 
-            mailSender.send(message);
-            log.info("✅ Odeslán uvítací e-mail na " + to);
-        } catch (Exception e) {
-            log.error("Chyba při odesílání uvítacího e-mailu: {}", e.getMessage());
-        }
+        enqueue(to, "Vítejte v SecondEL!", htmlContent);
+        log.info("Uvítací e-mail pro {} zařazen k odeslání", to);
     }
 
-    @Async
+    /**
+     * Zařadí e-mail s odkazem pro reset hesla k odeslání.
+     */
     public void sendPasswordResetEmail(String userEmail, String resetToken) {
-        log.info("Volána metoda pro odeslání e-mailu pro reset hesla");
-        // Implementace odeslání e-mailu pro reset hesla
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, "utf-8");
-            String resetUrl = "https://www.tvoje-domena.cz/reset-hesla?token=" + resetToken;
-
-            // Vytvoření HTML obsahu e-mailu
-            String htmlContent = "<html>"
-                    + "<body>"
-                    + "<h2>Obnovení hesla</h2>"
-                    + "<p>Obdrželi jsme žádost o obnovení vašeho hesla. Pro nastavení nového hesla klikněte na níže uvedený odkaz:</p>"
-                    + "<a href=\"" + resetUrl + "\" style=\"background-color:#007bff; color:white; padding:10px 15px; text-decoration:none; border-radius:5px;\">Obnovit heslo</a>"
-                    + "<p>Pokud jste o reset hesla nežádali, tento e-mail prosím ignorujte.</p>"
-                    + "<br>"
-                    + "<p>Děkujeme,<br>Tým Tvé Aplikace</p>"
-                    + "</body>"
-                    + "</html>";
-
-            // Nastavení HTML obsahu (druhý argument 'true' říká, že text je HTML)
-            helper.setText(htmlContent, true);
-
-            // Odeslání e-mailu
-            mailSender.send(message);
-            helper.setTo(userEmail);
-            helper.setSubject("Žádost o obnovení hesla");
-        } catch (Exception e) {
-            log.error("Chyba při odesílání e-mailu pro reset hesla: {}", e.getMessage());
-        }
+        Context context = new Context();
+        context.setVariable("resetUrl", UriComponentsBuilder.fromUriString(resetUrl)
+                .queryParam("token", resetToken)
+                .build()
+                .encode()
+                .toUriString());
+        String htmlContent = templateEngine.process(PASSWORD_RESET_TEMPLATE, context);
+
+        enqueue(userEmail, "Žádost o obnovení hesla", htmlContent);
+        log.info("E-mail pro reset hesla zařazen k odeslání");
     }
 
-
+    private void enqueue(String to, String subject, String htmlContent) {
+        Instant now = clock.instant();
+        mailOutboxRepository.save(MailOutboxMessage.builder()
+                .recipient(to)
+                .subject(subject)
+                .htmlBody(htmlContent)
+                .status(MailStatus.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
 }
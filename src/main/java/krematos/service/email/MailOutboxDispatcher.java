@@ -0,0 +1,265 @@
+package krematos.service.email;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import krematos.model.MailOutboxMessage;
+import krematos.model.enums.MailStatus;
+import krematos.repository.MailOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Odesílá e-maily z tabulky {@code mail_outbox}.
+ * <p>
+ * Jedna dávka = jedno volání {@code JavaMailSender.send(MimeMessage...)}, tedy jedno SMTP spojení
+ * pro všechny zprávy dávky. Odeslané zprávy se z outboxu smažou; neúspěšné dostanou další pokus
+ * s exponenciálně rostoucím odstupem ({@code initial-backoff} * 2^(pokus-1), nejvýše {@code max-backoff}).
+ * Po {@code max-attempts} pokusech (nebo hned při neplatné adrese) zpráva přejde do stavu
+ * {@link MailStatus#DEAD} a čeká na {@link #requeueDeadLetters()}.
+ * <p>
+ * Dávku si instance nejdřív zabere: v krátké transakci zamkne řádky, které jsou na řadě
+ * ({@code FOR UPDATE SKIP LOCKED}), a posune jim {@code next_attempt_at} o {@code lease}. Ostatní
+ * instance tak stejné zprávy nepošlou, ani když běží současně. Odesílá se až po commitu, bez zámků.
+ * <p>
+ * Doručení je "alespoň jednou" - pokud aplikace spadne mezi odesláním a smazáním, zpráva se po vypršení
+ * {@code lease} pošle znovu. Samotné odesílání běží na {@code emailExecutor}, plánovač jen spouští běhy
+ * (v rámci instance nikdy dva současně).
+ */
+@Slf4j
+@Component
+public class MailOutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final MailOutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JavaMailSender mailSender;
+    private final Executor emailExecutor;
+    private final Clock clock;
+    private final String from;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Counter sentMessages;
+    private final Counter failedAttempts;
+    private final Counter deadMessages;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public MailOutboxDispatcher(
+            MailOutboxRepository outboxRepository,
+            PlatformTransactionManager transactionManager,
+            JavaMailSender mailSender,
+            @Qualifier("emailExecutor") Executor emailExecutor,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${app.mail.from:noreply@secondel.cz}") String from,
+            @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+            @Value("${app.mail.outbox.max-batches-per-run:10}") int maxBatchesPerRun,
+            @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.mail.outbox.initial-backoff:30s}") Duration initialBackoff,
+            @Value("${app.mail.outbox.max-backoff:1h}") Duration maxBackoff,
+            @Value("${app.mail.outbox.lease:5m}") Duration lease) {
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mailSender = mailSender;
+        this.emailExecutor = emailExecutor;
+        this.clock = clock;
+        this.from = from;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.sentMessages = meterRegistry.counter("mail.outbox.sent");
+        this.failedAttempts = meterRegistry.counter("mail.outbox.failed");
+        this.deadMessages = meterRegistry.counter("mail.outbox.dead");
+    }
+
+    /**
+     * Předá běh odesílání na {@code emailExecutor}, pokud už neběží předchozí.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.dispatch-interval:5s}")
+    public void scheduleDispatch() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            emailExecutor.execute(() -> {
+                try {
+                    dispatch();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false); // Ukončování aplikace - zprávy počkají v outboxu
+        }
+    }
+
+    /**
+     * Odešle e-maily, které jsou na řadě, po dávkách. Při výpadku SMTP serveru se běh ukončí.
+     *
+     * @return počet odeslaných e-mailů
+     */
+    public int dispatch() {
+        int sent = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<MailOutboxMessage> due = claimDue();
+            if (due.isEmpty()) {
+                break;
+            }
+            Map<Long, Exception> failures = new HashMap<>();
+            Map<Long, Exception> permanentFailures = new HashMap<>();
+            send(due, failures, permanentFailures);
+
+            List<Long> sentIds = new ArrayList<>();
+            List<MailOutboxMessage> failed = new ArrayList<>();
+            for (MailOutboxMessage message : due) {
+                if (permanentFailures.containsKey(message.getId())) {
+                    markDead(message, permanentFailures.get(message.getId()));
+                    failed.add(message);
+                } else if (failures.containsKey(message.getId())) {
+                    scheduleRetry(message, failures.get(message.getId()));
+                    failed.add(message);
+                } else {
+                    sentIds.add(message.getId());
+                }
+            }
+            if (!sentIds.isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(sentIds);
+            }
+            if (!failed.isEmpty()) {
+                outboxRepository.saveAll(failed);
+            }
+            sentMessages.increment(sentIds.size());
+            sent += sentIds.size();
+            if (sentIds.isEmpty() || due.size() < batchSize) {
+                break; // Nic neprošlo (server nedostupný) nebo už není co odesílat
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Vrátí nedoručitelné e-maily zpět do fronty.
+     *
+     * @return počet znovuzařazených e-mailů
+     */
+    public int requeueDeadLetters() {
+        int requeued = outboxRepository.requeueDead(clock.instant());
+        log.info("Do fronty e-mailů vráceno {} nedoručitelných zpráv", requeued);
+        return requeued;
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * Zabere dávku e-mailů, které jsou na řadě - do vypršení {@code lease} je neuvidí žádná jiná instance.
+     */
+    private List<MailOutboxMessage> claimDue() {
+        List<MailOutboxMessage> due = transactionTemplate.execute(status -> {
+            Instant now = clock.instant();
+            List<MailOutboxMessage> locked = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    MailStatus.PENDING, now, Limit.of(batchSize));
+            locked.forEach(message -> message.setNextAttemptAt(now.plus(lease)));
+            return locked;
+        });
+        return due != null ? due : List.of();
+    }
+
+    private void send(List<MailOutboxMessage> batch, Map<Long, Exception> failures,
+                      Map<Long, Exception> permanentFailures) {
+        Map<MimeMessage, Long> ids = new LinkedHashMap<>(); // MimeMessage má identitní equals
+        for (MailOutboxMessage message : batch) {
+            try {
+                ids.put(toMimeMessage(message), message.getId());
+            } catch (MessagingException e) {
+                permanentFailures.put(message.getId(), e); // Např. neplatná adresa - opakování nepomůže
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            mailSender.send(ids.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                ids.values().forEach(id -> failures.put(id, e));
+            } else {
+                e.getFailedMessages().forEach((message, cause) -> failures.put(ids.get(message), cause));
+            }
+        } catch (MailException e) {
+            ids.values().forEach(id -> failures.put(id, e)); // Např. chybné přihlášení k SMTP
+        }
+    }
+
+    private MimeMessage toMimeMessage(MailOutboxMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, "utf-8");
+        helper.setFrom(from);
+        helper.setTo(message.getRecipient());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getHtmlBody(), true);
+        return mimeMessage;
+    }
+
+    private void scheduleRetry(MailOutboxMessage message, Exception cause) {
+        message.setAttempts(message.getAttempts() + 1);
+        message.setLastError(describe(cause));
+        failedAttempts.increment();
+        if (message.getAttempts() >= maxAttempts) {
+            markDead(message, cause);
+            return;
+        }
+        Instant nextAttempt = clock.instant().plus(backoff(message.getAttempts()));
+        message.setNextAttemptAt(nextAttempt);
+        log.warn("Odeslání e-mailu {} na {} selhalo ({}. pokus), další pokus v {}: {}",
+                message.getId(), message.getRecipient(), message.getAttempts(), nextAttempt, cause.getMessage());
+    }
+
+    private void markDead(MailOutboxMessage message, Exception cause) {
+        message.setStatus(MailStatus.DEAD);
+        message.setLastError(describe(cause));
+        deadMessages.increment();
+        log.error("E-mail {} na {} je nedoručitelný po {} pokusech: {}",
+                message.getId(), message.getRecipient(), message.getAttempts(), cause.getMessage());
+    }
+
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String describe(Exception cause) {
+        String description = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
+    }
+}
@@ -3,32 +3,46 @@ package krematos.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import krematos.dto.order.CreateOrderRequest;
+import krematos.dto.order.OrderPageResponse;
 import krematos.dto.order.OrderResponse;
+import krematos.dto.order.OrderSearchCriteria;
 import krematos.dto.order.OrderItemRequest;
+import krematos.dto.order.OrderKey;
+import krematos.event.OrderCreatedEvent;
 import krematos.mapper.OrderMapper;
+import krematos.model.AnalyticsOutboxEvent;
 import krematos.model.OrderItem;
 import krematos.model.Product;
 import krematos.model.User;
 import krematos.model.Order;
+import krematos.model.OrderView;
+import krematos.repository.AnalyticsOutboxRepository;
 import krematos.repository.OrderRepository;
+import krematos.repository.OrderViewRepository;
 import krematos.repository.ProductRepository;
 import krematos.service.order.OrderService;
+import krematos.service.order.OrderViewProjector;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 @Slf4j
-@Service
+@Service("orderService") // Název používají výrazy v @PreAuthorize (@orderService.isOwner)
 @RequiredArgsConstructor
 @Transactional
 public class OrderServiceImpl implements OrderService {
 
+    private static final int MAX_PAGE_SIZE = 100;
 
     private final OrderMapper orderMapper;
 
@@ -36,6 +50,14 @@ public class OrderServiceImpl implements OrderService {
 
      private final ProductRepository productRepository;
 
+     private final AnalyticsOutboxRepository analyticsOutboxRepository;
+
+     private final ApplicationEventPublisher eventPublisher;
+
+     private final OrderViewRepository orderViewRepository;
+
+     private final OrderViewProjector orderViewProjector;
+
         /**
         * Vytvoří novou objednávku.
         *
@@ -46,7 +68,7 @@ public class OrderServiceImpl implements OrderService {
 
      @Override
      @Transactional
-     @CacheEvict(value = {"ordersById", "allOrders", "ordersByUser"}, allEntries = true)
+     @CacheEvict(value = "ordersByUser", key = "#user.username") // Jen historie objednávajícího uživatele
     public Order createOrder(CreateOrderRequest request, User user) {
 
          // 1. Validace základních vstupů
@@ -79,6 +101,7 @@ public class OrderServiceImpl implements OrderService {
 
              // A. Načtení produktu z DB (Zásadní pro získání správné ceny!)
              Product product = productRepository.findById(itemRequest.productId())
+                     .filter(Product::isActive) // Smazaný produkt už nejde objednat
                      .orElseThrow(() -> new IllegalArgumentException("Produkt nenalezen ID: " + itemRequest.productId()));
 
              // B. Výpočet ceny za položku (Cena produktu * Množství)
@@ -87,6 +110,7 @@ public class OrderServiceImpl implements OrderService {
              // C. Vytvoření entity OrderItem
              OrderItem orderItem = OrderItem.builder()
                      .order(order) // Nastavení vazby na rodiče
+                     .orderDate(order.getOrderDate()) // Klíč partice order_items
                      .productId(product.getId())
                      .productName(product.getName())
                      .quantity(itemRequest.quantity())
@@ -111,58 +135,121 @@ public class OrderServiceImpl implements OrderService {
          Order savedOrder = orderRepository.save(order);
          log.info("Objednávka ID {} úspěšně uložena. Celková cena: {}", savedOrder.getId(), savedOrder.getTotalPrice());
 
+         // 5. Denormalizovaný pohled pro historii a detail - ve stejné transakci, je hned konzistentní
+         orderViewRepository.save(orderViewProjector.project(savedOrder));
+
+         // 6. Nákupní události pro analytiku - ve stejné transakci, odešle je AnalyticsOutboxRelay
+         analyticsOutboxRepository.saveAll(savedOrder.getOrderItems().stream()
+                 .map(item -> AnalyticsOutboxEvent.builder()
+                         .eventType("PURCHASE")
+                         .userId(user.getId())
+                         .productId(item.getProductId())
+                         .quantity(item.getQuantity())
+                         .price(item.getPrice())
+                         .occurredAt(savedOrder.getOrderDate())
+                         .build())
+                 .toList());
+
+         // 7. Doporučení "zákazníci také koupili" - posluchač ji zpracuje až po potvrzení transakce
+         eventPublisher.publishEvent(new OrderCreatedEvent(savedOrder.getId(),
+                 savedOrder.getOrderItems().stream().map(OrderItem::getProductId).toList()));
+
          return savedOrder;
      }
 
 
     /**
-     * Najde všechny objednávky uživatele s cachováním.
+     * Historie objednávek uživatele z pohledu {@code order_views} - jeden dotaz na stránku, položky
+     * jsou v řádku předem serializované. Keyset stránkování podle data a ID jako u {@link #findOrders}.
+     * Cachuje se jen první stránka výchozí velikosti (tu klient načítá nejčastěji); vyprázdní ji
+     * nová objednávka téhož uživatele.
      */
     @Override
-    @Cacheable(value = "ordersByUser", key = "#userName")
-    public List<OrderResponse> findOrdersByUser(String userName) {
-        log.info("Hledání objednávek pro uživatele: {}", userName);
-        return orderRepository.findByUser_Username(userName)
-                .stream()
-                .map(orderMapper::toDto)
+    @Transactional(readOnly = true)
+    @Cacheable(value = "ordersByUser", key = "#userName",
+            condition = "#afterId == null && #size == T(krematos.service.order.OrderService).HISTORY_PAGE_SIZE")
+    public OrderPageResponse findOrdersByUser(String userName, Long afterId, int size) {
+        int pageSize = pageSize(size);
+        log.info("Hledání objednávek pro uživatele: {} (po ID {})", userName, afterId);
+        Instant afterCreatedAt = cursorDate(afterId, orderViewRepository::findCreatedAtByOrderId);
+        List<OrderView> views = orderViewRepository.findHistory(userName, afterCreatedAt, afterId, Limit.of(pageSize + 1));
+        boolean hasNext = views.size() > pageSize;
+        List<OrderResponse> items = views.stream()
+                .limit(pageSize)
+                .map(orderViewProjector::toResponse)
                 .toList();
+        return new OrderPageResponse(items, hasNext ? items.get(pageSize - 1).id() : null);
     }
+
     /**
-     * Najde všechny objednávky s cachováním.
+     * Stránka objednávek pro administraci od nejnovějších - keyset stránkování podle data a ID, bez cache.
+     * Nejdřív se načtou ID stránky (LIMIT nad indexem), pak objednávky s uživatelem a položkami
+     * jedním fetch-join dotazem. Stránkovat přímo fetch-join kolekce nejde - Hibernate by
+     * omezoval až v paměti.
      */
     @Override
-    @Cacheable(value = "allOrders")
-    public List<OrderResponse> findAllOrders() {
-        log.info("Načítání všech objednávek");
-        return orderRepository.findAll()
-                .stream()
-                .map(orderMapper::toDto)
-                .toList();
+    @Transactional(readOnly = true)
+    public OrderPageResponse findOrders(OrderSearchCriteria criteria, Long afterId, int size) {
+        int pageSize = pageSize(size);
+        log.info("Načítání stránky objednávek po ID {} (velikost {})", afterId, pageSize);
+        Instant afterDate = cursorDate(afterId, orderRepository::findOrderDateById);
+        return toPage(orderRepository.findPageKeys(afterDate, afterId, criteria.fromOrMin(), criteria.toOrMax(),
+                criteria.userId(), criteria.minTotal(), criteria.maxTotal(), Limit.of(pageSize + 1)), pageSize);
     }
     /**
-     * Najde objednávku podle ID.
+     * Najde objednávku podle ID (z pohledu {@code order_views}).
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<OrderResponse> findOrderById(Long id) {
         log.info("Hledání objednávky podle ID: {}", id);
-        return orderRepository.findById(id)
-                .map(orderMapper::toDto);
+        return orderViewRepository.findById(id)
+                .map(orderViewProjector::toResponse);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isOwner(Long orderId, String username) {
+        return orderViewRepository.existsByOrderIdAndUsername(orderId, username);
+    }
 
 
+
+    private static int pageSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Velikost stránky musí být kladná");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
     /**
-     * Validuje vstupy pro vytvoření objednávky.
+     * Datum objednávky, na které skončila předchozí stránka - kurzor zůstává ID, pořadí určuje datum.
      */
-    private  void validateOrderInput(String productName, int quantity, User user) {
-        if (user == null) {
-            throw new IllegalArgumentException("Uživatel nesmí být null");
-        }
-        if (productName == null || productName.isBlank()) {
-            throw new IllegalArgumentException("Název produktu nesmí být prázdný");
+    private static Instant cursorDate(Long afterId, Function<Long, Optional<Instant>> lookup) {
+        if (afterId == null) {
+            return null;
         }
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Počet kusů musí být kladný");
+        return lookup.apply(afterId)
+                .orElseThrow(() -> new IllegalArgumentException("Neplatný kurzor stránky: " + afterId));
+    }
+
+    /**
+     * Načte objednávky stránky jedním fetch-join dotazem, omezeným na rozsah dat stránky (jen její partice).
+     * Dotaz na klíče vrací o jeden navíc ({@code pageSize + 1}) - podle něj se pozná, že existuje další stránka.
+     */
+    private OrderPageResponse toPage(List<OrderKey> keys, int pageSize) {
+        if (keys.isEmpty()) {
+            return new OrderPageResponse(List.of(), null);
         }
+        boolean hasNext = keys.size() > pageSize;
+        List<OrderKey> pageKeys = hasNext ? keys.subList(0, pageSize) : keys;
+        List<Long> pageIds = pageKeys.stream().map(OrderKey::id).toList();
+        Instant from = pageKeys.stream().map(OrderKey::orderDate).min(Comparator.naturalOrder()).orElseThrow();
+        Instant to = pageKeys.stream().map(OrderKey::orderDate).max(Comparator.naturalOrder()).orElseThrow();
+        List<OrderResponse> items = orderRepository.findPageWithItems(pageIds, from, to)
+                .stream()
+                .map(orderMapper::toDto)
+                .toList();
+        return new OrderPageResponse(items, hasNext ? pageIds.get(pageSize - 1) : null);
     }
 }
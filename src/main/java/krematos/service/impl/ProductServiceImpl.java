@@ -11,6 +11,7 @@ import krematos.dto.product.ProductResponse;
 import krematos.mapper.ProductMapper;
 import krematos.model.Product;
 import krematos.service.ProductService;
+import krematos.service.recommendation.CoPurchaseRecommender;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -18,8 +19,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import org.apache.tika.Tika;
 
@@ -28,6 +27,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Clock;
 import java.util.*;
 
 @Slf4j
@@ -38,6 +38,8 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final CoPurchaseRecommender coPurchaseRecommender;
+    private final Clock clock;
 
     private final Tika tika = new Tika();
 
@@ -62,24 +64,20 @@ public class ProductServiceImpl implements ProductService {
     @Transactional(readOnly = true)
     public Optional<Product> findProductById(Long id) {
         log.info("Hledání produktu podle ID: {}", id);
-        return productRepository.findById(id);
+        return productRepository.findByIdAndActiveTrue(id);
     }
 
     @Override
     @Transactional
     @CacheEvict(value = {"productsById", "allProducts"}, allEntries = true)
     public boolean deleteProductById(Long id) {
+        // Měkké smazání - objednávky a audit na produkt odkazují, obrázky a řádek později přesune archivace
         return productRepository.findById(id).map(product -> {
-
-            // Uloží seznam souborů ke smazání
-            List<String> imagesToDelete = product.getImages() != null
-                    ? new ArrayList<>(product.getImages())
-                    : new ArrayList<>();
-            productRepository.delete(product);
-
-            // Smazání souborů až PO commitu transakce
-            deleteFilesAfterCommit(imagesToDelete);
-            log.warn("Produkt s ID {} byl odstraněn", id);
+            if (product.isActive()) {
+                product.setActive(false);
+                product.setDeactivatedAt(clock.instant());
+                log.warn("Produkt s ID {} byl odstraněn (deaktivován)", id);
+            }
             return true;
         }).orElseGet(() -> {
             log.warn("Odstranění selhalo - produkt s ID {} neexistuje", id);
@@ -101,7 +99,7 @@ public class ProductServiceImpl implements ProductService {
     @Cacheable(value = "allProducts", key = "#pageable.pageNumber + '-' + #pageable.pageSize + '-' + #pageable.sort")
     @Transactional(readOnly = true)
     public Page<Product> findAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable);
+        return productRepository.findAllByActiveTrue(pageable);
     }
 
     @Override
@@ -134,6 +132,24 @@ public class ProductServiceImpl implements ProductService {
         });
     }
 
+    /**
+     * "Zákazníci také koupili" - pořadí podle předpočítaných společných nákupů, jen aktivní produkty.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> findRelatedProducts(Long id, int limit) {
+        List<Long> relatedIds = coPurchaseRecommender.relatedProductIds(id, limit);
+        if (relatedIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        productRepository.findAllById(relatedIds).forEach(product -> byId.put(product.getId(), product));
+        return relatedIds.stream()
+                .map(byId::get)
+                .filter(product -> product != null && product.isActive())
+                .toList();
+    }
+
     // --- Helper Methods ---
 
     private List<String> processImages(List<MultipartFile> files) {
@@ -195,20 +211,6 @@ public class ProductServiceImpl implements ProductService {
         return fileName;
     }
 
-    // Bezpečné mazání souborů spřažené s transakcí
-    private void deleteFilesAfterCommit(List<String> fileNames) {
-        if (fileNames == null || fileNames.isEmpty()) return;
-
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                for (String fileName : fileNames) {
-                    deleteImageFile(fileName);
-                }
-            }
-        });
-    }
-
     public void deleteImageFile(String fileName) {
         // Validace
         if (fileName == null || fileName.isBlank()) {
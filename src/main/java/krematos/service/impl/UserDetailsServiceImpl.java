@@ -2,12 +2,17 @@ package krematos.service.impl;
 
 import krematos.model.User;
 import krematos.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
     public UserDetailsServiceImpl(UserRepository userRepository) {
@@ -21,4 +26,20 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return new UserDetailsImpl(user);
     }
 
+    /**
+     * Transparentní přehashování po úspěšném přihlášení.
+     * DaoAuthenticationProvider ji volá, když je uložený hash slabší než aktuální
+     * nastavení (starý algoritmus, nižší cena nebo chybějící prefix {id}).
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("Uživatel nenalezen: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        log.info("Hash hesla uživatele {} byl převeden na aktuální algoritmus", user.getUsername());
+        return new UserDetailsImpl(user);
+    }
+
 }
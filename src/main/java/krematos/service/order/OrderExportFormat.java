@@ -0,0 +1,42 @@
+package krematos.service.order;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Formáty exportu objednávek.
+ */
+public enum OrderExportFormat {
+    NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),  // jeden JSON objekt (objednávka) na řádek
+    CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)); // jeden řádek na položku
+
+    private final String code;
+    private final MediaType mediaType;
+
+    OrderExportFormat(String code, MediaType mediaType) {
+        this.code = code;
+        this.mediaType = mediaType;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param code kód formátu z API ("ndjson", "csv")
+     * @throws IllegalArgumentException pro neznámý kód
+     */
+    public static OrderExportFormat fromCode(String code) {
+        return Arrays.stream(values())
+                .filter(format -> format.code.equalsIgnoreCase(code))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Neznámý formát exportu: " + code + " (povolené hodnoty: ndjson, csv)"));
+    }
+}
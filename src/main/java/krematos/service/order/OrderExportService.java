@@ -0,0 +1,167 @@
+package krematos.service.order;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import krematos.dto.order.OrderExportRow;
+import krematos.dto.order.OrderSearchCriteria;
+import krematos.repository.OrderItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Export objednávek pro reporting (NDJSON, CSV).
+ * <p>
+ * Objednávky se nenačítají do paměti - řádky položek se čtou kurzorem z databáze
+ * ({@link OrderItemRepository#streamForExport}) a rovnou zapisují do výstupu, paměť je tak
+ * nezávislá na počtu objednávek. Řádky jdou seřazené podle objednávky, NDJSON proto skládá
+ * položky jedné objednávky z po sobě jdoucích řádků.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    static final String CSV_HEADER = "order_id,created_at,user_id,username,order_total,"
+            + "product_id,product_name,quantity,unit_price,item_total";
+
+    private final OrderItemRepository orderItemRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Zapíše objednávky odpovídající filtrům do výstupu. Výstup nezavírá.
+     * Databázové spojení je obsazené po celou dobu zápisu - pomalý klient drží transakci.
+     *
+     * @return počet exportovaných objednávek
+     */
+    @Transactional(readOnly = true)
+    public long export(OrderSearchCriteria criteria, OrderExportFormat format, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long orders;
+        try (Stream<OrderExportRow> rows = orderItemRepository.streamForExport(criteria.fromOrMin(), criteria.toOrMax(),
+                criteria.userId(), criteria.minTotal(), criteria.maxTotal())) {
+            orders = switch (format) {
+                case NDJSON -> writeNdjson(rows.iterator(), out);
+                case CSV -> writeCsv(rows.iterator(), out);
+            };
+        }
+        log.info("Export objednávek ({}) dokončen: {} objednávek za {} ms",
+                format.getCode(), orders, (System.nanoTime() - started) / 1_000_000);
+        return orders;
+    }
+
+    // --- Helper Methods ---
+
+    private long writeNdjson(Iterator<OrderExportRow> rows, OutputStream out) throws IOException {
+        long orders = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null); // Objednávky odděluje '\n' z endOrder
+            Long currentOrderId = null;
+            while (rows.hasNext()) {
+                OrderExportRow row = rows.next();
+                if (!row.orderId().equals(currentOrderId)) {
+                    if (currentOrderId != null) {
+                        endOrder(json);
+                    }
+                    currentOrderId = row.orderId();
+                    orders++;
+                    json.writeStartObject();
+                    json.writeNumberField("id", row.orderId());
+                    json.writeStringField("createdAt", row.orderDate().toString());
+                    json.writeNumberField("userId", row.userId());
+                    json.writeStringField("username", row.username());
+                    json.writeNumberField("totalPrice", row.orderTotal());
+                    json.writeArrayFieldStart("items");
+                }
+                json.writeStartObject();
+                json.writeNumberField("productId", row.productId());
+                json.writeStringField("productName", row.productName());
+                json.writeNumberField("quantity", row.quantity());
+                json.writeNumberField("price", row.price());
+                json.writeNumberField("totalPrice", row.itemTotal());
+                json.writeEndObject();
+            }
+            if (currentOrderId != null) {
+                endOrder(json);
+            }
+        }
+        return orders;
+    }
+
+    private static void endOrder(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private long writeCsv(Iterator<OrderExportRow> rows, OutputStream out) throws IOException {
+        long orders = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        Long currentOrderId = null;
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+            if (!row.orderId().equals(currentOrderId)) {
+                currentOrderId = row.orderId();
+                orders++;
+            }
+            writer.write(row.orderId().toString());
+            writer.write(',');
+            writer.write(row.orderDate().toString());
+            writer.write(',');
+            writer.write(row.userId().toString());
+            writer.write(',');
+            writer.write(csvText(row.username()));
+            writer.write(',');
+            writer.write(csvNumber(row.orderTotal()));
+            writer.write(',');
+            writer.write(Objects.toString(row.productId(), ""));
+            writer.write(',');
+            writer.write(csvText(row.productName()));
+            writer.write(',');
+            writer.write(Integer.toString(row.quantity()));
+            writer.write(',');
+            writer.write(csvNumber(row.price()));
+            writer.write(',');
+            writer.write(csvNumber(row.itemTotal()));
+            writer.write("\r\n");
+        }
+        writer.flush();
+        return orders;
+    }
+
+    private static String csvNumber(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    /**
+     * Textové pole podle RFC 4180. Hodnoty začínající znakem vzorce (=, +, -, @) dostanou
+     * apostrof, aby je tabulkový procesor nevyhodnotil (CSV injection).
+     */
+    static String csvText(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        if ("=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
@@ -0,0 +1,313 @@
+package krematos.service.order;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import krematos.dto.order.CreateOrderRequest;
+import krematos.dto.order.OrderResponse;
+import krematos.exception.order.IdempotencyKeyInProgressException;
+import krematos.exception.order.IdempotencyKeyMismatchException;
+import krematos.mapper.OrderMapper;
+import krematos.model.IdempotencyRecord;
+import krematos.model.User;
+import krematos.repository.IdempotencyRecordRepository;
+import krematos.repository.IdempotencyRecordRepository.KeyState;
+import krematos.service.SecureTokens;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Vytváření objednávek s hlavičkou {@code Idempotency-Key} - opakovaný požadavek se stejným klíčem
+ * vrátí uloženou odpověď a objednávku znovu nevytvoří.
+ * <p>
+ * Zdrojem pravdy je tabulka {@code idempotency_keys} (platnost {@code ttl}). Požadavek si klíč nejdřív
+ * zabere INSERTem ve vlastní transakci; objednávka a uložení odpovědi pak proběhnou v jedné transakci,
+ * takže buď je objednávka i s odpovědí, nebo nic a klíč se uvolní. Před DB je in-memory cache
+ * dokončených odpovědí.
+ * <p>
+ * Zabraný klíč platí {@code lease}. Pokud instance spadne (nebo selže i uvolnění klíče), další pokus
+ * po vypršení zámku klíč převezme, místo aby do konce {@code ttl} dostával 409. Odpověď uloží jen
+ * pokus, který klíč pořád drží - pomalý původní pokus po převzetí skončí 409 a jeho objednávka se
+ * vrátí, takže nevzniknou dvě.
+ * <p>
+ * Souběžné duplicity na téže instanci čekají na výsledek prvního zpracování; duplicita zpracovávaná
+ * jinou instancí se dotazuje DB, dokud se nedokončí (nejvýše {@code wait-timeout}, pak 409).
+ * Klíče jsou vázané na uživatele - stejný klíč dvou uživatelů se neovlivňuje.
+ */
+@Slf4j
+@Service
+public class OrderIdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final OrderService orderService;
+    private final OrderMapper orderMapper;
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+    private final Cache<String, StoredResponse> responses;
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public OrderIdempotencyService(
+            OrderService orderService,
+            OrderMapper orderMapper,
+            IdempotencyRecordRepository recordRepository,
+            ObjectMapper objectMapper,
+            Clock clock,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.idempotency.ttl:24h}") Duration ttl,
+            @Value("${app.idempotency.lease:30s}") Duration lease,
+            @Value("${app.idempotency.wait-timeout:10s}") Duration waitTimeout,
+            @Value("${app.idempotency.poll-interval:100ms}") Duration pollInterval,
+            @Value("${app.idempotency.cache.maximum-size:10000}") long cacheMaximumSize) {
+        this.orderService = orderService;
+        this.orderMapper = orderMapper;
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+        this.pollInterval = pollInterval;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Odpověď dokončeného požadavku a otisk požadavku, který ji vytvořil.
+     */
+    record StoredResponse(String requestHash, OrderResponse response) {
+    }
+
+    /**
+     * Výsledek vytvoření objednávky.
+     *
+     * @param replayed {@code true}, pokud jde o uloženou odpověď dřívějšího požadavku se stejným klíčem
+     */
+    public record Result(OrderResponse order, boolean replayed) {
+    }
+
+    /**
+     * Vytvoří objednávku, nejvýše jednou pro daný klíč a uživatele.
+     *
+     * @param idempotencyKey hodnota hlavičky {@code Idempotency-Key}, {@code null} = bez ochrany proti opakování
+     * @throws IdempotencyKeyMismatchException    klíč už byl použit s jiným tělem požadavku
+     * @throws IdempotencyKeyInProgressException  požadavek se stejným klíčem se nedokončil během čekání
+     */
+    public Result createOrder(String idempotencyKey, CreateOrderRequest request, User user) {
+        if (idempotencyKey == null) {
+            return new Result(orderMapper.toDto(orderService.createOrder(request, user)), false);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Hlavička " + HEADER + " musí mít 1 až " + MAX_KEY_LENGTH + " znaků");
+        }
+        String keyHash = SecureTokens.sha256(user.getUsername() + ':' + idempotencyKey);
+        String requestHash = SecureTokens.sha256(toJson(request));
+
+        StoredResponse cached = responses.getIfPresent(keyHash);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(keyHash, execution);
+        if (running != null) {
+            return replay(await(running), requestHash);
+        }
+        try {
+            Result result = execute(keyHash, requestHash, request, user);
+            execution.complete(new StoredResponse(requestHash, result.order()));
+            return result;
+        } catch (RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(keyHash, execution);
+        }
+    }
+
+    // Spustí se každý den ve 3:30 ráno
+    @Scheduled(cron = "${app.idempotency.cleanup-cron:0 30 3 * * *}")
+    public void removeExpiredKeys() {
+        Integer removed = transactionTemplate.execute(status -> recordRepository.deleteExpired(clock.instant()));
+        log.info("Odstraněno {} vypršelých klíčů Idempotency-Key.", removed);
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * Provede požadavek, nebo počká na výsledek jiné instance, která si klíč zabrala dřív.
+     */
+    private Result execute(String keyHash, String requestHash, CreateOrderRequest request, User user) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            Optional<KeyState> existing = recordRepository.findState(keyHash)
+                    .filter(state -> state.getExpiresAt().isAfter(clock.instant()));
+            if (existing.isEmpty()) {
+                Instant claimedUntil = claim(keyHash, requestHash);
+                if (claimedUntil != null) {
+                    return new Result(run(keyHash, requestHash, claimedUntil, request, user), false);
+                }
+                continue; // Klíč mezitím zabrala jiná instance
+            }
+            KeyState state = existing.get();
+            if (!state.getRequestHash().equals(requestHash)) {
+                throw mismatch();
+            }
+            if (state.getResponseJson() != null) {
+                OrderResponse response = fromJson(state.getResponseJson());
+                responses.put(keyHash, new StoredResponse(requestHash, response));
+                return new Result(response, true);
+            }
+            if (state.getClaimedUntil() == null || !state.getClaimedUntil().isAfter(clock.instant())) {
+                Instant claimedUntil = takeOver(keyHash);
+                if (claimedUntil != null) {
+                    return new Result(run(keyHash, requestHash, claimedUntil, request, user), false);
+                }
+                continue; // Klíč převzal jiný pokus
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IdempotencyKeyInProgressException("Požadavek se stejným klíčem " + HEADER + " se stále zpracovává");
+            }
+            sleep(pollInterval);
+        }
+    }
+
+    /**
+     * @return platnost zámku (zároveň identifikuje tento pokus), {@code null} = klíč zabrala jiná instance
+     */
+    private Instant claim(String keyHash, String requestHash) {
+        Instant now = now();
+        Instant claimedUntil = now.plus(lease);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                recordRepository.deleteIfExpired(keyHash, now);
+                recordRepository.saveAndFlush(new IdempotencyRecord(keyHash, requestHash, now, now.plus(ttl), claimedUntil));
+            });
+            return claimedUntil;
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return platnost zámku, {@code null} = klíč převzal jiný pokus
+     */
+    private Instant takeOver(String keyHash) {
+        Instant now = now();
+        Instant claimedUntil = now.plus(lease);
+        Integer updated = transactionTemplate.execute(status -> recordRepository.takeOver(keyHash, now, claimedUntil));
+        if (updated == null || updated == 0) {
+            return null;
+        }
+        log.warn("Převzat nedokončený klíč {} po vypršení zámku předchozího pokusu", HEADER);
+        return claimedUntil;
+    }
+
+    private OrderResponse run(String keyHash, String requestHash, Instant claimedUntil,
+                              CreateOrderRequest request, User user) {
+        OrderResponse response;
+        try {
+            response = transactionTemplate.execute(status -> {
+                OrderResponse created = orderMapper.toDto(orderService.createOrder(request, user));
+                if (recordRepository.complete(keyHash, claimedUntil, toJson(created)) == 0) {
+                    // Zámek vypršel a klíč převzal jiný pokus - objednávka se vrátí, platí jeho výsledek
+                    throw new IdempotencyKeyInProgressException("Požadavek se stejným klíčem " + HEADER + " převzal jiný pokus");
+                }
+                return created;
+            });
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> recordRepository.release(keyHash, claimedUntil));
+            throw e;
+        }
+        responses.put(keyHash, new StoredResponse(requestHash, response));
+        return response;
+    }
+
+    /**
+     * Aktuální čas v milisekundách - zámek se porovnává s hodnotou uloženou v DB, přesnost musí sedět.
+     */
+    private Instant now() {
+        return clock.instant().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause; // Stejný požadavek by selhal stejně
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException("Požadavek se stejným klíčem " + HEADER + " se stále zpracovává");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("Čekání na požadavek se stejným klíčem " + HEADER + " přerušeno");
+        }
+    }
+
+    private Result replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw mismatch();
+        }
+        return new Result(stored.response(), true);
+    }
+
+    private static IdempotencyKeyMismatchException mismatch() {
+        return new IdempotencyKeyMismatchException("Klíč " + HEADER + " už byl použit s jiným požadavkem");
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Nelze serializovat " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private OrderResponse fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Poškozená uložená odpověď objednávky", e);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("Čekání na požadavek se stejným klíčem " + HEADER + " přerušeno");
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package krematos.service.order;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Měsíční partice {@code orders} a {@code order_items} podle {@code order_date} (UTC) na PostgreSQL.
+ * <p>
+ * Schéma spravuje Hibernate ({@code ddl-auto=update}), který založí obyčejné tabulky. Převod na dělené
+ * tabulky je nevratný zásah do hlavních tabulek, proto běží jen se zapnutým
+ * {@code app.orders.partitions.enabled} (výchozí vypnuto): původní tabulka se přejmenuje na
+ * {@code <tabulka>_legacy} a připojí jako partice pro vše před prvním měsícem bez objednávek (prázdná
+ * se zahodí), nová tabulka je dělená podle {@code order_date} s primárním klíčem {@code (id, order_date)}.
+ * Položky nesou kopii data objednávky a cizí klíč {@code (order_id, order_date)}. Převod běží v jedné
+ * transakci pod advisory zámkem, takže ho při souběžném startu více instancí provede jen jedna.
+ * <p>
+ * Jakmile jsou tabulky dělené, každý den (a při startu) se založí partice na
+ * {@code app.orders.partitions.months-ahead} měsíců dopředu - i s vypnutým převodem, jinak by zápisy
+ * po posledním měsíci selhaly. S {@code app.orders.partitions.retention-months} > 0 se partice starší
+ * než retence odpojí a přesunou do schématu {@code app.orders.partitions.archive-schema} - data zůstanou
+ * pro export ({@code pg_dump}) nebo smazání, ale dotazy aplikace je už nečtou. Historie a detail
+ * objednávek jdou z {@code order_views}, odpojení se jich netýká.
+ * <p>
+ * Jiné databáze (H2 v testech) zůstávají bez partic.
+ */
+@Slf4j
+@Component
+public class OrderPartitionManager {
+
+    static final String ORDERS = "orders";
+    static final String ORDER_ITEMS = "order_items";
+
+    private static final long LOCK_KEY = 4_224_050L; // pg_advisory_xact_lock - převod a údržba partic
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'_p'yyyy_MM");
+
+    /**
+     * Horní mez partice z {@code pg_get_expr(relpartbound)} - {@code FOR VALUES FROM (...) TO ('...')}.
+     */
+    private static final String UPPER_BOUND = "(regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''([^'']+)''\\)'))[1]::timestamptz";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final String archiveSchema;
+    private final boolean enabled;
+    private volatile boolean partitioned;
+
+    /**
+     * {@code EntityManagerFactory} jen kvůli pořadí - tabulky musí být založené, než je převedeme.
+     *
+     * @throws IllegalArgumentException neplatný název schématu archivu nebo záporný počet měsíců
+     */
+    public OrderPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory,
+            Clock clock,
+            @Value("${app.orders.partitions.enabled:false}") boolean enabled,
+            @Value("${app.orders.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${app.orders.partitions.retention-months:0}") int retentionMonths,
+            @Value("${app.orders.partitions.archive-schema:orders_archive}") String archiveSchema) {
+        if (monthsAhead < 0 || retentionMonths < 0) {
+            throw new IllegalArgumentException("Počet měsíců partic nesmí být záporný");
+        }
+        if (!IDENTIFIER.matcher(archiveSchema).matches()) {
+            throw new IllegalArgumentException("Neplatný název schématu archivu objednávek: " + archiveSchema);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveSchema = archiveSchema;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    void migrate() {
+        if (!"PostgreSQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName()))) {
+            return;
+        }
+        if (!enabled && !isPartitioned(ORDERS)) {
+            return; // Převod vypnutý a tabulky dělené nejsou - není co udržovat
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            if (!isPartitioned(ORDERS)) {
+                convert();
+            }
+        });
+        partitioned = true;
+        maintain();
+    }
+
+    /**
+     * Založí chybějící partice dopředu a odpojí partice starší než retence.
+     */
+    @Scheduled(cron = "${app.orders.partitions.maintenance-cron:0 10 0 * * *}", zone = "UTC")
+    public void maintain() {
+        if (!partitioned) {
+            return;
+        }
+        YearMonth current = YearMonth.from(clock.instant().atOffset(ZoneOffset.UTC));
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            createPartitions(current, current.plusMonths(monthsAhead));
+        });
+        if (retentionMonths > 0) {
+            archivePartitions(current.minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * @return název měsíční partice, např. {@code orders_p2026_10}
+     */
+    static String partitionName(String table, YearMonth month) {
+        return table + PARTITION_SUFFIX.format(month);
+    }
+
+    /**
+     * @return začátek měsíce v UTC jako literál pro {@code FOR VALUES}
+     */
+    static String bound(YearMonth month) {
+        return "'" + month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME) + "'";
+    }
+
+    // --- Helper Methods ---
+
+    private void convert() {
+        // Cizí klíč order_items -> orders(id) nejde převést - dělená tabulka má unikátní jen (id, order_date)
+        jdbcTemplate.query("SELECT conrelid::regclass::text, conname FROM pg_constraint "
+                                + "WHERE confrelid = 'orders'::regclass AND contype = 'f'",
+                        (rs, row) -> "ALTER TABLE " + rs.getString(1) + " DROP CONSTRAINT \"" + rs.getString(2) + "\"")
+                .forEach(jdbcTemplate::execute);
+
+        OffsetDateTime last = jdbcTemplate.queryForObject("SELECT MAX(order_date) FROM orders", OffsetDateTime.class);
+        YearMonth boundary = last == null
+                ? YearMonth.from(clock.instant().atOffset(ZoneOffset.UTC))
+                : YearMonth.from(last.withOffsetSameInstant(ZoneOffset.UTC)).plusMonths(1);
+        convertTable(ORDERS, boundary, last != null);
+        convertTable(ORDER_ITEMS, boundary, last != null);
+        jdbcTemplate.execute("ALTER TABLE order_items ADD CONSTRAINT fk_order_items_order "
+                + "FOREIGN KEY (order_id, order_date) REFERENCES orders (id, order_date)");
+        log.info("Tabulky objednávek převedeny na měsíční partice, dosavadní objednávky v particích *_legacy do {}", boundary);
+    }
+
+    /**
+     * Nahradí tabulku dělenou tabulkou se stejnými sloupci, indexy a cizími klíči. Původní tabulka
+     * se připojí jako partice pro vše před {@code boundary}; její indexy (přejmenované na {@code *_legacy})
+     * PostgreSQL při připojení spáruje s indexy nové tabulky.
+     */
+    private void convertTable(String table, YearMonth boundary, boolean keepRows) {
+        String legacy = table + "_legacy";
+        List<String> indexes = jdbcTemplate.queryForList("SELECT pg_get_indexdef(i.indexrelid) FROM pg_index i "
+                + "WHERE i.indrelid = CAST(? AS regclass) AND NOT i.indisprimary", String.class, table);
+        List<String[]> foreignKeys = jdbcTemplate.query("SELECT conname, pg_get_constraintdef(oid) FROM pg_constraint "
+                        + "WHERE conrelid = CAST(? AS regclass) AND contype = 'f'",
+                (rs, row) -> new String[]{rs.getString(1), rs.getString(2)}, table);
+        List<String> indexNames = jdbcTemplate.queryForList("SELECT c.relname FROM pg_index i "
+                + "JOIN pg_class c ON c.oid = i.indexrelid WHERE i.indrelid = CAST(? AS regclass)", String.class, table);
+
+        jdbcTemplate.execute("ALTER TABLE " + table + " RENAME TO " + legacy);
+        indexNames.forEach(index -> jdbcTemplate.execute("ALTER INDEX \"" + index + "\" RENAME TO \"" + index + "_legacy\""));
+        jdbcTemplate.execute("CREATE TABLE " + table + " (LIKE " + legacy + " INCLUDING DEFAULTS) "
+                + "PARTITION BY RANGE (order_date)");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD PRIMARY KEY (id, order_date)");
+        indexes.forEach(jdbcTemplate::execute); // Definice se jmény a tabulkou před přejmenováním
+        if (keepRows) {
+            // Partice musí mít primární klíč rodiče; ID přidělují sekvence (IdSequenceMigration), ne IDENTITY
+            String primaryKey = jdbcTemplate.queryForObject("SELECT conname FROM pg_constraint "
+                    + "WHERE conrelid = CAST(? AS regclass) AND contype = 'p'", String.class, legacy);
+            jdbcTemplate.execute("ALTER TABLE " + legacy + " DROP CONSTRAINT \"" + primaryKey + "\", "
+                    + "ADD PRIMARY KEY (id, order_date)");
+            jdbcTemplate.execute("ALTER TABLE " + legacy + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+            jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + legacy
+                    + " FOR VALUES FROM (MINVALUE) TO (" + bound(boundary) + ")");
+        } else {
+            jdbcTemplate.execute("DROP TABLE " + legacy);
+        }
+        foreignKeys.forEach(fk -> jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT \"" + fk[0] + "\" " + fk[1]));
+    }
+
+    /**
+     * Založí partice obou tabulek navazující na poslední existující až do {@code until} včetně.
+     */
+    private void createPartitions(YearMonth current, YearMonth until) {
+        OffsetDateTime coveredUntil = jdbcTemplate.queryForObject("SELECT MAX(" + UPPER_BOUND + ") "
+                + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'orders'::regclass",
+                OffsetDateTime.class);
+        YearMonth month = coveredUntil == null
+                ? current
+                : YearMonth.from(coveredUntil.withOffsetSameInstant(ZoneOffset.UTC));
+        for (; !month.isAfter(until); month = month.plusMonths(1)) {
+            for (String table : List.of(ORDERS, ORDER_ITEMS)) {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(table, month) + " PARTITION OF "
+                        + table + " FOR VALUES FROM (" + bound(month) + ") TO (" + bound(month.plusMonths(1)) + ")");
+            }
+            log.info("Založeny partice objednávek pro {}", month);
+        }
+    }
+
+    /**
+     * Odpojí partice končící nejpozději začátkem {@code before} a přesune je do schématu archivu,
+     * každou dvojici (objednávky, položky) ve vlastní transakci.
+     */
+    private void archivePartitions(YearMonth before) {
+        List<String> partitions = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'orders'::regclass "
+                + "AND " + UPPER_BOUND + " <= CAST(" + bound(before) + " AS timestamptz) ORDER BY c.relname", String.class);
+        for (String partition : partitions) {
+            String items = ORDER_ITEMS + partition.substring(ORDERS.length());
+            transactionTemplate.executeWithoutResult(status -> {
+                lock();
+                jdbcTemplate.execute("ALTER TABLE " + ORDER_ITEMS + " DETACH PARTITION " + items);
+                // Odpojené položky by jinak dál odkazovaly na orders a objednávky by odpojit nešly
+                jdbcTemplate.queryForList("SELECT DISTINCT conname FROM pg_constraint "
+                                + "WHERE conrelid = CAST(? AS regclass) AND contype = 'f'", String.class, items)
+                        .forEach(fk -> jdbcTemplate.execute("ALTER TABLE " + items + " DROP CONSTRAINT IF EXISTS \"" + fk + "\""));
+                jdbcTemplate.execute("ALTER TABLE " + ORDERS + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + archiveSchema);
+                jdbcTemplate.execute("ALTER TABLE " + items + " SET SCHEMA " + archiveSchema);
+            });
+            log.warn("Partice objednávek {} a {} odpojeny a přesunuty do schématu {}", partition, items, archiveSchema);
+        }
+    }
+
+    private boolean isPartitioned(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT relkind = 'p' FROM pg_class WHERE oid = CAST(? AS regclass)", Boolean.class, table));
+    }
+
+    private void lock() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, LOCK_KEY);
+    }
+}
@@ -1,6 +1,8 @@
 package krematos.service.order;
 
+import krematos.dto.order.OrderPageResponse;
 import krematos.dto.order.OrderResponse;
+import krematos.dto.order.OrderSearchCriteria;
 import krematos.model.Order;
 import krematos.model.User;
 import org.springframework.stereotype.Service;
@@ -14,11 +16,34 @@ import java.util.Optional;
 public interface OrderService {
 
 
-    List<OrderResponse> findAllOrders();
+    /**
+     * Stránka objednávek pro administraci, od nejnovějších.
+     *
+     * @param criteria filtry (období, uživatel, rozsah celkové ceny)
+     * @param afterId  kurzor z předchozí stránky ({@code nextCursor}), {@code null} pro první stránku
+     * @param size     velikost stránky (1 až 100, větší hodnota se omezí na 100)
+     */
+    OrderPageResponse findOrders(OrderSearchCriteria criteria, Long afterId, int size);
 
     Optional<OrderResponse> findOrderById(Long id);
 
-    List<OrderResponse> findOrdersByUser(String userName);
+    /**
+     * Zda objednávka patří uživateli (pro {@code @PreAuthorize} u detailu objednávky).
+     */
+    boolean isOwner(Long orderId, String username);
+
+    /**
+     * Výchozí velikost stránky historie objednávek - jen první stránka této velikosti se cachuje.
+     */
+    int HISTORY_PAGE_SIZE = 20;
+
+    /**
+     * Stránka objednávek uživatele, od nejnovějších.
+     *
+     * @param afterId kurzor z předchozí stránky ({@code nextCursor}), {@code null} pro první stránku
+     * @param size    velikost stránky (1 až 100, větší hodnota se omezí na 100)
+     */
+    OrderPageResponse findOrdersByUser(String userName, Long afterId, int size);
 
     Order createOrder(CreateOrderRequest request, User currentUser);
 
@@ -0,0 +1,134 @@
+package krematos.service.order;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import krematos.dto.order.OrderItemResponse;
+import krematos.dto.order.OrderResponse;
+import krematos.mapper.OrderMapper;
+import krematos.model.Order;
+import krematos.model.OrderView;
+import krematos.repository.OrderRepository;
+import krematos.repository.OrderViewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Převádí objednávky na denormalizovaný pohled {@link OrderView} a zpět na {@link OrderResponse}.
+ * <p>
+ * Pohled se zapisuje ve stejné transakci jako objednávka, takže historie a detail objednávky jsou
+ * hned konzistentní a čtou jeden řádek bez joinů. Objednávky bez pohledu (vytvořené před jeho
+ * zavedením) doplní {@link #backfill()} - po startu aplikace a na požádání administrátora.
+ */
+@Slf4j
+@Service
+public class OrderViewProjector {
+
+    private static final TypeReference<List<OrderItemResponse>> ITEMS = new TypeReference<>() {
+    };
+
+    private final OrderViewRepository orderViewRepository;
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillBatchSize;
+
+    public OrderViewProjector(
+            OrderViewRepository orderViewRepository,
+            OrderRepository orderRepository,
+            OrderMapper orderMapper,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.orders.view.backfill-batch-size:500}") int backfillBatchSize) {
+        this.orderViewRepository = orderViewRepository;
+        this.orderRepository = orderRepository;
+        this.orderMapper = orderMapper;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillBatchSize = backfillBatchSize;
+    }
+
+    /**
+     * Pohled na uloženou objednávku (objednávka musí mít ID, uživatele a položky).
+     */
+    public OrderView project(Order order) {
+        return OrderView.builder()
+                .orderId(order.getId())
+                .userId(order.getUser().getId())
+                .username(order.getUser().getUsername())
+                .totalPrice(order.getTotalPrice())
+                .createdAt(order.getOrderDate())
+                .itemsJson(writeItems(orderMapper.toOrderItemDtoList(order.getOrderItems())))
+                .build();
+    }
+
+    public OrderResponse toResponse(OrderView view) {
+        return new OrderResponse(view.getOrderId(), view.getUsername(), readItems(view.getItemsJson()),
+                view.getTotalPrice(), null, view.getCreatedAt());
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        int projected = backfill();
+        if (projected > 0) {
+            log.info("Doplněno {} chybějících pohledů objednávek", projected);
+        }
+    }
+
+    /**
+     * Vytvoří pohledy objednávkám, které ho nemají, po dávkách (každá dávka ve vlastní transakci).
+     * Opakované spuštění je bezpečné.
+     *
+     * @return počet nově vytvořených pohledů
+     */
+    public int backfill() {
+        int projected = 0;
+        long afterId = 0;
+        while (true) {
+            long cursor = afterId;
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> batch = orderViewRepository.findOrderIdsWithoutView(cursor, Limit.of(backfillBatchSize));
+                if (!batch.isEmpty()) {
+                    orderViewRepository.saveAll(orderRepository.findAllWithItemsByIdIn(batch).stream()
+                            .map(this::project)
+                            .toList());
+                }
+                return batch;
+            });
+            if (ids == null || ids.isEmpty()) {
+                return projected;
+            }
+            projected += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private String writeItems(List<OrderItemResponse> items) {
+        try {
+            return objectMapper.writeValueAsString(items);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Položky objednávky nelze serializovat", e);
+        }
+    }
+
+    private List<OrderItemResponse> readItems(String json) {
+        try {
+            return objectMapper.readValue(json, ITEMS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Poškozený pohled objednávky", e);
+        }
+    }
+}
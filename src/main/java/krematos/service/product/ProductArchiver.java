@@ -0,0 +1,127 @@
+package krematos.service.product;
+
+import krematos.repository.ProductBulkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Archivace měkce smazaných produktů.
+ * <p>
+ * Produkty neaktivní déle než {@code app.products.archive.after} se po dávkách přesunou z {@code products}
+ * do {@code archived_products} (každá dávka ve vlastní transakci) a jejich obrázky z {@code app.upload.dir}
+ * do {@code app.upload.archive-dir}. Obrázky se přesouvají až po commitu dávky v poolu obrázků - když přesun
+ * selže, soubor zůstane na místě a v archivu je jen záznam.
+ * <p>
+ * Plán běží na všech instancích ve stejnou chvíli. Dávka se proto vybírá až v transakci archivace
+ * se zámkem řádků ({@code FOR UPDATE SKIP LOCKED}) - instance si dávky rozdělí a žádná nenarazí
+ * na produkt, který mezitím archivovala jiná.
+ */
+@Slf4j
+@Component
+public class ProductArchiver {
+
+    private final ProductBulkRepository productBulkRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor imageExecutor;
+    private final Clock clock;
+    private final Duration archiveAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Path uploadDir;
+    private final Path archiveDir;
+
+    public ProductArchiver(
+            ProductBulkRepository productBulkRepository,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("imageExecutor") Executor imageExecutor,
+            Clock clock,
+            @Value("${app.products.archive.after:365d}") Duration archiveAfter,
+            @Value("${app.products.archive.batch-size:500}") int batchSize,
+            @Value("${app.products.archive.max-batches-per-run:100}") int maxBatchesPerRun,
+            @Value("${app.upload.dir:uploads}") String uploadDir,
+            @Value("${app.upload.archive-dir:uploads-archive}") String archiveDir) {
+        this.productBulkRepository = productBulkRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.imageExecutor = imageExecutor;
+        this.clock = clock;
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.uploadDir = Path.of(uploadDir).toAbsolutePath().normalize();
+        this.archiveDir = Path.of(archiveDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Produkty a obrázky archivované jednou dávkou.
+     */
+    private record Batch(int size, List<String> images) {
+    }
+
+    /**
+     * Archivuje produkty, které jsou na řadě.
+     *
+     * @return počet archivovaných produktů
+     */
+    @Scheduled(cron = "${app.products.archive.cron:0 0 4 * * *}")
+    public int archive() {
+        Instant now = clock.instant();
+        Instant cutoff = now.minus(archiveAfter);
+        int archived = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            Batch batch = transactionTemplate.execute(status -> {
+                List<Long> ids = productBulkRepository.findArchivable(cutoff, batchSize);
+                return new Batch(ids.size(), productBulkRepository.archive(ids, now));
+            });
+            if (batch == null || batch.size() == 0) {
+                break;
+            }
+            archived += batch.size();
+            if (!batch.images().isEmpty()) {
+                imageExecutor.execute(() -> batch.images().forEach(this::moveImage));
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archivováno {} produktů neaktivních déle než {}", archived, archiveAfter);
+        }
+        return archived;
+    }
+
+    // --- Helper Methods ---
+
+    private void moveImage(String fileName) {
+        try {
+            Path source = uploadDir.resolve(fileName.trim()).normalize();
+            Path target = archiveDir.resolve(fileName.trim()).normalize();
+            if (!source.startsWith(uploadDir) || !target.startsWith(archiveDir)) {
+                log.warn("Neplatný název souboru obrázku '{}' - nepřesouvám", fileName);
+                return;
+            }
+            Files.createDirectories(archiveDir);
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException e) {
+            log.debug("Obrázek {} archivovaného produktu už na disku není", fileName);
+        } catch (InvalidPathException | IOException e) {
+            log.error("Nepodařilo se archivovat obrázek {}: {}", fileName, e.getMessage());
+        }
+    }
+}
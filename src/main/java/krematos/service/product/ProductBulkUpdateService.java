@@ -0,0 +1,95 @@
+package krematos.service.product;
+
+import krematos.dto.product.ProductBulkUpdateRequest;
+import krematos.dto.product.ProductBulkUpdateResponse;
+import krematos.dto.product.ProductChangeResponse;
+import krematos.mapper.ProductMapper;
+import krematos.repository.ProductBulkRepository;
+import krematos.repository.ProductChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hromadné změny ceny a aktivity produktů množinovými příkazy SQL místo jednoho
+ * {@code PUT /api/products/{id}} na produkt.
+ * <p>
+ * V jedné transakci se nejdřív zaznamená audit ({@code product_changes}: stará a nová hodnota
+ * každého měněného produktu) a produkty se pak aktualizují z auditních řádků - audit tak odpovídá
+ * přesně tomu, co se zapsalo. Cache produktů se vyprázdní jednou za celou změnu.
+ */
+@Slf4j
+@Service
+public class ProductBulkUpdateService {
+
+    private final ProductBulkRepository productBulkRepository;
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductMapper productMapper;
+    private final Clock clock;
+    private final int maxReturnedChanges;
+
+    public ProductBulkUpdateService(
+            ProductBulkRepository productBulkRepository,
+            ProductChangeRepository productChangeRepository,
+            ProductMapper productMapper,
+            Clock clock,
+            @Value("${app.products.bulk-update.max-returned-changes:1000}") int maxReturnedChanges) {
+        this.productBulkRepository = productBulkRepository;
+        this.productChangeRepository = productChangeRepository;
+        this.productMapper = productMapper;
+        this.clock = clock;
+        this.maxReturnedChanges = maxReturnedChanges;
+    }
+
+    /**
+     * Provede hromadnou změnu.
+     *
+     * @param changedBy uživatelské jméno pro audit
+     * @throws IllegalArgumentException chybí výběr produktů nebo změna, nebo je zadaná cena i násobitel
+     */
+    @Transactional
+    @CacheEvict(value = {"productsById", "allProducts"}, allEntries = true)
+    public ProductBulkUpdateResponse update(ProductBulkUpdateRequest request, String changedBy) {
+        validate(request);
+        String batchId = UUID.randomUUID().toString();
+        Instant now = clock.instant();
+        int recorded = productBulkRepository.recordChanges(batchId, request, changedBy, now);
+        if (recorded == 0) {
+            log.info("Hromadná změna produktů {} ({}): žádný produkt se nemění", batchId, changedBy);
+            return new ProductBulkUpdateResponse(batchId, 0, List.of(), false);
+        }
+        int affected = productBulkRepository.applyChanges(batchId, now);
+        List<ProductChangeResponse> changes = productChangeRepository
+                .findByBatchIdOrderByProductIdAsc(batchId, Limit.of(maxReturnedChanges)).stream()
+                .map(productMapper::toChangeDto)
+                .toList();
+        log.warn("Hromadná změna produktů {} ({}): změněno {} produktů, důvod: {}",
+                batchId, changedBy, affected, request.reason());
+        return new ProductBulkUpdateResponse(batchId, affected, changes, affected > changes.size());
+    }
+
+    // --- Helper Methods ---
+
+    private static void validate(ProductBulkUpdateRequest request) {
+        if (request.category() == null && request.ids() == null) {
+            throw new IllegalArgumentException("Hromadná změna musí vybrat produkty podle kategorie nebo ID");
+        }
+        if (request.ids() != null && request.ids().isEmpty()) {
+            throw new IllegalArgumentException("Seznam ID produktů nesmí být prázdný");
+        }
+        if (request.priceMultiplier() == null && request.price() == null && request.active() == null) {
+            throw new IllegalArgumentException("Hromadná změna musí měnit cenu nebo aktivitu");
+        }
+        if (request.priceMultiplier() != null && request.price() != null) {
+            throw new IllegalArgumentException("Zadejte buď novou cenu, nebo násobitel ceny, ne obojí");
+        }
+    }
+}
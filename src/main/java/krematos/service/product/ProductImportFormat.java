@@ -0,0 +1,41 @@
+package krematos.service.product;
+
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+
+/**
+ * Formáty hromadného importu produktů, rozlišené podle {@code Content-Type} požadavku.
+ */
+public enum ProductImportFormat {
+    NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")), // jeden JSON objekt (produkt) na řádek
+    CSV("csv", MediaType.parseMediaType("text/csv"));                   // hlavička s názvy sloupců, pak produkt na řádek
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    private final String code;
+    private final MediaType mediaType;
+
+    ProductImportFormat(String code, MediaType mediaType) {
+        this.code = code;
+        this.mediaType = mediaType;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @param contentType hlavička {@code Content-Type} požadavku (parametry jako {@code charset} se ignorují)
+     * @throws IllegalArgumentException pro nepodporovaný typ
+     */
+    public static ProductImportFormat fromContentType(String contentType) {
+        MediaType requested = contentType == null ? null : MediaType.parseMediaType(contentType);
+        return Arrays.stream(values())
+                .filter(format -> requested != null && format.mediaType.equalsTypeAndSubtype(requested))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Nepodporovaný formát importu: " + contentType + " (povolené: " + NDJSON_VALUE + ", " + CSV_VALUE + ")"));
+    }
+}
@@ -0,0 +1,393 @@
+package krematos.service.product;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import krematos.dto.product.ProductImportRow;
+import krematos.dto.product.ProductImportStatus;
+import krematos.dto.product.ProductImportStatus.RowError;
+import krematos.dto.product.ProductImportStatus.State;
+import krematos.exception.ServiceBusyException;
+import krematos.repository.ProductBulkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hromadný import produktů (NDJSON, CSV) jako asynchronní úloha.
+ * <p>
+ * Tělo požadavku se nejdřív uloží do dočasného souboru (požadavek tak nečeká na zápis do DB),
+ * úloha ho pak na {@code importExecutor} čte streamově - NDJSON přes Jackson {@link JsonParser},
+ * CSV po záznamech - a v paměti drží jen aktuální dávku. Každá dávka ({@code chunk-size} řádků)
+ * se zvaliduje a zapíše jednou JDBC dávkou ve vlastní transakci (viz {@link ProductBulkRepository}).
+ * <p>
+ * Neplatné řádky se přeskočí a zapíšou do chyb úlohy, ostatní se importují. Neopravitelná chyba
+ * (poškozený JSON, chyba DB) úlohu ukončí ve stavu {@code FAILED}; už potvrzené dávky zůstanou -
+ * import páruje produkty podle názvu, takže opravený soubor jde bezpečně nahrát znovu.
+ * Stav úloh je jen v paměti instance, která úlohu přijala, po dobu {@code job-retention}.
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    private static final List<String> CSV_REQUIRED_COLUMNS = List.of("name", "description", "price", "category");
+
+    private final ProductBulkRepository productBulkRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final CacheManager cacheManager;
+    private final Executor importExecutor;
+    private final Clock clock;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final long maxSizeBytes;
+    private final Cache<String, ImportJob> jobs;
+
+    public ProductImportService(
+            ProductBulkRepository productBulkRepository,
+            ObjectMapper objectMapper,
+            Validator validator,
+            CacheManager cacheManager,
+            @Qualifier("importExecutor") Executor importExecutor,
+            Clock clock,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.products.import.chunk-size:500}") int chunkSize,
+            @Value("${app.products.import.max-errors:1000}") int maxErrors,
+            @Value("${app.products.import.max-size:512MB}") DataSize maxSize,
+            @Value("${app.products.import.job-retention:24h}") Duration jobRetention) {
+        this.productBulkRepository = productBulkRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.cacheManager = cacheManager;
+        this.importExecutor = importExecutor;
+        this.clock = clock;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.maxSizeBytes = maxSize.toBytes();
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(jobRetention)
+                .build();
+    }
+
+    /**
+     * Uloží tělo požadavku a naplánuje import.
+     *
+     * @return stav nové úlohy (obvykle {@code QUEUED})
+     * @throws IllegalArgumentException vstup větší než {@code max-size}
+     * @throws ServiceBusyException     fronta importů je plná
+     */
+    public ProductImportStatus submit(InputStream body, ProductImportFormat format) throws IOException {
+        Path file = spool(body);
+        long size = Files.size(file);
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), format, clock.instant(), maxErrors);
+        jobs.put(job.id, job);
+        try {
+            importExecutor.execute(() -> run(job, file));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id);
+            deleteQuietly(file);
+            throw new ServiceBusyException("Probíhá příliš mnoho importů produktů", 60, e);
+        }
+        log.info("Import produktů {} ({}) zařazen, {} bajtů.", job.id, format.getCode(), size);
+        return job.toStatus();
+    }
+
+    /**
+     * @return aktuální stav úlohy, prázdné pro neznámou nebo už zapomenutou úlohu
+     */
+    public Optional<ProductImportStatus> status(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(ImportJob::toStatus);
+    }
+
+    // --- Helper Methods ---
+
+    private void run(ImportJob job, Path file) {
+        long started = System.nanoTime();
+        job.state = State.RUNNING;
+        try (InputStream in = Files.newInputStream(file)) {
+            Chunk chunk = new Chunk(job);
+            switch (job.format) {
+                case NDJSON -> readNdjson(in, chunk);
+                case CSV -> readCsv(in, chunk);
+            }
+            chunk.flush();
+            job.finish(State.COMPLETED, null, clock.instant());
+        } catch (Exception e) {
+            log.error("Import produktů {} selhal po {} řádcích", job.id, job.processed.get(), e);
+            job.finish(State.FAILED, e.getMessage(), clock.instant());
+        } finally {
+            deleteQuietly(file);
+        }
+        log.info("Import produktů {} skončil ({}): {} řádků, {} importováno, {} odmítnuto za {} ms",
+                job.id, job.state, job.processed.get(), job.imported.get(), job.failed.get(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * NDJSON (i jinak oddělené JSON objekty). Řádek s chybným typem hodnoty se přeskočí,
+     * syntakticky poškozený JSON import ukončí - za ním už nejde spolehlivě najít začátek dalšího objektu.
+     */
+    private void readNdjson(InputStream in, Chunk chunk) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(ProductImportRow.class);
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                long line = parser.currentTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    chunk.reject(line, "Očekáván JSON objekt produktu");
+                    continue;
+                }
+                try {
+                    chunk.add(line, reader.readValue(parser));
+                } catch (DatabindException e) {
+                    while (!parser.getParsingContext().inRoot()) { // Zbytek objektu se přeskočí
+                        parser.nextToken();
+                    }
+                    chunk.reject(line, e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * CSV s hlavičkou; povinné sloupce {@code name, description, price, category}, volitelné
+     * {@code currency, active}, ostatní se ignorují.
+     */
+    private void readCsv(InputStream in, Chunk chunk) throws IOException {
+        BufferedReader text = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        CsvRecordReader csv = new CsvRecordReader(text);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).strip().toLowerCase(Locale.ROOT);
+            columns.put(i == 0 && column.startsWith("\uFEFF") ? column.substring(1) : column, i); // BOM z Excelu
+        }
+        List<String> missing = CSV_REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("CSV hlavičce chybí sloupce: " + String.join(", ", missing));
+        }
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            long line = csv.recordLine();
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue; // Prázdný řádek
+            }
+            if (record.size() != header.size()) {
+                chunk.reject(line, "Počet sloupců " + record.size() + " neodpovídá hlavičce (" + header.size() + ")");
+                continue;
+            }
+            try {
+                chunk.add(line, new ProductImportRow(
+                        csvValue(record, columns, "name"),
+                        csvValue(record, columns, "description"),
+                        Optional.ofNullable(csvValue(record, columns, "price")).map(BigDecimal::new).orElse(null),
+                        csvValue(record, columns, "category"),
+                        csvValue(record, columns, "currency"),
+                        Optional.ofNullable(csvValue(record, columns, "active")).map(ProductImportService::parseBoolean).orElse(null)));
+            } catch (NumberFormatException e) {
+                chunk.reject(line, "Neplatná cena: " + csvValue(record, columns, "price"));
+            } catch (IllegalArgumentException e) {
+                chunk.reject(line, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return hodnota sloupce, {@code null} pro chybějící sloupec nebo prázdnou hodnotu
+     */
+    private static String csvValue(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || record.get(index).isEmpty()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    private static Boolean parseBoolean(String value) {
+        return switch (value.strip().toLowerCase(Locale.ROOT)) {
+            case "true", "1" -> true;
+            case "false", "0" -> false;
+            default -> throw new IllegalArgumentException("Neplatná hodnota active: " + value);
+        };
+    }
+
+    private Path spool(InputStream body) throws IOException {
+        Path file = Files.createTempFile("product-import-", ".tmp");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > maxSizeBytes) {
+                    throw new IllegalArgumentException("Import je větší než povolených " + DataSize.ofBytes(maxSizeBytes).toMegabytes() + " MB");
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+        return file;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Nelze smazat dočasný soubor importu {}", file, e);
+        }
+    }
+
+    /**
+     * Rozpracovaná dávka platných řádků. Pozdější řádek se stejným názvem nahradí dřívější -
+     * stejně jako kdyby byl v další dávce.
+     */
+    private class Chunk {
+
+        private final ImportJob job;
+        private final Map<String, ProductImportRow> rows = new LinkedHashMap<>();
+        private int accepted;
+
+        Chunk(ImportJob job) {
+            this.job = job;
+        }
+
+        void add(long line, ProductImportRow row) {
+            job.processed.incrementAndGet();
+            List<ConstraintViolation<ProductImportRow>> violations = new ArrayList<>(validator.validate(row));
+            if (!violations.isEmpty()) {
+                violations.sort(Comparator.comparing(violation -> violation.getPropertyPath().toString()));
+                job.addError(line, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .reduce((first, second) -> first + "; " + second)
+                        .orElseThrow());
+                return;
+            }
+            rows.put(row.name(), row);
+            accepted++;
+            if (rows.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            job.processed.incrementAndGet();
+            job.addError(line, message);
+        }
+
+        void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            Instant now = clock.instant();
+            transactionTemplate.executeWithoutResult(status -> productBulkRepository.upsert(rows.values(), now));
+            job.imported.addAndGet(accepted);
+            rows.clear();
+            accepted = 0;
+            evictProductCaches();
+        }
+    }
+
+    private void evictProductCaches() {
+        for (String name : List.of("productsById", "allProducts")) {
+            org.springframework.cache.Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Stav úlohy sdílený mezi pracovním vláknem a dotazy na stav.
+     */
+    private static final class ImportJob {
+
+        private final String id;
+        private final ProductImportFormat format;
+        private final Instant submittedAt;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<RowError> errors = new ArrayList<>(); // Chráněno zámkem na seznamu
+        private volatile State state = State.QUEUED;
+        private volatile Instant finishedAt;
+        private final int maxErrors;
+        private volatile String failure;
+
+        ImportJob(String id, ProductImportFormat format, Instant submittedAt, int maxErrors) {
+            this.id = id;
+            this.format = format;
+            this.submittedAt = submittedAt;
+            this.maxErrors = maxErrors;
+        }
+
+        void addError(long line, String message) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxErrors) {
+                    errors.add(new RowError(line, message));
+                }
+            }
+        }
+
+        void finish(State state, String failure, Instant finishedAt) {
+            this.failure = failure;
+            this.finishedAt = finishedAt;
+            this.state = state; // Poslední - čtenář, který vidí konečný stav, vidí i ostatní pole
+        }
+
+        ProductImportStatus toStatus() {
+            List<RowError> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = List.copyOf(errors);
+            }
+            long failedRows = failed.get();
+            return new ProductImportStatus(id, state, format.getCode(), processed.get(), imported.get(), failedRows,
+                    errorsCopy, failedRows > errorsCopy.size(), submittedAt, finishedAt, failure);
+        }
+    }
+}
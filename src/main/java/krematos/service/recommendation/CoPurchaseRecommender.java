@@ -0,0 +1,226 @@
+package krematos.service.recommendation;
+
+import krematos.event.OrderCreatedEvent;
+import krematos.repository.OrderItemRepository;
+import krematos.repository.OrderItemRepository.OrderProductRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Zákazníci také koupili" - doporučení z počtu společných nákupů produktů.
+ * <p>
+ * Řídká matice {@code produkt x produkt} (počet objednávek, ve kterých byly oba produkty)
+ * je v paměti v mapách s primitivními {@code long} klíči ({@link LongObjectHashMap},
+ * {@link LongIntHashMap}). Po každé potvrzené objednávce se přičtou její dvojice a přepočítá
+ * se top K sousedů dotčených produktů, takže dotaz je jen vyhledání předpočítaného pole.
+ * <p>
+ * Při startu a každou noc se matice sestaví znovu z {@code order_items} (zahrne i objednávky
+ * vytvořené jinými replikami) po oknech podle ID. ID ale nejsou v pořadí potvrzení - objednávka
+ * potvrzená až po skenu svého okna by chyběla. Po skenu se proto znovu čtou objednávky z posledních
+ * {@code app.recommendations.rebuild-overlap} (od začátku přestavby s rezervou na délku transakce)
+ * a objednávky potvrzené během přestavby se doplní při výměně matice. Nedávné objednávky se
+ * evidují podle ID, takže se započítají právě jednou.
+ */
+@Slf4j
+@Component
+public class CoPurchaseRecommender {
+
+    private static final long[] NONE = new long[0];
+
+    private final OrderItemRepository orderItemRepository;
+    private final Clock clock;
+    private final int topK;
+    private final int maxProductsPerOrder;
+    private final int rebuildWindow;
+    private final Duration rebuildOverlap;
+
+    private final Object lock = new Object();
+    private LongObjectHashMap<LongIntHashMap> matrix = new LongObjectHashMap<>(); // Chráněno zámkem
+    private boolean rebuilding;
+    private final List<OrderCreatedEvent> ordersDuringRebuild = new ArrayList<>();
+    private final Map<Long, long[]> neighbours = new ConcurrentHashMap<>(); // Čte se bez zámku
+
+    public CoPurchaseRecommender(
+            OrderItemRepository orderItemRepository,
+            Clock clock,
+            @Value("${app.recommendations.top-k:20}") int topK,
+            @Value("${app.recommendations.max-products-per-order:50}") int maxProductsPerOrder,
+            @Value("${app.recommendations.rebuild-window:1000}") int rebuildWindow,
+            @Value("${app.recommendations.rebuild-overlap:5m}") Duration rebuildOverlap) {
+        this.orderItemRepository = orderItemRepository;
+        this.clock = clock;
+        this.topK = topK;
+        this.maxProductsPerOrder = maxProductsPerOrder;
+        this.rebuildWindow = rebuildWindow;
+        this.rebuildOverlap = rebuildOverlap;
+    }
+
+    /**
+     * Produkty nejčastěji kupované spolu s daným produktem, od nejčastějšího.
+     */
+    public List<Long> relatedProductIds(long productId, int limit) {
+        long[] related = neighbours.getOrDefault(productId, NONE);
+        return Arrays.stream(related, 0, Math.min(Math.max(limit, 0), related.length)).boxed().toList();
+    }
+
+    /**
+     * Započítá objednávku až po potvrzení transakce - zrušená objednávka doporučení neovlivní.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        long[] products = distinctProducts(event.productIds());
+        synchronized (lock) {
+            addOrder(matrix, products);
+            if (rebuilding) {
+                ordersDuringRebuild.add(event);
+            }
+            for (long product : products) {
+                refreshNeighbours(matrix, product);
+            }
+        }
+    }
+
+    @Async("analyticsExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        rebuild();
+    }
+
+    /**
+     * Sestaví matici znovu z {@code order_items} po oknech objednávek a vymění ji za aktuální.
+     */
+    @Scheduled(cron = "${app.recommendations.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        synchronized (lock) {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+            ordersDuringRebuild.clear();
+        }
+        try {
+            long start = System.nanoTime();
+            Instant since = clock.instant().minus(rebuildOverlap);
+            Set<Long> recent = new HashSet<>(); // Započítané objednávky od since
+            Long maxOrderId = orderItemRepository.findMaxOrderId();
+            long upTo = maxOrderId != null ? maxOrderId : 0;
+            LongObjectHashMap<LongIntHashMap> rebuilt = new LongObjectHashMap<>();
+            for (long after = 0; after < upTo; after += rebuildWindow) {
+                addOrders(rebuilt, orderItemRepository.findOrderProducts(after, Math.min(after + rebuildWindow, upTo)),
+                        since, recent);
+            }
+            addOrders(rebuilt, orderItemRepository.findOrderProductsSince(since), since, recent);
+            synchronized (lock) {
+                for (OrderCreatedEvent event : ordersDuringRebuild) {
+                    if (event.orderId() == null || recent.add(event.orderId())) {
+                        addOrder(rebuilt, distinctProducts(event.productIds()));
+                    }
+                }
+                matrix = rebuilt;
+                neighbours.clear();
+                rebuilt.forEach((product, row) -> refreshNeighbours(rebuilt, product));
+            }
+            log.info("Matice společných nákupů sestavena: {} produktů, objednávky do ID {}, {} ms",
+                    rebuilt.size(), upTo, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Sestavení matice společných nákupů selhalo: {}", e.getMessage());
+        } finally {
+            synchronized (lock) {
+                rebuilding = false;
+                ordersDuringRebuild.clear();
+            }
+        }
+    }
+
+    // --- Helper Methods ---
+
+    // Řádky jsou seřazené podle objednávky - dvojice se počítají po celých objednávkách.
+    // Objednávka od since už evidovaná v recent se podruhé nepočítá.
+    private void addOrders(LongObjectHashMap<LongIntHashMap> target, List<OrderProductRow> rows,
+                           Instant since, Set<Long> recent) {
+        List<Long> current = new ArrayList<>();
+        Long currentOrderId = null;
+        boolean counted = false;
+        for (OrderProductRow row : rows) {
+            if (!row.getOrderId().equals(currentOrderId)) {
+                if (!counted) {
+                    addOrder(target, distinctProducts(current));
+                }
+                current.clear();
+                currentOrderId = row.getOrderId();
+                counted = !row.getOrderDate().isBefore(since) && !recent.add(currentOrderId);
+            }
+            current.add(row.getProductId());
+        }
+        if (!counted) {
+            addOrder(target, distinctProducts(current));
+        }
+    }
+
+    private static void addOrder(LongObjectHashMap<LongIntHashMap> target, long[] products) {
+        for (int i = 0; i < products.length; i++) {
+            for (int j = i + 1; j < products.length; j++) {
+                target.computeIfAbsent(products[i], p -> new LongIntHashMap()).addTo(products[j], 1);
+                target.computeIfAbsent(products[j], p -> new LongIntHashMap()).addTo(products[i], 1);
+            }
+        }
+    }
+
+    // Velké objednávky se omezí - počet dvojic roste kvadraticky
+    private long[] distinctProducts(List<Long> productIds) {
+        return productIds.stream()
+                .filter(id -> id != null && id > 0)
+                .mapToLong(Long::longValue)
+                .distinct()
+                .limit(maxProductsPerOrder)
+                .toArray();
+    }
+
+    /**
+     * Top K sousedů produktu (min-halda velikosti K nad řádkem matice).
+     */
+    private void refreshNeighbours(LongObjectHashMap<LongIntHashMap> source, long product) {
+        LongIntHashMap row = source.get(product);
+        if (row == null) {
+            neighbours.remove(product);
+            return;
+        }
+        PriorityQueue<long[]> heap = new PriorityQueue<>(topK + 1, CoPurchaseRecommender::compareByScore);
+        row.forEach((other, count) -> {
+            heap.offer(new long[]{other, count});
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        });
+        long[] ranked = new long[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap.poll()[0];
+        }
+        neighbours.put(product, ranked);
+    }
+
+    // Menší počet (a při shodě vyšší ID) je "horší" - ten halda vyhazuje jako první
+    private static int compareByScore(long[] a, long[] b) {
+        int byCount = Long.compare(a[1], b[1]);
+        return byCount != 0 ? byCount : Long.compare(b[0], a[0]);
+    }
+}
@@ -0,0 +1,103 @@
+package krematos.service.recommendation;
+
+/**
+ * Mapa {@code long -> int} s otevřenou adresací bez boxingu klíčů i hodnot.
+ * Klíč 0 je vyhrazen jako prázdný slot (ID produktů začínají od 1). Není thread-safe.
+ */
+final class LongIntHashMap {
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int resizeAt;
+
+    LongIntHashMap() {
+        this(8);
+    }
+
+    LongIntHashMap(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(8, expectedSize * 4 / 3 + 1) - 1) << 1);
+    }
+
+    /**
+     * Přičte {@code delta} k hodnotě klíče (chybějící klíč má hodnotu 0).
+     *
+     * @return nová hodnota
+     */
+    int addTo(long key, int delta) {
+        checkKey(key);
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot] += delta;
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    int get(long key) {
+        checkKey(key);
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        return 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing - po sobě jdoucí ID se rozprostřou
+        return (int) (h >>> 32) & (keys.length - 1);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                addTo(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        resizeAt = capacity * 3 / 4;
+    }
+
+    private static void checkKey(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Klíč 0 není podporován");
+        }
+    }
+}
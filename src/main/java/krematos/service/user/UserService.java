@@ -16,10 +16,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.context.ApplicationEventPublisher;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 @Slf4j
 @Service
@@ -71,47 +68,6 @@ public class UserService {
         return updatedUser;
     }
 
-    /**
-     * Vytvoření tokenu pro reset hesla a jeho přiřazení uživateli.
-     *
-     * @param email Email uživatele, který žádá o reset hesla.
-     * @return Vygenerovaný token pro reset hesla.
-     * @throws UsernameNotFoundException pokud uživatel s daným emailem neexistuje.
-     */
-    @Transactional
-    public String createPasswordResetTokenForUser(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-
-        String token = UUID.randomUUID().toString();
-        user.setPasswordResetToken(token);
-        user.setPasswordResetTokenExpiry(Instant.now().plus(15, ChronoUnit.MINUTES)); // Token platný 15 minut
-        userRepository.save(user);
-        return token;
-    }
-
-    /**
-     * Resetování hesla uživatele pomocí tokenu.
-     *
-     * @param token       Token pro reset hesla.
-     * @param newPassword Nové heslo.
-     * @throws IllegalArgumentException pokud je token neplatný nebo vypršel.
-     */
-    @Transactional
-    public void resetPassword(String token, String newPassword) {
-        User user = userRepository.findByPasswordResetToken(token)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid password reset token"));
-
-        if (user.getPasswordResetTokenExpiry().isBefore(Instant.now())) {
-            throw new IllegalArgumentException("Password reset token has expired");
-        }
-
-        user.setPassword(passwordEncoder.encode(newPassword));
-        user.setPasswordResetToken(null);
-        user.setPasswordResetTokenExpiry(null);
-        userRepository.save(user);
-    }
-
     /**
      * Validace unikátnosti uživatelského jména a emailu při registraci.
      *
@@ -1,15 +1,21 @@
 package krematos.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 
@@ -25,6 +31,13 @@ class AsyncConfigTest {
     @Autowired
     private DummyAsyncService dummyAsyncService;
 
+    @Autowired
+    @Qualifier("analyticsExecutor")
+    private ThreadPoolTaskExecutor analyticsExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     @DisplayName("Should load executor with correct configuration properties")
     void testExecutorConfiguration() {
@@ -57,6 +70,70 @@ class AsyncConfigTest {
 
     }
 
+    @Test
+    @DisplayName("Should run qualified @Async method on its workload pool")
+    void testWorkloadExecutor() throws ExecutionException, InterruptedException {
+        String emailThreadName = dummyAsyncService.runEmailJob().get();
+
+        assertThat(emailThreadName).startsWith("Email-");
+    }
+
+    @Test
+    @DisplayName("Should export pool gauges and count rejected tasks")
+    void testExecutorMetrics() throws InterruptedException {
+        // Given - jediné vlákno je blokované, fronta (16) se zaplní
+        CountDownLatch release = new CountDownLatch(1);
+        analyticsExecutor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // When
+        for (int i = 0; i < 17; i++) {
+            analyticsExecutor.execute(() -> { });
+        }
+
+        // Then
+        assertThat(meterRegistry.get("executor.queued").tag("name", "analyticsExecutor").gauge().value()).isEqualTo(16.0);
+        assertThat(meterRegistry.get("executor.rejected").tag("name", "analyticsExecutor").counter().count()).isEqualTo(1.0);
+        release.countDown();
+    }
+
+    @Nested
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    class VirtualThreadMode {
+
+        @Autowired
+        private DummyAsyncService virtualAsyncService;
+
+        @Autowired
+        @Qualifier("analyticsExecutor")
+        private ThreadPoolTaskExecutor virtualModeAnalyticsExecutor;
+
+        @Test
+        @DisplayName("Should run blocking I/O pools on named virtual threads")
+        void testVirtualThreadExecutors() throws ExecutionException, InterruptedException {
+            Thread emailThread = virtualAsyncService.runEmailThread().get();
+            Thread defaultThread = virtualAsyncService.runAsyncThread().get();
+
+            assertThat(emailThread.isVirtual()).isTrue();
+            assertThat(emailThread.getName()).startsWith("Email-");
+            assertThat(defaultThread.isVirtual()).isTrue();
+            assertThat(defaultThread.getName()).startsWith("AsyncExecutor-");
+        }
+
+        @Test
+        @DisplayName("Should keep CPU-bound analytics pool on platform threads")
+        void testAnalyticsStaysOnPlatformThreads() throws ExecutionException, InterruptedException {
+            Thread analyticsThread = virtualModeAnalyticsExecutor.submit(Thread::currentThread).get();
+
+            assertThat(analyticsThread.isVirtual()).isFalse();
+        }
+    }
+
     // --- Pomocná třída a konfigurace pro testování funkčnosti ---
 
     static class DummyAsyncService {
@@ -64,6 +141,21 @@ class AsyncConfigTest {
         public CompletableFuture<String> runAsyncJob() {
             return CompletableFuture.completedFuture(Thread.currentThread().getName());
         }
+
+        @Async("emailExecutor")
+        public CompletableFuture<String> runEmailJob() {
+            return CompletableFuture.completedFuture(Thread.currentThread().getName());
+        }
+
+        @Async
+        public CompletableFuture<Thread> runAsyncThread() {
+            return CompletableFuture.completedFuture(Thread.currentThread());
+        }
+
+        @Async("emailExecutor")
+        public CompletableFuture<Thread> runEmailThread() {
+            return CompletableFuture.completedFuture(Thread.currentThread());
+        }
     }
 
     @TestConfiguration
@@ -72,5 +164,10 @@ class AsyncConfigTest {
         public DummyAsyncService dummyAsyncService() {
             return new DummyAsyncService();
         }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
     }
 }
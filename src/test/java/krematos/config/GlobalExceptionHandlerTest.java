@@ -2,7 +2,10 @@ package krematos.config;
 
 import jakarta.servlet.http.HttpServletRequest;
 import krematos.dto.ApiError;
+import krematos.exception.ServiceBusyException;
 import krematos.exception.email.EmailAlreadyExistsException;
+import krematos.exception.order.IdempotencyKeyInProgressException;
+import krematos.exception.order.IdempotencyKeyMismatchException;
 import krematos.exception.product.FileStorageException;
 import krematos.exception.product.InvalidFileException;
 import krematos.exception.product.ProductImageFileIsTooBig;
@@ -18,6 +21,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -441,6 +445,55 @@ class GlobalExceptionHandlerTest {
         assertThat(response.getBody().path()).isEqualTo("/test/endpoint");
     }
 
+    @Test
+    @DisplayName("handleIdempotencyKeyMismatch should return 422")
+    void handleIdempotencyKeyMismatch_ShouldReturnUnprocessableEntity() {
+        // Given
+        IdempotencyKeyMismatchException exception = new IdempotencyKeyMismatchException("Klíč už byl použit");
+
+        // When
+        ResponseEntity<ApiError> response = exceptionHandler.handleIdempotencyKeyMismatch(exception, mockRequest);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().errorCode()).isEqualTo("IDEMPOTENCY_KEY_MISMATCH");
+        assertThat(response.getBody().path()).isEqualTo("/test/endpoint");
+    }
+
+    @Test
+    @DisplayName("handleIdempotencyKeyInProgress should return 409 with Retry-After header")
+    void handleIdempotencyKeyInProgress_ShouldReturnConflict() {
+        // Given
+        IdempotencyKeyInProgressException exception = new IdempotencyKeyInProgressException("Stále se zpracovává");
+
+        // When
+        ResponseEntity<ApiError> response = exceptionHandler.handleIdempotencyKeyInProgress(exception, mockRequest);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().errorCode()).isEqualTo("IDEMPOTENCY_KEY_IN_PROGRESS");
+    }
+
+    @Test
+    @DisplayName("handleServiceBusy should return 503 with Retry-After header")
+    void handleServiceBusy_ShouldReturnServiceUnavailable() {
+        // Given
+        ServiceBusyException exception = new ServiceBusyException("Fronta hashování hesel je plná", 2);
+
+        // When
+        ResponseEntity<ApiError> response = exceptionHandler.handleServiceBusy(exception, mockRequest);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().errorCode()).isEqualTo("SERVICE_BUSY");
+        assertThat(response.getBody().path()).isEqualTo("/test/endpoint");
+    }
+
     @Test
     @DisplayName("handleGlobalException should return 500 for unexpected errors")
     void handleGlobalException_ShouldReturnInternalServerError() {
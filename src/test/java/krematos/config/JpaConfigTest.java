@@ -0,0 +1,109 @@
+package krematos.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import krematos.dto.order.CreateOrderRequest;
+import krematos.dto.order.OrderItemRequest;
+import krematos.mapper.OrderMapperImpl;
+import krematos.model.Order;
+import krematos.model.Product;
+import krematos.model.User;
+import krematos.service.impl.OrderServiceImpl;
+import krematos.service.order.OrderService;
+import krematos.service.order.OrderViewProjector;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dávkové INSERTy objednávky se sekvenčními ID proti H2.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({JpaConfig.class, OrderServiceImpl.class, OrderMapperImpl.class, OrderViewProjector.class})
+@DisplayName("JpaConfig Tests")
+class JpaConfigTest {
+
+    private static final int ITEMS = 10;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private List<OrderItemRequest> items;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("karel");
+        user.setPassword("password-hash");
+        user.setEmail("karel@example.com");
+        entityManager.persist(user);
+        items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Product product = new Product();
+            product.setName("Produkt " + i);
+            product.setDescription("Produkt " + i);
+            product.setCategory("Elektronika");
+            product.setPrice(new BigDecimal("99.90"));
+            items.add(new OrderItemRequest(entityManager.persist(product).getId(), 1));
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Objednávka s 10 položkami by měla být 4 příkazy: objednávka, dávka položek, dávka outboxu, pohled")
+    void shouldBatchOrderInserts() {
+        // Given - první objednávky si vyzvednou bloky ID ze sekvencí (první volání pooled optimizéru blok nedá)
+        orderService.createOrder(new CreateOrderRequest(user.getId(), items), user);
+        orderService.createOrder(new CreateOrderRequest(user.getId(), items), user);
+        entityManager.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When - produkty jsou v persistence contextu, žádné SELECTy
+        Order order = orderService.createOrder(new CreateOrderRequest(user.getId(), items), user);
+        entityManager.flush();
+
+        // Then
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1 + ITEMS + ITEMS + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(order.getOrderItems()).extracting(item -> item.getId()).doesNotContainNull().doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("ID by se měla přidělovat po blocích bez dotazu na sekvenci pro každou entitu")
+    void shouldAllocateIdsFromPooledSequence() {
+        // Given
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        Order first = orderService.createOrder(new CreateOrderRequest(user.getId(), items.subList(0, 1)), user);
+        Order second = orderService.createOrder(new CreateOrderRequest(user.getId(), items.subList(0, 1)), user);
+        entityManager.flush();
+
+        // Then
+        assertThat(second.getId()).isEqualTo(first.getId() + 1);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(2 * 4);
+    }
+}
@@ -0,0 +1,138 @@
+package krematos.config;
+
+import jakarta.persistence.EntityManager;
+import krematos.dto.order.CreateOrderRequest;
+import krematos.dto.order.OrderItemRequest;
+import krematos.mapper.OrderMapperImpl;
+import krematos.model.User;
+import krematos.service.impl.OrderServiceImpl;
+import krematos.service.order.OrderService;
+import krematos.service.order.OrderViewProjector;
+import lombok.extern.slf4j.Slf4j;
+import org.h2.tools.Server;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Propustnost vytváření objednávek s 30 položkami: INSERT po řádcích (jako dřív s {@code IDENTITY})
+ * proti dávkám se sekvenčními ID. "Po řádcích" = stejné mapování s dávkou 1 na úrovni session.
+ * <p>
+ * H2 běží jako TCP server, aby každý příkaz byl skutečná síťová cesta tam a zpět jako u PostgreSQL.
+ * Neběží v běžném buildu; spuštění: {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop") // Pro H2 přes TCP ho Boot sám nezapne
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({JpaConfig.class, OrderServiceImpl.class, OrderMapperImpl.class, OrderViewProjector.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Každá objednávka ve vlastní transakci jako v aplikaci
+@DisplayName("Order creation Benchmark")
+class OrderCreationBenchmarkTest {
+
+    private static final int ITEMS = 30;
+    private static final int ORDERS = 300;
+    private static final int WARMUP = 50;
+
+    private static Server server;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void h2Server(DynamicPropertyRegistry registry) throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:order-creation;DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Propustnost: INSERT po řádcích proti dávkám")
+    void compareRowByRowAndBatchedInserts() {
+        // Given
+        seed();
+        User user = new TransactionTemplate(transactionManager).execute(status -> entityManager.find(User.class, 1L));
+        CreateOrderRequest request = new CreateOrderRequest(1L,
+                LongStream.rangeClosed(1, ITEMS).mapToObj(id -> new OrderItemRequest(id, 1)).toList());
+
+        // When
+        double rowByRow = measure("po řádcích", user, request, 1);
+        double batched = measure("po dávkách", user, request, null);
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items", Long.class))
+                .isEqualTo(2L * (WARMUP + ORDERS) * ITEMS);
+        assertThat(batched).isGreaterThan(rowByRow * 1.5);
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * @param batchSize dávka JDBC pro session, {@code null} = výchozí z {@link JpaConfig}
+     * @return objednávek za sekundu
+     */
+    private double measure(String name, User user, CreateOrderRequest request, Integer batchSize) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Runnable createOrder = () -> transaction.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            orderService.createOrder(request, user);
+        });
+        for (int i = 0; i < WARMUP; i++) {
+            createOrder.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ORDERS; i++) {
+            createOrder.run();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double throughput = ORDERS / seconds;
+        log.info("Vytváření objednávek ({} položek) - {}: {} objednávek za {} s, {} objednávek/s",
+                ITEMS, name, ORDERS, String.format("%.2f", seconds), String.format("%.0f", throughput));
+        return throughput;
+    }
+
+    private void seed() {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, created_at) "
+                + "VALUES (1, 'karel', 'hash', 'karel@example.com', CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, roles) VALUES (1, 'ROLE_USER')");
+        jdbcTemplate.update("INSERT INTO products (id, name, description, category, price, currency, active, created_at, updated_at) "
+                + "SELECT X, 'Produkt ' || X, 'Produkt', 'Elektronika', 99.90, 'CZK', TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, ?)", ITEMS);
+    }
+}
@@ -0,0 +1,63 @@
+package krematos.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit testy pro PasswordHashingConfig - přehashování hesel podle nastavené ceny.
+ */
+@DisplayName("PasswordHashingConfig Tests")
+class PasswordHashingConfigTest {
+
+    private PasswordHashingConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new PasswordHashingConfig();
+        ReflectionTestUtils.setField(config, "encoderId", "bcrypt");
+        ReflectionTestUtils.setField(config, "bcryptStrength", 5);
+        ReflectionTestUtils.setField(config, "argon2Iterations", 2);
+    }
+
+    @Test
+    @DisplayName("Měl by hashovat nastavenou cenou bez ohledu na výkon stroje")
+    void shouldUseConfiguredCost() {
+        // When
+        String hash = config.delegatingPasswordEncoder().encode("heslo");
+
+        // Then
+        assertThat(hash).startsWith("{bcrypt}$2a$05$");
+    }
+
+    @Test
+    @DisplayName("Měl by přehashovat jen hash s nižší cenou, nikdy ne zpět na nižší")
+    void shouldUpgradeOnlyUpward() {
+        // Given
+        PasswordEncoder encoder = config.delegatingPasswordEncoder();
+        String weaker = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("heslo");
+        String stronger = "{bcrypt}" + new BCryptPasswordEncoder(6).encode("heslo");
+
+        // Then
+        assertThat(encoder.upgradeEncoding(weaker)).isTrue();
+        assertThat(encoder.upgradeEncoding(stronger)).isFalse();
+        assertThat(encoder.upgradeEncoding(encoder.encode("heslo"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Hash bez prefixu by měl ověřit BCryptem a přehashovat na formát s prefixem")
+    void shouldUpgradeLegacyHashWithoutPrefix() {
+        // Given
+        PasswordEncoder encoder = config.delegatingPasswordEncoder();
+        String legacy = new BCryptPasswordEncoder(6).encode("heslo");
+
+        // Then
+        assertThat(encoder.matches("heslo", legacy)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacy)).isTrue();
+    }
+}
@@ -0,0 +1,86 @@
+package krematos.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import krematos.model.Product;
+import krematos.repository.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Částečné indexy produktů proti skutečnému PostgreSQL - spuštění viz {@code OrderPartitionPostgresTest}.
+ */
+@Tag("postgres")
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // CREATE INDEX CONCURRENTLY nejde v transakci
+@DisplayName("ProductIndexMigration (PostgreSQL) Tests")
+class ProductIndexMigrationPostgresTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> System.getProperty("postgres.url", "jdbc:postgresql://localhost:5432/estop_test"));
+        registry.add("spring.datasource.username", () -> System.getProperty("postgres.username", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("postgres.password", "postgres"));
+    }
+
+    @Test
+    @DisplayName("Neplatný index po přerušeném CREATE INDEX CONCURRENTLY by měl zahodit a založit znovu")
+    void shouldRebuildInvalidIndex() {
+        // Given - selhaný unikátní index stejného jména zůstane v katalogu jako neplatný
+        productRepository.save(product("Telefon"));
+        productRepository.save(product("Tablet"));
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_products_active_name");
+        assertThatThrownBy(() -> jdbcTemplate.execute(
+                "CREATE UNIQUE INDEX CONCURRENTLY idx_products_active_name ON products (category) WHERE active"))
+                .hasMessageContaining("duplicate");
+        assertThat(isValid("idx_products_active_name")).isFalse();
+
+        // When
+        new ProductIndexMigration(jdbcTemplate, entityManagerFactory).migrate();
+
+        // Then
+        assertThat(isValid("idx_products_active_name")).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT pg_get_indexdef(CAST(? AS regclass))", String.class,
+                "idx_products_active_name")).endsWith("USING btree (name) WHERE active");
+        assertThat(isValid("idx_products_active_id")).isTrue();
+        assertThat(isValid("idx_products_archivable")).isTrue();
+    }
+
+    private Boolean isValid(String index) {
+        return jdbcTemplate.queryForObject("SELECT indisvalid FROM pg_index WHERE indexrelid = CAST(? AS regclass)",
+                Boolean.class, index);
+    }
+
+    private static Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setCategory("Elektronika");
+        product.setPrice(new BigDecimal("99.95"));
+        return product;
+    }
+}
@@ -0,0 +1,131 @@
+package krematos.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Zátěžové srovnání Tomcatu s platformními vlákny (výchozích 200) a s virtuálním vláknem
+ * na požadavek - stejné nastavení, jaké zapne {@code spring.threads.virtual.enabled=true}.
+ * Požadavek simuluje čekání na databázi ({@code BLOCKING}); měří se propustnost a p99 latence.
+ * <p>
+ * Neběží v běžném buildu; spuštění: {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@DisplayName("Virtual Threads Load Benchmark")
+class VirtualThreadLoadBenchmarkTest {
+
+    private static final Duration BLOCKING = Duration.ofMillis(50);
+    private static final int CLIENTS = 800;
+    private static final int REQUESTS_PER_CLIENT = 10;
+
+    @Test
+    @DisplayName("Propustnost a p99 latence: platformní vs. virtuální vlákna")
+    void comparePlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        log.info("Platformní vlákna: {} req/s, p99 {} ms", String.format("%,.0f", platform.throughput()), platform.p99Millis());
+        log.info("Virtuální vlákna:  {} req/s, p99 {} ms", String.format("%,.0f", virtual.throughput()), virtual.p99Millis());
+        assertThat(platform.failures()).isZero();
+        assertThat(virtual.failures()).isZero();
+    }
+
+    record Result(double throughput, long p99Millis, int failures) {
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        if (virtualThreads) {
+            factory.addProtocolHandlerCustomizers(handler -> handler.setExecutor(new VirtualThreadExecutor("tomcat-handler-")));
+        }
+        WebServer server = factory.getWebServer(context ->
+                context.addServlet("blocking", new BlockingServlet()).addMapping("/*"));
+        server.start();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(clients)
+                     .build()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/orders"))
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            warmUp(client, request);
+
+            long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+            AtomicInteger index = new AtomicInteger();
+            AtomicInteger failures = new AtomicInteger();
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>(CLIENTS);
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        long sentAt = System.nanoTime();
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[index.getAndIncrement()] = System.nanoTime() - sentAt;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            long p99 = Duration.ofNanos(latencies[(int) (latencies.length * 0.99) - 1]).toMillis();
+            return new Result(latencies.length / seconds, p99, failures.get());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void warmUp(HttpClient client, HttpRequest request) throws Exception {
+        for (int i = 0; i < 50; i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    private static final class BlockingServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            try {
+                Thread.sleep(BLOCKING); // Čekání na JDBC
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.setContentType("text/plain");
+            response.getWriter().write("ok");
+        }
+    }
+}
@@ -6,6 +6,8 @@ import krematos.dto.LoginRequest;
 import krematos.model.User;
 import krematos.model.enums.Role;
 import krematos.service.JwtService;
+import krematos.security.ratelimit.RateLimitBucketStore;
+import krematos.service.RefreshTokenService;
 import krematos.service.email.EmailService;
 import krematos.service.impl.UserDetailsImpl;
 import krematos.service.impl.UserDetailsServiceImpl;
@@ -62,6 +64,12 @@ class AuthControllerTest {
         @MockBean
         private JwtService jwtService;
 
+        @MockBean
+        private RefreshTokenService refreshTokenService;
+
+        @MockBean // Mock vrací Duration.ZERO - rate limit v testech propustí všechny požadavky
+        private RateLimitBucketStore rateLimitBucketStore;
+
         @MockBean
         private PasswordEncoder passwordEncoder;
 
@@ -2,6 +2,8 @@ package krematos.controller;
 
 import krematos.security.JwtAuthenticationFilter;
 import krematos.service.JwtService;
+import krematos.security.ratelimit.RateLimitBucketStore;
+import krematos.service.RefreshTokenService;
 import krematos.service.user.UserService;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.io.TempDir;
@@ -46,6 +48,11 @@ class ImageControllerTest {
     UserService userService;
     @MockBean
     JwtService jwtService;
+    @MockBean
+    RefreshTokenService refreshTokenService;
+
+    @MockBean // Mock vrací Duration.ZERO - rate limit v testech propustí všechny požadavky
+    RateLimitBucketStore rateLimitBucketStore;
 
     @MockBean
     JwtAuthenticationFilter jwtAuthenticationFilter;
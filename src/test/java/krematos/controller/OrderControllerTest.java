@@ -4,11 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import krematos.service.order.OrderService;
 import krematos.config.SecurityConfig;
 import krematos.dto.order.CreateOrderRequest;
+import krematos.dto.order.OrderPageResponse;
 import krematos.dto.order.OrderResponse;
-import krematos.mapper.OrderMapper;
-import krematos.model.Order;
+import krematos.dto.order.OrderSearchCriteria;
 import krematos.model.User;
 import krematos.service.impl.UserDetailsServiceImpl;
+import krematos.service.order.OrderExportFormat;
+import krematos.service.order.OrderExportService;
+import krematos.service.order.OrderIdempotencyService;
 import krematos.service.user.UserService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,19 +23,28 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import krematos.service.JwtService;
+import krematos.security.ratelimit.RateLimitBucketStore;
+import krematos.service.RefreshTokenService;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -52,17 +64,25 @@ class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private OrderExportService orderExportService;
+
     @MockBean
     private UserService userService;
 
     @MockBean
-    private OrderMapper orderMapper;
+    private OrderIdempotencyService orderIdempotencyService;
 
     @MockBean
     private UserDetailsServiceImpl userDetailsService;
 
     @MockBean
     private JwtService jwtService;
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
+    @MockBean // Mock vrací Duration.ZERO - rate limit v testech propustí všechny požadavky
+    private RateLimitBucketStore rateLimitBucketStore;
 
 
 
@@ -79,16 +99,13 @@ class OrderControllerTest {
         User mockUser = new User();
         mockUser.setUsername("jan.novak");
 
-        Order mockOrder = new Order();
-        mockOrder.setId(1L);
-
-        // Odpověď, kterou vrátí Mapper
+        // Odpověď vytvořené objednávky
         OrderResponse responseDto = new OrderResponse(1L, "jan.novak", Collections.emptyList(), BigDecimal.TEN, "CREATED", Instant.now());
 
         // Definice chování mocků
         when(userService.findUserByUsername("jan.novak")).thenReturn(Optional.of(mockUser));
-        when(orderService.createOrder(any(CreateOrderRequest.class), any(User.class))).thenReturn(mockOrder);
-        when(orderMapper.toDto(mockOrder)).thenReturn(responseDto);
+        when(orderIdempotencyService.createOrder(isNull(), any(CreateOrderRequest.class), any(User.class)))
+                .thenReturn(new OrderIdempotencyService.Result(responseDto, false));
 
         // Provedení testu
         mockMvc.perform(post("/api/orders")
@@ -96,10 +113,34 @@ class OrderControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isCreated()) // Očekává 201
-                .andExpect(jsonPath("$.id").value(1L));
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
 
     }
 
+    @Test
+    @DisplayName("Opakované vytvoření objednávky se stejným Idempotency-Key - vrátí původní objednávku")
+    @WithMockUser(username = "jan.novak", roles = "USER")
+    void createOrder_IdempotentReplay() throws Exception {
+        CreateOrderRequest request = new CreateOrderRequest(0L, Collections.emptyList());
+        User mockUser = new User();
+        mockUser.setUsername("jan.novak");
+        OrderResponse responseDto = new OrderResponse(1L, "jan.novak", Collections.emptyList(), BigDecimal.TEN, null, Instant.now());
+
+        when(userService.findUserByUsername("jan.novak")).thenReturn(Optional.of(mockUser));
+        when(orderIdempotencyService.createOrder(eq("7f1c2a"), any(CreateOrderRequest.class), any(User.class)))
+                .thenReturn(new OrderIdempotencyService.Result(responseDto, true));
+
+        mockMvc.perform(post("/api/orders")
+                        .with(csrf())
+                        .header("Idempotency-Key", "7f1c2a")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1L))
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+    }
+
     // --- 2. TEST ZÍSKÁNÍ VŠECH OBJEDNÁVEK (ADMIN ONLY) ---
 
     @Test
@@ -110,11 +151,34 @@ class OrderControllerTest {
                 1L, "user1", Collections.emptyList(), BigDecimal.valueOf(100), "PAID", Instant.now()
         );
 
-        when(orderService.findAllOrders()).thenReturn(List.of(responseDto));
+        when(orderService.findOrders(new OrderSearchCriteria(null, null, null, null, null), null, 50))
+                .thenReturn(new OrderPageResponse(List.of(responseDto), 1L));
 
         mockMvc.perform(get("/api/orders/all"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1L));
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").value(1L));
+    }
+
+    @Test
+    @DisplayName("Admin filtruje objednávky a stránkuje kurzorem - Úspěch (200 OK)")
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void getAllOrders_WithFilters() throws Exception {
+        OrderSearchCriteria criteria = new OrderSearchCriteria(Instant.parse("2026-01-01T00:00:00Z"),
+                Instant.parse("2026-02-01T00:00:00Z"), 7L, new BigDecimal("100"), new BigDecimal("500"));
+        when(orderService.findOrders(criteria, 42L, 20)).thenReturn(new OrderPageResponse(List.of(), null));
+
+        mockMvc.perform(get("/api/orders/all")
+                        .param("from", "2026-01-01T00:00:00Z")
+                        .param("to", "2026-02-01T00:00:00Z")
+                        .param("userId", "7")
+                        .param("minTotal", "100")
+                        .param("maxTotal", "500")
+                        .param("after", "42")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
     }
 
     @Test
@@ -131,17 +195,26 @@ class OrderControllerTest {
     @DisplayName("Uživatel získá své objednávky - Úspěch (200 OK)")
     @WithMockUser(username = "jan.novak", roles = "USER")
     void getUserOrders_Success() throws Exception {
-        User mockUser = new User();
-        mockUser.setUsername("jan.novak");
-
         OrderResponse responseDto = new OrderResponse(5L, "jan.novak", Collections.emptyList(), BigDecimal.valueOf(500), "SHIPPED", Instant.now());
 
-        when(userService.findUserByUsername("jan.novak")).thenReturn(Optional.of(mockUser));
-        when(orderService.findOrdersByUser("jan.novak")).thenReturn(List.of(responseDto));
+        when(orderService.findOrdersByUser("jan.novak", null, OrderService.HISTORY_PAGE_SIZE))
+                .thenReturn(new OrderPageResponse(List.of(responseDto), null));
 
         mockMvc.perform(get("/api/orders"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()").value(1));
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(5L));
+    }
+
+    @Test
+    @DisplayName("Uživatel stránkuje své objednávky kurzorem - Úspěch (200 OK)")
+    @WithMockUser(username = "jan.novak", roles = "USER")
+    void getUserOrders_NextPage() throws Exception {
+        when(orderService.findOrdersByUser("jan.novak", 5L, 10)).thenReturn(new OrderPageResponse(List.of(), null));
+
+        mockMvc.perform(get("/api/orders").param("after", "5").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty());
     }
 
     // --- 4. TEST DETAILU OBJEDNÁVKY ---
@@ -171,4 +244,45 @@ class OrderControllerTest {
         mockMvc.perform(get("/api/orders/{id}", orderId))
                 .andExpect(status().isNotFound());
     }
+
+    // --- 5. TEST EXPORTU OBJEDNÁVEK ---
+
+    @Test
+    @DisplayName("Admin exportuje objednávky jako CSV - streamovaná odpověď (200 OK)")
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void exportOrders_Csv() throws Exception {
+        when(orderExportService.export(any(OrderSearchCriteria.class), eq(OrderExportFormat.CSV), any(OutputStream.class)))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(2, OutputStream.class).write("order_id\r\n1\r\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        MvcResult result = mockMvc.perform(get("/api/orders/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout())
+                .isEqualTo(Duration.ofMinutes(30).toMillis()); // Jen export, výchozí timeout zůstává krátký
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders.csv\""))
+                .andExpect(content().string("order_id\r\n1\r\n"));
+    }
+
+    @Test
+    @DisplayName("Neznámý formát exportu - 400 Bad Request")
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void exportOrders_UnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/orders/export").param("format", "xlsx"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Běžný user nesmí exportovat objednávky (403 Forbidden)")
+    @WithMockUser(username = "user", roles = "USER")
+    void exportOrders_ForbiddenForUser() throws Exception {
+        mockMvc.perform(get("/api/orders/export"))
+                .andExpect(status().isForbidden());
+    }
 }
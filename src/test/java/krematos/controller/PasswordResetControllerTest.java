@@ -5,6 +5,8 @@ import krematos.config.SecurityConfig;
 import krematos.dto.password.ForgotPasswordRequest;
 import krematos.dto.password.ResetPasswordRequest;
 import krematos.service.JwtService;
+import krematos.security.ratelimit.RateLimitBucketStore;
+import krematos.service.RefreshTokenService;
 import krematos.service.PasswordResetService;
 import krematos.service.impl.UserDetailsServiceImpl;
 import krematos.service.user.UserService;
@@ -50,6 +52,11 @@ class PasswordResetControllerTest {
 
     @MockBean
     private JwtService jwtService;
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
+    @MockBean // Mock vrací Duration.ZERO - rate limit v testech propustí všechny požadavky
+    private RateLimitBucketStore rateLimitBucketStore;
 
     @MockBean
     private UserDetailsServiceImpl userDetailsService;
@@ -2,12 +2,21 @@ package krematos.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import krematos.config.SecurityConfig;
+import krematos.dto.product.ProductBulkUpdateRequest;
+import krematos.dto.product.ProductBulkUpdateResponse;
+import krematos.dto.product.ProductChangeResponse;
+import krematos.dto.product.ProductImportStatus;
 import krematos.dto.product.ProductResponse;
 import krematos.exception.product.ProductNotFoundException;
 import krematos.mapper.ProductMapper;
 import krematos.model.Product;
 import krematos.service.JwtService;
+import krematos.security.ratelimit.RateLimitBucketStore;
+import krematos.service.RefreshTokenService;
 import krematos.service.ProductService;
+import krematos.service.product.ProductBulkUpdateService;
+import krematos.service.product.ProductImportFormat;
+import krematos.service.product.ProductImportService;
 import krematos.service.impl.UserDetailsServiceImpl;
 import krematos.service.user.UserService;
 import org.junit.jupiter.api.DisplayName;
@@ -69,9 +78,20 @@ class ProductControllerTest {
         @MockBean
         private ProductMapper productMapper;
 
+        @MockBean
+        private ProductImportService productImportService;
+
+        @MockBean
+        private ProductBulkUpdateService productBulkUpdateService;
+
         // Security dependencies - vyžadovány kvůli security konfiguraci
         @MockBean
         private JwtService jwtService;
+        @MockBean
+        private RefreshTokenService refreshTokenService;
+
+        @MockBean // Mock vrací Duration.ZERO - rate limit v testech propustí všechny požadavky
+        private RateLimitBucketStore rateLimitBucketStore;
 
         @MockBean
         private UserDetailsServiceImpl userDetailsService;
@@ -504,8 +524,164 @@ class ProductControllerTest {
                 }
         }
 
+        /**
+         * Testy pro POST /api/products/bulk a GET /api/products/bulk/{jobId} - Hromadný import
+         */
+        @Nested
+        @DisplayName("POST /api/products/bulk - Bulk Import")
+        @WithMockUser(roles = "ADMIN")
+        class BulkImportTests {
+
+                @Test
+                @DisplayName("Měl by přijmout NDJSON import a vrátit 202 s adresou stavu")
+                void shouldAcceptNdjsonImport() throws Exception {
+                        // Given
+                        ProductImportStatus queued = createImportStatus(ProductImportStatus.State.QUEUED);
+                        when(productImportService.submit(any(), eq(ProductImportFormat.NDJSON))).thenReturn(queued);
+
+                        // When & Then
+                        mockMvc.perform(post(API_PRODUCTS_PATH + "/bulk")
+                                        .with(csrf())
+                                        .contentType("application/x-ndjson")
+                                        .content("{\"name\":\"Telefon\"}\n"))
+                                .andExpect(status().isAccepted())
+                                .andExpect(header().string("Location", "/api/products/bulk/job-1"))
+                                .andExpect(jsonPath("$.jobId").value("job-1"))
+                                .andExpect(jsonPath("$.state").value("QUEUED"));
+                }
+
+                @Test
+                @DisplayName("Měl by rozpoznat CSV i s parametrem charset")
+                void shouldAcceptCsvImport() throws Exception {
+                        // Given
+                        when(productImportService.submit(any(), eq(ProductImportFormat.CSV)))
+                                        .thenReturn(createImportStatus(ProductImportStatus.State.QUEUED));
+
+                        // When & Then
+                        mockMvc.perform(post(API_PRODUCTS_PATH + "/bulk")
+                                        .with(csrf())
+                                        .contentType("text/csv;charset=UTF-8")
+                                        .content("name,description,price,category\n"))
+                                .andExpect(status().isAccepted());
+                }
+
+                @Test
+                @DisplayName("Měl by odmítnout nepodporovaný formát")
+                void shouldRejectUnsupportedContentType() throws Exception {
+                        // When & Then
+                        mockMvc.perform(post(API_PRODUCTS_PATH + "/bulk")
+                                        .with(csrf())
+                                        .contentType(MediaType.APPLICATION_XML)
+                                        .content("<products/>"))
+                                .andExpect(status().isUnsupportedMediaType());
+
+                        verifyNoInteractions(productImportService);
+                }
+
+                @Test
+                @DisplayName("Měl by vrátit stav importu podle ID úlohy")
+                void shouldReturnImportStatus() throws Exception {
+                        // Given
+                        when(productImportService.status("job-1"))
+                                        .thenReturn(Optional.of(createImportStatus(ProductImportStatus.State.COMPLETED)));
+
+                        // When & Then
+                        mockMvc.perform(get(API_PRODUCTS_PATH + "/bulk/{jobId}", "job-1"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.state").value("COMPLETED"))
+                                .andExpect(jsonPath("$.errors[0].line").value(3));
+                }
+
+                @Test
+                @DisplayName("Měl by vrátit 404 pro neznámou úlohu")
+                void shouldReturnNotFound_ForUnknownJob() throws Exception {
+                        // Given
+                        when(productImportService.status("neexistuje")).thenReturn(Optional.empty());
+
+                        // When & Then
+                        mockMvc.perform(get(API_PRODUCTS_PATH + "/bulk/{jobId}", "neexistuje"))
+                                .andExpect(status().isNotFound());
+                }
+        }
+
+        /**
+         * Testy pro PATCH /api/products/bulk - Hromadná změna ceny a aktivity
+         */
+        @Nested
+        @DisplayName("PATCH /api/products/bulk - Bulk Update")
+        @WithMockUser(username = "admin", roles = "ADMIN")
+        class BulkUpdateTests {
+
+                @Test
+                @DisplayName("Měl by provést hromadnou změnu a vrátit změněné produkty")
+                void shouldApplyBulkUpdate() throws Exception {
+                        // Given
+                        ProductBulkUpdateRequest request = new ProductBulkUpdateRequest(PRODUCT_CATEGORY, null,
+                                        new BigDecimal("0.9"), null, null, "Podzimní sleva");
+                        ProductBulkUpdateResponse response = new ProductBulkUpdateResponse("batch-1", 1,
+                                        List.of(new ProductChangeResponse(VALID_PRODUCT_ID, PRODUCT_PRICE,
+                                                        new BigDecimal("89.99"), true, true)),
+                                        false);
+                        when(productBulkUpdateService.update(eq(request), eq("admin"))).thenReturn(response);
+
+                        // When & Then
+                        mockMvc.perform(patch(API_PRODUCTS_PATH + "/bulk")
+                                        .with(csrf())
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.batchId").value("batch-1"))
+                                .andExpect(jsonPath("$.affected").value(1))
+                                .andExpect(jsonPath("$.changes[0].newPrice").value(89.99));
+                }
+
+                @Test
+                @DisplayName("Měl by odmítnout neplatný násobitel ceny")
+                void shouldRejectInvalidMultiplier() throws Exception {
+                        // Given
+                        ProductBulkUpdateRequest request = new ProductBulkUpdateRequest(PRODUCT_CATEGORY, null,
+                                        new BigDecimal("0"), null, null, null);
+
+                        // When & Then
+                        mockMvc.perform(patch(API_PRODUCTS_PATH + "/bulk")
+                                        .with(csrf())
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isBadRequest());
+
+                        verifyNoInteractions(productBulkUpdateService);
+                }
+
+                @Test
+                @WithMockUser(roles = "USER")
+                @DisplayName("Měl by odmítnout uživatele bez role ADMIN")
+                void shouldReturnForbidden_ForNonAdmin() throws Exception {
+                        // Given
+                        ProductBulkUpdateRequest request = new ProductBulkUpdateRequest(null, List.of(VALID_PRODUCT_ID),
+                                        null, null, false, null);
+
+                        // When & Then
+                        mockMvc.perform(patch(API_PRODUCTS_PATH + "/bulk")
+                                        .with(csrf())
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isForbidden());
+
+                        verifyNoInteractions(productBulkUpdateService);
+                }
+        }
+
         // ========== Helper Methods ==========
 
+        /**
+         * Vytvoří stav úlohy importu s jednou chybou řádku
+         */
+        private ProductImportStatus createImportStatus(ProductImportStatus.State state) {
+                return new ProductImportStatus("job-1", state, "ndjson", 3, 2, 1,
+                                List.of(new ProductImportStatus.RowError(3, "price: Cena je povinná")), false,
+                                Instant.parse("2026-03-02T10:00:00Z"), null, null);
+        }
+
         /**
          * Vytvoří testovací Product entitu s výchozími hodnotami
          */
@@ -8,6 +8,8 @@ import krematos.mapper.UserMapper;
 import krematos.model.User;
 import krematos.model.enums.Role;
 import krematos.service.JwtService;
+import krematos.security.ratelimit.RateLimitBucketStore;
+import krematos.service.RefreshTokenService;
 import krematos.service.impl.UserDetailsServiceImpl;
 import krematos.service.user.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -58,6 +60,11 @@ class UserControllerTest {
 
     @MockBean
     private JwtService jwtService;
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
+    @MockBean // Mock vrací Duration.ZERO - rate limit v testech propustí všechny požadavky
+    private RateLimitBucketStore rateLimitBucketStore;
 
     @MockBean
     private UserDetailsServiceImpl userDetailsService;
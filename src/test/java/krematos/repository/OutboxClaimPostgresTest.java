@@ -0,0 +1,147 @@
+package krematos.repository;
+
+import krematos.model.AnalyticsOutboxEvent;
+import krematos.model.MailOutboxMessage;
+import krematos.model.enums.MailStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Zabírání dávek outboxů více instancemi ({@code FOR UPDATE SKIP LOCKED}) proti skutečnému PostgreSQL -
+ * spuštění viz {@code OrderPartitionPostgresTest}.
+ */
+@Tag("postgres")
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Každá "instance" má vlastní transakci
+@DisplayName("Outbox claim (PostgreSQL) Tests")
+class OutboxClaimPostgresTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-02T10:00:00Z");
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private AnalyticsOutboxRepository analyticsOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> System.getProperty("postgres.url", "jdbc:postgresql://localhost:5432/estop_test"));
+        registry.add("spring.datasource.username", () -> System.getProperty("postgres.username", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("postgres.password", "postgres"));
+    }
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        mailOutboxRepository.deleteAllInBatch();
+        analyticsOutboxRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Druhá instance by měla přeskočit e-maily zamčené první a zabrat jen zbytek")
+    void shouldSkipMailLockedByAnotherInstance() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            mailOutboxRepository.save(mail(i));
+        }
+
+        // When - první instance drží zámek dvou nejstarších, druhá mezitím zabírá
+        List<Long> second = transactionTemplate.execute(status -> {
+            List<MailOutboxMessage> first = lockDueMail(2);
+            assertThat(first).hasSize(2);
+            return inOtherTransaction(() -> lockDueMail(10).stream().map(MailOutboxMessage::getId).toList());
+        });
+
+        // Then
+        List<Long> ids = mailOutboxRepository.findAll().stream().map(MailOutboxMessage::getId).sorted().toList();
+        assertThat(second).containsExactly(ids.get(2));
+    }
+
+    @Test
+    @DisplayName("Druhá instance by měla přeskočit zamčené události analytiky a smazat jen své")
+    void shouldSkipAnalyticsEventsLockedByAnotherInstance() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            analyticsOutboxRepository.save(purchase(i));
+        }
+
+        // When
+        int[] deleted = transactionTemplate.execute(status -> {
+            List<Long> first = ids(analyticsOutboxRepository.findAllByOrderByIdAsc(Limit.of(2)));
+            int second = inOtherTransaction(() -> analyticsOutboxRepository.deleteByIds(
+                    ids(analyticsOutboxRepository.findAllByOrderByIdAsc(Limit.of(10)))));
+            return new int[]{analyticsOutboxRepository.deleteByIds(first), second};
+        });
+
+        // Then
+        assertThat(deleted).containsExactly(2, 1);
+        assertThat(analyticsOutboxRepository.count()).isZero();
+    }
+
+    // --- Helper Methods ---
+
+    private static List<Long> ids(List<AnalyticsOutboxEvent> events) {
+        return events.stream().map(AnalyticsOutboxEvent::getId).toList();
+    }
+
+    private static AnalyticsOutboxEvent purchase(int i) {
+        return AnalyticsOutboxEvent.builder()
+                .eventType("PURCHASE")
+                .productId(100L + i)
+                .quantity(1)
+                .price(new BigDecimal("10.00"))
+                .occurredAt(NOW)
+                .build();
+    }
+
+    private List<MailOutboxMessage> lockDueMail(int limit) {
+        return mailOutboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                MailStatus.PENDING, NOW, Limit.of(limit));
+    }
+
+    private <T> T inOtherTransaction(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> work.get()))
+                .orTimeout(10, TimeUnit.SECONDS) // Bez SKIP LOCKED by druhá transakce čekala na zámek
+                .join();
+    }
+
+    private static MailOutboxMessage mail(int i) {
+        return MailOutboxMessage.builder()
+                .recipient("user" + i + "@example.com")
+                .subject("Subject " + i)
+                .htmlBody("<p>Body</p>")
+                .status(MailStatus.PENDING)
+                .nextAttemptAt(NOW)
+                .createdAt(NOW)
+                .build();
+    }
+}
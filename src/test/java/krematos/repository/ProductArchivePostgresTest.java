@@ -0,0 +1,120 @@
+package krematos.repository;
+
+import krematos.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Souběžná archivace produktů dvěma instancemi ({@code FOR UPDATE SKIP LOCKED}) proti skutečnému PostgreSQL -
+ * spuštění viz {@code OrderPartitionPostgresTest}.
+ */
+@Tag("postgres")
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductBulkRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Každá "instance" má vlastní transakci
+@DisplayName("Product archive (PostgreSQL) Tests")
+class ProductArchivePostgresTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-01T08:00:00Z");
+    private static final Instant CUTOFF = NOW.minus(Duration.ofDays(365));
+
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> System.getProperty("postgres.url", "jdbc:postgresql://localhost:5432/estop_test"));
+        registry.add("spring.datasource.username", () -> System.getProperty("postgres.username", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("postgres.password", "postgres"));
+    }
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate.update("DELETE FROM archived_product_images");
+        jdbcTemplate.update("DELETE FROM archived_products");
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Souběžně archivující instance by si měly produkty rozdělit bez duplicitního klíče")
+    void shouldSplitArchivableProductsBetweenInstances() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            save("Produkt " + i);
+        }
+
+        // When - první instance drží zámek dvou nejstarších, druhá mezitím archivuje
+        int[] archived = transactionTemplate.execute(status -> {
+            List<Long> first = productBulkRepository.findArchivable(CUTOFF, 2);
+            int second = inOtherTransaction(() -> {
+                List<Long> ids = productBulkRepository.findArchivable(CUTOFF, 10);
+                productBulkRepository.archive(ids, NOW);
+                return ids.size();
+            });
+            productBulkRepository.archive(first, NOW);
+            return new int[]{first.size(), second};
+        });
+
+        // Then
+        assertThat(archived).containsExactly(2, 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM archived_products", Long.class)).isEqualTo(3);
+        assertThat(productRepository.count()).isZero();
+    }
+
+    // --- Helper Methods ---
+
+    private <T> T inOtherTransaction(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> work.get()))
+                .orTimeout(10, TimeUnit.SECONDS) // Bez SKIP LOCKED by druhá transakce čekala na zámek
+                .join();
+    }
+
+    private void save(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setCategory("Elektronika");
+        product.setCurrency("CZK");
+        product.setPrice(new BigDecimal("199.90"));
+        product.setActive(false);
+        product.setDeactivatedAt(NOW.minus(Duration.ofDays(400)));
+        productRepository.saveAndFlush(product);
+    }
+}
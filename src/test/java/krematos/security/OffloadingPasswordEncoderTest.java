@@ -0,0 +1,151 @@
+package krematos.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import krematos.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit testy pro OffloadingPasswordEncoder a PasswordHashCalibrator.
+ */
+@DisplayName("OffloadingPasswordEncoder Tests")
+class OffloadingPasswordEncoderTest {
+
+    private ThreadPoolTaskExecutor executor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("PasswordHash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Měl by hashovat na vyhrazeném vlákně, ne na vlákně požadavku")
+    void shouldHashOnDedicatedThread() {
+        // Given
+        String[] hashingThread = new String[1];
+        PasswordEncoder recording = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                hashingThread[0] = Thread.currentThread().getName();
+                return super.encode(rawPassword);
+            }
+        };
+        OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(recording, executor, Duration.ofSeconds(5), meterRegistry);
+
+        // When
+        String hash = encoder.encode("password123");
+
+        // Then
+        assertThat(encoder.matches("password123", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+        assertThat(hashingThread[0]).startsWith("PasswordHash-");
+        assertThat(meterRegistry.get("password.hashing.duration").tag("operation", "matches").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Měl by okamžitě odmítnout požadavek při plné frontě a započítat ho do metrik")
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        // Given - jediné vlákno je blokované a jediné místo ve frontě obsazené
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+        executor.execute(() -> awaitQuietly(release));
+        OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(
+                new BCryptPasswordEncoder(4), executor, Duration.ofSeconds(5), meterRegistry);
+
+        // When & Then
+        assertThatThrownBy(() -> encoder.encode("password123"))
+                .isInstanceOf(ServiceBusyException.class);
+        assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("password.hashing.queue.size").gauge().value()).isEqualTo(1.0);
+
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Měl by vypršet, pokud hashování čeká déle než časový limit")
+    void shouldTimeoutWhenHashingTakesTooLong() {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+        OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(
+                new BCryptPasswordEncoder(4), executor, Duration.ofMillis(50), meterRegistry);
+
+        // When & Then
+        assertThatThrownBy(() -> encoder.encode("password123"))
+                .isInstanceOf(ServiceBusyException.class);
+        assertThat(meterRegistry.get("password.hashing.timeout").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Kalibrace by měla zvolit nejvyšší cenu pod cílovou latencí")
+    void calibratorShouldPickHighestCostUnderTarget() {
+        // Given - simulovaný encoder, jehož doba roste s cenou (cena 3 = 3 ms)
+        java.util.function.IntFunction<PasswordEncoder> factory = cost -> new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                sleepQuietly(cost);
+                return "hash";
+            }
+        };
+
+        // When
+        int chosen = PasswordHashCalibrator.calibrate("test", factory, 1, 50, Duration.ofMillis(8), 1);
+
+        // Then
+        assertThat(chosen).isBetween(2, 8);
+    }
+
+    @Test
+    @DisplayName("Kalibrace nikdy nesmí jít pod minimální cenu")
+    void calibratorShouldNeverGoBelowMinimum() {
+        // When - cíl je nedosažitelný
+        int chosen = PasswordHashCalibrator.calibrate("test", BCryptPasswordEncoder::new, 4, 6, Duration.ofNanos(1), 1);
+
+        // Then
+        assertThat(chosen).isEqualTo(4);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
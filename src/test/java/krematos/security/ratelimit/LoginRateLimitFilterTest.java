@@ -0,0 +1,242 @@
+package krematos.security.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import krematos.security.ratelimit.RateLimitBucketStore.BucketPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit testy pro LoginRateLimitFilter a InMemoryRateLimitBucketStore.
+ */
+@DisplayName("LoginRateLimitFilter Tests")
+class LoginRateLimitFilterTest {
+
+    private static final String PROXY = "172.28.0.10";
+
+    private final AtomicLong nanoTime = new AtomicLong(1_000_000_000L);
+    private InMemoryRateLimitBucketStore bucketStore;
+    private SimpleMeterRegistry meterRegistry;
+    private LoginRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        bucketStore = new InMemoryRateLimitBucketStore(1000, Duration.ofHours(1), nanoTime::get);
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+
+        filter = new LoginRateLimitFilter(
+                bucketStore,
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                beanFactory.getBeanProvider(MeterRegistry.class),
+                true,
+                List.of(PROXY),
+                3, Duration.ofMinutes(1),  // login: 3 pokusy z jedné IP za minutu
+                2, Duration.ofMinutes(1),  // login: 2 pokusy na jednoho uživatele z jedné IP za minutu
+                5, Duration.ofMinutes(15),
+                1, Duration.ofMinutes(15));
+    }
+
+    @Nested
+    @DisplayName("Token bucket")
+    class BucketTests {
+
+        @Test
+        @DisplayName("Měl by povolit burst do kapacity a pak odmítat")
+        void shouldAllowBurstUpToCapacity() {
+            BucketPolicy policy = new BucketPolicy(3, Duration.ofSeconds(3));
+
+            assertThat(bucketStore.tryConsume("k", policy)).isZero();
+            assertThat(bucketStore.tryConsume("k", policy)).isZero();
+            assertThat(bucketStore.tryConsume("k", policy)).isZero();
+            assertThat(bucketStore.tryConsume("k", policy)).isEqualTo(Duration.ofSeconds(1));
+        }
+
+        @Test
+        @DisplayName("Měl by doplňovat tokeny v čase")
+        void shouldRefillOverTime() {
+            BucketPolicy policy = new BucketPolicy(2, Duration.ofSeconds(2));
+            bucketStore.tryConsume("k", policy);
+            bucketStore.tryConsume("k", policy);
+            assertThat(bucketStore.tryConsume("k", policy)).isPositive();
+
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+            assertThat(bucketStore.tryConsume("k", policy)).isZero();
+            assertThat(bucketStore.tryConsume("k", policy)).isPositive();
+        }
+
+        @Test
+        @DisplayName("Různé klíče mají nezávislé buckety")
+        void shouldKeepKeysIndependent() {
+            BucketPolicy policy = new BucketPolicy(1, Duration.ofMinutes(1));
+
+            assertThat(bucketStore.tryConsume("a", policy)).isZero();
+            assertThat(bucketStore.tryConsume("b", policy)).isZero();
+            assertThat(bucketStore.tryConsume("a", policy)).isPositive();
+        }
+    }
+
+    @Nested
+    @DisplayName("Filtr")
+    class FilterTests {
+
+        @Test
+        @DisplayName("Měl by vrátit 429 s Retry-After po překročení limitu na uživatele")
+        void shouldRejectWhenUsernameLimitExceeded() throws Exception {
+            assertThat(login("10.0.0.1", "alice").getStatus()).isEqualTo(HttpStatus.OK.value());
+            assertThat(login("10.0.0.1", "Alice").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+            MockHttpServletResponse response = login("10.0.0.1", "alice");
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+            assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+            assertThat(response.getContentAsString()).contains("TOO_MANY_REQUESTS");
+            assertThat(meterRegistry.get("auth.ratelimit.rejected")
+                    .tag("endpoint", "login").tag("limit", "user").counter().count()).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("Chybné pokusy z cizí IP by neměly oběti zablokovat přihlášení")
+        void shouldNotLockOutUserFromOtherIp() throws Exception {
+            // Given - útočník vyčerpá limit na jméno oběti
+            login("10.0.0.66", "alice");
+            login("10.0.0.66", "alice");
+            assertThat(login("10.0.0.66", "alice").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+
+            // When
+            MockHttpServletResponse response = login("10.0.0.1", "alice");
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+
+        @Test
+        @DisplayName("Měl by vrátit 429 po překročení limitu na IP adresu")
+        void shouldRejectWhenIpLimitExceeded() throws Exception {
+            login("10.0.0.1", "a");
+            login("10.0.0.1", "b");
+            login("10.0.0.1", "c");
+
+            MockHttpServletResponse response = login("10.0.0.1", "d");
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+            assertThat(meterRegistry.get("auth.ratelimit.rejected")
+                    .tag("endpoint", "login").tag("limit", "ip").counter().count()).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("Za důvěryhodnou proxy by měl rozlišovat klienty podle X-Real-IP")
+        void shouldUseRealIp_WhenRequestComesFromTrustedProxy() throws Exception {
+            // Given - klient 10.0.0.1 vyčerpá svůj limit, vše přichází přes stejnou proxy
+            for (String username : List.of("a", "b", "c")) {
+                assertThat(loginViaProxy(PROXY, "10.0.0.1", username).getStatus()).isEqualTo(HttpStatus.OK.value());
+            }
+
+            // When
+            MockHttpServletResponse blocked = loginViaProxy(PROXY, "10.0.0.1", "d");
+            MockHttpServletResponse otherClient = loginViaProxy(PROXY, "10.0.0.2", "e");
+
+            // Then
+            assertThat(blocked.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+            assertThat(otherClient.getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+
+        @Test
+        @DisplayName("X-Real-IP od nedůvěryhodné adresy by měl ignorovat")
+        void shouldIgnoreRealIp_WhenRequestDoesNotComeFromTrustedProxy() throws Exception {
+            // Given - klient mimo proxy mění hlavičku, aby obešel limit
+            loginViaProxy("10.0.0.9", "10.0.0.1", "a");
+            loginViaProxy("10.0.0.9", "10.0.0.2", "b");
+            loginViaProxy("10.0.0.9", "10.0.0.3", "c");
+
+            // When
+            MockHttpServletResponse response = loginViaProxy("10.0.0.9", "10.0.0.4", "d");
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        }
+
+        @Test
+        @DisplayName("Controller musí dostat nezměněné tělo požadavku")
+        void shouldPassBodyToController() throws Exception {
+            MockHttpServletRequest request = postRequest("/api/auth/login", "10.0.0.1",
+                    "{\"username\":\"alice\",\"password\":\"secret\"}");
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            byte[] forwarded = chain.getRequest().getInputStream().readAllBytes();
+            assertThat(new String(forwarded, StandardCharsets.UTF_8))
+                    .isEqualTo("{\"username\":\"alice\",\"password\":\"secret\"}");
+        }
+
+        @Test
+        @DisplayName("Měl by omezovat i požadavky na reset hesla podle emailu")
+        void shouldLimitForgotPassword() throws Exception {
+            String body = "{\"email\":\"user@example.com\"}";
+            MockHttpServletResponse first = new MockHttpServletResponse();
+            filter.doFilter(postRequest("/api/auth/forgot-password", "10.0.0.1", body), first, new MockFilterChain());
+            MockHttpServletResponse second = new MockHttpServletResponse();
+            filter.doFilter(postRequest("/api/auth/forgot-password", "10.0.0.2", body), second, new MockFilterChain());
+
+            assertThat(first.getStatus()).isEqualTo(HttpStatus.OK.value());
+            assertThat(second.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        }
+
+        @Test
+        @DisplayName("Neomezované endpointy by měl ignorovat")
+        void shouldIgnoreOtherEndpoints() throws Exception {
+            for (int i = 0; i < 10; i++) {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(postRequest("/api/auth/register", "10.0.0.1", "{}"), response, new MockFilterChain());
+                assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+            }
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private MockHttpServletResponse login(String ip, String username) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(postRequest("/api/auth/login", ip,
+                "{\"username\":\"" + username + "\",\"password\":\"secret\"}"), response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletResponse loginViaProxy(String remoteAddr, String realIp, String username) throws Exception {
+        MockHttpServletRequest request = postRequest("/api/auth/login", remoteAddr,
+                "{\"username\":\"" + username + "\",\"password\":\"secret\"}");
+        request.addHeader("X-Real-IP", realIp);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest postRequest(String uri, String ip, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
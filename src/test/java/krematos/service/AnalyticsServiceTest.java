@@ -0,0 +1,83 @@
+package krematos.service;
+
+import krematos.model.nosql.UserEvent;
+import krematos.repository.ProductDailyStatsRepository;
+import krematos.service.analytics.AnalyticsEventIngestor;
+import krematos.service.analytics.AnalyticsEventIngestor.OverflowPolicy;
+import krematos.service.analytics.ProductStatsRollup;
+import krematos.service.analytics.TrendingProductsTracker;
+import krematos.service.analytics.UniqueVisitorTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit testy pro AnalyticsService - logování událostí.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AnalyticsService Tests")
+class AnalyticsServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-02T10:00:00Z");
+
+    @Mock
+    private AnalyticsEventIngestor eventIngestor;
+
+    @Mock
+    private TrendingProductsTracker trendingProductsTracker;
+
+    @Mock
+    private ProductDailyStatsRepository productDailyStatsRepository;
+
+    @Mock
+    private ProductStatsRollup productStatsRollup;
+
+    @Mock
+    private UniqueVisitorTracker uniqueVisitorTracker;
+
+    private AnalyticsService analyticsService;
+
+    @BeforeEach
+    void setUp() {
+        analyticsService = new AnalyticsService(eventIngestor, trendingProductsTracker, productDailyStatsRepository,
+                productStatsRollup, uniqueVisitorTracker, Clock.fixed(NOW, ZoneOffset.UTC), OverflowPolicy.DROP, 366);
+    }
+
+    @Test
+    @DisplayName("Zobrazení by mělo dostat čas z injektovaných hodin")
+    void shouldTimestampViewWithClock() {
+        // When
+        analyticsService.logProductView(7L, 42L);
+
+        // Then
+        ArgumentCaptor<UserEvent> event = ArgumentCaptor.forClass(UserEvent.class);
+        verify(eventIngestor).ingest(event.capture(), eq(OverflowPolicy.DROP));
+        assertThat(event.getValue().getTimestamp()).isEqualTo(NOW);
+        verify(trendingProductsTracker).recordView(42L);
+    }
+
+    @Test
+    @DisplayName("Nákup by měl dostat čas z injektovaných hodin a nezahazovat se")
+    void shouldTimestampPurchaseWithClock() {
+        // When
+        analyticsService.logProductPurchase(7L, 42L, 199.9, 2);
+
+        // Then
+        ArgumentCaptor<UserEvent> event = ArgumentCaptor.forClass(UserEvent.class);
+        verify(eventIngestor).ingest(event.capture(), eq(OverflowPolicy.CALLER_RUNS));
+        assertThat(event.getValue().getTimestamp()).isEqualTo(NOW);
+        assertThat(event.getValue().getQuantity()).isEqualTo(2);
+    }
+}
@@ -243,6 +243,19 @@ class JwtServiceTest {
             assertThat(isValid).isFalse();
         }
 
+        @Test
+        @DisplayName("Měl by odmítnout refresh token použitý jako access token")
+        void shouldRejectRefreshToken_UsedAsAccessToken() {
+            // Given
+            String refreshToken = jwtService.generateRefreshToken(TEST_USERNAME, "family-id", "token-id");
+
+            // When
+            boolean isValid = jwtService.validateToken(refreshToken, TEST_USERNAME);
+
+            // Then
+            assertThat(isValid).isFalse();
+        }
+
         @Test
         @DisplayName("Měl by odmítnout neplatný token")
         void shouldRejectInvalidToken() {
@@ -0,0 +1,163 @@
+package krematos.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import krematos.dto.order.OrderPageResponse;
+import krematos.dto.order.OrderResponse;
+import krematos.mapper.OrderMapper;
+import krematos.mapper.OrderMapperImpl;
+import krematos.repository.OrderRepository;
+import krematos.service.impl.OrderServiceImpl;
+import krematos.service.order.OrderService;
+import krematos.service.order.OrderViewProjector;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latence a počet SQL příkazů historie objednávek: původní načtení všech objednávek uživatele
+ * s líným načítáním při mapování (N+1) proti stránkování nad pohledem objednávek. Cache je v testu vypnutá.
+ * <p>
+ * 100 000 objednávek (1 000 uživatelů po 100 objednávkách, 3 položky na objednávku) v H2;
+ * pohledy vytvoří doplnění po naplnění dat (měří se i jeho doba).
+ * Neběží v běžném buildu; spuštění: {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OrderServiceImpl.class, OrderMapperImpl.class, OrderViewProjector.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Každé volání ve vlastní transakci jako v aplikaci
+@DisplayName("Order history Benchmark")
+class OrderHistoryBenchmarkTest {
+
+    private static final int USERS = 1_000;
+    private static final int ORDERS_PER_USER = 100;
+    private static final int ITERATIONS = 300;
+    private static final int WARMUP = 50;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderViewProjector orderViewProjector;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Latence historie: N+1 proti stránkování nad pohledem objednávek")
+    void compareLegacyAndPagedHistory() {
+        // Given
+        seed();
+        long backfillStart = System.nanoTime();
+        int projected = orderViewProjector.backfill();
+        log.info("Doplnění pohledů objednávek: {} objednávek za {} ms",
+                projected, (System.nanoTime() - backfillStart) / 1_000_000);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // When
+        Result legacy = measure("původní (vše, N+1)", statistics, user -> readOnly.execute(status ->
+                orderRepository.findByUser_Username(user).stream().map(orderMapper::toDto).toList()).size());
+        Result firstPage = measure("první stránka (20)", statistics, user ->
+                orderService.findOrdersByUser(user, null, OrderService.HISTORY_PAGE_SIZE).items().size());
+        Result allPages = measure("všechny stránky (5 x 20)", statistics, user -> {
+            int loaded = 0;
+            Long cursor = null;
+            do {
+                OrderPageResponse page = orderService.findOrdersByUser(user, cursor, OrderService.HISTORY_PAGE_SIZE);
+                loaded += page.items().size();
+                cursor = page.nextCursor();
+            } while (cursor != null);
+            return loaded;
+        });
+
+        // Then
+        assertThat(projected).isEqualTo(USERS * ORDERS_PER_USER);
+        assertThat(legacy.orders).isEqualTo(ORDERS_PER_USER);
+        assertThat(allPages.orders).isEqualTo(ORDERS_PER_USER);
+        assertThat(firstPage.statements).isEqualTo(1);
+        assertThat(allPages.statements).isEqualTo(ORDERS_PER_USER / OrderService.HISTORY_PAGE_SIZE);
+        assertThat(firstPage.p50Micros).isLessThan(legacy.p50Micros);
+    }
+
+    // --- Helper Methods ---
+
+    private Result measure(String name, Statistics statistics, UserQuery query) {
+        long[] micros = new long[ITERATIONS];
+        int orders = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            query.run(username(i));
+        }
+        statistics.clear();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            orders = query.run(username(i * 7));
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        long statements = statistics.getPrepareStatementCount() / ITERATIONS;
+        Arrays.sort(micros);
+        Result result = new Result(orders, statements, micros[ITERATIONS / 2], micros[ITERATIONS * 99 / 100]);
+        log.info("Historie objednávek - {}: {} objednávek, {} SQL příkazů, p50 {} µs, p99 {} µs",
+                name, result.orders, result.statements, result.p50Micros, result.p99Micros);
+        return result;
+    }
+
+    private static String username(int i) {
+        return "user" + (i % USERS + 1);
+    }
+
+    private void seed() {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, created_at) "
+                + "SELECT X, 'user' || X, 'hash', 'user' || X || '@example.com', CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, ?)", USERS);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, roles) SELECT X, 'ROLE_USER' FROM SYSTEM_RANGE(1, ?)", USERS);
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, order_date, total_price) "
+                + "SELECT X, MOD(X, ?) + 1, DATEADD('SECOND', X, TIMESTAMP WITH TIME ZONE '2025-01-01 00:00:00Z'), 299.85 "
+                + "FROM SYSTEM_RANGE(1, ?)", USERS, USERS * ORDERS_PER_USER);
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, order_date, product_id, product_name, quantity, price, total_price) "
+                + "SELECT X, (X - 1) / 3 + 1, DATEADD('SECOND', (X - 1) / 3 + 1, TIMESTAMP WITH TIME ZONE '2025-01-01 00:00:00Z'), "
+                + "MOD(X, 500), 'Produkt ' || MOD(X, 500), 1, 99.95, 99.95 "
+                + "FROM SYSTEM_RANGE(1, ?)", USERS * ORDERS_PER_USER * 3);
+    }
+
+    @FunctionalInterface
+    private interface UserQuery {
+        int run(String username);
+    }
+
+    private record Result(int orders, long statements, long p50Micros, long p99Micros) {
+    }
+}
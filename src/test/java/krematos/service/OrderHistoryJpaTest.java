@@ -0,0 +1,356 @@
+package krematos.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import krematos.dto.order.CreateOrderRequest;
+import krematos.dto.order.OrderItemRequest;
+import krematos.dto.order.OrderPageResponse;
+import krematos.dto.order.OrderResponse;
+import krematos.dto.order.OrderSearchCriteria;
+import krematos.mapper.OrderMapperImpl;
+import krematos.model.Order;
+import krematos.model.OrderItem;
+import krematos.model.Product;
+import krematos.model.User;
+import krematos.service.impl.OrderServiceImpl;
+import krematos.repository.OrderViewRepository;
+import krematos.service.order.OrderService;
+import krematos.service.order.OrderViewProjector;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Historie objednávek proti H2 - počet SQL příkazů na stránku, pohled objednávek a cache historie po uživatelích.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureCache(cacheProvider = CacheType.SIMPLE) // @DataJpaTest jinak cache vypíná
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OrderServiceImpl.class, OrderMapperImpl.class, OrderViewProjector.class})
+@DisplayName("Order history (JPA) Tests")
+class OrderHistoryJpaTest {
+
+    /**
+     * Stránka historie z pohledu objednávek - jeden dotaz, položky jsou v řádku.
+     */
+    private static final long STATEMENTS_PER_HISTORY_PAGE = 1;
+
+    /**
+     * Administrace nad zápisovým modelem: ID stránky + objednávky s uživatelem a položkami (fetch join)
+     * + role uživatelů (EAGER, po dávkách).
+     */
+    private static final long STATEMENTS_PER_ADMIN_PAGE = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private OrderViewProjector orderViewProjector;
+
+    @Autowired
+    private OrderViewRepository orderViewRepository;
+
+    private User karel;
+    private User eva;
+    private Product phone;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        karel = entityManager.persist(user("karel"));
+        eva = entityManager.persist(user("eva"));
+        phone = entityManager.persist(product("Telefon", "1000.00"));
+        for (int i = 0; i < 30; i++) {
+            entityManager.persist(order(karel, Instant.parse("2026-01-01T00:00:00Z").plusSeconds(i), 3));
+        }
+        entityManager.persist(order(eva, Instant.parse("2026-01-02T00:00:00Z"), 2));
+        entityManager.flush();
+        orderViewProjector.backfill(); // Objednávky vložené mimo createOrder pohled nemají
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        cacheManager.getCache("ordersByUser").clear();
+    }
+
+    @Nested
+    @DisplayName("Počet SQL příkazů")
+    class StatementCountTests {
+
+        @Test
+        @DisplayName("Stránka historie by měla být jediný dotaz bez ohledu na počet objednávek a položek")
+        void shouldLoadPageWithSingleStatement() {
+            // When
+            OrderPageResponse page = orderService.findOrdersByUser("karel", null, 20);
+
+            // Then - položky jsou v pohledu předem serializované, nic se nedotahuje
+            assertThat(page.items()).hasSize(20);
+            assertThat(page.items()).allSatisfy(order -> {
+                assertThat(order.username()).isEqualTo("karel");
+                assertThat(order.totalPrice()).isEqualByComparingTo("3000.00");
+                assertThat(order.items()).hasSize(3)
+                        .allSatisfy(item -> assertThat(item.productName()).isEqualTo("Telefon"));
+            });
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(STATEMENTS_PER_HISTORY_PAGE);
+        }
+
+        @Test
+        @DisplayName("Administrátorská stránka s objednávkami více uživatelů by měla mít stejný počet příkazů")
+        void shouldLoadAdminPageWithConstantStatements() {
+            // When
+            OrderPageResponse page = orderService.findOrders(OrderSearchCriteria.none(), null, 50);
+
+            // Then
+            assertThat(page.items()).extracting(OrderResponse::username).contains("karel", "eva");
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(STATEMENTS_PER_ADMIN_PAGE);
+        }
+
+        @Test
+        @DisplayName("Administrátorská stránka by měla obsahovat i objednávku bez položek a úplné položky ostatních")
+        void shouldIncludeOrderWithoutItemsOnAdminPage() {
+            // Given
+            Order empty = entityManager.persist(Order.builder().user(eva)
+                    .orderDate(Instant.parse("2026-01-03T00:00:00Z")).totalPrice(BigDecimal.ZERO).build());
+            entityManager.flush();
+            entityManager.clear();
+
+            // When
+            OrderPageResponse page = orderService.findOrders(OrderSearchCriteria.none(), null, 50);
+
+            // Then
+            assertThat(page.items()).hasSize(32);
+            assertThat(page.items()).filteredOn(order -> order.id().equals(empty.getId()))
+                    .singleElement().satisfies(order -> assertThat(order.items()).isEmpty());
+            assertThat(page.items()).filteredOn(order -> order.username().equals("karel"))
+                    .allSatisfy(order -> assertThat(order.items()).hasSize(3));
+        }
+
+        @Test
+        @DisplayName("Další stránka podle kurzoru by měla navázat bez překryvu")
+        void shouldContinueFromCursor() {
+            // Given
+            OrderPageResponse first = orderService.findOrdersByUser("karel", null, 20);
+            entityManager.clear(); // Každý požadavek má vlastní persistence context
+            statistics.clear();
+
+            // When
+            OrderPageResponse second = orderService.findOrdersByUser("karel", first.nextCursor(), 20);
+
+            // Then - navíc jen dohledání data kurzoru
+            assertThat(second.items()).hasSize(10);
+            assertThat(second.nextCursor()).isNull();
+            assertThat(second.items()).extracting(OrderResponse::id)
+                    .allMatch(id -> id < first.nextCursor())
+                    .isSortedAccordingTo((a, b) -> Long.compare(b, a));
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(STATEMENTS_PER_HISTORY_PAGE + 1);
+        }
+
+        @Test
+        @DisplayName("Pořadí by mělo určovat datum objednávky, ne ID z pooled sekvence")
+        void shouldOrderByDateRegardlessOfId() {
+            // Given - vyšší ID (jiná instance si vzala pozdější blok sekvence), ale starší datum
+            Order older = entityManager.persist(order(karel, Instant.parse("2025-12-31T00:00:00Z"), 1));
+            entityManager.flush();
+            orderViewProjector.backfill();
+            entityManager.flush();
+            entityManager.clear();
+
+            // When
+            OrderPageResponse history = orderService.findOrdersByUser("karel", null, 20);
+            OrderPageResponse lastHistory = orderService.findOrdersByUser("karel", history.nextCursor(), 20);
+            OrderPageResponse admin = orderService.findOrders(OrderSearchCriteria.none(), null, 50);
+
+            // Then
+            assertThat(history.items()).extracting(OrderResponse::createdAt)
+                    .isSortedAccordingTo(Comparator.reverseOrder());
+            assertThat(lastHistory.items()).last().extracting(OrderResponse::id).isEqualTo(older.getId());
+            assertThat(admin.items()).extracting(OrderResponse::createdAt)
+                    .isSortedAccordingTo(Comparator.reverseOrder());
+            assertThat(admin.items()).last().extracting(OrderResponse::id).isEqualTo(older.getId());
+        }
+
+        @Test
+        @DisplayName("Detail objednávky by měl být jediný dotaz")
+        void shouldLoadDetailWithSingleStatement() {
+            // Given
+            Long orderId = orderService.findOrdersByUser("eva", null, 20).items().get(0).id();
+            entityManager.clear();
+            statistics.clear();
+
+            // When
+            OrderResponse detail = orderService.findOrderById(orderId).orElseThrow();
+
+            // Then
+            assertThat(detail.username()).isEqualTo("eva");
+            assertThat(detail.items()).hasSize(2);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Pohled objednávek")
+    class ReadModelTests {
+
+        @Test
+        @DisplayName("Nová objednávka by měla mít pohled hned po vytvoření")
+        void shouldProjectNewOrder() {
+            // When
+            Order order = orderService.createOrder(new CreateOrderRequest(eva.getId(),
+                    List.of(new OrderItemRequest(phone.getId(), 2))), eva);
+            entityManager.flush();
+            entityManager.clear();
+
+            // Then
+            OrderResponse detail = orderService.findOrderById(order.getId()).orElseThrow();
+            assertThat(detail.totalPrice()).isEqualByComparingTo("2000.00");
+            assertThat(detail.items()).singleElement().satisfies(item -> {
+                assertThat(item.quantity()).isEqualTo(2);
+                assertThat(item.totalPrice()).isEqualByComparingTo("2000.00");
+            });
+        }
+
+        @Test
+        @DisplayName("Doplnění by mělo vytvořit jen chybějící pohledy a být opakovatelné")
+        void shouldBackfillOnlyMissingViews() {
+            // Given
+            Long orderId = orderService.findOrdersByUser("eva", null, 20).items().get(0).id();
+            orderViewRepository.deleteById(orderId);
+            entityManager.flush();
+
+            // When
+            int first = orderViewProjector.backfill();
+            int second = orderViewProjector.backfill();
+
+            // Then
+            assertThat(first).isEqualTo(1);
+            assertThat(second).isZero();
+            assertThat(orderViewRepository.count()).isEqualTo(31);
+        }
+
+        @Test
+        @DisplayName("Vlastníkem objednávky by měl být jen uživatel, který ji vytvořil")
+        void shouldCheckOwnership() {
+            // Given
+            Long orderId = orderService.findOrdersByUser("eva", null, 20).items().get(0).id();
+
+            // When & Then
+            assertThat(orderService.isOwner(orderId, "eva")).isTrue();
+            assertThat(orderService.isOwner(orderId, "karel")).isFalse();
+            assertThat(orderService.isOwner(-1L, "eva")).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Cache historie")
+    class CacheTests {
+
+        @Test
+        @DisplayName("Opakované načtení první stránky by mělo jít z cache bez SQL")
+        void shouldServeFirstPageFromCache() {
+            // Given
+            orderService.findOrdersByUser("karel", null, OrderService.HISTORY_PAGE_SIZE);
+            statistics.clear();
+
+            // When
+            OrderPageResponse cached = orderService.findOrdersByUser("karel", null, OrderService.HISTORY_PAGE_SIZE);
+
+            // Then
+            assertThat(cached.items()).hasSize(OrderService.HISTORY_PAGE_SIZE);
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Další stránky ani jiné velikosti stránky by se neměly cachovat")
+        void shouldNotCacheOtherPages() {
+            // When
+            OrderPageResponse first = orderService.findOrdersByUser("karel", null, 5);
+            orderService.findOrdersByUser("karel", first.nextCursor(), OrderService.HISTORY_PAGE_SIZE);
+
+            // Then
+            assertThat(historyCache().get("karel")).isNull();
+        }
+
+        @Test
+        @DisplayName("Nová objednávka by měla vyprázdnit jen historii objednávajícího uživatele")
+        void shouldEvictOnlyOrderingUser() {
+            // Given
+            orderService.findOrdersByUser("karel", null, OrderService.HISTORY_PAGE_SIZE);
+            orderService.findOrdersByUser("eva", null, OrderService.HISTORY_PAGE_SIZE);
+
+            // When
+            orderService.createOrder(new CreateOrderRequest(eva.getId(),
+                    List.of(new OrderItemRequest(phone.getId(), 1))), eva);
+
+            // Then
+            assertThat(historyCache().get("eva")).isNull();
+            assertThat(historyCache().get("karel")).isNotNull();
+            assertThat(orderService.findOrdersByUser("eva", null, OrderService.HISTORY_PAGE_SIZE).items()).hasSize(2);
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private Cache historyCache() {
+        return cacheManager.getCache("ordersByUser");
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password-hash");
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+
+    private static Product product(String name, String price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setCategory("Elektronika");
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+
+    private Order order(User user, Instant orderDate, int items) {
+        Order order = Order.builder().user(user).orderDate(orderDate).build();
+        for (int i = 0; i < items; i++) {
+            order.addOrderItem(OrderItem.builder()
+                    .productId(phone.getId())
+                    .productName(phone.getName())
+                    .quantity(1)
+                    .price(phone.getPrice())
+                    .totalPrice(phone.getPrice())
+                    .build());
+        }
+        return order;
+    }
+}
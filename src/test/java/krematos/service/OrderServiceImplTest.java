@@ -2,21 +2,33 @@ package krematos.service;
 
 import krematos.dto.order.CreateOrderRequest;
 import krematos.dto.order.OrderItemRequest;
+import krematos.dto.order.OrderPageResponse;
 import krematos.dto.order.OrderResponse;
+import krematos.dto.order.OrderKey;
+import krematos.dto.order.OrderSearchCriteria;
+import krematos.event.OrderCreatedEvent;
 import krematos.mapper.OrderMapper;
+import krematos.model.AnalyticsOutboxEvent;
 import krematos.model.Order;
 import krematos.model.OrderItem;
+import krematos.model.OrderView;
 import krematos.model.Product;
 import krematos.model.User;
+import krematos.repository.AnalyticsOutboxRepository;
 import krematos.repository.OrderRepository;
+import krematos.repository.OrderViewRepository;
 import krematos.repository.ProductRepository;
 import krematos.service.impl.OrderServiceImpl;
+import krematos.service.order.OrderViewProjector;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
@@ -36,7 +48,7 @@ import static org.mockito.Mockito.*;
  * Pokrývají:
  *  - createOrder (úspěch, filtrace nevalidních položek, null user, prázdný košík,
  *                 produkt nenalezen, všechny položky jsou nevalidní)
- *  - findOrdersByUser / findAllOrders / findOrderById
+ *  - findOrdersByUser / findOrderById / isOwner (z pohledu objednávek), findOrders (stránkování, filtry)
  *  - pomocné metody Order entity (addOrderItem, removeOrderItem, recalculateTotalPrice)
  *
  * POZNÁMKY k věcem, které by měly být dodělány ve službě:
@@ -64,6 +76,18 @@ class OrderServiceImplTest {
     @Mock
     private OrderMapper orderMapper;
 
+    @Mock
+    private AnalyticsOutboxRepository analyticsOutboxRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OrderViewRepository orderViewRepository;
+
+    @Mock
+    private OrderViewProjector orderViewProjector;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -115,6 +139,11 @@ class OrderServiceImplTest {
         return new CreateOrderRequest(USER_ID, List.of(items));
     }
 
+    /** Vytvoří pohled objednávky uživatele testUser. */
+    private OrderView buildOrderView(long id) {
+        return OrderView.builder().orderId(id).userId(USER_ID).username("testUser").itemsJson("[]").build();
+    }
+
     /** Vytvoří jednoduchý OrderResponse DTO. */
     private OrderResponse buildOrderResponse(long id, String username, BigDecimal total) {
         return new OrderResponse(id, username, Collections.emptyList(), total, "CREATED", Instant.now());
@@ -218,6 +247,70 @@ class OrderServiceImplTest {
             assertThat(result.getOrderDate()).isAfterOrEqualTo(before);
         }
 
+        @Test
+        @DisplayName("Za každou položku zapíše nákupní událost do outboxu")
+        @SuppressWarnings("unchecked")
+        void shouldWritePurchaseEventsToOutbox() {
+            // Given
+            when(productRepository.findById(PRODUCT_ID_A)).thenReturn(Optional.of(phone));
+            when(productRepository.findById(PRODUCT_ID_B)).thenReturn(Optional.of(laptop));
+            when(orderRepository.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // When
+            Order result = orderService.createOrder(multiItemRequest(
+                    new OrderItemRequest(PRODUCT_ID_A, 2),
+                    new OrderItemRequest(PRODUCT_ID_B, 1)), user);
+
+            // Then
+            ArgumentCaptor<List<AnalyticsOutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+            verify(analyticsOutboxRepository).saveAll(captor.capture());
+            assertThat(captor.getValue())
+                    .extracting(AnalyticsOutboxEvent::getProductId, AnalyticsOutboxEvent::getQuantity,
+                            AnalyticsOutboxEvent::getUserId, AnalyticsOutboxEvent::getOccurredAt)
+                    .containsExactly(
+                            tuple(PRODUCT_ID_A, 2, USER_ID, result.getOrderDate()),
+                            tuple(PRODUCT_ID_B, 1, USER_ID, result.getOrderDate()));
+            assertThat(captor.getValue()).allSatisfy(event -> assertThat(event.getEventType()).isEqualTo("PURCHASE"));
+        }
+
+        @Test
+        @DisplayName("Uloží pohled uložené objednávky pro historii a detail")
+        void shouldSaveOrderView() {
+            // Given
+            OrderView view = buildOrderView(ORDER_ID);
+            when(productRepository.findById(PRODUCT_ID_A)).thenReturn(Optional.of(phone));
+            when(orderRepository.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(orderViewProjector.project(any(Order.class))).thenReturn(view);
+
+            // When
+            Order result = orderService.createOrder(singleItemRequest(PRODUCT_ID_A, 1), user);
+
+            // Then
+            verify(orderViewProjector).project(result);
+            verify(orderViewRepository).save(view);
+        }
+
+        @Test
+        @DisplayName("Publikuje událost s produkty objednávky pro doporučení")
+        void shouldPublishOrderCreatedEvent() {
+            // Given
+            when(productRepository.findById(PRODUCT_ID_A)).thenReturn(Optional.of(phone));
+            when(productRepository.findById(PRODUCT_ID_B)).thenReturn(Optional.of(laptop));
+            when(orderRepository.save(any(Order.class))).thenAnswer(inv -> {
+                Order order = inv.getArgument(0);
+                order.setId(ORDER_ID);
+                return order;
+            });
+
+            // When
+            orderService.createOrder(multiItemRequest(
+                    new OrderItemRequest(PRODUCT_ID_A, 1),
+                    new OrderItemRequest(PRODUCT_ID_B, 1)), user);
+
+            // Then
+            verify(eventPublisher).publishEvent(new OrderCreatedEvent(ORDER_ID, List.of(PRODUCT_ID_A, PRODUCT_ID_B)));
+        }
+
         @Test
         @DisplayName("Položka s množstvím 1 prochází validací")
         void shouldAcceptQuantityOfOne() {
@@ -357,6 +450,22 @@ class OrderServiceImplTest {
             verify(orderRepository, never()).save(any());
         }
 
+        @Test
+        @DisplayName("Produkt je smazaný (neaktivní) → IllegalArgumentException")
+        void shouldThrow_WhenProductIsInactive() {
+            // Given
+            phone.setActive(false);
+            when(productRepository.findById(PRODUCT_ID_A)).thenReturn(Optional.of(phone));
+            CreateOrderRequest request = singleItemRequest(PRODUCT_ID_A, 1);
+
+            // When & Then
+            assertThatThrownBy(() -> orderService.createOrder(request, user))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining(String.valueOf(PRODUCT_ID_A));
+
+            verify(orderRepository, never()).save(any());
+        }
+
         @Test
         @DisplayName("Všechny položky mají neplatné množství → IllegalArgumentException (žádné platné položky)")
         void shouldThrow_WhenAllItemsHaveInvalidQuantity() {
@@ -384,102 +493,184 @@ class OrderServiceImplTest {
     class FindOrdersByUserTests {
 
         @Test
-        @DisplayName("Vrátí seznam DTO pro existující uživatele")
+        @DisplayName("Vrátí stránku DTO z pohledu objednávek pro existujícího uživatele")
         void shouldReturnMappedOrders_WhenUserHasOrders() {
             // Given
-            Order order = Order.builder().id(ORDER_ID).user(user).totalPrice(BigDecimal.valueOf(20_000)).build();
+            OrderView view = buildOrderView(ORDER_ID);
             OrderResponse dto = buildOrderResponse(ORDER_ID, "testUser", BigDecimal.valueOf(20_000));
 
-            when(orderRepository.findByUser_Username("testUser")).thenReturn(List.of(order));
-            when(orderMapper.toDto(order)).thenReturn(dto);
+            when(orderViewRepository.findHistory("testUser", null, null, Limit.of(21))).thenReturn(List.of(view));
+            when(orderViewProjector.toResponse(view)).thenReturn(dto);
 
             // When
-            List<OrderResponse> result = orderService.findOrdersByUser("testUser");
+            OrderPageResponse result = orderService.findOrdersByUser("testUser", null, 20);
 
             // Then
-            assertThat(result).hasSize(1);
-            assertThat(result.get(0).id()).isEqualTo(ORDER_ID);
-            assertThat(result.get(0).username()).isEqualTo("testUser");
-            assertThat(result.get(0).totalPrice()).isEqualByComparingTo(BigDecimal.valueOf(20_000));
+            assertThat(result.items()).hasSize(1);
+            assertThat(result.items().get(0).id()).isEqualTo(ORDER_ID);
+            assertThat(result.items().get(0).username()).isEqualTo("testUser");
+            assertThat(result.items().get(0).totalPrice()).isEqualByComparingTo(BigDecimal.valueOf(20_000));
+            assertThat(result.nextCursor()).isNull();
 
-            verify(orderRepository, times(1)).findByUser_Username("testUser");
-            verify(orderMapper, times(1)).toDto(order);
+            verifyNoInteractions(orderRepository, orderMapper);
         }
 
         @Test
-        @DisplayName("Vrátí prázdný seznam, když uživatel nemá žádné objednávky")
+        @DisplayName("Vrátí prázdnou stránku, když uživatel nemá žádné objednávky")
         void shouldReturnEmptyList_WhenUserHasNoOrders() {
             // Given
-            when(orderRepository.findByUser_Username("newUser")).thenReturn(Collections.emptyList());
+            when(orderViewRepository.findHistory("newUser", null, null, Limit.of(21))).thenReturn(Collections.emptyList());
 
             // When
-            List<OrderResponse> result = orderService.findOrdersByUser("newUser");
+            OrderPageResponse result = orderService.findOrdersByUser("newUser", null, 20);
 
             // Then
-            assertThat(result).isEmpty();
-            verify(orderMapper, never()).toDto(any());
+            assertThat(result.items()).isEmpty();
+            assertThat(result.nextCursor()).isNull();
+            verify(orderViewProjector, never()).toResponse(any());
         }
 
         @Test
-        @DisplayName("Vrátí všechny objednávky uživatele (více objednávek)")
-        void shouldReturnAllOrders_ForUser() {
+        @DisplayName("Vrátí kurzor, když má uživatel další stránku")
+        void shouldReturnCursor_WhenMoreOrdersExist() {
             // Given
-            Order order1 = Order.builder().id(1L).user(user).totalPrice(BigDecimal.valueOf(20_000)).build();
-            Order order2 = Order.builder().id(2L).user(user).totalPrice(BigDecimal.valueOf(50_000)).build();
-            OrderResponse dto1 = buildOrderResponse(1L, "testUser", BigDecimal.valueOf(20_000));
-            OrderResponse dto2 = buildOrderResponse(2L, "testUser", BigDecimal.valueOf(50_000));
-
-            when(orderRepository.findByUser_Username("testUser")).thenReturn(List.of(order1, order2));
-            when(orderMapper.toDto(order1)).thenReturn(dto1);
-            when(orderMapper.toDto(order2)).thenReturn(dto2);
+            OrderView view3 = buildOrderView(3L);
+            OrderView view2 = buildOrderView(2L);
+            OrderView view1 = buildOrderView(1L);
+            Instant cursorCreatedAt = Instant.parse("2026-03-02T10:00:00Z");
+            when(orderViewRepository.findCreatedAtByOrderId(4L)).thenReturn(Optional.of(cursorCreatedAt));
+            when(orderViewRepository.findHistory("testUser", cursorCreatedAt, 4L, Limit.of(3)))
+                    .thenReturn(List.of(view3, view2, view1));
+            when(orderViewProjector.toResponse(view3)).thenReturn(buildOrderResponse(3L, "testUser", BigDecimal.valueOf(20_000)));
+            when(orderViewProjector.toResponse(view2)).thenReturn(buildOrderResponse(2L, "testUser", BigDecimal.valueOf(50_000)));
 
             // When
-            List<OrderResponse> result = orderService.findOrdersByUser("testUser");
+            OrderPageResponse result = orderService.findOrdersByUser("testUser", 4L, 2);
 
-            // Then
-            assertThat(result).hasSize(2);
+            // Then - řádek navíc jen signalizuje další stránku, nemapuje se
+            assertThat(result.items()).extracting(OrderResponse::id).containsExactly(3L, 2L);
+            assertThat(result.nextCursor()).isEqualTo(2L);
+            verify(orderViewProjector, never()).toResponse(view1);
+        }
+
+        @Test
+        @DisplayName("Odmítne kurzor neexistující objednávky")
+        void shouldRejectUnknownCursor() {
+            // Given
+            when(orderViewRepository.findCreatedAtByOrderId(99L)).thenReturn(Optional.empty());
+
+            // When / Then
+            assertThatThrownBy(() -> orderService.findOrdersByUser("testUser", 99L, 20))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("99");
+            verify(orderViewRepository, never()).findHistory(any(), any(), any(), any());
         }
     }
 
     // ─────────────────────────────────────────────────────────────────────────
-    //  findAllOrders
+    //  findOrders
     // ─────────────────────────────────────────────────────────────────────────
 
     @Nested
-    @DisplayName("findAllOrders Tests")
-    class FindAllOrdersTests {
+    @DisplayName("findOrders Tests")
+    class FindOrdersTests {
+
+        private final OrderSearchCriteria noFilter = new OrderSearchCriteria(null, null, null, null, null);
+
+        @Test
+        @DisplayName("Vrátí stránku objednávek a kurzor na další stránku")
+        void shouldReturnPageWithNextCursor() {
+            // Given - o jedno ID víc, než je velikost stránky => existuje další stránka
+            Order first = Order.builder().id(12L).user(user).totalPrice(BigDecimal.TEN).build();
+            Order second = Order.builder().id(11L).user(user).totalPrice(BigDecimal.ONE).build();
+            Instant newer = Instant.parse("2026-03-02T10:00:00Z");
+            Instant older = Instant.parse("2026-02-27T10:00:00Z");
+            when(orderRepository.findPageKeys(null, null, OrderSearchCriteria.MIN_ORDER_DATE,
+                    OrderSearchCriteria.MAX_ORDER_DATE, null, null, null, Limit.of(3)))
+                    .thenReturn(List.of(new OrderKey(12L, newer), new OrderKey(11L, older),
+                            new OrderKey(10L, Instant.parse("2026-01-01T00:00:00Z"))));
+            // Rozsah dat jen ze stránky (bez objednávky navíc) - načtou se jen její partice
+            when(orderRepository.findPageWithItems(List.of(12L, 11L), older, newer)).thenReturn(List.of(first, second));
+            when(orderMapper.toDto(first)).thenReturn(buildOrderResponse(12L, "testUser", BigDecimal.TEN));
+            when(orderMapper.toDto(second)).thenReturn(buildOrderResponse(11L, "testUser", BigDecimal.ONE));
+
+            // When
+            OrderPageResponse page = orderService.findOrders(noFilter, null, 2);
+
+            // Then
+            assertThat(page.items()).extracting(OrderResponse::id).containsExactly(12L, 11L);
+            assertThat(page.nextCursor()).isEqualTo(11L);
+            verify(orderRepository, never()).findAll();
+        }
 
         @Test
-        @DisplayName("Vrátí všechny objednávky namapované na DTO")
-        void shouldReturnAllOrders() {
+        @DisplayName("Na poslední stránce nevrátí kurzor a předá filtry do dotazu")
+        void shouldPassFiltersAndReturnNoCursorOnLastPage() {
             // Given
-            Order order = Order.builder().id(ORDER_ID).user(user).totalPrice(BigDecimal.valueOf(30_000)).build();
-            OrderResponse dto = buildOrderResponse(ORDER_ID, "testUser", BigDecimal.valueOf(30_000));
+            Instant from = Instant.parse("2026-01-01T00:00:00Z");
+            Instant to = Instant.parse("2026-02-01T00:00:00Z");
+            OrderSearchCriteria criteria = new OrderSearchCriteria(from, to, USER_ID, BigDecimal.ONE, BigDecimal.TEN);
+            Order order = Order.builder().id(5L).user(user).totalPrice(BigDecimal.TEN).build();
+            Instant orderDate = Instant.parse("2026-01-15T08:00:00Z");
+            Instant cursorDate = Instant.parse("2026-01-20T08:00:00Z");
+            when(orderRepository.findOrderDateById(9L)).thenReturn(Optional.of(cursorDate));
+            when(orderRepository.findPageKeys(cursorDate, 9L, from, to, USER_ID, BigDecimal.ONE, BigDecimal.TEN, Limit.of(51)))
+                    .thenReturn(List.of(new OrderKey(5L, orderDate)));
+            when(orderRepository.findPageWithItems(List.of(5L), orderDate, orderDate)).thenReturn(List.of(order));
+            when(orderMapper.toDto(order)).thenReturn(buildOrderResponse(5L, "testUser", BigDecimal.TEN));
 
-            when(orderRepository.findAll()).thenReturn(List.of(order));
-            when(orderMapper.toDto(order)).thenReturn(dto);
+            // When
+            OrderPageResponse page = orderService.findOrders(criteria, 9L, 50);
+
+            // Then
+            assertThat(page.items()).hasSize(1);
+            assertThat(page.nextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Prázdný výsledek nenačítá objednávky")
+        void shouldReturnEmptyPage_WhenNoOrders() {
+            // Given
+            when(orderRepository.findPageKeys(any(), any(), any(), any(), any(), any(), any(), any()))
+                    .thenReturn(Collections.emptyList());
 
             // When
-            List<OrderResponse> result = orderService.findAllOrders();
+            OrderPageResponse page = orderService.findOrders(noFilter, null, 20);
 
             // Then
-            assertThat(result).hasSize(1);
-            assertThat(result.get(0).id()).isEqualTo(ORDER_ID);
-            verify(orderRepository, times(1)).findAll();
+            assertThat(page.items()).isEmpty();
+            assertThat(page.nextCursor()).isNull();
+            verify(orderRepository, never()).findPageWithItems(any(), any(), any());
         }
 
         @Test
-        @DisplayName("Vrátí prázdný seznam, když nejsou žádné objednávky")
-        void shouldReturnEmptyList_WhenNoOrders() {
+        @DisplayName("Velikost stránky je shora omezená")
+        void shouldCapPageSize() {
             // Given
-            when(orderRepository.findAll()).thenReturn(Collections.emptyList());
+            when(orderRepository.findPageKeys(any(), any(), any(), any(), any(), any(), any(), any()))
+                    .thenReturn(Collections.emptyList());
 
             // When
-            List<OrderResponse> result = orderService.findAllOrders();
+            orderService.findOrders(noFilter, null, 10_000);
 
             // Then
-            assertThat(result).isEmpty();
-            verify(orderMapper, never()).toDto(any());
+            verify(orderRepository).findPageKeys(null, null, OrderSearchCriteria.MIN_ORDER_DATE,
+                    OrderSearchCriteria.MAX_ORDER_DATE, null, null, null, Limit.of(101));
+        }
+
+        @Test
+        @DisplayName("Odmítne neplatné filtry a velikost stránky")
+        void shouldRejectInvalidCriteria() {
+            Instant now = Instant.parse("2026-01-01T00:00:00Z");
+            assertThatThrownBy(() -> orderService.findOrders(
+                    new OrderSearchCriteria(now, now, null, null, null), null, 10))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> orderService.findOrders(
+                    new OrderSearchCriteria(null, null, null, BigDecimal.TEN, BigDecimal.ONE), null, 10))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> orderService.findOrders(noFilter, null, 0))
+                    .isInstanceOf(IllegalArgumentException.class);
+            verifyNoInteractions(orderRepository);
         }
     }
 
@@ -492,14 +683,14 @@ class OrderServiceImplTest {
     class FindOrderByIdTests {
 
         @Test
-        @DisplayName("Vrátí Optional<OrderResponse>, když objednávka existuje")
+        @DisplayName("Vrátí Optional<OrderResponse> z pohledu, když objednávka existuje")
         void shouldReturnOrder_WhenOrderExists() {
             // Given
-            Order order = Order.builder().id(ORDER_ID).user(user).totalPrice(BigDecimal.valueOf(20_000)).build();
+            OrderView view = buildOrderView(ORDER_ID);
             OrderResponse dto = buildOrderResponse(ORDER_ID, "testUser", BigDecimal.valueOf(20_000));
 
-            when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(order));
-            when(orderMapper.toDto(order)).thenReturn(dto);
+            when(orderViewRepository.findById(ORDER_ID)).thenReturn(Optional.of(view));
+            when(orderViewProjector.toResponse(view)).thenReturn(dto);
 
             // When
             Optional<OrderResponse> result = orderService.findOrderById(ORDER_ID);
@@ -507,21 +698,42 @@ class OrderServiceImplTest {
             // Then
             assertThat(result).isPresent();
             assertThat(result.get().id()).isEqualTo(ORDER_ID);
-            verify(orderRepository, times(1)).findById(ORDER_ID);
+            verifyNoInteractions(orderRepository);
         }
 
         @Test
         @DisplayName("Vrátí prázdný Optional, když objednávka neexistuje")
         void shouldReturnEmpty_WhenOrderDoesNotExist() {
             // Given
-            when(orderRepository.findById(999L)).thenReturn(Optional.empty());
+            when(orderViewRepository.findById(999L)).thenReturn(Optional.empty());
 
             // When
             Optional<OrderResponse> result = orderService.findOrderById(999L);
 
             // Then
             assertThat(result).isEmpty();
-            verify(orderMapper, never()).toDto(any());
+            verify(orderViewProjector, never()).toResponse(any());
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    //  isOwner
+    // ─────────────────────────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("isOwner Tests")
+    class IsOwnerTests {
+
+        @Test
+        @DisplayName("Vrátí true jen pro vlastníka objednávky")
+        void shouldCheckOwnershipInView() {
+            // Given
+            when(orderViewRepository.existsByOrderIdAndUsername(ORDER_ID, "testUser")).thenReturn(true);
+            when(orderViewRepository.existsByOrderIdAndUsername(ORDER_ID, "otherUser")).thenReturn(false);
+
+            // When & Then
+            assertThat(orderService.isOwner(ORDER_ID, "testUser")).isTrue();
+            assertThat(orderService.isOwner(ORDER_ID, "otherUser")).isFalse();
         }
     }
 
@@ -16,6 +16,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Optional;
@@ -42,6 +43,9 @@ class PasswordResetServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private Clock clock;
+
     @InjectMocks
     private PasswordResetService passwordResetService;
 
@@ -49,6 +53,7 @@ class PasswordResetServiceTest {
     private static final String TEST_TOKEN = "test-token-123";
     private static final String NEW_PASSWORD = "newPassword123";
     private static final String ENCODED_PASSWORD = "encodedPassword123";
+    private static final Instant NOW = Instant.parse("2026-03-02T10:00:00Z");
 
     private User createTestUser() {
         User user = new User();
@@ -63,24 +68,47 @@ class PasswordResetServiceTest {
     class InitiatePasswordResetTests {
 
         @Test
-        @DisplayName("Zpracování platného e-mailu uloží token a odešle email")
+        @DisplayName("Zpracování platného e-mailu uloží hash tokenu a odešle email s tokenem")
         void shouldInitiatePasswordReset_SendsEmailAndSavesToken() {
-            // Given
+            // Given - uživatel zatím token nemá
             User user = createTestUser();
+            when(clock.instant()).thenReturn(NOW);
             when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(user));
-            when(tokenRepository.save(any(PasswordResetToken.class))).thenAnswer(i -> i.getArguments()[0]);
+            when(tokenRepository.replaceToken(eq(1L), anyString(), any(Instant.class))).thenReturn(0);
 
             // When
             passwordResetService.initiatePasswordReset(TEST_EMAIL);
 
             // Then
             ArgumentCaptor<PasswordResetToken> tokenCaptor = ArgumentCaptor.forClass(PasswordResetToken.class);
+            ArgumentCaptor<String> emailTokenCaptor = ArgumentCaptor.forClass(String.class);
             verify(tokenRepository).save(tokenCaptor.capture());
-            verify(emailService).sendPasswordResetEmail(eq(TEST_EMAIL), anyString());
+            verify(emailService).sendPasswordResetEmail(eq(TEST_EMAIL), emailTokenCaptor.capture());
 
             PasswordResetToken savedToken = tokenCaptor.getValue();
             assertThat(savedToken.getUser()).isEqualTo(user);
-            assertThat(savedToken.getToken()).isNotNull().isNotEmpty();
+            assertThat(savedToken.getTokenHash())
+                    .hasSize(64)
+                    .isEqualTo(SecureTokens.sha256(emailTokenCaptor.getValue()))
+                    .isNotEqualTo(emailTokenCaptor.getValue());
+            assertThat(savedToken.getExpiryDate()).isEqualTo(NOW.plus(15, ChronoUnit.MINUTES));
+        }
+
+        @Test
+        @DisplayName("Nová žádost by měla přepsat dosavadní token uživatele (upsert)")
+        void shouldReplaceExistingToken() {
+            // Given - uživatel už aktivní token má
+            User user = createTestUser();
+            when(clock.instant()).thenReturn(NOW);
+            when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(user));
+            when(tokenRepository.replaceToken(eq(1L), anyString(), eq(NOW.plus(15, ChronoUnit.MINUTES)))).thenReturn(1);
+
+            // When
+            passwordResetService.initiatePasswordReset(TEST_EMAIL);
+
+            // Then - žádný další řádek
+            verify(tokenRepository, never()).save(any(PasswordResetToken.class));
+            verify(emailService).sendPasswordResetEmail(eq(TEST_EMAIL), anyString());
         }
 
         @Test
@@ -94,6 +122,7 @@ class PasswordResetServiceTest {
 
             // Then
             verify(tokenRepository, never()).save(any(PasswordResetToken.class));
+            verify(tokenRepository, never()).replaceToken(any(), any(), any());
             verify(emailService, never()).sendPasswordResetEmail(anyString(), anyString());
         }
     }
@@ -107,10 +136,11 @@ class PasswordResetServiceTest {
         void shouldResetPassword_WhenTokenIsValid() {
             // Given
             User user = createTestUser();
-            PasswordResetToken resetToken = new PasswordResetToken(TEST_TOKEN, user);
-            resetToken.setExpiryDate(Instant.now().plus(1, ChronoUnit.HOURS));
+            PasswordResetToken resetToken = new PasswordResetToken(SecureTokens.sha256(TEST_TOKEN), user,
+                    NOW.plus(1, ChronoUnit.HOURS));
 
-            when(tokenRepository.findByToken(TEST_TOKEN)).thenReturn(Optional.of(resetToken));
+            when(clock.instant()).thenReturn(NOW);
+            when(tokenRepository.findByTokenHash(SecureTokens.sha256(TEST_TOKEN))).thenReturn(Optional.of(resetToken));
             when(passwordEncoder.encode(NEW_PASSWORD)).thenReturn(ENCODED_PASSWORD);
 
             // When
@@ -129,7 +159,7 @@ class PasswordResetServiceTest {
         @DisplayName("Vyhodí výjimku, pokud token neexistuje")
         void shouldThrowException_WhenTokenIsInvalid() {
             // Given
-            when(tokenRepository.findByToken(TEST_TOKEN)).thenReturn(Optional.empty());
+            when(tokenRepository.findByTokenHash(SecureTokens.sha256(TEST_TOKEN))).thenReturn(Optional.empty());
 
             // When & Then
             assertThatThrownBy(() -> passwordResetService.resetPassword(TEST_TOKEN, NEW_PASSWORD))
@@ -145,10 +175,11 @@ class PasswordResetServiceTest {
         void shouldThrowExceptionAndCleanUp_WhenTokenIsExpired() {
             // Given
             User user = createTestUser();
-            PasswordResetToken resetToken = new PasswordResetToken(TEST_TOKEN, user);
-            resetToken.setExpiryDate(Instant.now().minus(1, ChronoUnit.HOURS)); // Token už vypršel
+            PasswordResetToken resetToken = new PasswordResetToken(SecureTokens.sha256(TEST_TOKEN), user,
+                    NOW.minus(1, ChronoUnit.HOURS)); // Token už vypršel
 
-            when(tokenRepository.findByToken(TEST_TOKEN)).thenReturn(Optional.of(resetToken));
+            when(clock.instant()).thenReturn(NOW);
+            when(tokenRepository.findByTokenHash(SecureTokens.sha256(TEST_TOKEN))).thenReturn(Optional.of(resetToken));
 
             // When & Then
             assertThatThrownBy(() -> passwordResetService.resetPassword(TEST_TOKEN, NEW_PASSWORD))
@@ -246,9 +246,11 @@ class ProductIntegrationTest {
         mockMvc.perform(delete("/api/products/{id}", savedProduct.getId()).with(csrf()))
                 .andExpect(status().isNoContent());
 
-        // Assert: Ověření, že produkt byl odstraněn z databáze
+        // Assert: Produkt zůstal v databázi jako neaktivní a z katalogu zmizel
         Optional<Product> deletedProduct = productRepository.findById(savedProduct.getId());
-        assertThat(deletedProduct).isEmpty();
+        assertThat(deletedProduct).hasValueSatisfying(p -> assertThat(p.isActive()).isFalse());
+        mockMvc.perform(get("/api/products/{id}", savedProduct.getId()))
+                .andExpect(status().isNotFound());
     }
 
     @Test
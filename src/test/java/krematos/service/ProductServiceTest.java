@@ -7,6 +7,7 @@ import krematos.mapper.ProductMapper;
 import krematos.model.Product;
 import krematos.repository.ProductRepository;
 import krematos.service.impl.ProductServiceImpl;
+import krematos.service.recommendation.CoPurchaseRecommender;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -19,7 +20,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -27,6 +27,7 @@ import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.*;
 import java.io.File;
@@ -53,6 +54,12 @@ class ProductServiceTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private CoPurchaseRecommender coPurchaseRecommender;
+
+    @Mock
+    private Clock clock;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -167,7 +174,7 @@ class ProductServiceTest {
         void shouldReturnProduct_WhenProductExists() {
             // Given
             Product product = createTestProduct();
-            when(productRepository.findById(PRODUCT_ID)).thenReturn(Optional.of(product));
+            when(productRepository.findByIdAndActiveTrue(PRODUCT_ID)).thenReturn(Optional.of(product));
 
             // When
             Optional<Product> result = productService.findProductById(PRODUCT_ID);
@@ -177,35 +184,35 @@ class ProductServiceTest {
             assertThat(result.get())
                     .extracting(Product::getId, Product::getName, Product::getDescription)
                     .containsExactly(PRODUCT_ID, PRODUCT_NAME, PRODUCT_DESCRIPTION);
-            verify(productRepository, times(1)).findById(PRODUCT_ID);
+            verify(productRepository, times(1)).findByIdAndActiveTrue(PRODUCT_ID);
         }
 
         @Test
         @DisplayName("Měl by vrátit prázdný Optional, když produkt neexistuje")
         void shouldReturnEmpty_WhenProductDoesNotExist() {
             // Given
-            when(productRepository.findById(PRODUCT_ID)).thenReturn(Optional.empty());
+            when(productRepository.findByIdAndActiveTrue(PRODUCT_ID)).thenReturn(Optional.empty());
 
             // When
             Optional<Product> result = productService.findProductById(PRODUCT_ID);
 
             // Then
             assertThat(result).isEmpty();
-            verify(productRepository, times(1)).findById(PRODUCT_ID);
+            verify(productRepository, times(1)).findByIdAndActiveTrue(PRODUCT_ID);
         }
 
         @Test
         @DisplayName("Měl by vrátit prázdný Optional pro null ID")
         void shouldReturnEmpty_WhenIdIsNull() {
             // Given
-            when(productRepository.findById(null)).thenReturn(Optional.empty());
+            when(productRepository.findByIdAndActiveTrue(null)).thenReturn(Optional.empty());
 
             // When
             Optional<Product> result = productService.findProductById(null);
 
             // Then
             assertThat(result).isEmpty();
-            verify(productRepository, times(1)).findById(null);
+            verify(productRepository, times(1)).findByIdAndActiveTrue(null);
         }
     }
 
@@ -221,7 +228,7 @@ class ProductServiceTest {
             Page<Product> productPage = new PageImpl<>(Collections.singletonList(product));
             Pageable pageable = PageRequest.of(0, 10);
 
-            when(productRepository.findAll(pageable)).thenReturn(productPage);
+            when(productRepository.findAllByActiveTrue(pageable)).thenReturn(productPage);
 
             // When
             Page<Product> result = productService.findAllProducts(pageable);
@@ -231,7 +238,7 @@ class ProductServiceTest {
             assertThat(result.getTotalElements()).isEqualTo(1);
             assertThat(result.getContent()).hasSize(1);
             assertThat(result.getContent().get(0).getId()).isEqualTo(PRODUCT_ID);
-            verify(productRepository, times(1)).findAll(pageable);
+            verify(productRepository, times(1)).findAllByActiveTrue(pageable);
         }
 
         @Test
@@ -241,7 +248,7 @@ class ProductServiceTest {
             Page<Product> emptyPage = new PageImpl<>(Collections.emptyList());
             Pageable pageable = PageRequest.of(0, 10);
 
-            when(productRepository.findAll(pageable)).thenReturn(emptyPage);
+            when(productRepository.findAllByActiveTrue(pageable)).thenReturn(emptyPage);
 
             // When
             Page<Product> result = productService.findAllProducts(pageable);
@@ -250,7 +257,47 @@ class ProductServiceTest {
             assertThat(result).isNotNull();
             assertThat(result.getTotalElements()).isZero();
             assertThat(result.getContent()).isEmpty();
-            verify(productRepository, times(1)).findAll(pageable);
+            verify(productRepository, times(1)).findAllByActiveTrue(pageable);
+        }
+    }
+
+    @Nested
+    @DisplayName("findRelatedProducts Tests")
+    class FindRelatedProductsTests {
+
+        @Test
+        @DisplayName("Měl by vrátit aktivní produkty v pořadí doporučení")
+        void shouldReturnActiveProductsInRecommendationOrder() {
+            // Given
+            Product first = createTestProduct();
+            first.setId(3L);
+            Product inactive = createTestProduct();
+            inactive.setId(4L);
+            inactive.setActive(false);
+            Product second = createTestProduct();
+            second.setId(2L);
+            when(coPurchaseRecommender.relatedProductIds(PRODUCT_ID, 5)).thenReturn(List.of(3L, 4L, 2L));
+            when(productRepository.findAllById(List.of(3L, 4L, 2L))).thenReturn(List.of(second, inactive, first));
+
+            // When
+            List<Product> result = productService.findRelatedProducts(PRODUCT_ID, 5);
+
+            // Then
+            assertThat(result).extracting(Product::getId).containsExactly(3L, 2L);
+        }
+
+        @Test
+        @DisplayName("Bez doporučení by neměl volat databázi")
+        void shouldSkipRepository_WhenNoRecommendations() {
+            // Given
+            when(coPurchaseRecommender.relatedProductIds(PRODUCT_ID, 5)).thenReturn(List.of());
+
+            // When
+            List<Product> result = productService.findRelatedProducts(PRODUCT_ID, 5);
+
+            // Then
+            assertThat(result).isEmpty();
+            verifyNoInteractions(productRepository);
         }
     }
 
@@ -290,33 +337,26 @@ class ProductServiceTest {
     @DisplayName("deleteProductById Tests")
     class DeleteProductByIdTests {
 
-        @BeforeEach
-        void setUpTransaction() {
-            TransactionSynchronizationManager.initSynchronization();
-        }
-
-        @AfterEach
-        void tearDownTransaction() {
-            TransactionSynchronizationManager.clearSynchronization();
-        }
-
         @Test
-        @DisplayName("Měl by smazat produkt úspěšně, když existuje")
-        void shouldDeleteProduct_WhenProductExists() {
+        @DisplayName("Měl by produkt deaktivovat a ponechat mu obrázky")
+        void shouldSoftDeleteProduct_WhenProductExists() {
             // Given
             Product product = createTestProduct();
             product.setImages(new ArrayList<>(List.of("image1.jpg", "image2.jpg")));
+            Instant now = Instant.parse("2026-10-01T08:00:00Z");
 
             when(productRepository.findById(PRODUCT_ID)).thenReturn(Optional.of(product));
-            doNothing().when(productRepository).delete(product);
+            when(clock.instant()).thenReturn(now);
 
             // When
             boolean result = productService.deleteProductById(PRODUCT_ID);
 
             // Then
             assertThat(result).isTrue();
-            verify(productRepository, times(1)).findById(PRODUCT_ID);
-            verify(productRepository, times(1)).delete(product);
+            assertThat(product.isActive()).isFalse();
+            assertThat(product.getDeactivatedAt()).isEqualTo(now);
+            assertThat(product.getImages()).containsExactly("image1.jpg", "image2.jpg");
+            verify(productRepository, never()).delete(any());
         }
 
         @Test
@@ -335,21 +375,23 @@ class ProductServiceTest {
         }
 
         @Test
-        @DisplayName("Měl by smazat produkt i s prázdným seznamem obrázků")
-        void shouldDeleteProduct_WithEmptyImagesList() {
+        @DisplayName("Měl by ponechat datum deaktivace už smazanému produktu")
+        void shouldKeepDeactivatedAt_WhenAlreadyDeleted() {
             // Given
             Product product = createTestProduct();
-            product.setImages(new ArrayList<>());
+            Instant deactivatedAt = Instant.parse("2025-01-01T00:00:00Z");
+            product.setActive(false);
+            product.setDeactivatedAt(deactivatedAt);
 
             when(productRepository.findById(PRODUCT_ID)).thenReturn(Optional.of(product));
-            doNothing().when(productRepository).delete(product);
 
             // When
             boolean result = productService.deleteProductById(PRODUCT_ID);
 
             // Then
             assertThat(result).isTrue();
-            verify(productRepository, times(1)).delete(product);
+            assertThat(product.getDeactivatedAt()).isEqualTo(deactivatedAt);
+            verifyNoInteractions(clock);
         }
     }
 
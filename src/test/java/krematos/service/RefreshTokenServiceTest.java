@@ -0,0 +1,180 @@
+package krematos.service;
+
+import io.jsonwebtoken.Claims;
+import krematos.exception.token.InvalidTokenException;
+import krematos.model.RefreshTokenFamily;
+import krematos.repository.BlacklistedTokenRepository;
+import krematos.repository.RefreshTokenFamilyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testy pro RefreshTokenService - vydání, rotace, detekce znovupoužití a odhlášení.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RefreshTokenService Tests")
+@ActiveProfiles("test")
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenFamilyRepository familyRepository;
+
+    @Mock
+    private BlacklistedTokenRepository blacklistedTokenRepository;
+
+    private JwtService jwtService;
+    private RefreshTokenService refreshTokenService;
+
+    private static final String TEST_USERNAME = "testuser";
+    private static final String VALID_SECRET = "thisIsAVerySecureSecretKeyForJwtTokenGenerationAndValidation123456";
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.systemUTC();
+        jwtService = new JwtService(VALID_SECRET, 900000L, 604800000L, blacklistedTokenRepository, clock);
+        refreshTokenService = new RefreshTokenService(familyRepository, jwtService, clock, 100, Duration.ofMinutes(10));
+    }
+
+    /** Vydá token a vrátí uloženou rodinu (jako by byla v DB). */
+    private RefreshTokenFamily issueAndCapture(String[] tokenHolder) {
+        tokenHolder[0] = refreshTokenService.issue(TEST_USERNAME);
+        ArgumentCaptor<RefreshTokenFamily> captor = ArgumentCaptor.forClass(RefreshTokenFamily.class);
+        verify(familyRepository).save(captor.capture());
+        return captor.getValue();
+    }
+
+    @Nested
+    @DisplayName("issue Tests")
+    class IssueTests {
+
+        @Test
+        @DisplayName("Měl by uložit pouze hashe, nikoli samotný token")
+        void shouldStoreOnlyHashes() {
+            // When
+            String[] token = new String[1];
+            RefreshTokenFamily family = issueAndCapture(token);
+
+            // Then
+            String familyId = jwtService.extractClaim(token[0], c -> c.get(JwtService.FAMILY_ID_CLAIM, String.class));
+            String tokenId = jwtService.extractClaim(token[0], Claims::getId);
+            assertThat(family.getFamilyHash()).hasSize(64).isEqualTo(SecureTokens.sha256(familyId));
+            assertThat(family.getCurrentTokenHash()).hasSize(64).isEqualTo(SecureTokens.sha256(tokenId));
+            assertThat(family.getUsername()).isEqualTo(TEST_USERNAME);
+            assertThat(family.getExpiresAt()).isAfter(Instant.now());
+        }
+    }
+
+    @Nested
+    @DisplayName("rotate Tests")
+    class RotateTests {
+
+        @Test
+        @DisplayName("Měl by vydat nový token a obsloužit rotaci z cache bez čtení DB")
+        void shouldRotateToken_FromCache() {
+            // Given
+            String[] token = new String[1];
+            RefreshTokenFamily family = issueAndCapture(token);
+            when(familyRepository.rotate(eq(family.getFamilyHash()), eq(family.getCurrentTokenHash()), anyString(), any()))
+                    .thenReturn(1);
+
+            // When
+            RefreshTokenService.RotatedToken rotated = refreshTokenService.rotate(token[0]);
+
+            // Then
+            assertThat(rotated.username()).isEqualTo(TEST_USERNAME);
+            assertThat(rotated.refreshToken()).isNotEqualTo(token[0]);
+            verify(familyRepository, never()).findByFamilyHash(anyString());
+        }
+
+        @Test
+        @DisplayName("Měl by zneplatnit celou rodinu při znovupoužití starého tokenu")
+        void shouldRevokeFamily_WhenOldTokenIsReused() {
+            // Given
+            String[] token = new String[1];
+            RefreshTokenFamily family = issueAndCapture(token);
+            when(familyRepository.rotate(anyString(), anyString(), anyString(), any())).thenReturn(1);
+            RefreshTokenService.RotatedToken rotated = refreshTokenService.rotate(token[0]);
+
+            // DB už obsahuje hash nového tokenu
+            String newTokenId = jwtService.extractClaim(rotated.refreshToken(), Claims::getId);
+            family.setCurrentTokenHash(SecureTokens.sha256(newTokenId));
+            when(familyRepository.findByFamilyHash(family.getFamilyHash())).thenReturn(Optional.of(family));
+
+            // When & Then
+            assertThatThrownBy(() -> refreshTokenService.rotate(token[0]))
+                    .isInstanceOf(InvalidTokenException.class)
+                    .hasMessage("Refresh token již byl použit");
+            verify(familyRepository).revoke(family.getFamilyHash());
+        }
+
+        @Test
+        @DisplayName("Měl by odmítnout token ze zneplatněné rodiny")
+        void shouldRejectToken_FromRevokedFamily() {
+            // Given
+            String[] token = new String[1];
+            RefreshTokenFamily family = issueAndCapture(token);
+            refreshTokenService.revoke(token[0]);
+            family.setRevoked(true);
+            when(familyRepository.findByFamilyHash(family.getFamilyHash())).thenReturn(Optional.of(family));
+
+            // When & Then
+            assertThatThrownBy(() -> refreshTokenService.rotate(token[0]))
+                    .isInstanceOf(InvalidTokenException.class);
+            verify(familyRepository, never()).rotate(anyString(), anyString(), anyString(), any());
+        }
+
+        @Test
+        @DisplayName("Měl by odmítnout access token předložený jako refresh token")
+        void shouldRejectAccessToken() {
+            // Given
+            String accessToken = jwtService.generateAccessToken(TEST_USERNAME);
+
+            // When & Then
+            assertThatThrownBy(() -> refreshTokenService.rotate(accessToken))
+                    .isInstanceOf(InvalidTokenException.class)
+                    .hasMessage("Token není refresh token");
+            verifyNoInteractions(familyRepository);
+        }
+
+        @Test
+        @DisplayName("Měl by odmítnout chybějící token")
+        void shouldRejectMissingToken() {
+            assertThatThrownBy(() -> refreshTokenService.rotate(null))
+                    .isInstanceOf(InvalidTokenException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("revoke Tests")
+    class RevokeTests {
+
+        @Test
+        @DisplayName("Měl by ignorovat neplatný token při odhlášení")
+        void shouldIgnoreInvalidToken() {
+            // When
+            refreshTokenService.revoke("invalid.token.here");
+
+            // Then
+            verifyNoInteractions(familyRepository);
+        }
+    }
+}
@@ -17,12 +17,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.*;
@@ -213,139 +210,6 @@ class UserServiceTest {
         }
     }
 
-    @Nested
-    @DisplayName("createPasswordResetTokenForUser Tests")
-    class CreatePasswordResetTokenTests {
-
-        @Test
-        @DisplayName("Měl by vytvořit reset token pro existujícího uživatele")
-        void shouldCreatePasswordResetToken_ForExistingUser() {
-            // Given
-            User user = createTestUser();
-            when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(user));
-            when(userRepository.save(any(User.class))).thenReturn(user);
-
-            // When
-            String token = userService.createPasswordResetTokenForUser(TEST_EMAIL);
-
-            // Then
-            assertThat(token).isNotNull();
-            assertThat(token).isNotEmpty();
-
-            ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-            verify(userRepository).save(userCaptor.capture());
-
-            User savedUser = userCaptor.getValue();
-            assertThat(savedUser.getPasswordResetToken()).isEqualTo(token);
-            assertThat(savedUser.getPasswordResetTokenExpiry()).isAfter(Instant.now());
-        }
-
-        @Test
-        @DisplayName("Měl by vyhodit UsernameNotFoundException pro neexistující email")
-        void shouldThrowUsernameNotFoundException_WhenEmailNotFound() {
-            // Given
-            when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.empty());
-
-            // When & Then
-            assertThatThrownBy(() -> userService.createPasswordResetTokenForUser(TEST_EMAIL))
-                    .isInstanceOf(UsernameNotFoundException.class)
-                    .hasMessageContaining("User not found with email");
-
-            verify(userRepository, never()).save(any());
-        }
-
-        @Test
-        @DisplayName("Měl by nastavit expiraci tokenu na 15 minut")
-        void shouldSetTokenExpiry_To15Minutes() {
-            // Given
-            User user = createTestUser();
-            when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(user));
-            when(userRepository.save(any(User.class))).thenReturn(user);
-
-            Instant beforeCreation = Instant.now();
-
-            // When
-            userService.createPasswordResetTokenForUser(TEST_EMAIL);
-
-            // Then
-            ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-            verify(userRepository).save(userCaptor.capture());
-
-            User savedUser = userCaptor.getValue();
-            Instant expectedExpiry = beforeCreation.plus(15, ChronoUnit.MINUTES);
-
-            assertThat(savedUser.getPasswordResetTokenExpiry())
-                    .isAfterOrEqualTo(expectedExpiry.minus(1, ChronoUnit.SECONDS))
-                    .isBeforeOrEqualTo(expectedExpiry.plus(1, ChronoUnit.SECONDS));
-        }
-    }
-
-    @Nested
-    @DisplayName("resetPassword Tests")
-    class ResetPasswordTests {
-
-        @Test
-        @DisplayName("Měl by úspěšně resetovat heslo s platným tokenem")
-        void shouldResetPassword_WithValidToken() {
-            // Given
-            String token = "valid-token";
-            String newPassword = "newPassword123";
-            User user = createTestUser();
-            user.setPasswordResetToken(token);
-            user.setPasswordResetTokenExpiry(Instant.now().plus(10, ChronoUnit.MINUTES));
-
-            when(userRepository.findByPasswordResetToken(token)).thenReturn(Optional.of(user));
-            when(passwordEncoder.encode(newPassword)).thenReturn("encodedNewPassword");
-            when(userRepository.save(any(User.class))).thenReturn(user);
-
-            // When
-            userService.resetPassword(token, newPassword);
-
-            // Then
-            ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-            verify(userRepository).save(userCaptor.capture());
-
-            User savedUser = userCaptor.getValue();
-            assertThat(savedUser.getPassword()).isEqualTo("encodedNewPassword");
-            assertThat(savedUser.getPasswordResetToken()).isNull();
-            assertThat(savedUser.getPasswordResetTokenExpiry()).isNull();
-        }
-
-        @Test
-        @DisplayName("Měl by vyhodit IllegalArgumentException pro neplatný token")
-        void shouldThrowIllegalArgumentException_ForInvalidToken() {
-            // Given
-            String invalidToken = "invalid-token";
-            when(userRepository.findByPasswordResetToken(invalidToken)).thenReturn(Optional.empty());
-
-            // When & Then
-            assertThatThrownBy(() -> userService.resetPassword(invalidToken, "newPassword"))
-                    .isInstanceOf(IllegalArgumentException.class)
-                    .hasMessage("Invalid password reset token");
-
-            verify(userRepository, never()).save(any());
-        }
-
-        @Test
-        @DisplayName("Měl by vyhodit IllegalArgumentException pro vypršelý token")
-        void shouldThrowIllegalArgumentException_ForExpiredToken() {
-            // Given
-            String token = "expired-token";
-            User user = createTestUser();
-            user.setPasswordResetToken(token);
-            user.setPasswordResetTokenExpiry(Instant.now().minus(1, ChronoUnit.HOURS)); // Vypršelý
-
-            when(userRepository.findByPasswordResetToken(token)).thenReturn(Optional.of(user));
-
-            // When & Then
-            assertThatThrownBy(() -> userService.resetPassword(token, "newPassword"))
-                    .isInstanceOf(IllegalArgumentException.class)
-                    .hasMessage("Password reset token has expired");
-
-            verify(userRepository, never()).save(any());
-        }
-    }
-
     @Nested
     @DisplayName("changeUserRole Tests")
     class ChangeUserRoleTests {
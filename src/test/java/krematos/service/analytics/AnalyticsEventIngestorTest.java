@@ -0,0 +1,254 @@
+package krematos.service.analytics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import krematos.model.nosql.UserEvent;
+import krematos.repository.UserRepositoryEvent;
+import krematos.service.analytics.AnalyticsEventIngestor.OverflowPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testy pro AnalyticsEventIngestor a MpscRingBuffer.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AnalyticsEventIngestor Tests")
+class AnalyticsEventIngestorTest {
+
+    @Mock
+    private UserRepositoryEvent userRepositoryEvent;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private AnalyticsBatchListener batchListener;
+
+    @TempDir
+    Path spoolDirectory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnalyticsEventSpool spool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        spool = new AnalyticsEventSpool(meterRegistry, spoolDirectory, DataSize.ofKilobytes(64), DataSize.ofMegabytes(1));
+    }
+
+    @Nested
+    @DisplayName("Ingestor")
+    class IngestorTests {
+
+        @Test
+        @DisplayName("Měl by zapsat události v dávkách podle velikosti")
+        void shouldFlushInBatches() throws Exception {
+            // Given - dlouhý flush interval, dávky se odesílají jen podle velikosti
+            AnalyticsEventIngestor ingestor = ingestor(1024, 10, Duration.ofMinutes(1));
+            ingestor.start();
+
+            // When
+            for (int i = 0; i < 25; i++) {
+                ingestor.ingest(event("VIEW", i), OverflowPolicy.DROP);
+            }
+            ingestor.stop();
+
+            // Then - 2 plné dávky + zbytek při ukončení
+            verify(userRepositoryEvent, atLeast(3)).insert(anyIterable());
+            assertThat(meterRegistry.get("analytics.ingest.flushed").counter().count()).isEqualTo(25.0);
+            verify(userRepositoryEvent, never()).save(any(UserEvent.class));
+        }
+
+        @Test
+        @DisplayName("Měl by odeslat neúplnou dávku po uplynutí flush intervalu")
+        void shouldFlushPartialBatchAfterInterval() throws Exception {
+            // Given
+            CountDownLatch flushed = new CountDownLatch(1);
+            when(userRepositoryEvent.insert(anyIterable())).thenAnswer(inv -> {
+                flushed.countDown();
+                return List.of();
+            });
+            AnalyticsEventIngestor ingestor = ingestor(1024, 500, Duration.ofMillis(20));
+            ingestor.start();
+
+            // When
+            ingestor.ingest(event("VIEW", 1L), OverflowPolicy.DROP);
+
+            // Then
+            assertThat(flushed.await(5, TimeUnit.SECONDS)).isTrue();
+            ingestor.stop();
+        }
+
+        @Test
+        @DisplayName("Při plné frontě by měl zobrazení zahodit a započítat")
+        void shouldDropWhenFull() {
+            // Given - flusher neběží, fronta má kapacitu 2
+            AnalyticsEventIngestor ingestor = ingestor(2, 10, Duration.ofSeconds(1));
+
+            // When
+            for (int i = 0; i < 5; i++) {
+                ingestor.ingest(event("VIEW", i), OverflowPolicy.DROP);
+            }
+
+            // Then
+            assertThat(meterRegistry.get("analytics.ingest.dropped").tag("type", "VIEW").counter().count()).isEqualTo(3.0);
+            assertThat(meterRegistry.get("analytics.ingest.queue.size").gauge().value()).isEqualTo(2.0);
+            verifyNoInteractions(userRepositoryEvent);
+        }
+
+        @Test
+        @DisplayName("Při plné frontě by měl nákup uložit do spoolu, ne čekat na DB")
+        void shouldSpoolWhenCallerRuns() {
+            // Given
+            AnalyticsEventIngestor ingestor = ingestor(2, 10, Duration.ofSeconds(1));
+            ingestor.ingest(event("PURCHASE", 1L), OverflowPolicy.CALLER_RUNS);
+            ingestor.ingest(event("PURCHASE", 2L), OverflowPolicy.CALLER_RUNS);
+
+            // When
+            ingestor.ingest(event("PURCHASE", 3L), OverflowPolicy.CALLER_RUNS);
+
+            // Then
+            assertThat(spool.readBatch(10)).extracting(UserEvent::getProductId).containsExactly(3L);
+            assertThat(meterRegistry.get("analytics.ingest.caller.runs").counter().count()).isEqualTo(1.0);
+            verifyNoInteractions(userRepositoryEvent);
+        }
+
+        @Test
+        @DisplayName("Při výpadku DB by měl dávky uložit do spoolu a po obnovení je přehrát upsertem podle ID")
+        void shouldSpoolWhileStoreIsDownAndReplayAfterRecovery() throws Exception {
+            // Given - první zápis selže, další uspějí
+            List<Long> stored = new CopyOnWriteArrayList<>();
+            Set<String> replayedIds = ConcurrentHashMap.newKeySet();
+            AtomicInteger calls = new AtomicInteger();
+            when(userRepositoryEvent.insert(anyIterable())).thenAnswer(inv -> {
+                if (calls.getAndIncrement() == 0) {
+                    throw new RuntimeException("Mongo nedostupné");
+                }
+                Iterable<UserEvent> events = inv.getArgument(0);
+                events.forEach(e -> stored.add(e.getProductId()));
+                return List.of();
+            });
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserEvent.class)).thenReturn(bulkOperations);
+            when(bulkOperations.replaceOne(any(Query.class), any(), any(FindAndReplaceOptions.class))).thenAnswer(inv -> {
+                UserEvent event = inv.getArgument(1);
+                replayedIds.add(event.getId());
+                stored.add(event.getProductId());
+                return bulkOperations;
+            });
+            AnalyticsEventIngestor ingestor = ingestor(1024, 1, Duration.ofMinutes(1));
+            ingestor.start();
+
+            // When
+            ingestor.ingest(event("VIEW", 1L), OverflowPolicy.DROP);
+            ingestor.ingest(event("VIEW", 2L), OverflowPolicy.DROP);
+
+            // Then - po uplynutí replay intervalu se vše dostane do DB
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (stored.size() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            ingestor.stop();
+            assertThat(stored).containsExactlyInAnyOrder(1L, 2L);
+            assertThat(replayedIds).isNotEmpty().doesNotContainNull();
+            assertThat(meterRegistry.get("analytics.ingest.spooled").counter().count()).isGreaterThanOrEqualTo(1.0);
+            assertThat(meterRegistry.get("analytics.spool.replayed").counter().count()).isGreaterThanOrEqualTo(1.0);
+            assertThat(spool.hasPending()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("MpscRingBuffer")
+    class RingBufferTests {
+
+        @Test
+        @DisplayName("Kapacita by se měla zaokrouhlit na mocninu dvou")
+        void shouldRoundCapacityToPowerOfTwo() {
+            assertThat(new MpscRingBuffer<>(1000).capacity()).isEqualTo(1024);
+            assertThat(new MpscRingBuffer<>(1024).capacity()).isEqualTo(1024);
+        }
+
+        @Test
+        @DisplayName("Měl by předat všechny prvky od více producentů právě jednou")
+        void shouldDeliverEachElementOnceWithConcurrentProducers() throws Exception {
+            // Given
+            MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+            int producers = 4;
+            int perProducer = 5_000;
+            ExecutorService executor = Executors.newFixedThreadPool(producers);
+
+            // When
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                executor.execute(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.yield(); // Fronta je plná - přenechá CPU konzumentovi
+                        }
+                    }
+                });
+            }
+            Set<Integer> received = new HashSet<>();
+            List<Integer> chunk = new ArrayList<>();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (received.size() < producers * perProducer && System.nanoTime() < deadline) {
+                if (buffer.drainTo(chunk, 32) == 0) {
+                    Thread.yield();
+                }
+                for (Integer value : chunk) {
+                    assertThat(received.add(value)).isTrue();
+                }
+                chunk.clear();
+            }
+            executor.shutdown();
+
+            // Then
+            assertThat(received).hasSize(producers * perProducer);
+            assertThat(buffer.size()).isZero();
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private AnalyticsEventIngestor ingestor(int capacity, int batchSize, Duration flushInterval) {
+        return new AnalyticsEventIngestor(userRepositoryEvent, mongoTemplate, spool, List.of(batchListener), meterRegistry,
+                capacity, batchSize, flushInterval, Duration.ofMillis(1), Duration.ofMillis(50), 10);
+    }
+
+    private static UserEvent event(String type, long productId) {
+        UserEvent event = new UserEvent();
+        event.setEventType(type);
+        event.setProductId(productId);
+        return event;
+    }
+}
@@ -0,0 +1,71 @@
+package krematos.service.analytics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import krematos.model.nosql.UserEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark propustnosti zápisu a přehrávání spoolu analytiky.
+ * <p>
+ * Neběží v běžném buildu; spuštění: {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@DisplayName("AnalyticsEventSpool Benchmark")
+class AnalyticsEventSpoolBenchmarkTest {
+
+    private static final int EVENTS = 1_000_000;
+    private static final int BATCH_SIZE = 500;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Propustnost zápisu a přehrávání")
+    void measureAppendAndReplayThroughput() throws Exception {
+        AnalyticsEventSpool spool = new AnalyticsEventSpool(new SimpleMeterRegistry(), directory,
+                DataSize.ofMegabytes(16), DataSize.ofGigabytes(1));
+        List<UserEvent> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            UserEvent event = new UserEvent();
+            event.setEventType("VIEW");
+            event.setUserId((long) i);
+            event.setProductId((long) (i % 97));
+            event.setTimestamp(Instant.now());
+            batch.add(event);
+        }
+
+        // Zápis
+        long start = System.nanoTime();
+        for (int written = 0; written < EVENTS; written += BATCH_SIZE) {
+            spool.append(batch);
+        }
+        double appendSeconds = (System.nanoTime() - start) / 1e9;
+
+        // Přehrávání (bez DB - měří se čtení, kontrola CRC a dekódování)
+        start = System.nanoTime();
+        long replayed = 0;
+        List<UserEvent> read;
+        while (!(read = spool.readBatch(BATCH_SIZE)).isEmpty()) {
+            replayed += read.size();
+            spool.acknowledge();
+        }
+        double replaySeconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("Spool: zápis {} událostí/s, přehrávání {} událostí/s",
+                String.format("%,.0f", EVENTS / appendSeconds), String.format("%,.0f", replayed / replaySeconds));
+        assertThat(replayed).isEqualTo(EVENTS);
+    }
+}
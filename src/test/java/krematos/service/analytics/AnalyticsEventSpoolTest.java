@@ -0,0 +1,249 @@
+package krematos.service.analytics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import krematos.model.nosql.UserEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit testy pro AnalyticsEventSpool.
+ */
+@DisplayName("AnalyticsEventSpool Tests")
+class AnalyticsEventSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Měl by zachovat všechna pole události")
+    void shouldRoundTripAllFields() throws Exception {
+        // Given
+        AnalyticsEventSpool spool = spool(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        UserEvent event = new UserEvent();
+        event.setId("65f1c0ffee0000000000002a");
+        event.setEventType("PURCHASE");
+        event.setUserId(7L);
+        event.setProductId(42L);
+        event.setPriceAtEvent(199.9);
+        event.setQuantity(3);
+        event.setTimestamp(Instant.parse("2026-01-15T10:15:30.123456789Z"));
+        UserEvent partial = event("VIEW", 1L); // Bez ID - jako záznam starší verze
+
+        // When
+        spool.append(List.of(event, partial));
+        List<UserEvent> replayed = spool.readBatch(10);
+
+        // Then
+        assertThat(replayed).containsExactly(event, partial);
+    }
+
+    @Test
+    @DisplayName("Bez potvrzení by měl vracet stejnou dávku znovu")
+    void shouldRedeliverUnacknowledgedBatch() throws Exception {
+        // Given
+        AnalyticsEventSpool spool = spool(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        spool.append(events(1, 5));
+
+        // When
+        List<UserEvent> first = spool.readBatch(3);
+        List<UserEvent> again = spool.readBatch(3);
+        spool.acknowledge();
+        List<UserEvent> next = spool.readBatch(3);
+
+        // Then
+        assertThat(again).isEqualTo(first);
+        assertThat(next).extracting(UserEvent::getProductId).containsExactly(4L, 5L);
+    }
+
+    @Test
+    @DisplayName("Měl by založit nový segment po zaplnění a přehrané segmenty smazat")
+    void shouldRollOverAndDeleteReplayedSegments() throws Exception {
+        // Given - segment pojme jen několik záznamů
+        AnalyticsEventSpool spool = spool(DataSize.ofBytes(256), DataSize.ofKilobytes(64));
+        spool.append(events(1, 50));
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+
+        // When
+        List<Long> replayed = drain(spool);
+
+        // Then
+        assertThat(replayed).isEqualTo(LongStream.rangeClosed(1, 50).boxed().toList());
+        assertThat(spool.hasPending()).isFalse();
+        assertThat(segmentFiles()).isEmpty();
+        assertThat(meterRegistry.get("analytics.spool.replayed").counter().count()).isEqualTo(50.0);
+    }
+
+    @Test
+    @DisplayName("Po dosažení limitu velikosti by měl další události odmítnout")
+    void shouldRejectWhenSizeCapReached() throws Exception {
+        // Given - limit = 2 segmenty
+        AnalyticsEventSpool spool = spool(DataSize.ofBytes(256), DataSize.ofBytes(512));
+
+        // When
+        boolean accepted = spool.append(events(1, 100));
+
+        // Then
+        assertThat(accepted).isFalse();
+        assertThat(spool.sizeInBytes()).isLessThanOrEqualTo(512);
+        assertThat(meterRegistry.get("analytics.spool.rejected").counter().count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Po restartu by měl přehrát segmenty z předchozího běhu")
+    void shouldRecoverSegmentsAfterRestart() throws Exception {
+        // Given
+        AnalyticsEventSpool first = spool(DataSize.ofBytes(256), DataSize.ofKilobytes(64));
+        first.append(events(1, 20));
+        first.close();
+
+        // When
+        AnalyticsEventSpool restarted = spool(DataSize.ofBytes(256), DataSize.ofKilobytes(64));
+        restarted.append(events(21, 21));
+
+        // Then
+        assertThat(drain(restarted)).isEqualTo(LongStream.rangeClosed(1, 21).boxed().toList());
+    }
+
+    @Test
+    @DisplayName("Poškozený záznam by měl odhalit CRC a zbytek segmentu přeskočit")
+    void shouldSkipCorruptedRecord() throws Exception {
+        // Given
+        AnalyticsEventSpool first = spool(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        first.append(events(1, 3));
+        first.close();
+        Path segment = segmentFiles().get(0);
+        corruptByteOfSecondRecord(segment);
+
+        // When
+        AnalyticsEventSpool restarted = spool(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+
+        // Then
+        assertThat(drain(restarted)).containsExactly(1L);
+        assertThat(meterRegistry.get("analytics.spool.corrupted").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Malý únik by měl zabrat jen zapsaná data, ne celý segment")
+    void shouldSealSegmentAtWrittenSize() throws Exception {
+        // Given
+        AnalyticsEventSpool spool = spool(DataSize.ofKilobytes(64), DataSize.ofKilobytes(128));
+        spool.append(events(1, 3));
+
+        // When
+        spool.close();
+
+        // Then
+        Path segment = segmentFiles().get(0);
+        assertThat(Files.size(segment)).isLessThan(256);
+        AnalyticsEventSpool restarted = spool(DataSize.ofKilobytes(64), DataSize.ofKilobytes(128));
+        assertThat(restarted.sizeInBytes()).isEqualTo(Files.size(segment));
+        assertThat(drain(restarted)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Souběžně běžící spooly by měly mít vlastní adresáře a nepřehrávat cizí události")
+    void shouldIsolateConcurrentInstances() throws Exception {
+        // Given
+        AnalyticsEventSpool first = spool(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        AnalyticsEventSpool second = spool(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+
+        // When
+        first.append(events(1, 3));
+        second.append(events(4, 6));
+
+        // Then
+        assertThat(drain(first)).containsExactly(1L, 2L, 3L);
+        assertThat(drain(second)).containsExactly(4L, 5L, 6L);
+        try (Stream<Path> instances = Files.list(directory)) {
+            assertThat(instances.filter(Files::isDirectory)).hasSize(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Měl by převzít segmenty ze starší verze uložené přímo v adresáři spoolu")
+    void shouldAdoptLegacySegments() throws Exception {
+        // Given - segment ve starém umístění a pojmenování
+        AnalyticsEventSpool first = spool(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        first.append(events(1, 2));
+        first.close();
+        Files.move(segmentFiles().get(0), directory.resolve("spool-00000000000000000000.seg"));
+
+        // When
+        AnalyticsEventSpool restarted = spool(DataSize.ofKilobytes(4), DataSize.ofKilobytes(64));
+        restarted.append(events(3, 3));
+
+        // Then
+        assertThat(drain(restarted)).containsExactly(1L, 2L, 3L);
+        assertThat(segmentFiles()).isEmpty();
+    }
+
+    // --- Helper Methods ---
+
+    private AnalyticsEventSpool spool(DataSize segmentSize, DataSize maxSize) throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        return new AnalyticsEventSpool(meterRegistry, directory, segmentSize, maxSize);
+    }
+
+    private static List<Long> drain(AnalyticsEventSpool spool) {
+        List<Long> productIds = new ArrayList<>();
+        List<UserEvent> batch;
+        while (!(batch = spool.readBatch(7)).isEmpty()) {
+            batch.forEach(e -> productIds.add(e.getProductId()));
+            spool.acknowledge();
+        }
+        return productIds;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static void corruptByteOfSecondRecord(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            int secondRecordOffset = 8 + header.flip().getInt();
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0x7F}), secondRecordOffset + 10);
+        }
+    }
+
+    private static List<UserEvent> events(long fromProductId, long toProductId) {
+        return LongStream.rangeClosed(fromProductId, toProductId)
+                .mapToObj(id -> event("VIEW", id))
+                .toList();
+    }
+
+    private static UserEvent event(String type, long productId) {
+        UserEvent event = new UserEvent();
+        event.setEventType(type);
+        event.setProductId(productId);
+        event.setTimestamp(Instant.ofEpochSecond(1_700_000_000L + productId));
+        return event;
+    }
+}
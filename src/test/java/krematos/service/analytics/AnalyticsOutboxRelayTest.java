@@ -0,0 +1,149 @@
+package krematos.service.analytics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import krematos.model.AnalyticsOutboxEvent;
+import krematos.model.nosql.UserEvent;
+import krematos.repository.AnalyticsOutboxRepository;
+import krematos.repository.UserRepositoryEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testy pro AnalyticsOutboxRelay.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AnalyticsOutboxRelay Tests")
+class AnalyticsOutboxRelayTest {
+
+    @Mock
+    private AnalyticsOutboxRepository outboxRepository;
+
+    @Mock
+    private UserRepositoryEvent userRepositoryEvent;
+
+    @Mock
+    private AnalyticsBatchListener batchListener;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnalyticsOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new AnalyticsOutboxRelay(outboxRepository, transactionManager, userRepositoryEvent, List.of(batchListener), meterRegistry, 2, 5);
+    }
+
+    @Test
+    @DisplayName("Měl by odeslat dávky a teprve potom je z outboxu smazat")
+    @SuppressWarnings("unchecked")
+    void shouldPublishThenDelete() {
+        // Given - 3 události, velikost dávky 2
+        when(outboxRepository.findAllByOrderByIdAsc(Limit.of(2)))
+                .thenReturn(outbox(1, 2))
+                .thenReturn(outbox(3, 3));
+        when(outboxRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+        when(outboxRepository.deleteByIds(List.of(3L))).thenReturn(1);
+
+        // When
+        int published = relay.relay();
+
+        // Then
+        assertThat(published).isEqualTo(3);
+        ArgumentCaptor<List<UserEvent>> captor = ArgumentCaptor.forClass(List.class);
+        var inOrder = inOrder(userRepositoryEvent, outboxRepository, transactionManager, batchListener);
+        inOrder.verify(userRepositoryEvent).saveAll(captor.capture());
+        inOrder.verify(outboxRepository).deleteByIds(List.of(1L, 2L));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(batchListener).onBatchStored(any()); // Odběratelé až po commitu
+        inOrder.verify(userRepositoryEvent).saveAll(any());
+        inOrder.verify(outboxRepository).deleteByIds(List.of(3L));
+        assertThat(captor.getAllValues().get(0))
+                .extracting(UserEvent::getId).containsExactly("outbox-1", "outbox-2");
+        verify(batchListener, times(2)).onBatchStored(any());
+        assertThat(meterRegistry.get("analytics.outbox.published").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("Při chybě MongoDB by měl události v outboxu ponechat")
+    void shouldKeepEventsWhenStoreFails() {
+        // Given
+        when(outboxRepository.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(outbox(1, 2));
+        when(userRepositoryEvent.saveAll(any())).thenThrow(new IllegalStateException("mongo down"));
+
+        // When
+        int published = relay.relay();
+
+        // Then
+        assertThat(published).isZero();
+        verify(outboxRepository, never()).deleteByIds(any());
+        verify(transactionManager).rollback(any());
+        verifyNoInteractions(batchListener);
+        assertThat(meterRegistry.get("analytics.outbox.failed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Pokud část dávky smazala jiná instance, neměl by odběratelům nic předat")
+    void shouldNotNotifyWhenRowsWereDeletedElsewhere() {
+        // Given
+        when(outboxRepository.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(outbox(1, 2));
+        when(outboxRepository.deleteByIds(List.of(1L, 2L))).thenReturn(1);
+
+        // When
+        int published = relay.relay();
+
+        // Then - transakce se vrátí, nákupy se nezapočítají podruhé
+        assertThat(published).isZero();
+        verify(transactionManager).rollback(any());
+        verifyNoInteractions(batchListener);
+        assertThat(meterRegistry.get("analytics.outbox.failed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Měl by převést řádek outboxu na nákupní událost")
+    void shouldMapOutboxRow() {
+        // When
+        UserEvent event = AnalyticsOutboxRelay.toUserEvent(outbox(7, 7).get(0));
+
+        // Then
+        assertThat(event.getId()).isEqualTo("outbox-7");
+        assertThat(event.getEventType()).isEqualTo("PURCHASE");
+        assertThat(event.getProductId()).isEqualTo(107L);
+        assertThat(event.getQuantity()).isEqualTo(2);
+        assertThat(event.getPriceAtEvent()).isEqualTo(99.5);
+    }
+
+    // --- Helper Methods ---
+
+    private static List<AnalyticsOutboxEvent> outbox(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId)
+                .mapToObj(id -> AnalyticsOutboxEvent.builder()
+                        .id(id)
+                        .eventType("PURCHASE")
+                        .userId(1L)
+                        .productId(100 + id)
+                        .quantity(2)
+                        .price(new BigDecimal("99.50"))
+                        .occurredAt(Instant.parse("2026-03-02T10:00:00Z"))
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,237 @@
+package krematos.service.analytics;
+
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import krematos.model.nosql.ProductDailyStats;
+import krematos.model.nosql.UserEvent;
+import krematos.repository.ProductDailyStatsRepository;
+import krematos.repository.UserRepositoryEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.bson.BsonDocument;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testy pro ProductStatsRollup.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProductStatsRollup Tests")
+class ProductStatsRollupTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-02T10:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private UserRepositoryEvent userRepositoryEvent;
+
+    @Mock
+    private ProductDailyStatsRepository productDailyStatsRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductStatsRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rollup = new ProductStatsRollup(mongoTemplate, userRepositoryEvent, productDailyStatsRepository,
+                Clock.fixed(NOW, ZoneOffset.UTC), meterRegistry, 2);
+    }
+
+    @Nested
+    @DisplayName("Průběžná aktualizace")
+    class ApplyTests {
+
+        @Test
+        @DisplayName("Měl by sečíst dávku po produktu a dni včetně tržeb")
+        void shouldAggregateByProductAndDay() {
+            // Given
+            List<UserEvent> events = List.of(
+                    view(1L, "2026-03-01T23:59:00Z"),
+                    view(1L, "2026-03-02T00:01:00Z"),
+                    view(1L, "2026-03-02T08:00:00Z"),
+                    purchase(1L, "2026-03-02T09:00:00Z", 100.0, 3),
+                    purchase(1L, "2026-03-02T09:30:00Z", 50.0, null),
+                    view(null, "2026-03-02T09:00:00Z"));
+
+            // When
+            Map<String, ProductDailyStats> deltas = ProductStatsRollup.aggregate(events);
+
+            // Then
+            assertThat(deltas).containsOnlyKeys("1:2026-03-01", "1:2026-03-02");
+            ProductDailyStats today = deltas.get("1:2026-03-02");
+            assertThat(today.getViews()).isEqualTo(2);
+            assertThat(today.getPurchases()).isEqualTo(2);
+            assertThat(today.getUnits()).isEqualTo(4);
+            assertThat(today.getRevenue()).isEqualTo(350.0);
+            assertThat(deltas.get("1:2026-03-01").getViews()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Měl by poslat jeden upsert za produkt a den v jednom bulk požadavku")
+        void shouldUpsertOncePerProductDay() {
+            // Given
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductDailyStats.class))
+                    .thenReturn(bulkOperations);
+
+            // When
+            rollup.onBatchStored(List.of(
+                    view(1L, "2026-03-02T08:00:00Z"),
+                    view(1L, "2026-03-02T08:01:00Z"),
+                    view(2L, "2026-03-02T08:02:00Z")));
+
+            // Then
+            verify(bulkOperations, times(2)).upsert(any(Query.class), any(Update.class));
+            verify(bulkOperations).execute();
+        }
+
+        @Test
+        @DisplayName("Přírůstek by neměl měnit souhrn zapsaný přepočtem")
+        void shouldNotIncrementRebuiltSummary() {
+            // Given
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductDailyStats.class))
+                    .thenReturn(bulkOperations);
+
+            // When
+            rollup.onBatchStored(List.of(view(1L, "2026-03-01T23:00:00Z")));
+
+            // Then
+            verify(bulkOperations).upsert(argThat((Query query) -> query.getQueryObject().toJson()
+                    .contains("\"rebuild\": {\"$exists\": false}")), any(Update.class));
+        }
+
+        @Test
+        @DisplayName("Upsert odmítnutý kvůli přepočtenému souhrnu by se neměl počítat jako selhání")
+        void shouldCountFencedUpsertsSeparately() {
+            // Given - souhrn už zapsal přepočet, upsert narazí na duplicitní _id
+            BulkOperationException fenced = mock(BulkOperationException.class);
+            when(fenced.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "E11000", new BsonDocument(), 0)));
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductDailyStats.class))
+                    .thenReturn(bulkOperations);
+            when(bulkOperations.execute()).thenThrow(fenced);
+
+            // When
+            rollup.onBatchStored(List.of(view(1L, "2026-03-01T23:00:00Z")));
+
+            // Then
+            assertThat(meterRegistry.get("analytics.rollup.fenced").counter().count()).isEqualTo(1.0);
+            assertThat(meterRegistry.get("analytics.rollup.failed").counter().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("Dávka bez produktů by neměla volat DB")
+        void shouldSkipBatchWithoutProducts() {
+            rollup.onBatchStored(List.of(view(null, "2026-03-02T08:00:00Z")));
+
+            verifyNoInteractions(mongoTemplate);
+        }
+
+        @Test
+        @DisplayName("Chyba DB by se měla jen započítat, ne propagovat")
+        void shouldSwallowFailure() {
+            // Given
+            when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(ProductDailyStats.class)))
+                    .thenThrow(new IllegalStateException("mongo down"));
+
+            // When
+            rollup.onBatchStored(List.of(view(1L, "2026-03-02T08:00:00Z")));
+
+            // Then
+            assertThat(meterRegistry.get("analytics.rollup.failed").counter().count()).isEqualTo(1.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Přepočet")
+    class RebuildTests {
+
+        @Test
+        @DisplayName("Měl by nejdřív zapsat nové souhrny a teprve potom smazat ty, které přepočet nezapsal")
+        void shouldReplaceRangeWithAggregation() {
+            // Given
+            ProductDailyStats stats = new ProductDailyStats();
+            stats.setId("1:2026-02-28");
+            when(userRepositoryEvent.aggregateDailyStats(
+                    Instant.parse("2026-02-27T00:00:00Z"), Instant.parse("2026-03-01T00:00:00Z")))
+                    .thenReturn(List.of(stats));
+
+            // When
+            int rebuilt = rollup.rebuild(LocalDate.parse("2026-02-27"), LocalDate.parse("2026-02-28"));
+
+            // Then
+            assertThat(rebuilt).isEqualTo(1);
+            assertThat(stats.getRebuild()).isNotBlank();
+            InOrder inOrder = inOrder(productDailyStatsRepository);
+            inOrder.verify(productDailyStatsRepository).saveAll(List.of(stats));
+            inOrder.verify(productDailyStatsRepository)
+                    .deleteStaleInDayRange("2026-02-27", "2026-02-28", stats.getRebuild());
+        }
+
+        @Test
+        @DisplayName("Noční kontrola by měla přepočítat poslední uzavřené dny")
+        void shouldReconcileRecentClosedDays() {
+            // Given
+            when(userRepositoryEvent.aggregateDailyStats(
+                    Instant.parse("2026-02-28T00:00:00Z"), Instant.parse("2026-03-02T00:00:00Z")))
+                    .thenReturn(List.of());
+
+            // When
+            rollup.reconcileRecentDays();
+
+            // Then
+            verify(productDailyStatsRepository).deleteStaleInDayRange(eq("2026-02-28"), eq("2026-03-01"), any());
+        }
+
+        @Test
+        @DisplayName("Neměl by dovolit přepočet dnešního dne")
+        void shouldRejectOpenDay() {
+            assertThatThrownBy(() -> rollup.rebuild(LocalDate.parse("2026-03-01"), LocalDate.parse("2026-03-02")))
+                    .isInstanceOf(IllegalArgumentException.class);
+            verifyNoInteractions(productDailyStatsRepository);
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private static UserEvent view(Long productId, String timestamp) {
+        UserEvent event = new UserEvent();
+        event.setEventType("VIEW");
+        event.setProductId(productId);
+        event.setTimestamp(Instant.parse(timestamp));
+        return event;
+    }
+
+    private static UserEvent purchase(Long productId, String timestamp, Double price, Integer quantity) {
+        UserEvent event = view(productId, timestamp);
+        event.setEventType("PURCHASE");
+        event.setPriceAtEvent(price);
+        event.setQuantity(quantity);
+        return event;
+    }
+}
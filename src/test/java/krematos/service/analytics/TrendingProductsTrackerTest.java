@@ -0,0 +1,264 @@
+package krematos.service.analytics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import krematos.dto.TrendingProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit testy pro TrendingProductsTracker a SpaceSavingSummary.
+ */
+@DisplayName("TrendingProductsTracker Tests")
+class TrendingProductsTrackerTest {
+
+    private static final Instant START = Instant.parse("2026-03-02T10:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private MutableClock clock;
+    private ObjectMapper objectMapper;
+    private TrendingProductsTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        tracker = newTracker();
+    }
+
+    @Nested
+    @DisplayName("Žebříček")
+    class RankingTests {
+
+        @Test
+        @DisplayName("Měl by seřadit produkty podle počtu zobrazení")
+        void shouldRankByViews() {
+            // Given
+            view(1L, 3);
+            view(2L, 5);
+            view(3L, 1);
+
+            // When
+            tracker.refreshRankings();
+
+            // Then
+            assertThat(tracker.getTopProducts(TrendingWindow.LAST_HOUR, 2)).containsExactly(
+                    new TrendingProductDTO(2L, 5),
+                    new TrendingProductDTO(1L, 3));
+        }
+
+        @Test
+        @DisplayName("Staré úseky by měly vypadnout z kratšího okna, ale zůstat v delším")
+        void shouldExpireOldBucketsPerWindow() {
+            // Given
+            view(1L, 10);
+            clock.advance(Duration.ofHours(2));
+            view(2L, 1);
+
+            // When
+            tracker.refreshRankings();
+
+            // Then
+            assertThat(tracker.getTopProducts(TrendingWindow.LAST_HOUR, 10))
+                    .extracting(TrendingProductDTO::productId).containsExactly(2L);
+            assertThat(tracker.getTopProducts(TrendingWindow.LAST_DAY, 10))
+                    .extracting(TrendingProductDTO::productId).containsExactly(1L, 2L);
+        }
+
+        @Test
+        @DisplayName("Před prvním přepočtem by měl vrátit prázdný seznam")
+        void shouldReturnEmptyBeforeRefresh() {
+            view(1L, 1);
+
+            assertThat(tracker.getTopProducts(TrendingWindow.LAST_WEEK, 10)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Měl by přežít restart díky snímku")
+        void shouldRestoreFromSnapshot() {
+            // Given
+            view(7L, 4);
+            view(8L, 2);
+            tracker.saveSnapshot();
+
+            // When
+            TrendingProductsTracker restarted = newTracker();
+            restarted.restoreSnapshot();
+
+            // Then
+            assertThat(restarted.getTopProducts(TrendingWindow.LAST_DAY, 10)).containsExactly(
+                    new TrendingProductDTO(7L, 4),
+                    new TrendingProductDTO(8L, 2));
+        }
+
+        @Test
+        @DisplayName("Neznámé okno by mělo vyhodit IllegalArgumentException")
+        void shouldRejectUnknownWindow() {
+            assertThat(TrendingWindow.fromCode("7D")).isEqualTo(TrendingWindow.LAST_WEEK);
+            assertThatThrownBy(() -> TrendingWindow.fromCode("30d"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Souběh a kapacita")
+    class ConcurrencyAndCapacityTests {
+
+        @Test
+        @DisplayName("Souběžná zobrazení by se měla započítat přesně")
+        void shouldCountConcurrentViewsExactly() throws InterruptedException {
+            // Given
+            int threads = 8;
+            int viewsPerThread = 5_000;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < viewsPerThread; i++) {
+                        tracker.recordView(i % 4);
+                    }
+                    return null;
+                });
+            }
+
+            // When
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+            tracker.refreshRankings();
+
+            // Then
+            long expected = (long) threads * viewsPerThread / 4;
+            assertThat(tracker.getTopProducts(TrendingWindow.LAST_HOUR, 10))
+                    .extracting(TrendingProductDTO::views)
+                    .containsExactly(expected, expected, expected, expected);
+        }
+
+        @Test
+        @DisplayName("Záplava jednorázových ID by neměla zvětšit paměť ani zastínit rostoucí produkt")
+        void shouldStayBoundedAndFindRisingProduct() {
+            // Given - 50 000 různých ID, pak nový populární produkt uprostřed dalšího šumu
+            tracker = new TrendingProductsTracker(clock, objectMapper, directory.resolve("trending.json"), 100, 10_000);
+            long junk = 1_000_000;
+            for (int i = 0; i < 50_000; i++) {
+                tracker.recordView(junk++);
+            }
+            for (int i = 0; i < 20_000; i++) {
+                tracker.recordView(i % 10 == 0 ? 7L : junk++);
+            }
+
+            // When
+            tracker.refreshRankings();
+
+            // Then - sledovaných produktů je nejvýše kapacita (zaokrouhlená na pruhy)
+            List<TrendingProductDTO> ranking = tracker.getTopProducts(TrendingWindow.LAST_HOUR, 10_000);
+            assertThat(ranking).hasSizeLessThanOrEqualTo(
+                    TrendingProductsTracker.STRIPES * ((100 + TrendingProductsTracker.STRIPES - 1) / TrendingProductsTracker.STRIPES));
+            assertThat(ranking.get(0).productId()).isEqualTo(7L);
+            assertThat(ranking.get(0).views()).isGreaterThanOrEqualTo(2_000);
+        }
+    }
+
+    @Nested
+    @DisplayName("Space-Saving")
+    class SpaceSavingTests {
+
+        @Test
+        @DisplayName("Měl by najít časté prvky i s malou kapacitou")
+        void shouldFindHeavyHitters() {
+            // Given - 3 populární produkty v šumu 10 000 náhodných
+            SpaceSavingSummary summary = new SpaceSavingSummary(50);
+            Random random = new Random(42);
+            for (int i = 0; i < 100_000; i++) {
+                int roll = random.nextInt(100);
+                long item = roll < 10 ? 1 : roll < 18 ? 2 : roll < 24 ? 3 : 100 + random.nextInt(10_000);
+                summary.offer(item);
+            }
+
+            // Then - počty jsou nadhodnocené nejvýše o chybu
+            assertThat(summary.counters())
+                    .filteredOn(counter -> counter.item() <= 3)
+                    .hasSize(3)
+                    .allSatisfy(counter -> assertThat(counter.count() - counter.error()).isPositive());
+        }
+
+        @Test
+        @DisplayName("Při plné kapacitě by měl nahradit prvek s nejmenším počtem")
+        void shouldReplaceMinimum() {
+            // Given
+            SpaceSavingSummary summary = new SpaceSavingSummary(2);
+            summary.offer(1);
+            summary.offer(1);
+            summary.offer(2);
+
+            // When
+            summary.offer(3);
+
+            // Then
+            assertThat(summary.counters()).containsExactlyInAnyOrder(
+                    new SpaceSavingSummary.Counter(1, 2, 0),
+                    new SpaceSavingSummary.Counter(3, 2, 1));
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private TrendingProductsTracker newTracker() {
+        return new TrendingProductsTracker(clock, objectMapper, directory.resolve("trending.json"), 100, 50);
+    }
+
+    private void view(long productId, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.recordView(productId);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package krematos.service.analytics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import krematos.model.nosql.ProductVisitorSketch;
+import krematos.model.nosql.UserEvent;
+import krematos.repository.ProductVisitorSketchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testy pro UniqueVisitorTracker a HyperLogLog.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UniqueVisitorTracker Tests")
+class UniqueVisitorTrackerTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2026-03-02");
+
+    @Mock
+    private ProductVisitorSketchRepository sketchRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UniqueVisitorTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new UniqueVisitorTracker(sketchRepository, meterRegistry);
+    }
+
+    @Nested
+    @DisplayName("HyperLogLog")
+    class HyperLogLogTests {
+
+        @Test
+        @DisplayName("Velké počty by měl odhadnout v mezích chyby")
+        void shouldEstimateWithinErrorBound() {
+            // Given
+            HyperLogLog sketch = new HyperLogLog();
+            LongStream.range(0, 200_000).forEach(sketch::add);
+
+            // Then - 3σ
+            assertThat((double) sketch.estimate()).isCloseTo(200_000, within(200_000 * 3 * sketch.relativeStandardError()));
+        }
+
+        @Test
+        @DisplayName("Malé počty by měl spočítat téměř přesně a ignorovat opakování")
+        void shouldCountSmallCardinalityExactly() {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int repeat = 0; repeat < 5; repeat++) {
+                LongStream.rangeClosed(1, 100).forEach(sketch::add);
+            }
+
+            assertThat(sketch.estimate()).isBetween(99L, 101L);
+        }
+
+        @Test
+        @DisplayName("Sloučení by mělo odpovídat sjednocení množin")
+        void shouldMergeAsUnion() {
+            // Given - překryv 50 000
+            HyperLogLog first = new HyperLogLog();
+            HyperLogLog second = new HyperLogLog();
+            HyperLogLog union = new HyperLogLog();
+            LongStream.range(0, 100_000).forEach(first::add);
+            LongStream.range(50_000, 150_000).forEach(second::add);
+            LongStream.range(0, 150_000).forEach(union::add);
+
+            // When
+            first.merge(second);
+
+            // Then
+            assertThat(first.toBytes()).isEqualTo(union.toBytes());
+        }
+
+        @Test
+        @DisplayName("Serializace by měla zachovat registry v řídkém i hustém formátu")
+        void shouldRoundTripBothFormats() {
+            HyperLogLog sparse = new HyperLogLog();
+            LongStream.range(0, 50).forEach(sparse::add);
+            HyperLogLog dense = new HyperLogLog();
+            LongStream.range(0, 50_000).forEach(dense::add);
+
+            assertThat(sparse.toBytes()).hasSizeLessThan(200);
+            assertThat(HyperLogLog.fromBytes(sparse.toBytes()).toBytes()).isEqualTo(sparse.toBytes());
+            assertThat(dense.toBytes()).hasSize(2 + (1 << HyperLogLog.DEFAULT_PRECISION));
+            assertThat(HyperLogLog.fromBytes(dense.toBytes()).estimate()).isEqualTo(dense.estimate());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tracker")
+    class TrackerTests {
+
+        @Test
+        @DisplayName("Měl by spojit uložené a neuložené dny a nepočítat anonymní zobrazení")
+        void shouldMergeStoredAndPendingDays() {
+            // Given - včera 1..100 uloženo, dnes 51..150 v paměti
+            HyperLogLog yesterday = new HyperLogLog();
+            LongStream.rangeClosed(1, 100).forEach(yesterday::add);
+            when(sketchRepository.findByProductIdAndDayRange(7L, "2026-03-01", "2026-03-02"))
+                    .thenReturn(List.of(stored(7L, "2026-03-01", yesterday)));
+            tracker.onBatchStored(LongStream.rangeClosed(51, 150).mapToObj(user -> view(7L, user)).toList());
+            tracker.onBatchStored(List.of(view(7L, null), view(8L, 1L)));
+
+            // When
+            long estimate = tracker.estimate(7L, DAY.minusDays(1), DAY);
+
+            // Then
+            assertThat(estimate).isBetween(148L, 152L);
+        }
+
+        @Test
+        @DisplayName("Měl by sloučit sketch do uloženého dokumentu a při konfliktu to zkusit znovu")
+        void shouldMergeIntoStoreWithRetry() {
+            // Given
+            HyperLogLog existing = new HyperLogLog();
+            LongStream.rangeClosed(1, 10).forEach(existing::add);
+            when(sketchRepository.findById("7:2026-03-02")).thenReturn(Optional.of(stored(7L, "2026-03-02", existing)));
+            when(sketchRepository.save(any(ProductVisitorSketch.class)))
+                    .thenThrow(new OptimisticLockingFailureException("conflict"))
+                    .thenAnswer(inv -> inv.getArgument(0));
+            tracker.onBatchStored(LongStream.rangeClosed(6, 20).mapToObj(user -> view(7L, user)).toList());
+
+            // When
+            tracker.persist();
+
+            // Then
+            ArgumentCaptor<ProductVisitorSketch> captor = ArgumentCaptor.forClass(ProductVisitorSketch.class);
+            verify(sketchRepository, times(2)).save(captor.capture());
+            assertThat(HyperLogLog.fromBytes(captor.getValue().getSketch()).estimate()).isEqualTo(20);
+        }
+
+        @Test
+        @DisplayName("Neuložený sketch by měl zůstat v paměti pro další pokus")
+        void shouldKeepSketchWhenStoreFails() {
+            // Given
+            when(sketchRepository.findById(anyString())).thenThrow(new IllegalStateException("mongo down"));
+            tracker.onBatchStored(List.of(view(7L, 1L), view(7L, 2L)));
+
+            // When
+            tracker.persist();
+
+            // Then
+            assertThat(tracker.estimate(7L, DAY, DAY)).isEqualTo(2);
+            assertThat(meterRegistry.get("analytics.visitors.persist.failed").counter().count()).isEqualTo(1.0);
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private static UserEvent view(long productId, Long userId) {
+        UserEvent event = new UserEvent();
+        event.setEventType("VIEW");
+        event.setProductId(productId);
+        event.setUserId(userId);
+        event.setTimestamp(Instant.parse("2026-03-02T10:00:00Z"));
+        return event;
+    }
+
+    private static ProductVisitorSketch stored(long productId, String day, HyperLogLog sketch) {
+        ProductVisitorSketch stored = new ProductVisitorSketch();
+        stored.setId(productId + ":" + day);
+        stored.setProductId(productId);
+        stored.setDay(day);
+        stored.setSketch(sketch.toBytes());
+        stored.setVersion(1L);
+        return stored;
+    }
+}
@@ -0,0 +1,93 @@
+package krematos.service.email;
+
+import krematos.model.MailOutboxMessage;
+import krematos.model.enums.MailStatus;
+import krematos.repository.MailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit testy pro EmailService - e-maily se jen zařazují do outboxu.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailService Tests")
+class EmailServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-02T10:00:00Z");
+
+    @Mock
+    private MailOutboxRepository mailOutboxRepository;
+
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        emailService = new EmailService(mailOutboxRepository, templateEngine(true), Clock.fixed(NOW, ZoneOffset.UTC),
+                "https://eshop.example.com/reset-hesla");
+    }
+
+    @Test
+    @DisplayName("Uvítací e-mail by měl být vykreslen ze šablony")
+    void shouldRenderWelcomeTemplate() {
+        // When
+        emailService.sendWelcomeEmail("user@example.com", "<Karel>");
+
+        // Then - proměnná je dosazená a HTML escapovaná
+        ArgumentCaptor<MailOutboxMessage> captor = ArgumentCaptor.forClass(MailOutboxMessage.class);
+        verify(mailOutboxRepository).save(captor.capture());
+        assertThat(captor.getValue().getSubject()).isEqualTo("Vítejte v SecondEL!");
+        assertThat(captor.getValue().getHtmlBody()).contains("Vítejte, <span>&lt;Karel&gt;</span>");
+    }
+
+    @Test
+    @DisplayName("E-mail pro reset hesla by měl mít příjemce, předmět a odkaz s tokenem")
+    void shouldEnqueuePasswordResetEmail() {
+        // When
+        emailService.sendPasswordResetEmail("user@example.com", "token-123");
+
+        // Then
+        ArgumentCaptor<MailOutboxMessage> captor = ArgumentCaptor.forClass(MailOutboxMessage.class);
+        verify(mailOutboxRepository).save(captor.capture());
+        MailOutboxMessage message = captor.getValue();
+        assertThat(message.getRecipient()).isEqualTo("user@example.com");
+        assertThat(message.getSubject()).isEqualTo("Žádost o obnovení hesla");
+        assertThat(message.getHtmlBody())
+                .contains("href=\"https://eshop.example.com/reset-hesla?token=token-123\"")
+                .contains("Obnovení hesla");
+        assertThat(message.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(message.getNextAttemptAt()).isEqualTo(NOW);
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * Engine nastavený jako v aplikaci - šablony z {@code classpath:/templates/}.
+     */
+    static TemplateEngine templateEngine(boolean cacheable) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(cacheable);
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+}
@@ -0,0 +1,56 @@
+package krematos.service.email;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark vykreslení šablony e-mailu pro reset hesla - s cache šablon (jako v aplikaci)
+ * a bez ní (šablona se při každém vykreslení znovu načte a rozparsuje).
+ * <p>
+ * Neběží v běžném buildu; spuštění: {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@DisplayName("Email Template Render Benchmark")
+class EmailTemplateRenderBenchmarkTest {
+
+    private static final int WARM_UP = 2_000;
+    private static final int RENDERS = 20_000;
+
+    @Test
+    @DisplayName("Doba vykreslení s cache a bez cache šablon")
+    void measureRenderTime() {
+        double cached = measure(EmailServiceTest.templateEngine(true));
+        double uncached = measure(EmailServiceTest.templateEngine(false));
+
+        log.info("Šablona {}: s cache {} µs/e-mail, bez cache {} µs/e-mail",
+                EmailService.PASSWORD_RESET_TEMPLATE, String.format("%.1f", cached), String.format("%.1f", uncached));
+        assertThat(cached).isPositive();
+    }
+
+    private static double measure(TemplateEngine engine) {
+        for (int i = 0; i < WARM_UP; i++) {
+            render(engine, i);
+        }
+        long length = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < RENDERS; i++) {
+            length += render(engine, i).length();
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / RENDERS;
+        assertThat(length).isPositive();
+        return micros;
+    }
+
+    private static String render(TemplateEngine engine, int i) {
+        Context context = new Context();
+        context.setVariable("resetUrl", "https://eshop.example.com/reset-hesla?token=" + i);
+        return engine.process(EmailService.PASSWORD_RESET_TEMPLATE, context);
+    }
+}
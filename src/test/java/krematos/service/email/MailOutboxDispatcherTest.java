@@ -0,0 +1,248 @@
+package krematos.service.email;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import krematos.model.MailOutboxMessage;
+import krematos.model.enums.MailStatus;
+import krematos.repository.MailOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testy pro MailOutboxDispatcher proti lokálnímu SMTP serveru ({@link SmtpStub}).
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MailOutboxDispatcher Tests")
+class MailOutboxDispatcherTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-02T10:00:00Z");
+
+    @Mock
+    private MailOutboxRepository outboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SmtpStub smtp;
+    private SimpleMeterRegistry meterRegistry;
+    private MailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new SmtpStub();
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = newDispatcher(smtp.port());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtp.close();
+    }
+
+    @Nested
+    @DisplayName("Odesílání")
+    class SendingTests {
+
+        @Test
+        @DisplayName("Měl by odeslat celou dávku jedním SMTP spojením a odeslané zprávy smazat")
+        void shouldSendBatchOverSingleConnection() {
+            // Given
+            whenDue(message(1L, "a@example.com", 0), message(2L, "b@example.com", 0), message(3L, "c@example.com", 0));
+
+            // When
+            int sent = dispatcher.dispatch();
+
+            // Then
+            assertThat(sent).isEqualTo(3);
+            assertThat(smtp.connections()).isEqualTo(1);
+            assertThat(smtp.messages()).extracting(SmtpStub.ReceivedMessage::recipients)
+                    .containsExactly(List.of("a@example.com"), List.of("b@example.com"), List.of("c@example.com"));
+            assertThat(smtp.messages().get(0).data())
+                    .contains("To: a@example.com", "Subject: Subject 1", "From: noreply@secondel.cz");
+            verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+            verify(outboxRepository, never()).saveAll(anyList());
+            assertThat(meterRegistry.get("mail.outbox.sent").counter().count()).isEqualTo(3.0);
+        }
+
+        @Test
+        @DisplayName("Dávku by měl před odesláním zabrat v samostatné transakci")
+        void shouldClaimBatchBeforeSending() {
+            // Given
+            MailOutboxMessage message = message(1L, "a@example.com", 0);
+            whenDue(message);
+
+            // When
+            dispatcher.dispatch();
+
+            // Then - ostatní instance zprávu do vypršení zápůjčky neuvidí; odesílá se až po commitu
+            assertThat(message.getNextAttemptAt()).isEqualTo(NOW.plus(Duration.ofMinutes(5)));
+            var inOrder = inOrder(outboxRepository, transactionManager);
+            inOrder.verify(outboxRepository).findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    MailStatus.PENDING, NOW, Limit.of(10));
+            inOrder.verify(transactionManager).commit(any());
+            inOrder.verify(outboxRepository).deleteAllByIdInBatch(List.of(1L));
+        }
+
+        @Test
+        @DisplayName("Bez čekajících zpráv by se neměl připojovat k SMTP")
+        void shouldNotConnectWhenNothingIsDue() {
+            // Given
+            whenDue();
+
+            // When
+            int sent = dispatcher.dispatch();
+
+            // Then
+            assertThat(sent).isZero();
+            assertThat(smtp.connections()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Opakování a nedoručitelné zprávy")
+    class RetryTests {
+
+        @Test
+        @DisplayName("Odmítnutá zpráva by měla dostat další pokus s exponenciálním odstupem, ostatní se odešlou")
+        @SuppressWarnings("unchecked")
+        void shouldRetryRejectedMessageWithBackoff() {
+            // Given - třetí pokus: odstup 30 s * 2^2
+            smtp.rejectRecipient("bad@example.com");
+            whenDue(message(1L, "bad@example.com", 2), message(2L, "ok@example.com", 0));
+
+            // When
+            int sent = dispatcher.dispatch();
+
+            // Then
+            assertThat(sent).isEqualTo(1);
+            verify(outboxRepository).deleteAllByIdInBatch(List.of(2L));
+            ArgumentCaptor<List<MailOutboxMessage>> captor = ArgumentCaptor.forClass(List.class);
+            verify(outboxRepository).saveAll(captor.capture());
+            MailOutboxMessage retried = captor.getValue().get(0);
+            assertThat(retried.getAttempts()).isEqualTo(3);
+            assertThat(retried.getStatus()).isEqualTo(MailStatus.PENDING);
+            assertThat(retried.getNextAttemptAt()).isEqualTo(NOW.plusSeconds(120));
+            assertThat(retried.getLastError()).isNotBlank();
+        }
+
+        @Test
+        @DisplayName("Po vyčerpání pokusů by zpráva měla přejít mezi nedoručitelné")
+        @SuppressWarnings("unchecked")
+        void shouldDeadLetterAfterMaxAttempts() {
+            // Given - poslední (8.) pokus
+            smtp.rejectRecipient("bad@example.com");
+            whenDue(message(1L, "bad@example.com", 7));
+
+            // When
+            dispatcher.dispatch();
+
+            // Then
+            ArgumentCaptor<List<MailOutboxMessage>> captor = ArgumentCaptor.forClass(List.class);
+            verify(outboxRepository).saveAll(captor.capture());
+            assertThat(captor.getValue().get(0).getStatus()).isEqualTo(MailStatus.DEAD);
+            assertThat(meterRegistry.get("mail.outbox.dead").counter().count()).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("Neplatná adresa by měla být nedoručitelná hned, bez dalších pokusů")
+        @SuppressWarnings("unchecked")
+        void shouldDeadLetterInvalidAddressImmediately() {
+            // Given
+            whenDue(message(1L, "not an address@", 0));
+
+            // When
+            dispatcher.dispatch();
+
+            // Then
+            ArgumentCaptor<List<MailOutboxMessage>> captor = ArgumentCaptor.forClass(List.class);
+            verify(outboxRepository).saveAll(captor.capture());
+            assertThat(captor.getValue().get(0).getStatus()).isEqualTo(MailStatus.DEAD);
+            assertThat(smtp.connections()).isZero();
+        }
+
+        @Test
+        @DisplayName("Při nedostupném SMTP serveru by měly všechny zprávy zůstat ve frontě")
+        @SuppressWarnings("unchecked")
+        void shouldKeepBatchWhenServerIsDown() throws Exception {
+            // Given
+            smtp.close();
+            whenDue(message(1L, "a@example.com", 0), message(2L, "b@example.com", 0));
+
+            // When
+            int sent = dispatcher.dispatch();
+
+            // Then
+            assertThat(sent).isZero();
+            verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+            ArgumentCaptor<List<MailOutboxMessage>> captor = ArgumentCaptor.forClass(List.class);
+            verify(outboxRepository).saveAll(captor.capture());
+            assertThat(captor.getValue()).allSatisfy(message -> {
+                assertThat(message.getAttempts()).isEqualTo(1);
+                assertThat(message.getNextAttemptAt()).isEqualTo(NOW.plusSeconds(30));
+            });
+        }
+
+        @Test
+        @DisplayName("Odstup by měl být shora omezený")
+        void shouldCapBackoff() {
+            assertThat(dispatcher.backoff(1)).isEqualTo(Duration.ofSeconds(30));
+            assertThat(dispatcher.backoff(4)).isEqualTo(Duration.ofMinutes(4));
+            assertThat(dispatcher.backoff(30)).isEqualTo(Duration.ofHours(1));
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private MailOutboxDispatcher newDispatcher(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        Properties properties = new Properties();
+        properties.setProperty("mail.smtp.connectiontimeout", "2000");
+        properties.setProperty("mail.smtp.timeout", "2000");
+        mailSender.setJavaMailProperties(properties);
+        return new MailOutboxDispatcher(outboxRepository, transactionManager, mailSender, Runnable::run,
+                Clock.fixed(NOW, ZoneOffset.UTC), meterRegistry, "noreply@secondel.cz", 10, 5, 8,
+                Duration.ofSeconds(30), Duration.ofHours(1), Duration.ofMinutes(5));
+    }
+
+    private void whenDue(MailOutboxMessage... messages) {
+        when(outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(MailStatus.PENDING, NOW, Limit.of(10)))
+                .thenReturn(List.of(messages))
+                .thenReturn(List.of());
+    }
+
+    private static MailOutboxMessage message(Long id, String recipient, int attempts) {
+        return MailOutboxMessage.builder()
+                .id(id)
+                .recipient(recipient)
+                .subject("Subject " + id)
+                .htmlBody("<p>Body " + id + "</p>")
+                .status(MailStatus.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(NOW)
+                .createdAt(NOW)
+                .build();
+    }
+}
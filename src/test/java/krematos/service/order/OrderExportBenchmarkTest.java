@@ -0,0 +1,138 @@
+package krematos.service.order;
+
+import krematos.dto.order.OrderSearchCriteria;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Export 1 000 000 objednávek (po jedné položce) - ověřuje, že paměť aplikace během exportu neroste
+ * s počtem objednávek. Halda se měří po GC po každých zapsaných 8 MB výstupu.
+ * <p>
+ * H2 drží v paměti nejvýše {@code MAX_MEMORY_ROWS} řádků seřazeného výsledku, zbytek odkládá na disk
+ * (na PostgreSQL stejnou roli hraje kurzor s {@code fetch_size}).
+ * Neběží v běžném buildu; spuštění: {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:order-export;MAX_MEMORY_ROWS=10000")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OrderExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Data se potvrdí, export běží ve vlastní transakci
+@DisplayName("OrderExportService Benchmark")
+class OrderExportBenchmarkTest {
+
+    private static final int ORDERS = 1_000_000;
+    private static final long SAMPLE_EVERY_BYTES = 8L * 1024 * 1024;
+    private static final long MB = 1024 * 1024;
+    private static final long MAX_HEAP_GROWTH_BYTES = 128 * MB; // Jednorázově: H2 řadí výsledek při spuštění dotazu
+
+    @Autowired
+    private OrderExportService exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Halda během exportu 1M objednávek zůstává konstantní")
+    void heapStaysFlatWhileExportingMillionOrders() throws Exception {
+        // Given
+        long seedStart = System.nanoTime();
+        seed();
+        log.info("Naplnění {} objednávek: {} s", ORDERS, (System.nanoTime() - seedStart) / 1_000_000_000);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = usedHeapAfterGc(memory);
+
+        // When
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream(memory);
+        long start = System.nanoTime();
+        long exported = exportService.export(OrderSearchCriteria.none(), OrderExportFormat.NDJSON, out);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // Then
+        List<Long> samples = out.samples;
+        long peak = samples.stream().mapToLong(Long::longValue).max().orElseThrow();
+        log.info("Export {} objednávek ({} MB NDJSON) za {} s ({} objednávek/s); halda: základ {} MB, "
+                        + "maximum {} MB, vzorky [MB]: {}",
+                exported, out.written / MB, String.format("%.1f", seconds), (long) (exported / seconds),
+                baseline / MB, peak / MB, samples.stream().map(used -> used / MB).toList());
+        assertThat(exported).isEqualTo(ORDERS);
+        assertThat(samples).hasSizeGreaterThan(10);
+        assertThat(peak - baseline).isLessThan(MAX_HEAP_GROWTH_BYTES);
+        // Halda na konci exportu není větší než ve čtvrtině - žádný růst s počtem objednávek
+        assertThat(samples.get(samples.size() - 1) - samples.get(samples.size() / 4)).isLessThan(8 * MB);
+    }
+
+    // --- Helper Methods ---
+
+    private void seed() {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, created_at) "
+                + "SELECT X, 'user' || X, 'hash', 'user' || X || '@example.com', CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(1, 1000)");
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, order_date, total_price) "
+                + "SELECT X, MOD(X, 1000) + 1, DATEADD('SECOND', X, TIMESTAMP WITH TIME ZONE '2025-01-01 00:00:00Z'), 199.90 "
+                + "FROM SYSTEM_RANGE(1, ?)", ORDERS);
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, order_date, product_id, product_name, quantity, price, total_price) "
+                + "SELECT X, X, DATEADD('SECOND', X, TIMESTAMP WITH TIME ZONE '2025-01-01 00:00:00Z'), "
+                + "MOD(X, 500), 'Produkt ' || MOD(X, 500), 2, 99.95, 199.90 "
+                + "FROM SYSTEM_RANGE(1, ?)", ORDERS);
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Výstup, který data zahazuje a po každých {@link #SAMPLE_EVERY_BYTES} změří haldu po GC.
+     */
+    private static final class HeapSamplingOutputStream extends OutputStream {
+
+        private final MemoryMXBean memory;
+        private long written;
+        private long nextSample = SAMPLE_EVERY_BYTES;
+        private final List<Long> samples = new ArrayList<>();
+
+        private HeapSamplingOutputStream(MemoryMXBean memory) {
+            this.memory = memory;
+        }
+
+        @Override
+        public void write(int b) {
+            written++;
+            sampleIfDue();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            written += len;
+            sampleIfDue();
+        }
+
+        private void sampleIfDue() {
+            if (written >= nextSample) {
+                nextSample += SAMPLE_EVERY_BYTES;
+                samples.add(usedHeapAfterGc(memory));
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package krematos.service.order;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import krematos.dto.order.OrderSearchCriteria;
+import krematos.model.Order;
+import krematos.model.OrderItem;
+import krematos.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testy exportu objednávek proti H2 - ověřují dotaz i zápis NDJSON/CSV.
+ */
+@DataJpaTest
+@Import(OrderExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@DisplayName("OrderExportService Tests")
+class OrderExportServiceTest {
+
+    private static final Instant JANUARY = Instant.parse("2026-01-15T10:00:00Z");
+    private static final Instant FEBRUARY = Instant.parse("2026-02-15T10:00:00Z");
+
+    @Autowired
+    private OrderExportService exportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User karel;
+    private User eva;
+    private Order januaryOrder;
+    private Order februaryOrder;
+
+    @BeforeEach
+    void setUp() {
+        karel = entityManager.persist(user("karel"));
+        eva = entityManager.persist(user("eva"));
+        januaryOrder = entityManager.persist(order(karel, JANUARY,
+                item("Telefon", 1, "20000.00"), item("Pouzdro, černé", 2, "250.00")));
+        februaryOrder = entityManager.persist(order(eva, FEBRUARY, item("=HYPERLINK(\"x\")", 1, "10.00")));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Nested
+    @DisplayName("NDJSON")
+    class NdjsonTests {
+
+        @Test
+        @DisplayName("Měl by zapsat jednu objednávku s položkami na řádek, od nejnovější")
+        void shouldWriteOneOrderPerLine() throws Exception {
+            // When
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long exported = exportService.export(OrderSearchCriteria.none(), OrderExportFormat.NDJSON, out);
+
+            // Then
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+            assertThat(exported).isEqualTo(2);
+            assertThat(lines).hasSize(2);
+            JsonNode newest = objectMapper.readTree(lines[0]);
+            assertThat(newest.get("id").asLong()).isEqualTo(februaryOrder.getId());
+            JsonNode january = objectMapper.readTree(lines[1]);
+            assertThat(january.get("username").asText()).isEqualTo("karel");
+            assertThat(january.get("createdAt").asText()).isEqualTo("2026-01-15T10:00:00Z");
+            assertThat(january.get("totalPrice").decimalValue()).isEqualByComparingTo("20500.00");
+            assertThat(january.get("items")).extracting(item -> item.get("productName").asText())
+                    .containsExactly("Telefon", "Pouzdro, černé");
+            assertThat(out.toString(StandardCharsets.UTF_8)).endsWith("\n");
+        }
+
+        @Test
+        @DisplayName("Měl by exportovat jen objednávky odpovídající filtrům")
+        void shouldApplyFilters() throws Exception {
+            // Given
+            OrderSearchCriteria criteria = new OrderSearchCriteria(
+                    Instant.parse("2026-01-01T00:00:00Z"), Instant.parse("2026-02-01T00:00:00Z"),
+                    karel.getId(), new BigDecimal("1000"), null);
+
+            // When
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long exported = exportService.export(criteria, OrderExportFormat.NDJSON, out);
+
+            // Then
+            assertThat(exported).isEqualTo(1);
+            assertThat(objectMapper.readTree(out.toString(StandardCharsets.UTF_8)).get("id").asLong())
+                    .isEqualTo(januaryOrder.getId());
+        }
+
+        @Test
+        @DisplayName("Bez odpovídajících objednávek by měl být výstup prázdný")
+        void shouldWriteNothingWhenNoOrdersMatch() throws Exception {
+            // When
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long exported = exportService.export(new OrderSearchCriteria(null, null, -1L, null, null),
+                    OrderExportFormat.NDJSON, out);
+
+            // Then
+            assertThat(exported).isZero();
+            assertThat(out.size()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("CSV")
+    class CsvTests {
+
+        @Test
+        @DisplayName("Měl by zapsat hlavičku a jeden řádek na položku s escapováním textu")
+        void shouldWriteOneRowPerItem() throws Exception {
+            // When
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long exported = exportService.export(OrderSearchCriteria.none(), OrderExportFormat.CSV, out);
+
+            // Then
+            List<String> lines = List.of(out.toString(StandardCharsets.UTF_8).split("\r\n"));
+            assertThat(exported).isEqualTo(2);
+            assertThat(lines).hasSize(4);
+            assertThat(lines.get(0)).isEqualTo(OrderExportService.CSV_HEADER);
+            assertThat(lines.get(1)).contains(",eva,", ",\"'=HYPERLINK(\"\"x\"\")\",");
+            assertThat(lines.get(3)).startsWith(januaryOrder.getId() + ",2026-01-15T10:00:00Z," + karel.getId() + ",karel,20500.00,")
+                    .contains(",\"Pouzdro, černé\",2,250.00,500.00");
+        }
+    }
+
+    @Test
+    @DisplayName("csvText by měl neutralizovat vzorce a escapovat uvozovky")
+    void shouldEscapeCsvText() {
+        assertThat(OrderExportService.csvText("Telefon")).isEqualTo("Telefon");
+        assertThat(OrderExportService.csvText("a\"b")).isEqualTo("\"a\"\"b\"");
+        assertThat(OrderExportService.csvText("-1")).isEqualTo("'-1");
+        assertThat(OrderExportService.csvText("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        assertThat(OrderExportService.csvText(null)).isEmpty();
+    }
+
+    // --- Helper Methods ---
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password-hash");
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+
+    private static Order order(User user, Instant orderDate, OrderItem... items) {
+        Order order = Order.builder().user(user).orderDate(orderDate).build();
+        for (OrderItem item : items) {
+            order.addOrderItem(item);
+        }
+        return order;
+    }
+
+    private static OrderItem item(String productName, int quantity, String price) {
+        BigDecimal unitPrice = new BigDecimal(price);
+        return OrderItem.builder()
+                .productId((long) productName.length())
+                .productName(productName)
+                .quantity(quantity)
+                .price(unitPrice)
+                .totalPrice(unitPrice.multiply(BigDecimal.valueOf(quantity)))
+                .build();
+    }
+}
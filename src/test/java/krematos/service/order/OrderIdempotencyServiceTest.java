@@ -0,0 +1,326 @@
+package krematos.service.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import krematos.config.AppConfig;
+import krematos.dto.order.CreateOrderRequest;
+import krematos.dto.order.OrderItemRequest;
+import krematos.exception.order.IdempotencyKeyInProgressException;
+import krematos.exception.order.IdempotencyKeyMismatchException;
+import krematos.mapper.OrderMapper;
+import krematos.mapper.OrderMapperImpl;
+import krematos.model.Product;
+import krematos.model.User;
+import krematos.repository.IdempotencyRecordRepository;
+import krematos.repository.ProductRepository;
+import krematos.repository.UserRepository;
+import krematos.service.impl.OrderServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Idempotentní vytváření objednávek proti H2. Služba zapisuje ve vlastních transakcích,
+ * proto test běží bez testovací transakce a data po sobě maže.
+ */
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OrderServiceImpl.class, OrderMapperImpl.class, OrderViewProjector.class,
+        AppConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("OrderIdempotencyService Tests")
+class OrderIdempotencyServiceTest {
+
+    private static final String KEY = "3f6d0c1e-7a52-4b8e-9c1d-2f4e5a6b7c8d";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private OrderIdempotencyService idempotencyService;
+    private User karel;
+    private CreateOrderRequest request;
+
+    @BeforeEach
+    void setUp() {
+        // Vlastní instance - cache odpovědí sdíleného beanu by přežila smazání dat mezi testy
+        idempotencyService = newInstance(Duration.ofSeconds(10));
+        karel = userRepository.save(user("karel"));
+        Product phone = new Product();
+        phone.setName("Telefon");
+        phone.setDescription("Telefon");
+        phone.setCategory("Elektronika");
+        phone.setPrice(new BigDecimal("1000.00"));
+        phone = productRepository.save(phone);
+        request = new CreateOrderRequest(karel.getId(), List.of(new OrderItemRequest(phone.getId(), 2)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("idempotency_keys", "order_views", "analytics_outbox", "order_items", "orders",
+                "products", "user_roles", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Nested
+    @DisplayName("Opakování požadavku")
+    class ReplayTests {
+
+        @Test
+        @DisplayName("Opakovaný požadavek se stejným klíčem by měl vrátit původní objednávku a novou nevytvořit")
+        void shouldReplayStoredResponse() {
+            // Given
+            OrderIdempotencyService.Result first = idempotencyService.createOrder(KEY, request, karel);
+
+            // When
+            OrderIdempotencyService.Result second = idempotencyService.createOrder(KEY, request, karel);
+
+            // Then
+            assertThat(first.replayed()).isFalse();
+            assertThat(second.replayed()).isTrue();
+            assertThat(second.order()).isEqualTo(first.order());
+            assertThat(orders()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Jiná instance (prázdná cache) by měla vrátit odpověď uloženou v DB")
+        void shouldReplayFromDatabaseOnOtherInstance() {
+            // Given
+            OrderIdempotencyService.Result first = idempotencyService.createOrder(KEY, request, karel);
+
+            // When
+            OrderIdempotencyService.Result second = newInstance(Duration.ofSeconds(10)).createOrder(KEY, request, karel);
+
+            // Then - odpověď prošla JSON serializací beze změny
+            assertThat(second.replayed()).isTrue();
+            assertThat(second.order()).isEqualTo(first.order());
+            assertThat(second.order().items()).singleElement()
+                    .satisfies(item -> assertThat(item.totalPrice()).isEqualByComparingTo("2000.00"));
+            assertThat(orders()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Bez klíče by se měla vytvořit nová objednávka pokaždé")
+        void shouldCreateEveryTimeWithoutKey() {
+            // When
+            idempotencyService.createOrder(null, request, karel);
+            idempotencyService.createOrder(null, request, karel);
+
+            // Then
+            assertThat(orders()).isEqualTo(2);
+            assertThat(recordRepository.count()).isZero();
+        }
+
+        @Test
+        @DisplayName("Stejný klíč dvou uživatelů by se neměl ovlivňovat")
+        void shouldScopeKeyToUser() {
+            // Given
+            User eva = userRepository.save(user("eva"));
+
+            // When
+            OrderIdempotencyService.Result karels = idempotencyService.createOrder(KEY, request, karel);
+            OrderIdempotencyService.Result evas = idempotencyService.createOrder(KEY, request, eva);
+
+            // Then
+            assertThat(evas.replayed()).isFalse();
+            assertThat(evas.order().id()).isNotEqualTo(karels.order().id());
+        }
+    }
+
+    @Nested
+    @DisplayName("Konflikty a chyby")
+    class ConflictTests {
+
+        @Test
+        @DisplayName("Stejný klíč s jiným tělem požadavku by měl skončit chybou")
+        void shouldRejectDifferentRequestWithSameKey() {
+            // Given
+            idempotencyService.createOrder(KEY, request, karel);
+            CreateOrderRequest other = new CreateOrderRequest(karel.getId(),
+                    List.of(new OrderItemRequest(request.items().get(0).productId(), 5)));
+
+            // When & Then - z cache i z DB
+            assertThatThrownBy(() -> idempotencyService.createOrder(KEY, other, karel))
+                    .isInstanceOf(IdempotencyKeyMismatchException.class);
+            assertThatThrownBy(() -> newInstance(Duration.ofSeconds(10)).createOrder(KEY, other, karel))
+                    .isInstanceOf(IdempotencyKeyMismatchException.class);
+            assertThat(orders()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Neúspěšný požadavek by měl klíč uvolnit pro další pokus")
+        void shouldReleaseKeyOnFailure() {
+            // Given
+            CreateOrderRequest invalid = new CreateOrderRequest(karel.getId(), List.of(new OrderItemRequest(-1L, 1)));
+
+            // When & Then
+            assertThatThrownBy(() -> idempotencyService.createOrder(KEY, invalid, karel))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(recordRepository.count()).isZero();
+            assertThat(idempotencyService.createOrder(KEY, request, karel).replayed()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Požadavek, který jiná instance nedokončí včas, by měl skončit konfliktem")
+        void shouldTimeOutWhileOtherInstanceProcesses() {
+            // Given - klíč zabraný jinou instancí
+            OrderIdempotencyService.Result first = idempotencyService.createOrder(KEY, request, karel);
+            jdbcTemplate.update("UPDATE idempotency_keys SET response_json = NULL");
+
+            // When & Then
+            assertThatThrownBy(() -> newInstance(Duration.ofMillis(300)).createOrder(KEY, request, karel))
+                    .isInstanceOf(IdempotencyKeyInProgressException.class);
+            assertThat(first.order()).isNotNull();
+            assertThat(orders()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Nedokončený klíč po pádu instance by měl po vypršení zámku převzít další pokus")
+        void shouldTakeOverAbandonedClaim_WhenLeaseExpired() {
+            // Given - klíč zabraný instancí, která spadla před uložením odpovědi i před uvolněním klíče
+            idempotencyService.createOrder(KEY, request, karel);
+            jdbcTemplate.update("DELETE FROM order_views");
+            jdbcTemplate.update("DELETE FROM analytics_outbox");
+            jdbcTemplate.update("DELETE FROM order_items");
+            jdbcTemplate.update("DELETE FROM orders"); // Transakce objednávky se při pádu vrátila
+            jdbcTemplate.update("UPDATE idempotency_keys SET response_json = NULL, claimed_until = ?",
+                    Timestamp.from(Instant.now().minusSeconds(1)));
+
+            // When
+            OrderIdempotencyService.Result retry = newInstance(Duration.ofMillis(300)).createOrder(KEY, request, karel);
+
+            // Then
+            assertThat(retry.replayed()).isFalse();
+            assertThat(orders()).isEqualTo(1);
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM idempotency_keys WHERE response_json IS NOT NULL", Long.class)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Vypršelý klíč by se měl dát použít znovu")
+        void shouldReuseExpiredKey() {
+            // Given
+            idempotencyService.createOrder(KEY, request, karel);
+            jdbcTemplate.update("UPDATE idempotency_keys SET expires_at = ?", Timestamp.from(Instant.now().minusSeconds(1)));
+
+            // When
+            OrderIdempotencyService.Result again = newInstance(Duration.ofSeconds(10)).createOrder(KEY, request, karel);
+
+            // Then
+            assertThat(again.replayed()).isFalse();
+            assertThat(orders()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Klíč delší než 255 znaků by měl být odmítnut")
+        void shouldRejectTooLongKey() {
+            assertThatThrownBy(() -> idempotencyService.createOrder("k".repeat(256), request, karel))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Souběžné duplicity")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("Souběžné požadavky se stejným klíčem by měly vytvořit jedinou objednávku")
+        void shouldCreateSingleOrderForConcurrentDuplicates() throws Exception {
+            // Given
+            int clients = 8;
+            CountDownLatch start = new CountDownLatch(1);
+            Callable<OrderIdempotencyService.Result> call = () -> {
+                start.await();
+                return idempotencyService.createOrder(KEY, request, karel);
+            };
+
+            // When
+            List<OrderIdempotencyService.Result> results;
+            try (ExecutorService executor = Executors.newFixedThreadPool(clients)) {
+                List<Future<OrderIdempotencyService.Result>> futures = IntStream.range(0, clients)
+                        .mapToObj(i -> executor.submit(call))
+                        .toList();
+                start.countDown();
+                results = futures.stream().map(future -> {
+                    try {
+                        return future.get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }).toList();
+            }
+
+            // Then
+            assertThat(orders()).isEqualTo(1);
+            assertThat(results).extracting(result -> result.order().id()).containsOnly(results.get(0).order().id());
+            assertThat(results).filteredOn(result -> !result.replayed()).hasSize(1);
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private OrderIdempotencyService newInstance(Duration waitTimeout) {
+        return new OrderIdempotencyService(orderService, orderMapper, recordRepository, objectMapper,
+                Clock.systemUTC(), transactionManager, Duration.ofHours(24), Duration.ofSeconds(30), waitTimeout,
+                Duration.ofMillis(20), 100);
+    }
+
+    private long orders() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password-hash");
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+}
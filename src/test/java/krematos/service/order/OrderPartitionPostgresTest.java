@@ -0,0 +1,283 @@
+package krematos.service.order;
+
+import jakarta.persistence.EntityManagerFactory;
+import krematos.config.IdSequenceMigration;
+import krematos.config.OrderItemDateMigration;
+import krematos.dto.order.CreateOrderRequest;
+import krematos.dto.order.OrderItemRequest;
+import krematos.dto.order.OrderPageResponse;
+import krematos.dto.order.OrderResponse;
+import krematos.dto.order.OrderSearchCriteria;
+import krematos.mapper.OrderMapperImpl;
+import krematos.model.Product;
+import krematos.model.User;
+import krematos.repository.ProductRepository;
+import krematos.repository.UserRepository;
+import krematos.service.impl.OrderServiceImpl;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Měsíční partice objednávek proti skutečnému PostgreSQL: převod tabulek ve tvaru produkční databáze,
+ * založení partic dopředu, zápis a čtení přes aplikaci, prořezání partic u dotazu na poslední
+ * objednávky a odpojení starých partic do archivu.
+ * <p>
+ * Testcontainers v projektu nejsou - test potřebuje prázdnou databázi a neběží v běžném buildu; spuštění:
+ * {@code mvn test -Ppostgres -Dtest='*PostgresTest' -Dpostgres.url=... -Dpostgres.username=... -Dpostgres.password=...}.
+ */
+@Tag("postgres")
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OrderServiceImpl.class, OrderMapperImpl.class, OrderViewProjector.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Převod partic řídí transakce sám
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@DisplayName("Order partitions (PostgreSQL) Tests")
+class OrderPartitionPostgresTest {
+
+    private static final String ARCHIVE_SCHEMA = "orders_archive_test";
+
+    /**
+     * Tabulky objednávek, jak je Hibernate 6.6 založil pro původní entity ({@code IDENTITY}), plus indexy
+     * přidané později přes {@code ddl-auto=update} - tvar produkční databáze před převodem.
+     */
+    private static final List<String> PRODUCTION_SCHEMA = List.of(
+            "DROP TABLE IF EXISTS order_items, orders CASCADE",
+            "create table order_items (price numeric(38,2) not null, quantity integer not null, "
+                    + "total_price numeric(38,2) not null, id bigint generated by default as identity, "
+                    + "order_id bigint not null, product_id bigint not null, product_name varchar(255) not null, "
+                    + "primary key (id))",
+            "create table orders (total_price numeric(10,2) not null, id bigint generated by default as identity, "
+                    + "order_date timestamp(6) with time zone not null, user_id bigint not null, primary key (id))",
+            "alter table if exists order_items add constraint FKbioxgbv59vetrxe0ejfubep1w "
+                    + "foreign key (order_id) references orders",
+            "alter table if exists orders add constraint FK32ql8ubntj5uh44ph9659tiih "
+                    + "foreign key (user_id) references public.users",
+            "create index if not exists idx_orders_user_id on orders (user_id, id)",
+            "create index if not exists idx_orders_order_date on orders (order_date)");
+
+    private final YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private User karel;
+    private Product phone;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> System.getProperty("postgres.url", "jdbc:postgresql://localhost:5432/estop_test"));
+        registry.add("spring.datasource.username", () -> System.getProperty("postgres.username", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("postgres.password", "postgres"));
+    }
+
+    @BeforeAll
+    void seedProductionShapedOrders() {
+        // Given - původní tabulky s objednávkami ze dvou starších měsíců
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + ARCHIVE_SCHEMA + " CASCADE");
+        PRODUCTION_SCHEMA.forEach(jdbcTemplate::execute);
+        karel = userRepository.save(user("karel"));
+        phone = productRepository.save(product());
+        jdbcTemplate.update("INSERT INTO orders (user_id, order_date, total_price) "
+                + "SELECT ?, CAST(? AS timestamptz) + x * INTERVAL '1 day', 199.90 FROM generate_series(0, 49) x",
+                karel.getId(), OrderPartitionManager.bound(current.minusMonths(3)).replace("'", ""));
+        jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, product_name, quantity, price, total_price) "
+                + "SELECT id, ?, 'Telefon', 2, 99.95, 199.90 FROM orders", phone.getId());
+
+        // Start aplikace: doplnění data položek před Hibernate, Hibernate (ddl-auto=update) přidá index, posun sekvencí
+        new OrderItemDateMigration(jdbcTemplate).migrate();
+        jdbcTemplate.execute("create index if not exists idx_order_items_order_id on order_items (order_id)");
+        new IdSequenceMigration(jdbcTemplate, entityManagerFactory).migrate();
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("S vypnutým převodem by tabulky měl nechat beze změny")
+    void shouldLeaveTablesAlone_WhenDisabled() {
+        // When
+        manager(false, 0).migrate();
+
+        // Then
+        assertThat(relkind(OrderPartitionManager.ORDERS)).isEqualTo("r");
+        assertThat(relkind(OrderPartitionManager.ORDER_ITEMS)).isEqualTo("r");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Převede tabulky na partice a založí měsíce dopředu")
+    void shouldConvertTablesAndCreatePartitionsAhead() {
+        // When
+        manager(true, 0).migrate();
+
+        // Then
+        assertThat(relkind(OrderPartitionManager.ORDERS)).isEqualTo("p");
+        assertThat(relkind(OrderPartitionManager.ORDER_ITEMS)).isEqualTo("p");
+        List<String> expected = new ArrayList<>(List.of("orders_legacy"));
+        for (YearMonth month = current.minusMonths(1); !month.isAfter(current.plusMonths(3)); month = month.plusMonths(1)) {
+            expected.add(OrderPartitionManager.partitionName(OrderPartitionManager.ORDERS, month));
+        }
+        assertThat(partitions(OrderPartitionManager.ORDERS)).containsExactlyElementsOf(expected);
+        assertThat(partitions(OrderPartitionManager.ORDER_ITEMS)).hasSize(expected.size());
+        assertThat(count("orders_legacy")).isEqualTo(50);
+        assertThat(count("order_items_legacy")).isEqualTo(50);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items WHERE order_date IS NULL", Long.class))
+                .isZero();
+        assertThat(jdbcTemplate.queryForList("SELECT pg_get_constraintdef(oid) FROM pg_constraint "
+                + "WHERE conrelid = 'order_items'::regclass AND contype = 'f' AND conparentid = 0", String.class))
+                .containsExactly("FOREIGN KEY (order_id, order_date) REFERENCES orders(id, order_date)");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Nové objednávky se zapíší do partice aktuálního měsíce s ID za původními")
+    void shouldCreateOrdersInCurrentPartition() {
+        // When
+        orderService.createOrder(new CreateOrderRequest(karel.getId(), List.of(new OrderItemRequest(phone.getId(), 1))), karel);
+        orderService.createOrder(new CreateOrderRequest(karel.getId(), List.of(new OrderItemRequest(phone.getId(), 3))), karel);
+
+        // Then
+        String orders = OrderPartitionManager.partitionName(OrderPartitionManager.ORDERS, current);
+        String items = OrderPartitionManager.partitionName(OrderPartitionManager.ORDER_ITEMS, current);
+        assertThat(count(orders)).isEqualTo(2);
+        assertThat(count(items)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(id) FROM " + orders, Long.class))
+                .isGreaterThan(jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders_legacy", Long.class));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Dotaz na objednávky aktuálního měsíce čte jen partici aktuálního měsíce")
+    void shouldScanOnlyCurrentPartition_WhenQueryingRecentOrders() {
+        // Given
+        OrderSearchCriteria thisMonth = new OrderSearchCriteria(
+                current.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC),
+                current.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC), null, null, null);
+
+        // When - pg_stat_xact_* obsahuje i neodeslané čítače dřívějších transakcí, proto rozdíl před/po
+        List<String> scanned = new TransactionTemplate(transactionManager).execute(status -> {
+            Map<String, Long> before = scans();
+            OrderPageResponse page = orderService.findOrders(thisMonth, null, 50);
+            assertThat(page.items()).hasSize(2).allSatisfy(order -> assertThat(order.items()).hasSize(1));
+            Map<String, Long> after = scans();
+            return after.keySet().stream()
+                    .filter(table -> after.get(table) > before.getOrDefault(table, 0L))
+                    .sorted()
+                    .toList();
+        });
+
+        // Then - položky se dohledávají podle order_id (index v každé partici), objednávky jen v aktuální partici
+        assertThat(scanned).filteredOn(table -> table.startsWith(OrderPartitionManager.ORDERS + "_"))
+                .containsExactly(OrderPartitionManager.partitionName(OrderPartitionManager.ORDERS, current));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Partice starší než retence odpojí a přesune do schématu archivu")
+    void shouldDetachPartitionsOlderThanRetention() {
+        // When - retence 1 měsíc: odpojí se vše, co končí nejpozději začátkem minulého měsíce
+        manager(false, 1).migrate();
+
+        // Then
+        assertThat(partitions(OrderPartitionManager.ORDERS)).doesNotContain("orders_legacy")
+                .contains(OrderPartitionManager.partitionName(OrderPartitionManager.ORDERS, current.minusMonths(1)));
+        assertThat(partitions(OrderPartitionManager.ORDER_ITEMS)).doesNotContain("order_items_legacy");
+        assertThat(count("orders")).isEqualTo(2);
+        assertThat(count(ARCHIVE_SCHEMA + ".orders_legacy")).isEqualTo(50);
+        assertThat(count(ARCHIVE_SCHEMA + ".order_items_legacy")).isEqualTo(50);
+        assertThat(orderService.findOrders(OrderSearchCriteria.none(), null, 50).items())
+                .extracting(OrderResponse::items).allSatisfy(items -> assertThat(items).hasSize(1));
+    }
+
+    // --- Helper Methods ---
+
+    private OrderPartitionManager manager(boolean enabled, int retentionMonths) {
+        return new OrderPartitionManager(jdbcTemplate, transactionManager, entityManagerFactory, Clock.systemUTC(),
+                enabled, 3, retentionMonths, ARCHIVE_SCHEMA);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private Map<String, Long> scans() {
+        Map<String, Long> scans = new HashMap<>();
+        jdbcTemplate.query("SELECT relname, seq_scan + COALESCE(idx_scan, 0) AS scans FROM pg_stat_xact_user_tables "
+                        + "WHERE relname LIKE 'orders%' OR relname LIKE 'order_items%'",
+                rs -> { scans.put(rs.getString("relname"), rs.getLong("scans")); });
+        return scans;
+    }
+
+    private String relkind(String table) {
+        return jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE oid = CAST(? AS regclass)",
+                String.class, table);
+    }
+
+    private List<String> partitions(String table) {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = CAST(? AS regclass) ORDER BY c.relname", String.class, table);
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password-hash");
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+
+    private static Product product() {
+        Product product = new Product();
+        product.setName("Telefon");
+        product.setDescription("Telefon");
+        product.setCategory("Elektronika");
+        product.setPrice(new BigDecimal("99.95"));
+        return product;
+    }
+}
@@ -0,0 +1,140 @@
+package krematos.service.product;
+
+import krematos.model.Product;
+import krematos.repository.ProductBulkRepository;
+import krematos.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Archivace neaktivních produktů proti H2. Obrázky se přesouvají synchronně ve vlákně testu, dávka má 2 produkty.
+ */
+@DataJpaTest
+@Import(ProductBulkRepository.class)
+@DisplayName("ProductArchiver Tests")
+class ProductArchiverTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-01T08:00:00Z");
+    private static final Duration ARCHIVE_AFTER = Duration.ofDays(365);
+
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path uploadDir;
+
+    @TempDir
+    private Path archiveDir;
+
+    private ProductArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        archiver = new ProductArchiver(productBulkRepository, transactionManager, Runnable::run,
+                Clock.fixed(NOW, ZoneOffset.UTC), ARCHIVE_AFTER, 2, 10, uploadDir.toString(), archiveDir.toString());
+    }
+
+    @Test
+    @DisplayName("Měl by přesunout dlouho neaktivní produkty i s obrázky do archivu")
+    void shouldArchiveLongInactiveProducts() throws IOException {
+        // Given
+        Files.writeString(uploadDir.resolve("telefon.jpg"), "jpg");
+        Product phone = save("Telefon", false, NOW.minus(Duration.ofDays(400)), "telefon.jpg");
+        Product tablet = save("Tablet", false, NOW.minus(Duration.ofDays(366)));
+        Product cable = save("Kabel", false, NOW.minus(Duration.ofDays(500)), "chybi.jpg"); // Soubor už na disku není
+
+        // When
+        int archived = archiver.archive();
+
+        // Then
+        assertThat(archived).isEqualTo(3);
+        assertThat(productRepository.findAllById(List.of(phone.getId(), tablet.getId(), cable.getId()))).isEmpty();
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM archived_products ORDER BY id", Long.class))
+                .containsExactly(phone.getId(), tablet.getId(), cable.getId());
+        assertThat(jdbcTemplate.queryForObject("SELECT archived_at FROM archived_products WHERE id = ?",
+                Instant.class, phone.getId())).isEqualTo(NOW);
+        assertThat(jdbcTemplate.queryForList("SELECT images_filename FROM archived_product_images ORDER BY product_id",
+                String.class)).containsExactly("telefon.jpg", "chybi.jpg");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_images", Long.class)).isZero();
+        assertThat(uploadDir.resolve("telefon.jpg")).doesNotExist();
+        assertThat(archiveDir.resolve("telefon.jpg")).hasContent("jpg");
+    }
+
+    @Test
+    @DisplayName("Měl by ponechat aktivní a nedávno smazané produkty")
+    void shouldKeepActiveAndRecentlyDeactivatedProducts() throws IOException {
+        // Given
+        Files.writeString(uploadDir.resolve("kniha.jpg"), "jpg");
+        Product active = save("Kniha", true, null, "kniha.jpg");
+        Product recent = save("Notebook", false, NOW.minus(Duration.ofDays(30)));
+
+        // When
+        int archived = archiver.archive();
+
+        // Then
+        assertThat(archived).isZero();
+        assertThat(productRepository.findAllById(List.of(active.getId(), recent.getId()))).hasSize(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM archived_products", Long.class)).isZero();
+        assertThat(uploadDir.resolve("kniha.jpg")).exists();
+    }
+
+    @Test
+    @DisplayName("Měl by uvolnit název archivovaného produktu pro nový produkt")
+    void shouldReleaseNameOfArchivedProduct() {
+        // Given
+        save("Telefon", false, NOW.minus(Duration.ofDays(400)));
+
+        // When
+        archiver.archive();
+        Product replacement = save("Telefon", true, null);
+
+        // Then
+        assertThat(productRepository.findByName("Telefon")).contains(replacement);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM archived_products WHERE name = 'Telefon'",
+                Long.class)).isEqualTo(1);
+    }
+
+    // --- Helper Methods ---
+
+    private Product save(String name, boolean active, Instant deactivatedAt, String... images) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setCategory("Elektronika");
+        product.setCurrency("CZK");
+        product.setPrice(new BigDecimal("199.90"));
+        product.setActive(active);
+        product.setDeactivatedAt(deactivatedAt);
+        product.setImages(new ArrayList<>(List.of(images)));
+        return productRepository.saveAndFlush(product);
+    }
+}
@@ -0,0 +1,238 @@
+package krematos.service.product;
+
+import krematos.dto.product.ProductBulkUpdateRequest;
+import krematos.dto.product.ProductBulkUpdateResponse;
+import krematos.dto.product.ProductChangeResponse;
+import krematos.mapper.ProductMapperImpl;
+import krematos.model.Product;
+import krematos.model.ProductChange;
+import krematos.repository.ProductBulkRepository;
+import krematos.repository.ProductChangeRepository;
+import krematos.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Hromadná změna produktů proti H2. Odpověď vrací nejvýše 2 změny, aby šlo ověřit zkrácení.
+ */
+@DataJpaTest
+@Import({ProductBulkRepository.class, ProductMapperImpl.class})
+@DisplayName("ProductBulkUpdateService Tests")
+class ProductBulkUpdateServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-01T08:00:00Z");
+
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapperImpl productMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ProductBulkUpdateService bulkUpdateService;
+
+    @BeforeEach
+    void setUp() {
+        bulkUpdateService = new ProductBulkUpdateService(productBulkRepository, productChangeRepository,
+                productMapper, Clock.fixed(NOW, ZoneOffset.UTC), 2);
+    }
+
+    @Nested
+    @DisplayName("Změna ceny")
+    class PriceTests {
+
+        @Test
+        @DisplayName("Měl by zlevnit celou kategorii, zaokrouhlit na haléře a nesnížit cenu pod nejnižší platnou")
+        void shouldApplyMultiplierToCategory() {
+            // Given
+            Product phone = save("Telefon", "Elektronika", "199.90", true);
+            Product cable = save("Kabel", "Elektronika", "0.05", true);
+            Product book = save("Kniha", "Knihy", "299.00", true);
+
+            // When
+            ProductBulkUpdateResponse response = bulkUpdateService.update(
+                    request("Elektronika", null, "0.15", null, null), "admin");
+
+            // Then
+            assertThat(response.affected()).isEqualTo(2);
+            assertThat(price(phone)).isEqualByComparingTo("29.99"); // 29.985
+            assertThat(price(cable)).isEqualByComparingTo(Product.MIN_PRICE); // 0.0075 -> 0.01, entita chce víc
+            assertThat(price(book)).isEqualByComparingTo("299.00");
+            assertThat(response.changes()).first().satisfies(change -> {
+                assertThat(change.productId()).isEqualTo(phone.getId());
+                assertThat(change.oldPrice()).isEqualByComparingTo("199.90");
+                assertThat(change.newPrice()).isEqualByComparingTo("29.99");
+            });
+        }
+
+        @Test
+        @DisplayName("Měl by nastavit pevnou cenu jen produktům ze zadaných ID v kategorii")
+        void shouldSetFixedPriceForIntersection() {
+            // Given
+            Product phone = save("Telefon", "Elektronika", "199.90", true);
+            Product tablet = save("Tablet", "Elektronika", "499.90", true);
+            Product book = save("Kniha", "Knihy", "299.00", true);
+
+            // When
+            ProductBulkUpdateResponse response = bulkUpdateService.update(
+                    request("Elektronika", List.of(phone.getId(), book.getId()), null, "149.00", null), "admin");
+
+            // Then
+            assertThat(response.affected()).isEqualTo(1);
+            assertThat(price(phone)).isEqualByComparingTo("149.00");
+            assertThat(price(tablet)).isEqualByComparingTo("499.90");
+            assertThat(price(book)).isEqualByComparingTo("299.00");
+        }
+    }
+
+    @Nested
+    @DisplayName("Změna aktivity a audit")
+    class ActiveTests {
+
+        @Test
+        @DisplayName("Měl by deaktivovat produkty podle ID a nezapočítat už neaktivní")
+        void shouldDeactivateByIds() {
+            // Given
+            Product phone = save("Telefon", "Elektronika", "199.90", true);
+            Product tablet = save("Tablet", "Elektronika", "499.90", false);
+
+            // When
+            ProductBulkUpdateResponse response = bulkUpdateService.update(
+                    request(null, List.of(phone.getId(), tablet.getId()), null, null, false), "admin");
+
+            // Then
+            assertThat(response.affected()).isEqualTo(1);
+            assertThat(response.changes()).extracting(ProductChangeResponse::productId).containsExactly(phone.getId());
+            assertThat(jdbcTemplate.queryForObject("SELECT active FROM products WHERE id = ?",
+                    Boolean.class, phone.getId())).isFalse();
+            assertThat(jdbcTemplate.queryForObject("SELECT deactivated_at FROM products WHERE id = ?",
+                    Instant.class, phone.getId())).isEqualTo(NOW);
+        }
+
+        @Test
+        @DisplayName("Měl by zaznamenat audit každé změny a zkrátit seznam v odpovědi")
+        void shouldRecordAuditAndTruncateResponse() {
+            // Given
+            List<Long> ids = List.of(
+                    save("Telefon", "Elektronika", "100.00", true).getId(),
+                    save("Tablet", "Elektronika", "200.00", true).getId(),
+                    save("Notebook", "Elektronika", "300.00", true).getId());
+
+            // When
+            ProductBulkUpdateResponse response = bulkUpdateService.update(
+                    request("Elektronika", null, "1.1", null, false), "admin");
+
+            // Then
+            assertThat(response.affected()).isEqualTo(3);
+            assertThat(response.changes()).hasSize(2);
+            assertThat(response.changesTruncated()).isTrue();
+            List<ProductChange> audit = productChangeRepository.findByBatchIdOrderByProductIdAsc(
+                    response.batchId(), Limit.unlimited());
+            assertThat(audit).extracting(ProductChange::getProductId).containsExactlyElementsOf(ids);
+            assertThat(audit).allSatisfy(change -> {
+                assertThat(change.getChangedBy()).isEqualTo("admin");
+                assertThat(change.getReason()).isEqualTo("Test");
+                assertThat(change.getChangedAt()).isEqualTo(NOW);
+                assertThat(change.isOldActive()).isTrue();
+                assertThat(change.isNewActive()).isFalse();
+            });
+        }
+
+        @Test
+        @DisplayName("Měl by vrátit nulu, když se nic nemění")
+        void shouldReturnZero_WhenNothingChanges() {
+            // Given
+            save("Telefon", "Elektronika", "199.90", true);
+
+            // When
+            ProductBulkUpdateResponse response = bulkUpdateService.update(
+                    request("Elektronika", null, null, "199.90", true), "admin");
+
+            // Then
+            assertThat(response.affected()).isZero();
+            assertThat(response.changes()).isEmpty();
+            assertThat(productChangeRepository.count()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Validace")
+    class ValidationTests {
+
+        @Test
+        @DisplayName("Měl by odmítnout změnu bez výběru produktů")
+        void shouldRejectMissingSelector() {
+            assertThatThrownBy(() -> bulkUpdateService.update(request(null, null, "0.9", null, null), "admin"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Měl by odmítnout prázdný seznam ID")
+        void shouldRejectEmptyIds() {
+            assertThatThrownBy(() -> bulkUpdateService.update(request("Elektronika", List.of(), "0.9", null, null), "admin"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Měl by odmítnout požadavek bez změny")
+        void shouldRejectMissingChange() {
+            assertThatThrownBy(() -> bulkUpdateService.update(request("Elektronika", null, null, null, null), "admin"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Měl by odmítnout zároveň cenu i násobitel")
+        void shouldRejectPriceAndMultiplier() {
+            assertThatThrownBy(() -> bulkUpdateService.update(request("Elektronika", null, "0.9", "10.00", null), "admin"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private static ProductBulkUpdateRequest request(String category, List<Long> ids, String multiplier,
+                                                    String price, Boolean active) {
+        return new ProductBulkUpdateRequest(category, ids,
+                multiplier == null ? null : new BigDecimal(multiplier),
+                price == null ? null : new BigDecimal(price), active, "Test");
+    }
+
+    private Product save(String name, String category, String price, boolean active) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setCategory(category);
+        product.setCurrency("CZK");
+        product.setPrice(new BigDecimal(price));
+        product.setActive(active);
+        return productRepository.saveAndFlush(product);
+    }
+
+    private BigDecimal price(Product product) {
+        return jdbcTemplate.queryForObject("SELECT price FROM products WHERE id = ?", BigDecimal.class, product.getId());
+    }
+}
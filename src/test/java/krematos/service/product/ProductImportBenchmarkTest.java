@@ -0,0 +1,150 @@
+package krematos.service.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import krematos.config.JpaConfig;
+import krematos.dto.product.ProductImportStatus;
+import krematos.dto.product.ProductImportStatus.State;
+import krematos.model.Product;
+import krematos.repository.ProductBulkRepository;
+import krematos.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Propustnost zakládání produktů: po jednom přes JPA (jako {@code POST /api/products}, každý ve vlastní
+ * transakci) proti hromadnému importu NDJSON s dávkovým upsertem.
+ * <p>
+ * H2 běží jako TCP server, aby každý příkaz byl skutečná síťová cesta tam a zpět jako u PostgreSQL.
+ * Neběží v běžném buildu; spuštění: {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop") // Pro H2 přes TCP ho Boot sám nezapne
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({JpaConfig.class, ProductBulkRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Product import Benchmark")
+class ProductImportBenchmarkTest {
+
+    private static final int ONE_BY_ONE = 2_000;
+    private static final int IMPORTED = 50_000;
+
+    private static Server server;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void h2Server(DynamicPropertyRegistry registry) throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:product-import;DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Propustnost: produkty po jednom proti hromadnému importu")
+    void compareOneByOneAndBulkImport() throws IOException {
+        // Given
+        String ndjson = IntStream.range(0, IMPORTED)
+                .mapToObj(i -> "{\"name\":\"Import " + i + "\",\"description\":\"Popis " + i
+                        + "\",\"price\":" + (100 + i % 900) + ".90,\"category\":\"Elektronika\",\"currency\":\"CZK\"}")
+                .collect(Collectors.joining("\n"));
+        ProductImportService importService = new ProductImportService(productBulkRepository, objectMapper, validator,
+                new ConcurrentMapCacheManager(), Runnable::run, Clock.systemUTC(), transactionManager,
+                500, 100, DataSize.ofMegabytes(100), Duration.ofHours(1));
+
+        // When
+        long start = System.nanoTime();
+        for (int i = 0; i < ONE_BY_ONE; i++) {
+            productRepository.save(product("Jednotlivě " + i)); // Vlastní transakce repozitáře
+        }
+        double oneByOne = throughput("po jednom (JPA)", ONE_BY_ONE, start);
+
+        start = System.nanoTime();
+        ProductImportStatus status = importService.submit(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ProductImportFormat.NDJSON);
+        double bulk = throughput("hromadný import", IMPORTED, start);
+
+        // Then
+        assertThat(status.state()).isEqualTo(State.COMPLETED);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class))
+                .isEqualTo(ONE_BY_ONE + IMPORTED);
+        assertThat(bulk).isGreaterThan(oneByOne * 5);
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * @return produktů za sekundu
+     */
+    private static double throughput(String name, int products, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double throughput = products / seconds;
+        log.info("Zakládání produktů - {}: {} produktů za {} s, {} produktů/s",
+                name, products, String.format("%.2f", seconds), String.format("%.0f", throughput));
+        return throughput;
+    }
+
+    private static Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setCategory("Elektronika");
+        product.setCurrency("CZK");
+        product.setPrice(new BigDecimal("199.90"));
+        return product;
+    }
+}
@@ -0,0 +1,368 @@
+package krematos.service.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import krematos.dto.product.ProductImportStatus;
+import krematos.dto.product.ProductImportStatus.RowError;
+import krematos.dto.product.ProductImportStatus.State;
+import krematos.exception.ServiceBusyException;
+import krematos.model.Product;
+import krematos.repository.ProductBulkRepository;
+import krematos.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Hromadný import produktů proti H2. Úloha běží synchronně ve vlákně testu, dávka má 2 řádky,
+ * aby i malý vstup prošel několika dávkami.
+ */
+@DataJpaTest
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import(ProductBulkRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Každá dávka se potvrzuje ve vlastní transakci
+@DisplayName("ProductImportService Tests")
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CacheManager cacheManager;
+    private ProductImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager("productsById", "allProducts");
+        importService = newService(Runnable::run, DataSize.ofMegabytes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM product_images");
+        jdbcTemplate.update("DELETE FROM products");
+    }
+
+    @Nested
+    @DisplayName("NDJSON")
+    class NdjsonTests {
+
+        @Test
+        @DisplayName("Měl by vložit nové produkty a existující podle názvu aktualizovat")
+        void shouldInsertNewAndUpdateExistingByName() throws IOException {
+            // Given
+            Product existing = productRepository.save(product("Telefon", "100.00"));
+            existing.getImages().add("telefon.png");
+            productRepository.save(existing);
+
+            // When
+            ProductImportStatus status = importNdjson("""
+                    {"name":"Telefon","description":"Nový popis","price":899.90,"category":"Mobily","currency":"CZK"}
+                    {"name":"Tablet","description":"Tablet","price":"4999","category":"Tablety","active":false}
+                    {"name":"Sluchátka","description":"Sluchátka","price":299,"category":"Audio"}
+                    """);
+
+            // Then
+            assertThat(status.state()).isEqualTo(State.COMPLETED);
+            assertThat(status.processed()).isEqualTo(3);
+            assertThat(status.imported()).isEqualTo(3);
+            assertThat(status.failed()).isZero();
+            assertThat(status.finishedAt()).isNotNull();
+
+            Product updated = productRepository.findByName("Telefon").orElseThrow();
+            assertThat(updated.getId()).isEqualTo(existing.getId());
+            assertThat(updated.getDescription()).isEqualTo("Nový popis");
+            assertThat(updated.getPrice()).isEqualByComparingTo("899.90");
+            assertThat(updated.getCurrency()).isEqualTo("CZK");
+            assertThat(updated.getImages()).containsExactly("telefon.png");
+
+            Product tablet = productRepository.findByName("Tablet").orElseThrow();
+            assertThat(tablet.isActive()).isFalse();
+            assertThat(tablet.getCreatedAt()).isNotNull();
+            assertThat(productRepository.findByName("Sluchátka").orElseThrow().isActive()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Neplatné řádky by měly skončit v chybách s číslem řádku, ostatní se importují")
+        void shouldReportInvalidRowsAndImportTheRest() throws IOException {
+            // When
+            ProductImportStatus status = importNdjson("""
+                    {"name":"Telefon","description":"Telefon","price":899.90,"category":"Mobily"}
+                    {"name":"","description":"Bez názvu","price":-5,"category":"Mobily"}
+                    {"name":"Tablet","description":"Tablet","price":"levný","category":"Tablety"}
+                    [1, 2]
+                    {"name":"Sluchátka","description":"Sluchátka","price":299,"category":"Audio"}
+                    """);
+
+            // Then
+            assertThat(status.state()).isEqualTo(State.COMPLETED);
+            assertThat(status.processed()).isEqualTo(5);
+            assertThat(status.imported()).isEqualTo(2);
+            assertThat(status.failed()).isEqualTo(3);
+            assertThat(status.errors()).extracting(RowError::line).containsExactly(2L, 3L, 4L);
+            assertThat(status.errors().get(0).message()).contains("name:", "price:");
+            assertThat(productRepository.findAll()).extracting(Product::getName)
+                    .containsExactlyInAnyOrder("Telefon", "Sluchátka");
+        }
+
+        @Test
+        @DisplayName("Cenu 0.01 by měl odmítnout stejně jako entita produktu")
+        void shouldRejectPriceAtExclusiveMinimum() throws IOException {
+            // When
+            ProductImportStatus status = importNdjson("""
+                    {"name":"Gumička","description":"Gumička","price":0.01,"category":"Drobnosti"}
+                    {"name":"Sponka","description":"Sponka","price":0.02,"category":"Drobnosti"}
+                    """);
+
+            // Then
+            assertThat(status.state()).isEqualTo(State.COMPLETED);
+            assertThat(status.imported()).isEqualTo(1);
+            assertThat(status.errors()).extracting(RowError::line).containsExactly(1L);
+            assertThat(status.errors().get(0).message()).contains("price:");
+            assertThat(productRepository.findAll()).extracting(Product::getName).containsExactly("Sponka");
+        }
+
+        @Test
+        @DisplayName("Poškozený JSON by měl úlohu ukončit, potvrzené dávky zůstanou")
+        void shouldFailOnMalformedJsonKeepingCommittedChunks() throws IOException {
+            // When
+            ProductImportStatus status = importNdjson("""
+                    {"name":"A","description":"A","price":1,"category":"X"}
+                    {"name":"B","description":"B","price":1,"category":"X"}
+                    {"name":"C","description":"C","price":1,"category":"X"}
+                    {"name":"D", "description":
+                    """);
+
+            // Then
+            assertThat(status.state()).isEqualTo(State.FAILED);
+            assertThat(status.failure()).isNotBlank();
+            assertThat(status.imported()).isEqualTo(2);
+            assertThat(productRepository.count()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Opakovaný název by měl převzít hodnoty z posledního řádku")
+        void shouldKeepLastRowForDuplicateName() throws IOException {
+            // When - duplicita v jedné dávce i napříč dávkami
+            importNdjson("""
+                    {"name":"Telefon","description":"1","price":1,"category":"X"}
+                    {"name":"Telefon","description":"2","price":2,"category":"X"}
+                    {"name":"Telefon","description":"3","price":3,"category":"X"}
+                    """);
+
+            // Then
+            assertThat(productRepository.count()).isEqualTo(1);
+            assertThat(productRepository.findByName("Telefon").orElseThrow().getDescription()).isEqualTo("3");
+        }
+    }
+
+    @Nested
+    @DisplayName("CSV")
+    class CsvTests {
+
+        @Test
+        @DisplayName("Měl by načíst CSV s uvozovkami, BOM a volitelnými sloupci")
+        void shouldImportQuotedCsv() throws IOException {
+            // When
+            ProductImportStatus status = importCsv("\uFEFFName,Description,Price,Category,Currency,Active,Ignored\r\n"
+                    + "Telefon,\"Displej 6,1\"\", \"\"skvělý\"\"\",899.90,Mobily,CZK,true,x\r\n"
+                    + "Tablet,\"Dva\nřádky\",4999,Tablety,,0,x\r\n"
+                    + "\r\n"
+                    + "Sluchátka,Sluchátka,299,Audio,EUR,,x\r\n");
+
+            // Then
+            assertThat(status.state()).isEqualTo(State.COMPLETED);
+            assertThat(status.imported()).isEqualTo(3);
+            assertThat(productRepository.findByName("Telefon").orElseThrow().getDescription())
+                    .isEqualTo("Displej 6,1\", \"skvělý\"");
+            Product tablet = productRepository.findByName("Tablet").orElseThrow();
+            assertThat(tablet.getDescription()).isEqualTo("Dva\nřádky");
+            assertThat(tablet.getCurrency()).isNull();
+            assertThat(tablet.isActive()).isFalse();
+            assertThat(productRepository.findByName("Sluchátka").orElseThrow().isActive()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Chybné řádky by měly mít číslo řádku souboru")
+        void shouldReportInvalidCsvRows() throws IOException {
+            // When
+            ProductImportStatus status = importCsv("name,description,price,category\n"
+                    + "Telefon,\"Víceřádkový\npopis\",899.90,Mobily\n"
+                    + "Tablet,Tablet,levný,Tablety\n"
+                    + "Sluchátka,Sluchátka\n"
+                    + "Reproduktor,Reproduktor,1999,Audio\n");
+
+            // Then
+            assertThat(status.imported()).isEqualTo(2);
+            assertThat(status.errors()).containsExactly(
+                    new RowError(4, "Neplatná cena: levný"),
+                    new RowError(5, "Počet sloupců 2 neodpovídá hlavičce (4)"));
+        }
+
+        @Test
+        @DisplayName("Chybějící povinný sloupec by měl úlohu ukončit")
+        void shouldFailWithoutRequiredColumns() throws IOException {
+            // When
+            ProductImportStatus status = importCsv("name,price\nTelefon,899.90\n");
+
+            // Then
+            assertThat(status.state()).isEqualTo(State.FAILED);
+            assertThat(status.failure()).contains("description", "category");
+            assertThat(productRepository.count()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Úloha")
+    class JobTests {
+
+        @Test
+        @DisplayName("ID importovaných produktů by se neměla krýt s ID přidělenými Hibernate")
+        void shouldNotCollideWithEntityIds() throws IOException {
+            // Given
+            Product before = productRepository.save(product("Před importem", "10.00"));
+
+            // When
+            importNdjson("""
+                    {"name":"A","description":"A","price":1,"category":"X"}
+                    {"name":"B","description":"B","price":1,"category":"X"}
+                    {"name":"C","description":"C","price":1,"category":"X"}
+                    """);
+            Product after = productRepository.save(product("Po importu", "10.00"));
+
+            // Then
+            assertThat(productRepository.findAll()).extracting(Product::getId).doesNotHaveDuplicates().hasSize(5);
+            assertThat(after.getId()).isNotEqualTo(before.getId());
+        }
+
+        @Test
+        @DisplayName("Import by měl vyprázdnit cache produktů")
+        void shouldEvictProductCaches() throws IOException {
+            // Given
+            cacheManager.getCache("productsById").put(1L, "zastaralý");
+            cacheManager.getCache("allProducts").put("0-20", "zastaralý");
+
+            // When
+            importNdjson("""
+                    {"name":"A","description":"A","price":1,"category":"X"}
+                    """);
+
+            // Then
+            assertThat(cacheManager.getCache("productsById").get(1L)).isNull();
+            assertThat(cacheManager.getCache("allProducts").get("0-20")).isNull();
+        }
+
+        @Test
+        @DisplayName("Stav úlohy by měl být dostupný podle ID")
+        void shouldExposeStatusById() throws IOException {
+            // Given
+            ProductImportStatus submitted = importNdjson("""
+                    {"name":"A","description":"A","price":1,"category":"X"}
+                    """);
+
+            // When & Then
+            assertThat(importService.status(submitted.jobId())).get()
+                    .extracting(ProductImportStatus::state, ProductImportStatus::imported)
+                    .containsExactly(State.COMPLETED, 1L);
+            assertThat(importService.status("neexistuje")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Příliš velký import by měl být odmítnut")
+        void shouldRejectTooLargeInput() {
+            // Given
+            ProductImportService limited = newService(Runnable::run, DataSize.ofBytes(10));
+
+            // When & Then
+            assertThatThrownBy(() -> limited.submit(stream("x".repeat(11)), ProductImportFormat.CSV))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Při plné frontě importů by měl vrátit ServiceBusyException")
+        void shouldRejectWhenQueueIsFull() {
+            // Given
+            ProductImportService busy = newService(task -> {
+                throw new RejectedExecutionException("plno");
+            }, DataSize.ofMegabytes(1));
+
+            // When & Then
+            assertThatThrownBy(() -> busy.submit(stream("name\n"), ProductImportFormat.CSV))
+                    .isInstanceOf(ServiceBusyException.class);
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private ProductImportService newService(Executor executor, DataSize maxSize) {
+        return new ProductImportService(productBulkRepository, objectMapper, validator, cacheManager, executor,
+                Clock.systemUTC(), transactionManager, 2, 100, maxSize, Duration.ofHours(1));
+    }
+
+    /**
+     * Executor běží synchronně - vrácený stav je už konečný.
+     */
+    private ProductImportStatus importNdjson(String body) throws IOException {
+        return importService.submit(stream(body), ProductImportFormat.NDJSON);
+    }
+
+    private ProductImportStatus importCsv(String body) throws IOException {
+        return importService.submit(stream(body), ProductImportFormat.CSV);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Product product(String name, String price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(name);
+        product.setCategory("Elektronika");
+        product.setPrice(new BigDecimal(price));
+        product.setImages(new ArrayList<>());
+        return product;
+    }
+}
@@ -0,0 +1,181 @@
+package krematos.service.recommendation;
+
+import krematos.event.OrderCreatedEvent;
+import krematos.repository.OrderItemRepository;
+import krematos.repository.OrderItemRepository.OrderProductRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit testy pro CoPurchaseRecommender a primitivní mapy.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CoPurchaseRecommender Tests")
+class CoPurchaseRecommenderTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-01T03:30:00Z");
+    private static final Instant RECENT = NOW.minusSeconds(60); // V okně přestavby (5 minut)
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    private CoPurchaseRecommender recommender;
+
+    @BeforeEach
+    void setUp() {
+        recommender = new CoPurchaseRecommender(orderItemRepository, Clock.fixed(NOW, ZoneOffset.UTC), 2, 50, 10,
+                Duration.ofMinutes(5));
+    }
+
+    @Nested
+    @DisplayName("Doporučení")
+    class RecommendationTests {
+
+        @Test
+        @DisplayName("Měl by seřadit sousedy podle počtu společných nákupů a omezit je na K")
+        void shouldRankNeighboursByCoPurchaseCount() {
+            // Given
+            recommender.onOrderCreated(new OrderCreatedEvent(1L, List.of(1L, 2L, 3L)));
+            recommender.onOrderCreated(new OrderCreatedEvent(2L, List.of(1L, 3L)));
+            recommender.onOrderCreated(new OrderCreatedEvent(3L, List.of(1L, 3L, 4L)));
+            recommender.onOrderCreated(new OrderCreatedEvent(4L, List.of(1L, 4L)));
+
+            // Then - 3 (3x), 4 (2x), 2 (1x) - K = 2
+            assertThat(recommender.relatedProductIds(1L, 10)).containsExactly(3L, 4L);
+            assertThat(recommender.relatedProductIds(2L, 10)).containsExactly(1L, 3L);
+            assertThat(recommender.relatedProductIds(1L, 1)).containsExactly(3L);
+        }
+
+        @Test
+        @DisplayName("Opakovaný produkt v objednávce by se měl počítat jednou")
+        void shouldIgnoreDuplicateProductsInOrder() {
+            // Given
+            recommender.onOrderCreated(new OrderCreatedEvent(1L, List.of(1L, 1L, 2L)));
+
+            // Then
+            assertThat(recommender.relatedProductIds(1L, 10)).containsExactly(2L);
+            assertThat(recommender.relatedProductIds(9L, 10)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Měl by sestavit matici z order_items po oknech a celých objednávkách")
+        void shouldRebuildFromOrderItems() {
+            // Given - okno 10 objednávek, max ID 15
+            when(orderItemRepository.findMaxOrderId()).thenReturn(15L);
+            when(orderItemRepository.findOrderProducts(0, 10)).thenReturn(List.of(
+                    row(1, 1), row(1, 2), row(5, 1), row(5, 2), row(5, 3)));
+            when(orderItemRepository.findOrderProducts(10, 15)).thenReturn(List.of(row(15, 3), row(15, 2)));
+            recommender.onOrderCreated(new OrderCreatedEvent(1L, List.of(7L, 8L))); // Stará matice se zahodí
+
+            // When
+            recommender.rebuild();
+
+            // Then
+            assertThat(recommender.relatedProductIds(2L, 10)).containsExactly(1L, 3L);
+            assertThat(recommender.relatedProductIds(7L, 10)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Objednávka potvrzená po skenu svého okna by se měla započítat právě jednou")
+        void shouldCountLateCommittedOrderOnce() {
+            // Given - objednávka 7 (nižší ID) se potvrdí až po skenu okna 0..10, 15 už sken viděl
+            CoPurchaseRecommender recommender = new CoPurchaseRecommender(orderItemRepository,
+                    Clock.fixed(NOW, ZoneOffset.UTC), 10, 50, 10, Duration.ofMinutes(5));
+            when(orderItemRepository.findMaxOrderId()).thenReturn(15L);
+            when(orderItemRepository.findOrderProducts(0, 10)).thenReturn(List.of(
+                    row(1, 1), row(1, 4), row(2, 1), row(2, 4)));
+            when(orderItemRepository.findOrderProducts(10, 15)).thenReturn(List.of(
+                    row(15, 1, RECENT), row(15, 2, RECENT)));
+            when(orderItemRepository.findOrderProductsSince(NOW.minus(Duration.ofMinutes(5)))).thenAnswer(invocation -> {
+                // Události během přestavby: 15 už sken viděl, 16 se potvrdí až po dodatečném skenu
+                recommender.onOrderCreated(new OrderCreatedEvent(15L, List.of(1L, 2L)));
+                recommender.onOrderCreated(new OrderCreatedEvent(16L, List.of(1L, 5L)));
+                return List.of(row(7, 1, RECENT), row(7, 3, RECENT), row(15, 1, RECENT), row(15, 2, RECENT));
+            });
+
+            // When
+            recommender.rebuild();
+
+            // Then - 4 (2x), pak 2, 3, 5 (1x); dvakrát započtená 15 by předběhla 4, chybějící 7 nebo 16 by vypadly
+            assertThat(recommender.relatedProductIds(1L, 10)).containsExactly(4L, 2L, 3L, 5L);
+        }
+
+        @Test
+        @DisplayName("Prázdná databáze by neměla matici sestavovat")
+        void shouldHandleNoOrders() {
+            when(orderItemRepository.findMaxOrderId()).thenReturn(null);
+
+            recommender.rebuild();
+
+            verify(orderItemRepository, never()).findOrderProducts(anyLong(), anyLong());
+        }
+    }
+
+    @Nested
+    @DisplayName("LongIntHashMap")
+    class LongIntHashMapTests {
+
+        @Test
+        @DisplayName("Měl by odpovídat HashMap i po zvětšení")
+        void shouldMatchHashMapAcrossResizes() {
+            // Given
+            LongIntHashMap map = new LongIntHashMap();
+            Map<Long, Integer> expected = new HashMap<>();
+            Random random = new Random(7);
+
+            // When
+            for (int i = 0; i < 20_000; i++) {
+                long key = 1 + random.nextInt(5_000);
+                map.addTo(key, 1);
+                expected.merge(key, 1, Integer::sum);
+            }
+
+            // Then
+            assertThat(map.size()).isEqualTo(expected.size());
+            expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+            assertThat(map.get(999_999L)).isZero();
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private static OrderProductRow row(long orderId, long productId) {
+        return row(orderId, productId, NOW.minus(Duration.ofDays(1)));
+    }
+
+    private static OrderProductRow row(long orderId, long productId, Instant orderDate) {
+        return new OrderProductRow() {
+            @Override
+            public Long getOrderId() {
+                return orderId;
+            }
+
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Instant getOrderDate() {
+                return orderDate;
+            }
+        };
+    }
+}